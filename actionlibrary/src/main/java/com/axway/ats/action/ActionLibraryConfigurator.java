@@ -66,6 +66,12 @@ public class ActionLibraryConfigurator extends AbstractConfigurator {
     private static final String              FILE_SNAPSHOT_PROPERTIES_FILE_EXTENSIONS     = "actionlibrary.filesnapshot.properties.file.types";
     private static final String              FILE_SNAPSHOT_INI_FILE_EXTENSIONS            = "actionlibrary.filesnapshot.ini.file.types";
     private static final String              FILE_SNAPSHOT_TEXT_FILE_EXTENSIONS           = "actionlibrary.filesnapshot.text.file.types";
+    private static final String              FILE_SNAPSHOT_THREADS                        = "actionlibrary.filesnapshot.threads";
+    private static final String              FILE_SNAPSHOT_FAST_CHECKSUM                  = "actionlibrary.filesnapshot.checksum.fast";
+    private static final String              FILE_SNAPSHOT_CHECKSUM_CACHE_FILE            = "actionlibrary.filesnapshot.checksum.cache.file";
+
+    private static final String              DB_SNAPSHOT_THREADS                          = "actionlibrary.dbsnapshot.threads";
+    private static final String              DB_SNAPSHOT_SAVE_BINARY                      = "actionlibrary.dbsnapshot.save.binary";
 
     private static final String              REST_DEFAULT_REQUEST_MEDIA_TYPE              = "actionlibrary.rest.default.request.media.type";
     private static final String              REST_DEFAULT_REQUEST_MEDIA_CHARSET           = "actionlibrary.rest.default.request.media.charset";
@@ -80,10 +86,18 @@ public class ActionLibraryConfigurator extends AbstractConfigurator {
     private static final String              REST_KEEP_REQUEST_HEADERS                    = "actionlibrary.rest.keep.request.headers";
     private static final String              REST_KEEP_REQUEST_PARAMETERS                 = "actionlibrary.rest.keep.request.parameters";
 
+    private static final String              REST_POOL_MAX_TOTAL_CONNECTIONS              = "actionlibrary.rest.pool.max.total.connections";
+    private static final String              REST_POOL_MAX_ROUTE_CONNECTIONS              = "actionlibrary.rest.pool.max.route.connections";
+    private static final String              REST_POOL_IDLE_TIMEOUT                       = "actionlibrary.rest.pool.idle.timeout";
+    private static final String              REST_ASYNC_THREADS                           = "actionlibrary.rest.async.threads";
+
     private static final String              HTTP_KEEP_REQUEST_HEADERS                    = "actionlibrary.http.keep.request.headers";
     private static final String              HTTP_KEEP_REQUEST_PARAMETERS                 = "actionlibrary.http.keep.request.parameters";
     private static final String              HTTP_KEEP_REQUEST_BODY                       = "actionlibrary.http.keep.request.body";
 
+    private static final String              HTTP_ASYNC_IO_THREADS                        = "actionlibrary.http.async.io.threads";
+    private static final String              HTTP_ASYNC_MAX_CONNECTIONS                   = "actionlibrary.http.async.max.connections";
+
     public FileSnapshots                     snapshots                                    = new FileSnapshots();
 
     /**
@@ -605,6 +619,124 @@ public void setRestKeepRequestParameters(
         setTempProperty(REST_KEEP_REQUEST_PARAMETERS, Boolean.toString(keepRequestParameters));
     }
 
+    /**
+     * @return the maximum number of connections in each of the connection pools shared by the REST clients
+     */
+    @PublicAtsApi
+    public int getRestPoolMaxTotalConnections() {
+
+        try {
+            return getIntegerProperty(REST_POOL_MAX_TOTAL_CONNECTIONS);
+        } catch (NoSuchPropertyException nspe) {
+            return 200;
+        }
+    }
+
+    /**
+     * Set the maximum number of connections in each of the connection pools shared by the REST clients.
+     * It is applied to the pools created after this call.
+     * Default value is 200
+     * @param maxTotalConnections the maximum number of connections
+     */
+    @PublicAtsApi
+    public void setRestPoolMaxTotalConnections( int maxTotalConnections ) {
+
+        if (maxTotalConnections <= 0) {
+            throw new ConfigurationException("The maximum number of REST pool connections must be a positive number, but it is "
+                                             + maxTotalConnections);
+        }
+        setTempProperty(REST_POOL_MAX_TOTAL_CONNECTIONS, Integer.toString(maxTotalConnections));
+    }
+
+    /**
+     * @return the maximum number of connections to one host in the connection pools shared by the REST clients
+     */
+    @PublicAtsApi
+    public int getRestPoolMaxRouteConnections() {
+
+        try {
+            return getIntegerProperty(REST_POOL_MAX_ROUTE_CONNECTIONS);
+        } catch (NoSuchPropertyException nspe) {
+            return 50;
+        }
+    }
+
+    /**
+     * Set the maximum number of connections to one host in the connection pools shared by the REST clients.
+     * It is applied to the pools created after this call.
+     * Default value is 50
+     * @param maxRouteConnections the maximum number of connections to one host
+     */
+    @PublicAtsApi
+    public void setRestPoolMaxRouteConnections( int maxRouteConnections ) {
+
+        if (maxRouteConnections <= 0) {
+            throw new ConfigurationException("The maximum number of REST pool connections per host must be a positive number, but it is "
+                                             + maxRouteConnections);
+        }
+        setTempProperty(REST_POOL_MAX_ROUTE_CONNECTIONS, Integer.toString(maxRouteConnections));
+    }
+
+    /**
+     * @return the time in milliseconds after which an idle connection is closed and removed from
+     * the connection pools shared by the REST clients
+     */
+    @PublicAtsApi
+    public long getRestPoolIdleTimeout() {
+
+        try {
+            return getLongProperty(REST_POOL_IDLE_TIMEOUT);
+        } catch (NoSuchPropertyException nspe) {
+            return 60 * 1000;
+        }
+    }
+
+    /**
+     * Set the time in milliseconds after which an idle connection is closed and removed from
+     * the connection pools shared by the REST clients.
+     * Default value is 60000 (1 minute)
+     * @param idleTimeout the idle timeout in milliseconds
+     */
+    @PublicAtsApi
+    public void setRestPoolIdleTimeout( long idleTimeout ) {
+
+        if (idleTimeout <= 0) {
+            throw new ConfigurationException("The REST pool idle timeout must be a positive number, but it is "
+                                             + idleTimeout);
+        }
+        setTempProperty(REST_POOL_IDLE_TIMEOUT, Long.toString(idleTimeout));
+    }
+
+    /**
+     * @return the maximum number of threads which complete the asynchronous requests of a REST client
+     */
+    @PublicAtsApi
+    public int getRestAsyncThreads() {
+
+        try {
+            return getIntegerProperty(REST_ASYNC_THREADS);
+        } catch (NoSuchPropertyException nspe) {
+            return 50;
+        }
+    }
+
+    /**
+     * Set the maximum number of threads which complete the asynchronous requests of a REST client.
+     * When the connector provider is blocking, this is also the number of requests executed at the same time.
+     * It is applied to the REST clients created after this call.
+     * Default value is 50
+     * @param asyncThreads the maximum number of threads
+     */
+    @PublicAtsApi
+    public void setRestAsyncThreads( int asyncThreads ) {
+
+        if (asyncThreads <= 0) {
+            throw new ConfigurationException("The number of REST async threads must be a positive number, but it is "
+                                             + asyncThreads);
+        }
+        setTempProperty(REST_ASYNC_THREADS, Integer.toString(asyncThreads));
+    }
+
     @PublicAtsApi
     public boolean getHttpKeepRequestHeaders() {
 
@@ -644,6 +776,119 @@ public void setHttpKeepRequestBody(
         setTempProperty(HTTP_KEEP_REQUEST_BODY, Boolean.toString(keepRequestBody));
     }
 
+    /**
+     * @return the number of I/O threads which send and receive the asynchronous requests of a HTTP client
+     */
+    @PublicAtsApi
+    public int getHttpAsyncIoThreads() {
+
+        try {
+            return getIntegerProperty(HTTP_ASYNC_IO_THREADS);
+        } catch (NoSuchPropertyException nspe) {
+            return Runtime.getRuntime().availableProcessors();
+        }
+    }
+
+    /**
+     * Set the number of I/O threads which send and receive the asynchronous requests of a HTTP client.
+     * The requests do not block these threads, so each of them serves many requests at the same time.
+     * It is applied to the HTTP clients created after this call.
+     * Default value is the number of available processors
+     * @param ioThreads the number of I/O threads
+     */
+    @PublicAtsApi
+    public void setHttpAsyncIoThreads( int ioThreads ) {
+
+        if (ioThreads <= 0) {
+            throw new ConfigurationException("The number of HTTP async I/O threads must be a positive number, but it is "
+                                             + ioThreads);
+        }
+        setTempProperty(HTTP_ASYNC_IO_THREADS, Integer.toString(ioThreads));
+    }
+
+    /**
+     * @return the maximum number of connections opened at the same time for the asynchronous requests of
+     * a HTTP client
+     */
+    @PublicAtsApi
+    public int getHttpAsyncMaxConnections() {
+
+        try {
+            return getIntegerProperty(HTTP_ASYNC_MAX_CONNECTIONS);
+        } catch (NoSuchPropertyException nspe) {
+            return 500;
+        }
+    }
+
+    /**
+     * Set the maximum number of connections opened at the same time for the asynchronous requests of
+     * a HTTP client. The requests above this limit wait for a free connection.
+     * It is applied to the HTTP clients created after this call.
+     * Default value is 500
+     * @param maxConnections the maximum number of connections
+     */
+    @PublicAtsApi
+    public void setHttpAsyncMaxConnections( int maxConnections ) {
+
+        if (maxConnections <= 0) {
+            throw new ConfigurationException("The maximum number of HTTP async connections must be a positive number, but it is "
+                                             + maxConnections);
+        }
+        setTempProperty(HTTP_ASYNC_MAX_CONNECTIONS, Integer.toString(maxConnections));
+    }
+
+    /**
+     * @return the number of tables which are compared at the same time when comparing database snapshots
+     */
+    @PublicAtsApi
+    public int getDbSnapshotThreads() {
+
+        try {
+            return getIntegerProperty(DB_SNAPSHOT_THREADS);
+        } catch (NoSuchPropertyException nspe) {
+            return 1;
+        }
+    }
+
+    /**
+     * Set the number of tables which are compared at the same time when comparing database snapshots.
+     * Each of these threads uses its own database connections.
+     * Default value is 1, so the tables are compared one by one
+     * @param dbSnapshotThreads number of threads
+     */
+    @PublicAtsApi
+    public void setDbSnapshotThreads( int dbSnapshotThreads ) {
+
+        if (dbSnapshotThreads <= 0) {
+            throw new ConfigurationException("The number of database snapshot threads must be a positive number, but it is "
+                                             + dbSnapshotThreads);
+        }
+        setTempProperty(DB_SNAPSHOT_THREADS, Integer.toString(dbSnapshotThreads));
+    }
+
+    @PublicAtsApi
+    public boolean getSaveDbSnapshotsInBinaryFormat() {
+
+        try {
+            return getBooleanProperty(DB_SNAPSHOT_SAVE_BINARY);
+        } catch (NoSuchPropertyException nspe) {
+            return false;
+        }
+    }
+
+    /**
+     * Whether to save the database snapshots into compressed binary files instead of XML files.
+     * The table rows of a binary file are not loaded in memory, but are read from the file when needed.
+     * Both file formats can always be loaded.
+     * Default value is false
+     * @param saveInBinaryFormat whether to use the binary format
+     */
+    @PublicAtsApi
+    public void setSaveDbSnapshotsInBinaryFormat( boolean saveInBinaryFormat ) {
+
+        setTempProperty(DB_SNAPSHOT_SAVE_BINARY, Boolean.toString(saveInBinaryFormat));
+    }
+
     /**
      * Settings for file snapshots 
      */
@@ -798,6 +1043,81 @@ public void setCheckTextFilesContent( boolean checkTextFilesContent ) {
                             Boolean.toString(checkTextFilesContent));
         }
 
+        /**
+         * @return the number of threads which read the files when taking a snapshot
+         */
+        @PublicAtsApi
+        public int getSnapshotThreads() {
+
+            try {
+                return getIntegerProperty(FILE_SNAPSHOT_THREADS);
+            } catch (NoSuchPropertyException nspe) {
+                return Runtime.getRuntime().availableProcessors();
+            }
+        }
+
+        /**
+         * Set the number of threads which read the files when taking a snapshot.
+         * Default value is the number of available processors
+         * @param snapshotThreads number of threads
+         */
+        @PublicAtsApi
+        public void setSnapshotThreads( int snapshotThreads ) {
+
+            if (snapshotThreads <= 0) {
+                throw new ConfigurationException("The number of file snapshot threads must be a positive number, but it is "
+                                                 + snapshotThreads);
+            }
+            setTempProperty(FILE_SNAPSHOT_THREADS, Integer.toString(snapshotThreads));
+        }
+
+        @PublicAtsApi
+        public boolean getUseFastChecksum() {
+
+            try {
+                return getBooleanProperty(FILE_SNAPSHOT_FAST_CHECKSUM);
+            } catch (NoSuchPropertyException nspe) {
+                return false;
+            }
+        }
+
+        /**
+         * Whether to calculate CRC32 checksums instead of MD5 sums of the files.
+         * It is much faster, but the compared snapshots must be taken with same setting.
+         * @param useFastChecksum true to use CRC32 checksums
+         */
+        @PublicAtsApi
+        public void setUseFastChecksum( boolean useFastChecksum ) {
+
+            setTempProperty(FILE_SNAPSHOT_FAST_CHECKSUM, Boolean.toString(useFastChecksum));
+        }
+
+        /**
+         * @return the file which keeps the file checksums between snapshots, empty if not set
+         */
+        @PublicAtsApi
+        public String getChecksumCacheFile() {
+
+            String cacheFile = getOptionalProperty(FILE_SNAPSHOT_CHECKSUM_CACHE_FILE);
+            if (StringUtils.isNullOrEmpty(cacheFile)) {
+                return "";
+            } else {
+                return cacheFile;
+            }
+        }
+
+        /**
+         * Set a file which keeps the file checksums between snapshots, so only the changed files are read again.
+         * A file is treated as changed when its size, modification time or inode is changed.
+         * <br>When taking a snapshot on an agent, the path is on the agent host.
+         * @param cacheFile the cache file path
+         */
+        @PublicAtsApi
+        public void setChecksumCacheFile( String cacheFile ) {
+
+            setTempProperty(FILE_SNAPSHOT_CHECKSUM_CACHE_FILE, cacheFile);
+        }
+
         @PublicAtsApi
         public char getIniFilesStartSectionChar() {
 
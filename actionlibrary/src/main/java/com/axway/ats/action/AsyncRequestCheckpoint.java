@@ -0,0 +1,102 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.action;
+
+import java.util.concurrent.TimeUnit;
+
+import com.axway.ats.core.threads.ThreadsPerCaller;
+import com.axway.ats.log.AtsDbLogger;
+import com.axway.ats.log.model.CheckpointResult;
+
+/**
+ * Measures the time of one asynchronous request and logs it as an ATS checkpoint.
+ * <br>The request completes in some thread of the HTTP engine, but the checkpoint is logged on behalf of
+ * the thread which sent the request, so it is assigned to the load queue of that thread.
+ * <br>On an ATS agent the events are accepted only from threads registered for some caller, so the HTTP engine
+ * thread is registered for the caller of the sending thread while logging the checkpoint.
+ * <br>This class is intended for internal usage.
+ */
+public class AsyncRequestCheckpoint {
+
+    private static final AtsDbLogger dbLog = AtsDbLogger.getLogger(AsyncRequestCheckpoint.class.getName(),
+                                                                   true);
+
+    private final String             name;
+    private final String             threadName;
+    private final String             caller;
+    private final long               startTimestamp;
+    private final long               startTime;
+
+    AsyncRequestCheckpoint( String name ) {
+
+        this.name = name;
+        this.threadName = Thread.currentThread().getName();
+        this.caller = ThreadsPerCaller.getCaller();
+        this.startTimestamp = System.currentTimeMillis();
+        this.startTime = System.nanoTime();
+    }
+
+    /**
+     * Start measuring a request. Must be called by the thread which sends the request.
+     *
+     * @param name the checkpoint name, if null no checkpoint is logged
+     * @return the started checkpoint or null if no checkpoint name is provided
+     */
+    public static AsyncRequestCheckpoint start( String name ) {
+
+        if (name == null) {
+            return null;
+        }
+        return new AsyncRequestCheckpoint(name);
+    }
+
+    /**
+     * Log the checkpoint. Can be called from any thread.
+     *
+     * @param transferSize the number of received bytes
+     * @param passed whether the request completed successfully
+     */
+    public void end( long transferSize, boolean passed ) {
+
+        long responseTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        CheckpointResult result = passed
+                                         ? CheckpointResult.PASSED
+                                         : CheckpointResult.FAILED;
+
+        String currentCaller = ThreadsPerCaller.getCaller();
+        if (caller == null || caller.equals(currentCaller)) {
+            // not running on an agent or already running on behalf of the right caller
+            insertCheckpoint(responseTime, transferSize, result);
+            return;
+        }
+
+        ThreadsPerCaller.registerThread(caller);
+        try {
+            insertCheckpoint(responseTime, transferSize, result);
+        } finally {
+            if (currentCaller == null) {
+                ThreadsPerCaller.unregisterThread();
+            } else {
+                ThreadsPerCaller.registerThread(currentCaller);
+            }
+        }
+    }
+
+    void insertCheckpoint( long responseTime, long transferSize, CheckpointResult result ) {
+
+        dbLog.insertCheckpoint(name, startTimestamp, responseTime, transferSize, "bytes", threadName, result);
+    }
+}
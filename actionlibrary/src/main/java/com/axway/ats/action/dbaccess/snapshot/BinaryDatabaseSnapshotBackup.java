@@ -0,0 +1,410 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.action.dbaccess.snapshot;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.w3c.dom.Document;
+
+import com.axway.ats.common.dbaccess.snapshot.DatabaseSnapshotException;
+import com.axway.ats.common.dbaccess.snapshot.TableDescription;
+import com.axway.ats.common.dbaccess.snapshot.TableRowsLoader;
+import com.axway.ats.core.utils.IoUtils;
+
+/**
+ * A database snapshot saved into a compressed binary file.
+ * <br>The file consists of:
+ * <ul>
+ * <li>header - the file type and format version</li>
+ * <li>the rows of each table, split into compressed chunks</li>
+ * <li>the compressed snapshot meta data as XML, the same as in the XML backup files, but without the table rows</li>
+ * <li>index - the position of the meta data and of the rows of each table</li>
+ * <li>the position of the index</li>
+ * </ul>
+ * Only the meta data and the index are loaded in memory. The rows of a table are read from the file
+ * chunk by chunk each time they are needed.
+ */
+class BinaryDatabaseSnapshotBackup extends DatabaseSnapshotBackup {
+
+    private static Logger                 log            = LogManager.getLogger(BinaryDatabaseSnapshotBackup.class);
+
+    private static final String           FILE_HEADER    = "ATS_DB_SNAPSHOT";
+    private static final int              FILE_VERSION   = 1;
+
+    // the max number of rows and the max size(in bytes) of the rows in a chunk
+    private static final int              MAX_CHUNK_ROWS = 1000;
+    private static final int              MAX_CHUNK_SIZE = 1024 * 1024;
+
+    private final String                  file;
+
+    // < table name(in lower case), where the table rows are >
+    private final Map<String, TableIndex> tableIndexes;
+
+    private BinaryDatabaseSnapshotBackup( String file, Document document, Map<String, TableIndex> tableIndexes ) {
+
+        super(document);
+
+        this.file = file;
+        this.tableIndexes = tableIndexes;
+    }
+
+    /**
+     * @param file the backup file
+     * @return whether this is a binary backup file
+     */
+    static boolean isBinaryBackupFile( String file ) {
+
+        DataInputStream input = null;
+        try {
+            input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            return FILE_HEADER.equals(input.readUTF());
+        } catch (IOException e) {
+            // for example a XML file shorter than our header
+            return false;
+        } finally {
+            IoUtils.closeStream(input);
+        }
+    }
+
+    /**
+     * Load the snapshot meta data and the table index from a binary backup file.
+     * The table rows are not loaded.
+     *
+     * @param file the backup file
+     */
+    static BinaryDatabaseSnapshotBackup load( String file ) {
+
+        RandomAccessFile randomAccessFile = null;
+        try {
+            randomAccessFile = new RandomAccessFile(file, "r");
+            if (!FILE_HEADER.equals(randomAccessFile.readUTF())) {
+                throw new DatabaseSnapshotException(file + " is not a binary database snapshot backup file");
+            }
+            int version = randomAccessFile.readInt();
+            if (version != FILE_VERSION) {
+                throw new DatabaseSnapshotException("Database snapshot backup file " + file + " is of version "
+                                                    + version + ", but we support version " + FILE_VERSION);
+            }
+
+            // read the index
+            randomAccessFile.seek(randomAccessFile.length() - 8);
+            randomAccessFile.seek(randomAccessFile.readLong());
+
+            long metadataPosition = randomAccessFile.readLong();
+            int numberTables = randomAccessFile.readInt();
+            Map<String, TableIndex> tableIndexes = new HashMap<>();
+            for (int i = 0; i < numberTables; i++) {
+                String table = randomAccessFile.readUTF();
+                tableIndexes.put(table.toLowerCase(), new TableIndex(randomAccessFile.readLong(),
+                                                                     randomAccessFile.readInt(),
+                                                                     randomAccessFile.readInt()));
+            }
+
+            // read the meta data
+            randomAccessFile.seek(metadataPosition);
+            byte[] metadata = new byte[randomAccessFile.readInt()];
+            randomAccessFile.readFully(metadata);
+            Document document = DocumentBuilderFactory.newInstance()
+                                                      .newDocumentBuilder()
+                                                      .parse(new InflaterInputStream(new ByteArrayInputStream(metadata)));
+            document.getDocumentElement().normalize();
+
+            return new BinaryDatabaseSnapshotBackup(file, document, tableIndexes);
+        } catch (DatabaseSnapshotException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new DatabaseSnapshotException("Error reading database snapshot backup file " + file, e);
+        } finally {
+            IoUtils.closeStream(randomAccessFile);
+        }
+    }
+
+    @Override
+    void loadTableRows( String snapshotName, TableDescription table, TableRowsLoader.RowHandler rowHandler ) {
+
+        TableIndex tableIndex = getTableIndex(table);
+
+        // each call uses its own file stream, so the tables can be loaded in parallel
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(Paths.get(file));
+            channel.position(tableIndex.position);
+            DataInputStream input = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+
+            for (int i = 0; i < tableIndex.numberChunks; i++) {
+                int numberRows = input.readInt();
+                byte[] chunk = new byte[input.readInt()];
+                input.readFully(chunk);
+
+                DataInputStream chunkInput = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(chunk)));
+                for (int j = 0; j < numberRows; j++) {
+                    byte[] row = new byte[chunkInput.readInt()];
+                    chunkInput.readFully(row);
+                    rowHandler.handleRow(new String(row, StandardCharsets.UTF_8));
+                }
+            }
+        } catch (EOFException e) {
+            throw new DatabaseSnapshotException("Database snapshot backup file " + file
+                                                + " is truncated. Could not read the rows of table "
+                                                + table.getName(), e);
+        } catch (IOException e) {
+            throw new DatabaseSnapshotException("Error reading the rows of table " + table.getName()
+                                                + " from database snapshot backup file " + file, e);
+        } finally {
+            IoUtils.closeStream(channel);
+        }
+
+        log.debug("[" + snapshotName + " from file] Loaded " + tableIndex.numberRows + " rows for table "
+                  + table.getName());
+    }
+
+    @Override
+    protected int countTableRows( String snapshotName, TableDescription table ) {
+
+        return getTableIndex(table).numberRows;
+    }
+
+    private TableIndex getTableIndex( TableDescription table ) {
+
+        TableIndex tableIndex = tableIndexes.get(table.getName().toLowerCase());
+        if (tableIndex == null) {
+            // the table content was skipped when saving the snapshot
+            return new TableIndex(0, 0, 0);
+        }
+        return tableIndex;
+    }
+
+    /**
+     * Where the rows of a table are in the file
+     */
+    private static class TableIndex {
+
+        private final long position;
+        private final int  numberChunks;
+        private final int  numberRows;
+
+        TableIndex( long position, int numberChunks, int numberRows ) {
+
+            this.position = position;
+            this.numberChunks = numberChunks;
+            this.numberRows = numberRows;
+        }
+    }
+
+    /**
+     * Writes a binary backup file.
+     * <br>The rows of each table are written between {@link #startTable(String)} and {@link #endTable()}.
+     * The meta data is written last, as it might be changed while the table rows are loaded.
+     */
+    static class Writer {
+
+        private final String                  file;
+        private final PositionOutputStream    positionOutput;
+        private final DataOutputStream        output;
+
+        // < table name, where the table rows are >, in the order the tables are written
+        private final Map<String, TableIndex> tableIndexes = new LinkedHashMap<>();
+
+        private String                        currentTable;
+        private long                          currentTablePosition;
+        private int                           currentTableChunks;
+        private int                           currentTableRows;
+
+        private final ByteArrayOutputStream   chunkBytes   = new ByteArrayOutputStream();
+        private DataOutputStream              chunkOutput;
+        private int                           chunkRows;
+        private int                           chunkSize;
+
+        Writer( String file ) {
+
+            this.file = file;
+            try {
+                this.positionOutput = new PositionOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+                this.output = new DataOutputStream(positionOutput);
+
+                output.writeUTF(FILE_HEADER);
+                output.writeInt(FILE_VERSION);
+            } catch (IOException e) {
+                throw new DatabaseSnapshotException("Error creating database snapshot backup file " + file, e);
+            }
+        }
+
+        void startTable( String table ) {
+
+            currentTable = table;
+            currentTablePosition = positionOutput.position;
+            currentTableChunks = 0;
+            currentTableRows = 0;
+        }
+
+        void addRow( String row ) {
+
+            try {
+                if (chunkOutput == null) {
+                    chunkBytes.reset();
+                    chunkOutput = new DataOutputStream(new DeflaterOutputStream(chunkBytes));
+                }
+                byte[] rowBytes = row.getBytes(StandardCharsets.UTF_8);
+                chunkOutput.writeInt(rowBytes.length);
+                chunkOutput.write(rowBytes);
+
+                chunkRows++;
+                chunkSize += rowBytes.length;
+                if (chunkRows == MAX_CHUNK_ROWS || chunkSize >= MAX_CHUNK_SIZE) {
+                    writeChunk();
+                }
+            } catch (IOException e) {
+                throw new DatabaseSnapshotException("Error saving the rows of table " + currentTable
+                                                    + " into database snapshot backup file " + file, e);
+            }
+        }
+
+        void endTable() {
+
+            try {
+                writeChunk();
+            } catch (IOException e) {
+                throw new DatabaseSnapshotException("Error saving the rows of table " + currentTable
+                                                    + " into database snapshot backup file " + file, e);
+            }
+            tableIndexes.put(currentTable,
+                             new TableIndex(currentTablePosition, currentTableChunks, currentTableRows));
+            currentTable = null;
+        }
+
+        /**
+         * Write the snapshot meta data and the index, then close the file
+         *
+         * @param document the snapshot meta data
+         */
+        void close( Document document ) {
+
+            try {
+                // the meta data
+                long metadataPosition = positionOutput.position;
+                ByteArrayOutputStream metadata = new ByteArrayOutputStream();
+                DeflaterOutputStream metadataOutput = new DeflaterOutputStream(metadata);
+                Transformer transformer = TransformerFactory.newInstance().newTransformer();
+                transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+                transformer.transform(new DOMSource(document), new StreamResult(metadataOutput));
+                metadataOutput.close();
+                output.writeInt(metadata.size());
+                metadata.writeTo(output);
+
+                // the index
+                long indexPosition = positionOutput.position;
+                output.writeLong(metadataPosition);
+                output.writeInt(tableIndexes.size());
+                for (Map.Entry<String, TableIndex> entry : tableIndexes.entrySet()) {
+                    output.writeUTF(entry.getKey());
+                    output.writeLong(entry.getValue().position);
+                    output.writeInt(entry.getValue().numberChunks);
+                    output.writeInt(entry.getValue().numberRows);
+                }
+                output.writeLong(indexPosition);
+            } catch (Exception e) {
+                throw new DatabaseSnapshotException("Error saving database snapshot backup file " + file, e);
+            } finally {
+                abort();
+            }
+        }
+
+        /**
+         * Close the file without completing it
+         */
+        void abort() {
+
+            IoUtils.closeStream(output, "Error closing IO stream to file used for database snapshot backup "
+                                        + file);
+        }
+
+        private void writeChunk() throws IOException {
+
+            if (chunkOutput == null) {
+                return;
+            }
+            chunkOutput.close();
+
+            output.writeInt(chunkRows);
+            output.writeInt(chunkBytes.size());
+            chunkBytes.writeTo(output);
+
+            currentTableChunks++;
+            currentTableRows += chunkRows;
+
+            chunkOutput = null;
+            chunkRows = 0;
+            chunkSize = 0;
+        }
+    }
+
+    /**
+     * Tracks the position in the file, as the file might be larger than 2GB
+     */
+    private static class PositionOutputStream extends FilterOutputStream {
+
+        private long position;
+
+        PositionOutputStream( OutputStream out ) {
+
+            super(out);
+        }
+
+        @Override
+        public void write( int b ) throws IOException {
+
+            out.write(b);
+            position++;
+        }
+
+        @Override
+        public void write( byte[] b, int off, int len ) throws IOException {
+
+            out.write(b, off, len);
+            position += len;
+        }
+    }
+}
@@ -23,28 +23,36 @@
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 
+import com.axway.ats.action.ActionLibraryConfigurator;
 import com.axway.ats.action.dbaccess.snapshot.CompareOptions.Pair;
 import com.axway.ats.action.dbaccess.snapshot.rules.SkipColumns;
 import com.axway.ats.action.dbaccess.snapshot.rules.SkipContent;
 import com.axway.ats.action.dbaccess.snapshot.rules.SkipIndexAttributes;
 import com.axway.ats.action.dbaccess.snapshot.rules.SkipRows;
 import com.axway.ats.common.PublicAtsApi;
+import com.axway.ats.common.dbaccess.DbQuery;
 import com.axway.ats.common.dbaccess.snapshot.DatabaseSnapshotException;
 import com.axway.ats.common.dbaccess.snapshot.DatabaseSnapshotUtils;
 import com.axway.ats.common.dbaccess.snapshot.IndexMatcher;
 import com.axway.ats.common.dbaccess.snapshot.TableDescription;
+import com.axway.ats.common.dbaccess.snapshot.TableRowsLoader;
 import com.axway.ats.common.dbaccess.snapshot.equality.DatabaseEqualityState;
 import com.axway.ats.core.dbaccess.DatabaseProviderFactory;
 import com.axway.ats.core.dbaccess.DbProvider;
+import com.axway.ats.core.dbaccess.DbRecordValuesIterator;
 import com.axway.ats.core.dbaccess.DbRecordValuesList;
+import com.axway.ats.core.dbaccess.DbReturnModes;
 import com.axway.ats.core.dbaccess.postgresql.PostgreSqlDbProvider;
 import com.axway.ats.core.utils.StringUtils;
 import com.axway.ats.harness.config.TestBox;
@@ -65,7 +73,7 @@ public class DatabaseSnapshot {
     // the time all table contents is taken
     long                             contentTimestamp            = -1;
 
-    Document                         backupXmlFile;
+    DatabaseSnapshotBackup           backup;
 
     // DB connection parameters
     private TestBox                  testBox;
@@ -335,10 +343,7 @@ public void takeSnapshot() {
 
         this.metadataTimestamp = System.currentTimeMillis();
 
-        dbProvider = DatabaseProviderFactory.getDatabaseProvider(testBox.getDbType(), testBox.getHost(),
-                                                                 testBox.getDbName(), testBox.getDbUser(),
-                                                                 testBox.getDbPass(), testBox.getDbPort(),
-                                                                 customProperties);
+        dbProvider = newDbProvider();
 
         log.info("Start taking database meta information for snapshot [" + name + "] from "
                  + dbProvider.getDbConnection().getDescription());
@@ -370,11 +375,31 @@ public void takeSnapshot() {
         }
 
         // in case we have made a backup file, now it is time to forget about it
-        this.backupXmlFile = null;
+        this.backup = null;
 
         log.info("End taking database meta information for snapshot with name " + name);
     }
 
+    DbProvider newDbProvider() {
+
+        return DatabaseProviderFactory.getDatabaseProvider(testBox.getDbType(), testBox.getHost(),
+                                                           testBox.getDbName(), testBox.getDbUser(),
+                                                           testBox.getDbPass(), testBox.getDbPort(),
+                                                           customProperties);
+    }
+
+    /**
+     * @return a new DB provider to be used by one of the comparing threads,
+     * null if the table rows are loaded from a backup file
+     */
+    private DbProvider newThreadDbProvider() {
+
+        if (backup != null || dbProvider == null) {
+            return null;
+        }
+        return newDbProvider();
+    }
+
     private void skipIndexes() {
 
         try {
@@ -543,9 +568,8 @@ public void compare( DatabaseSnapshot that, CompareOptions compareOptions ) thro
             // We can use just one index name matcher
             IndexMatcher actualIndexNameMatcher = mergeIndexMatchers(that.indexMatcher);
 
-            compareTables(this.name, thisTables, that.name, thatTables, that.dbProvider, tablesToSkip,
-                          skipColumns, skipContent, skipRows, actualIndexNameMatcher, that.backupXmlFile,
-                          equality);
+            compareTables(this.name, thisTables, that, thatTables, tablesToSkip, skipColumns, skipContent,
+                          skipRows, actualIndexNameMatcher, equality);
 
             if (compareOptions != null) {
                 /*try {
@@ -683,7 +707,7 @@ private void handleExpectedMissingRows( CompareOptions compareOptions, DatabaseE
     @PublicAtsApi
     public void saveToFile( String backupFile ) {
 
-        backupXmlFile = new DatabaseSnapshotBackupUtils().saveToFile(this, backupFile);
+        backup = new DatabaseSnapshotBackupUtils().saveToFile(this, backupFile);
 
         // close the database connection
         disconnect(this.dbProvider, "after saving database snapshot into " + backupFile);
@@ -700,39 +724,37 @@ public void saveToFile( String backupFile ) {
     @PublicAtsApi
     public void loadFromFile( String newSnapshotName, String sourceFile ) {
 
-        backupXmlFile = new DatabaseSnapshotBackupUtils().loadFromFile(newSnapshotName, this, sourceFile);
+        backup = new DatabaseSnapshotBackupUtils().loadFromFile(newSnapshotName, this, sourceFile);
     }
 
     /**
-     * Compares all tables between two snapshots
+     * Compares all tables between two snapshots.
+     * <br>The tables are compared in parallel when more than one database snapshot thread is configured.
      * 
      * @param thisSnapshotName
      * @param thisTables
-     * @param thatSnapshotName
+     * @param that
      * @param thatTables
-     * @param thatDbProvider
      * @param tablesToSkip
      * @param skipColumns
      * @param skipContent
      * @param skipRows
      * @param indexNameMatcher
-     * @param thatBackupXmlFile
      * @param equality
      */
     private void compareTables( String thisSnapshotName, List<TableDescription> thisTables,
-                                String thatSnapshotName, List<TableDescription> thatTables,
-                                DbProvider thatDbProvider, Set<String> tablesToSkip,
-                                Map<String, SkipColumns> skipColumns, Map<String, SkipContent> skipContent,
-                                Map<String, SkipRows> skipRows,
-                                IndexMatcher indexNameMatcher,
-                                Document thatBackupXmlFile, DatabaseEqualityState equality ) {
+                                final DatabaseSnapshot that, List<TableDescription> thatTables,
+                                Set<String> tablesToSkip, final Map<String, SkipColumns> skipColumns,
+                                final Map<String, SkipContent> skipContent, final Map<String, SkipRows> skipRows,
+                                final IndexMatcher indexNameMatcher, final DatabaseEqualityState equality ) {
 
         // make a list of tables present in both snapshots
-        List<String> commonTables = getCommonTables(thisSnapshotName, thisTables, thatSnapshotName,
-                                                    thatTables, tablesToSkip);
+        List<String> commonTables = getCommonTables(thisSnapshotName, thisTables, that.name, thatTables,
+                                                    tablesToSkip);
 
+        // get tables to compare
+        final List<TableDescription[]> tablesToCompare = new ArrayList<>();
         for (String tableName : commonTables) {
-            // get tables to compare
             TableDescription thisTable = null;
             TableDescription thatTable = null;
             for (TableDescription table : thisTables) {
@@ -753,39 +775,136 @@ private void compareTables( String thisSnapshotName, List<TableDescription> this
                 // if table is not of interest - skip it
                 continue;
             }
-            List<String> thisValuesList = null;
-            List<String> thatValuesList = null;
-
-            int thisNumberOfRows = -1;
-            int thatNumberOfRows = -1;
-            SkipContent skipContentForThisTable = skipContent.get(tableName.toLowerCase());
-            if (skipContentForThisTable != null) {
-                if (skipContentForThisTable.isRememberNumberOfRows()) {
-                    // we do not compare the content of the tables,
-                    // but we still compare the number of rows
-                    thisNumberOfRows = loadTableLength(thisSnapshotName, thisTable, this.dbProvider,
-                                                       this.backupXmlFile);
-                    thatNumberOfRows = loadTableLength(thatSnapshotName, thatTable, thatDbProvider,
-                                                       thatBackupXmlFile);
-                }
-                // else -> we completely do not compare the content of the tables
-            } else {
-                // we want to compare the content of the tables,
-                // so load the table content
-                thisValuesList = loadTableData(thisSnapshotName, thisTable, skipColumns, skipRows,
-                                               this.dbProvider, this.backupXmlFile);
-                thatValuesList = loadTableData(thatSnapshotName, thatTable, skipColumns, skipRows,
-                                               thatDbProvider, thatBackupXmlFile);
+            tablesToCompare.add(new TableDescription[]{ thisTable, thatTable });
+        }
+
+        int numberOfThreads = Math.min(ActionLibraryConfigurator.getInstance().getDbSnapshotThreads(),
+                                       tablesToCompare.size());
+        long startTime = System.currentTimeMillis();
+        if (numberOfThreads <= 1) {
+            for (TableDescription[] tables : tablesToCompare) {
+                compareTable(tables[0], tables[1], that, this.dbProvider, that.dbProvider, skipColumns,
+                             skipContent, skipRows, indexNameMatcher, equality);
             }
+        } else {
+            log.info("Comparing " + tablesToCompare.size() + " tables of snapshots [" + this.name + "] and ["
+                     + that.name + "] in " + numberOfThreads + " threads");
+
+            // the DB providers are not thread safe, so each thread uses its own DB providers.
+            // The differences are kept per table in the equality state, so their order
+            // does not depend on the order the tables are compared
+            final List<DbProvider> threadDbProviders = Collections.synchronizedList(new ArrayList<DbProvider>());
+            final ThreadLocal<DbProvider[]> dbProviders = new ThreadLocal<DbProvider[]>() {
+                @Override
+                protected DbProvider[] initialValue() {
+
+                    DbProvider[] providers = new DbProvider[]{ DatabaseSnapshot.this.newThreadDbProvider(),
+                                                               that.newThreadDbProvider() };
+                    for (DbProvider provider : providers) {
+                        if (provider != null) {
+                            threadDbProviders.add(provider);
+                        }
+                    }
+                    return providers;
+                }
+            };
 
-            // do the actual comparison
-            thisTable.compare(thatTable, thisValuesList, thatValuesList, thisNumberOfRows, thatNumberOfRows,
-                              indexNameMatcher, equality);
+            ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads,
+                                                                    new CompareThreadFactory(this.name));
+            try {
+                List<Future<?>> results = new ArrayList<>();
+                for (final TableDescription[] tables : tablesToCompare) {
+                    results.add(executor.submit(new Runnable() {
+                        @Override
+                        public void run() {
+
+                            DbProvider[] providers = dbProviders.get();
+                            compareTable(tables[0], tables[1], that, providers[0], providers[1],
+                                         skipColumns, skipContent, skipRows, indexNameMatcher, equality);
+                        }
+                    }));
+                }
+                // wait for all tables even when some of them fail,
+                // so no thread is using its DB providers when they are disconnected
+                Throwable compareError = null;
+                for (Future<?> result : results) {
+                    try {
+                        result.get();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new DatabaseSnapshotException("Interrupted while comparing database snapshots",
+                                                            e);
+                    } catch (ExecutionException e) {
+                        if (compareError == null) {
+                            compareError = e.getCause();
+                        } else {
+                            log.error("Error comparing database snapshots", e.getCause());
+                        }
+                    }
+                }
+                if (compareError instanceof RuntimeException) {
+                    throw (RuntimeException) compareError;
+                } else if (compareError != null) {
+                    throw new DatabaseSnapshotException("Error comparing database snapshots", compareError);
+                }
+            } finally {
+                executor.shutdownNow();
+                for (DbProvider provider : threadDbProviders) {
+                    disconnect(provider, "after comparing database snapshots");
+                }
+            }
         }
+        log.info("Compared " + tablesToCompare.size() + " tables of snapshots [" + this.name + "] and ["
+                 + that.name + "] in " + (System.currentTimeMillis() - startTime) + " ms");
 
         thisTables.clear();
     }
 
+    /**
+     * Compares two instances of a table
+     */
+    private void compareTable( TableDescription thisTable, TableDescription thatTable, DatabaseSnapshot that,
+                               DbProvider thisDbProvider, DbProvider thatDbProvider,
+                               Map<String, SkipColumns> skipColumns, Map<String, SkipContent> skipContent,
+                               Map<String, SkipRows> skipRows, IndexMatcher indexNameMatcher,
+                               DatabaseEqualityState equality ) {
+
+        long startTime = System.currentTimeMillis();
+        String tableName = thisTable.getName();
+
+        TableRowsLoader thisRowsLoader = null;
+        TableRowsLoader thatRowsLoader = null;
+
+        int thisNumberOfRows = -1;
+        int thatNumberOfRows = -1;
+        SkipContent skipContentForThisTable = skipContent.get(tableName.toLowerCase());
+        if (skipContentForThisTable != null) {
+            if (skipContentForThisTable.isRememberNumberOfRows()) {
+                // we do not compare the content of the tables,
+                // but we still compare the number of rows
+                thisNumberOfRows = loadTableLength(this.name, thisTable, thisDbProvider, this.backup);
+                thatNumberOfRows = loadTableLength(that.name, thatTable, thatDbProvider, that.backup);
+            }
+            // else -> we completely do not compare the content of the tables
+        } else {
+            // we want to compare the content of the tables,
+            // the rows will be loaded one by one while comparing them
+            thisRowsLoader = newTableRowsLoader(this.name, thisTable, skipColumns, skipRows, thisDbProvider,
+                                                this.backup);
+            thatRowsLoader = newTableRowsLoader(that.name, thatTable, skipColumns, skipRows, thatDbProvider,
+                                                that.backup);
+        }
+
+        // do the actual comparison
+        thisTable.compare(thatTable, thisRowsLoader, thatRowsLoader, thisNumberOfRows, thatNumberOfRows,
+                          indexNameMatcher, equality);
+
+        if (log.isDebugEnabled()) {
+            log.debug("Compared table " + tableName + " in " + (System.currentTimeMillis() - startTime)
+                      + " ms");
+        }
+    }
+
     /**
      * @return list of tables that are fully skipped(including their meta data)
      */
@@ -1083,15 +1202,42 @@ private List<String> getCommonTables( String thisSnapshotName, List<TableDescrip
      * @param skipColumns skip rules
      * @param skipRows rows to skip
      * @param dbProvider DB connection to use
-     * @param backupXmlFile backup file to use
+     * @param backup backup file to use
      * @return
      */
     List<String> loadTableData( String snapshotName, TableDescription table,
                                 Map<String, SkipColumns> skipColumns, Map<String, SkipRows> skipRows,
-                                DbProvider dbProvider, Document backupXmlFile ) {
+                                DbProvider dbProvider, DatabaseSnapshotBackup backup ) {
+
+        final List<String> valuesList = new ArrayList<String>();
+        loadTableData(snapshotName, table, skipColumns, skipRows, dbProvider, backup,
+                      new TableRowsLoader.RowHandler() {
+                          @Override
+                          public void handleRow( String row ) {
+
+                              valuesList.add(row);
+                          }
+                      });
+        return valuesList;
+    }
 
-        List<String> valuesList = new ArrayList<String>();
-        if (backupXmlFile == null) {
+    /**
+     * Pass all rows of some particular table to a row handler
+     * 
+     * @param snapshotName snapshot name
+     * @param table the table of question
+     * @param skipColumns skip rules
+     * @param skipRows rows to skip
+     * @param dbProvider DB connection to use
+     * @param backup backup file to use
+     * @param rowHandler receives the rows one by one
+     */
+    void loadTableData( String snapshotName, TableDescription table, Map<String, SkipColumns> skipColumns,
+                        Map<String, SkipRows> skipRows, DbProvider dbProvider, DatabaseSnapshotBackup backup,
+                        TableRowsLoader.RowHandler rowHandler ) {
+
+        int numberOfRows = 0;
+        if (backup == null) {
             // load table row data from database
 
             if (dbProvider == null) {
@@ -1101,22 +1247,28 @@ List<String> loadTableData( String snapshotName, TableDescription table,
 
             String sqlQuery = constructSelectStatement(table, skipColumns);
             if (sqlQuery != null) {
-                for (DbRecordValuesList rowValues : dbProvider.select(sqlQuery)) {
-                    // if there are rows for skipping we will find them and remove them from the list
-                    String stringRowValue = rowValues.toString();
-
-                    // escaping special characters that may 
-                    // cause some trouble while saving the snapshot into XML file
-                    stringRowValue.replace("&", "&amp;");
-                    stringRowValue.replace("<", "&lt;");
-                    stringRowValue.replace(">", "&gt;");
-
-                    SkipRows skipRow = skipRows.get(table.getName().toLowerCase());
-                    if (skipRow == null || !skipRow.skipRow(stringRowValue)) {
-                        valuesList.add(stringRowValue);
+                SkipRows skipRow = skipRows.get(table.getName().toLowerCase());
+                // iterate the rows instead of loading all of them, so big tables do not need much memory
+                DbQuery dbQuery = new DbQuery(sqlQuery, new ArrayList<Object>());
+                try (DbRecordValuesIterator rowsIterator = dbProvider.selectIterator(dbQuery,
+                                                                                     DbReturnModes.OBJECT)) {
+                    while (rowsIterator.hasNext()) {
+                        // if there are rows for skipping we will find them and remove them from the list
+                        String stringRowValue = rowsIterator.next().toString();
+
+                        // escaping special characters that may 
+                        // cause some trouble while saving the snapshot into XML file
+                        stringRowValue.replace("&", "&amp;");
+                        stringRowValue.replace("<", "&lt;");
+                        stringRowValue.replace(">", "&gt;");
+
+                        if (skipRow == null || !skipRow.skipRow(stringRowValue)) {
+                            rowHandler.handleRow(stringRowValue);
+                            numberOfRows++;
+                        }
                     }
                 }
-                log.debug("[" + snapshotName + "] Loaded " + valuesList.size() + " rows for table "
+                log.debug("[" + snapshotName + "] Loaded " + numberOfRows + " rows for table "
                           + table.getName());
             } else {
                 log.warn("[" + snapshotName + "] No data will be loaded for table " + table.getName()
@@ -1124,17 +1276,28 @@ List<String> loadTableData( String snapshotName, TableDescription table,
             }
         } else {
             // load table row data from backup file
-            Element tableNode = loadTableNode(table, backupXmlFile);
-
-            List<Element> tableRows = DatabaseSnapshotUtils.getChildrenByTagName(tableNode, "row");
-            log.debug("[" + snapshotName + " from file] Loaded " + tableRows.size() + " rows for table "
-                      + table.getName());
-            for (Element tableRow : DatabaseSnapshotUtils.getChildrenByTagName(tableNode, "row")) {
-                valuesList.add(tableRow.getTextContent());
-            }
+            backup.loadTableRows(snapshotName, table, rowHandler);
         }
+    }
 
-        return valuesList;
+    /**
+     * Create a loader of the rows of some particular table.
+     * The rows are loaded each time they are needed, so they are not kept in memory.
+     */
+    private TableRowsLoader newTableRowsLoader( final String snapshotName, final TableDescription table,
+                                                final Map<String, SkipColumns> skipColumns,
+                                                final Map<String, SkipRows> skipRows,
+                                                final DbProvider dbProvider,
+                                                final DatabaseSnapshotBackup backup ) {
+
+        return new TableRowsLoader() {
+            @Override
+            public void loadRows( RowHandler rowHandler ) {
+
+                loadTableData(snapshotName, table, skipColumns, skipRows, dbProvider, backup,
+                              rowHandler);
+            }
+        };
     }
 
     /**
@@ -1143,13 +1306,13 @@ List<String> loadTableData( String snapshotName, TableDescription table,
      * @param snapshotName snapshot name
      * @param table the table of question
      * @param dbProvider DB connection to use
-     * @param backupXmlFile backup file to use
+     * @param backup backup file to use
      * @return
      */
     int loadTableLength( String snapshotName, TableDescription table, DbProvider dbProvider,
-                         Document backupXmlFile ) {
+                         DatabaseSnapshotBackup backup ) {
 
-        if (backupXmlFile == null) {
+        if (backup == null) {
             // load table length from database
 
             if (dbProvider == null) {
@@ -1160,65 +1323,8 @@ int loadTableLength( String snapshotName, TableDescription table, DbProvider dbP
             return Integer.parseInt(dbRecords[0].get(0).getValueAsString());
         } else {
             // load table length from backup file
-            Element tableNode = loadTableNode(table, backupXmlFile);
-
-            if (tableNode != null) {
-                String numberRowsString = tableNode.getAttribute(DatabaseSnapshotUtils.ATTR_TABLE_NUMBER_ROWS);
-                if (numberRowsString != null && numberRowsString.trim().length() > 0) {
-                    // table length is provided as an attribute
-                    int numberRows;
-                    try {
-                        numberRows = Integer.parseInt(numberRowsString);
-                    } catch (NumberFormatException nfe) {
-                        throw new DatabaseSnapshotException(DatabaseSnapshotUtils.ATTR_TABLE_NUMBER_ROWS
-                                                            + " attribute of table " + table.getName()
-                                                            + " is not a number: " + numberRowsString);
-                    }
-                    if (numberRows < 0) {
-                        throw new DatabaseSnapshotException(DatabaseSnapshotUtils.ATTR_TABLE_NUMBER_ROWS
-                                                            + " attribute of table " + table.getName()
-                                                            + " is not a positive number: "
-                                                            + numberRowsString);
-                    } else {
-                        return numberRows;
-                    }
-                } else {
-                    // count the number of rows
-                    return loadTableData(snapshotName, table, null, null, dbProvider, backupXmlFile).size();
-                }
-            } else {
-                throw new DatabaseSnapshotException("Table " + table.getName()
-                                                    + " not found in backup file ");
-            }
-        }
-    }
-
-    /**
-     * Load the XML node for some particular table
-     * @param table
-     * @param backupXmlFile
-     * @return
-     */
-    private Element loadTableNode( TableDescription table, Document backupXmlFile ) {
-
-        // load table row data from backup file
-        List<Element> dbSnapshotNodeList = DatabaseSnapshotUtils.getChildrenByTagName(backupXmlFile,
-                                                                                      DatabaseSnapshotUtils.NODE_DB_SNAPSHOT);
-        if (dbSnapshotNodeList.size() != 1) {
-            throw new DatabaseSnapshotException("Bad dabase snapshot backup file. It must have 1 '"
-                                                + DatabaseSnapshotUtils.NODE_DB_SNAPSHOT
-                                                + "' node, but it has" + dbSnapshotNodeList.size());
-        }
-
-        for (Element tableNode : DatabaseSnapshotUtils.getChildrenByTagName(dbSnapshotNodeList.get(0),
-                                                                            "TABLE")) {
-            String tableName = tableNode.getAttribute("name");
-            if (table.getName().equalsIgnoreCase(tableName)) {
-                return tableNode;
-            }
+            return backup.loadTableLength(snapshotName, table);
         }
-
-        return null;
     }
 
     private String constructSelectStatement( TableDescription table, Map<String, SkipColumns> skipColumns ) {
@@ -1288,4 +1394,26 @@ private void disconnect( DbProvider dbProvider, String when ) {
             }
         }
     }
+
+    /**
+     * Creates the threads which compare the tables in parallel
+     */
+    private static class CompareThreadFactory implements ThreadFactory {
+
+        private final String snapshotName;
+        private int          threadsCount;
+
+        CompareThreadFactory( String snapshotName ) {
+
+            this.snapshotName = snapshotName;
+        }
+
+        @Override
+        public synchronized Thread newThread( Runnable runnable ) {
+
+            Thread thread = new Thread(runnable, "DbSnapshot_compare_" + (++threadsCount) + "-" + snapshotName);
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
 }
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.action.dbaccess.snapshot;
+
+import java.util.List;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import com.axway.ats.common.dbaccess.snapshot.DatabaseSnapshotException;
+import com.axway.ats.common.dbaccess.snapshot.DatabaseSnapshotUtils;
+import com.axway.ats.common.dbaccess.snapshot.TableDescription;
+import com.axway.ats.common.dbaccess.snapshot.TableRowsLoader;
+
+/**
+ * A database snapshot saved into a backup file.
+ * <br>The snapshot meta data is kept as a XML document, while the way the table rows are kept
+ * depends on the backup file format.
+ */
+abstract class DatabaseSnapshotBackup {
+
+    // the snapshot meta data
+    protected final Document document;
+
+    protected DatabaseSnapshotBackup( Document document ) {
+
+        this.document = document;
+    }
+
+    /**
+     * @return the snapshot meta data
+     */
+    Document getDocument() {
+
+        return document;
+    }
+
+    /**
+     * Pass all rows of some particular table to a row handler
+     *
+     * @param snapshotName snapshot name
+     * @param table the table of question
+     * @param rowHandler receives the rows one by one
+     */
+    abstract void loadTableRows( String snapshotName, TableDescription table,
+                                 TableRowsLoader.RowHandler rowHandler );
+
+    /**
+     * Return the number of rows of some particular table
+     *
+     * @param snapshotName snapshot name
+     * @param table the table of question
+     * @return
+     */
+    int loadTableLength( String snapshotName, TableDescription table ) {
+
+        Element tableNode = loadTableNode(table);
+        if (tableNode == null) {
+            throw new DatabaseSnapshotException("Table " + table.getName() + " not found in backup file ");
+        }
+
+        String numberRowsString = tableNode.getAttribute(DatabaseSnapshotUtils.ATTR_TABLE_NUMBER_ROWS);
+        if (numberRowsString != null && numberRowsString.trim().length() > 0) {
+            // table length is provided as an attribute
+            int numberRows;
+            try {
+                numberRows = Integer.parseInt(numberRowsString);
+            } catch (NumberFormatException nfe) {
+                throw new DatabaseSnapshotException(DatabaseSnapshotUtils.ATTR_TABLE_NUMBER_ROWS
+                                                    + " attribute of table " + table.getName()
+                                                    + " is not a number: " + numberRowsString);
+            }
+            if (numberRows < 0) {
+                throw new DatabaseSnapshotException(DatabaseSnapshotUtils.ATTR_TABLE_NUMBER_ROWS
+                                                    + " attribute of table " + table.getName()
+                                                    + " is not a positive number: " + numberRowsString);
+            } else {
+                return numberRows;
+            }
+        } else {
+            // count the number of rows
+            return countTableRows(snapshotName, table);
+        }
+    }
+
+    /**
+     * Count the rows of some particular table
+     */
+    protected abstract int countTableRows( String snapshotName, TableDescription table );
+
+    /**
+     * Load the XML node for some particular table
+     * @param table
+     * @return
+     */
+    protected Element loadTableNode( TableDescription table ) {
+
+        // the DOM implementation is not thread safe even for reading, while the tables might be compared in parallel
+        synchronized (document) {
+            List<Element> dbSnapshotNodeList = DatabaseSnapshotUtils.getChildrenByTagName(document,
+                                                                                          DatabaseSnapshotUtils.NODE_DB_SNAPSHOT);
+            if (dbSnapshotNodeList.size() != 1) {
+                throw new DatabaseSnapshotException("Bad dabase snapshot backup file. It must have 1 '"
+                                                    + DatabaseSnapshotUtils.NODE_DB_SNAPSHOT
+                                                    + "' node, but it has" + dbSnapshotNodeList.size());
+            }
+
+            for (Element tableNode : DatabaseSnapshotUtils.getChildrenByTagName(dbSnapshotNodeList.get(0),
+                                                                                DatabaseSnapshotUtils.NODE_TABLE)) {
+                String tableName = tableNode.getAttribute(DatabaseSnapshotUtils.ATTR_TABLE_NAME);
+                if (table.getName().equalsIgnoreCase(tableName)) {
+                    return tableNode;
+                }
+            }
+
+            return null;
+        }
+    }
+}
@@ -29,6 +29,7 @@
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
+import com.axway.ats.action.ActionLibraryConfigurator;
 import com.axway.ats.action.dbaccess.snapshot.rules.SkipColumns;
 import com.axway.ats.action.dbaccess.snapshot.rules.SkipContent;
 import com.axway.ats.action.dbaccess.snapshot.rules.SkipIndexAttributes;
@@ -36,6 +37,7 @@
 import com.axway.ats.common.dbaccess.snapshot.DatabaseSnapshotException;
 import com.axway.ats.common.dbaccess.snapshot.DatabaseSnapshotUtils;
 import com.axway.ats.common.dbaccess.snapshot.TableDescription;
+import com.axway.ats.common.dbaccess.snapshot.TableRowsLoader;
 import com.axway.ats.core.utils.IoUtils;
 import com.axway.ats.core.utils.StringUtils;
 
@@ -47,12 +49,14 @@ class DatabaseSnapshotBackupUtils {
     private static Logger log = LogManager.getLogger(DatabaseSnapshotBackupUtils.class);
 
     /**
-     * Save a snapshot into a file
+     * Save a snapshot into a file.
+     * <br>Depending on the configuration, the file is in XML or in compressed binary format
+     * 
      * @param snapshot the snapshot to save
      * @param backupFile the backup file name
-     * @return the XML document
+     * @return the saved snapshot
      */
-    public Document saveToFile( DatabaseSnapshot snapshot, String backupFile ) {
+    public DatabaseSnapshotBackup saveToFile( DatabaseSnapshot snapshot, String backupFile ) {
 
         log.info("Save database snapshot into file " + backupFile + " - START");
 
@@ -81,39 +85,18 @@ public Document saveToFile( DatabaseSnapshot snapshot, String backupFile ) {
                             DatabaseSnapshotUtils.dateToString(snapshot.contentTimestamp));
         doc.appendChild(dbNode);
 
-        // append all table data
-        for (TableDescription tableDescription : snapshot.tables) {
-            Element tableNode = doc.createElement(DatabaseSnapshotUtils.NODE_TABLE);
-
-            // append table meta data
-            dbNode.appendChild(tableNode);
-            tableDescription.toXmlNode(doc, tableNode);
-
-            // check if table content is to be skipped
-            SkipContent skipTableContentOption = snapshot.skipContentPerTable.get(tableDescription.getName()
-                                                                                                  .toLowerCase());
-            if (skipTableContentOption != null) {
-                // we skip the table content
-                if (skipTableContentOption.isRememberNumberOfRows()) {
-                    // ... but we want to persist the number of rows
-                    int numberRows = snapshot.loadTableLength(snapshot.name, tableDescription, null, null);
-                    tableNode.setAttribute(DatabaseSnapshotUtils.ATTR_TABLE_NUMBER_ROWS,
-                                           String.valueOf(numberRows));
-                }
-
-                continue;
-            }
-
-            // append table content
-            List<String> valuesList = snapshot.loadTableData(snapshot.name, tableDescription,
-                                                             snapshot.skipColumnsPerTable,
-                                                             snapshot.skipRowsPerTable, null, null);
-            for (String values : valuesList) {
-                Element rowNode = doc.createElement(DatabaseSnapshotUtils.NODE_ROW);
-                rowNode.setTextContent(StringUtils.escapeNonPrintableAsciiCharacters(values));
-
-                tableNode.appendChild(rowNode);
+        // in binary format the table rows are streamed into the file, instead of keeping them in the XML document
+        BinaryDatabaseSnapshotBackup.Writer binaryWriter = null;
+        if (ActionLibraryConfigurator.getInstance().getSaveDbSnapshotsInBinaryFormat()) {
+            binaryWriter = new BinaryDatabaseSnapshotBackup.Writer(backupFile);
+        }
+        try {
+            appendTables(snapshot, doc, dbNode, binaryWriter);
+        } catch (RuntimeException e) {
+            if (binaryWriter != null) {
+                binaryWriter.abort();
             }
+            throw e;
         }
 
         // append any skip table content rules
@@ -136,6 +119,14 @@ public Document saveToFile( DatabaseSnapshot snapshot, String backupFile ) {
             skipRows.toXmlNode(doc, dbNode);
         }
 
+        if (binaryWriter != null) {
+            binaryWriter.close(doc);
+
+            log.info("Save database snapshot into file " + backupFile + " - END");
+
+            return BinaryDatabaseSnapshotBackup.load(backupFile);
+        }
+
         // save the XML file
         OutputStream fos = null;
         try {
@@ -157,32 +148,93 @@ public Document saveToFile( DatabaseSnapshot snapshot, String backupFile ) {
 
         log.info("Save database snapshot into file " + backupFile + " - END");
 
-        return doc;
+        return new XmlDatabaseSnapshotBackup(doc);
+    }
+
+    private void appendTables( DatabaseSnapshot snapshot, Document doc, Element dbNode,
+                               final BinaryDatabaseSnapshotBackup.Writer binaryWriter ) {
+
+        for (TableDescription tableDescription : snapshot.tables) {
+            Element tableNode = doc.createElement(DatabaseSnapshotUtils.NODE_TABLE);
+
+            // append table meta data
+            dbNode.appendChild(tableNode);
+            tableDescription.toXmlNode(doc, tableNode);
+
+            // check if table content is to be skipped
+            SkipContent skipTableContentOption = snapshot.skipContentPerTable.get(tableDescription.getName()
+                                                                                                  .toLowerCase());
+            if (skipTableContentOption != null) {
+                // we skip the table content
+                if (skipTableContentOption.isRememberNumberOfRows()) {
+                    // ... but we want to persist the number of rows
+                    int numberRows = snapshot.loadTableLength(snapshot.name, tableDescription, null, null);
+                    tableNode.setAttribute(DatabaseSnapshotUtils.ATTR_TABLE_NUMBER_ROWS,
+                                           String.valueOf(numberRows));
+                }
+
+                continue;
+            }
+
+            // append table content
+            if (binaryWriter != null) {
+                binaryWriter.startTable(tableDescription.getName());
+                snapshot.loadTableData(snapshot.name, tableDescription, snapshot.skipColumnsPerTable,
+                                       snapshot.skipRowsPerTable, null, null, new TableRowsLoader.RowHandler() {
+                                           @Override
+                                           public void handleRow( String row ) {
+
+                                               binaryWriter.addRow(row);
+                                           }
+                                       });
+                binaryWriter.endTable();
+            } else {
+                List<String> valuesList = snapshot.loadTableData(snapshot.name, tableDescription,
+                                                                 snapshot.skipColumnsPerTable,
+                                                                 snapshot.skipRowsPerTable, null, null);
+                for (String values : valuesList) {
+                    Element rowNode = doc.createElement(DatabaseSnapshotUtils.NODE_ROW);
+                    rowNode.setTextContent(StringUtils.escapeNonPrintableAsciiCharacters(values));
+
+                    tableNode.appendChild(rowNode);
+                }
+            }
+        }
     }
 
     /**
-     * Load a snapshot from a file
+     * Load a snapshot from a file.
+     * <br>The file format, XML or binary, is detected automatically
      * 
      * @param newSnapshotName the name of the new snapshot
      * @param snapshot the snapshot instance to fill with new data
      * @param sourceFile the backup file name
-     * @return the XML document
+     * @return the loaded snapshot
      */
-    public Document loadFromFile( String newSnapshotName, DatabaseSnapshot snapshot, String sourceFile ) {
+    public DatabaseSnapshotBackup loadFromFile( String newSnapshotName, DatabaseSnapshot snapshot,
+                                                String sourceFile ) {
 
         log.info("Load database snapshot from file " + sourceFile + " - START");
 
         // first clean up the current instance, in case some snapshot was taken before
         snapshot.tables.clear();
 
-        Document doc;
-        try {
-            doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new File(sourceFile));
-            doc.getDocumentElement().normalize();
-        } catch (Exception e) {
-            throw new DatabaseSnapshotException("Error reading database snapshot backup file "
-                                                + sourceFile, e);
+        DatabaseSnapshotBackup backup;
+        if (BinaryDatabaseSnapshotBackup.isBinaryBackupFile(sourceFile)) {
+            // only the meta data is loaded now, the table rows are read when needed
+            backup = BinaryDatabaseSnapshotBackup.load(sourceFile);
+        } else {
+            Document doc;
+            try {
+                doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new File(sourceFile));
+                doc.getDocumentElement().normalize();
+            } catch (Exception e) {
+                throw new DatabaseSnapshotException("Error reading database snapshot backup file "
+                                                    + sourceFile, e);
+            }
+            backup = new XmlDatabaseSnapshotBackup(doc);
         }
+        Document doc = backup.getDocument();
 
         Element databaseNode = doc.getDocumentElement();
         if (!DatabaseSnapshotUtils.NODE_DB_SNAPSHOT.equals(databaseNode.getNodeName())) {
@@ -248,6 +300,6 @@ public Document loadFromFile( String newSnapshotName, DatabaseSnapshot snapshot,
 
         log.info("Load database snapshot from file " + sourceFile + " - END");
 
-        return doc;
+        return backup;
     }
 }
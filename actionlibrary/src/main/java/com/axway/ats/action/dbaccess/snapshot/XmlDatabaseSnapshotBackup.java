@@ -0,0 +1,67 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.action.dbaccess.snapshot;
+
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import com.axway.ats.common.dbaccess.snapshot.DatabaseSnapshotUtils;
+import com.axway.ats.common.dbaccess.snapshot.TableDescription;
+import com.axway.ats.common.dbaccess.snapshot.TableRowsLoader;
+
+/**
+ * A database snapshot saved into a XML file.
+ * <br>The whole file, including the table rows, is kept in memory as a XML document.
+ */
+class XmlDatabaseSnapshotBackup extends DatabaseSnapshotBackup {
+
+    private static Logger log = LogManager.getLogger(XmlDatabaseSnapshotBackup.class);
+
+    XmlDatabaseSnapshotBackup( Document document ) {
+
+        super(document);
+    }
+
+    @Override
+    void loadTableRows( String snapshotName, TableDescription table, TableRowsLoader.RowHandler rowHandler ) {
+
+        // the DOM implementation is not thread safe even for reading, while the tables might be compared in parallel
+        synchronized (document) {
+            Element tableNode = loadTableNode(table);
+
+            List<Element> tableRows = DatabaseSnapshotUtils.getChildrenByTagName(tableNode,
+                                                                                 DatabaseSnapshotUtils.NODE_ROW);
+            log.debug("[" + snapshotName + " from file] Loaded " + tableRows.size() + " rows for table "
+                      + table.getName());
+            for (Element tableRow : tableRows) {
+                rowHandler.handleRow(tableRow.getTextContent());
+            }
+        }
+    }
+
+    @Override
+    protected int countTableRows( String snapshotName, TableDescription table ) {
+
+        synchronized (document) {
+            return DatabaseSnapshotUtils.getChildrenByTagName(loadTableNode(table), DatabaseSnapshotUtils.NODE_ROW)
+                                        .size();
+        }
+    }
+}
@@ -145,6 +145,12 @@ private void loadConfiguration() {
         configuration.setCheckMD5(configurator.snapshots.getCheckFileMd5());
         configuration.setCheckPermissions(configurator.snapshots.getCheckFilePermissions());
         configuration.setSupportHidden(configurator.snapshots.getSupportHiddenFiles());
+        configuration.setSnapshotThreads(configurator.snapshots.getSnapshotThreads());
+        configuration.setFastChecksum(configurator.snapshots.getUseFastChecksum());
+        String checksumCacheFile = configurator.snapshots.getChecksumCacheFile();
+        if (!StringUtils.isNullOrEmpty(checksumCacheFile)) {
+            configuration.setChecksumCacheFile(checksumCacheFile);
+        }
 
         // Properties files
         configuration.setCheckPropertiesFilesContent(configurator.snapshots.getCheckPropertiesFilesContent());
@@ -1,5 +1,5 @@
 /*
- * Copyright 2017 Axway Software
+ * Copyright 2017-2021 Axway Software
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -41,6 +41,11 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
 
 import javax.net.ssl.SSLContext;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -68,6 +73,7 @@
 import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.client.protocol.HttpClientContext;
 import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.concurrent.FutureCallback;
 import org.apache.http.config.Registry;
 import org.apache.http.config.RegistryBuilder;
 import org.apache.http.config.SocketConfig;
@@ -89,6 +95,12 @@
 import org.apache.http.impl.client.HttpClients;
 import org.apache.http.impl.conn.DefaultProxyRoutePlanner;
 import org.apache.http.impl.cookie.BasicClientCookie;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.protocol.BasicHttpContext;
 import org.apache.http.protocol.HttpContext;
 import org.apache.http.ssl.SSLContextBuilder;
 import org.apache.http.ssl.SSLContexts;
@@ -97,6 +109,7 @@
 import org.w3c.dom.Document;
 
 import com.axway.ats.action.ActionLibraryConfigurator;
+import com.axway.ats.action.AsyncRequestCheckpoint;
 import com.axway.ats.common.PublicAtsApi;
 import com.axway.ats.common.systemproperties.AtsSystemProperties;
 import com.axway.ats.core.gss.GssClient;
@@ -237,6 +250,14 @@ public class HttpDebugLevel {
     protected HttpClientContext       httpContext                     = HttpClientContext.create();
     protected boolean                 needsInternalClientInialization = true;                               // helps initializing the internal client only when needed
 
+    // the non-blocking client for the asynchronous requests, initialized on the first such request
+    private CloseableHttpAsyncClient  asyncHttpClient;
+    private boolean                   needsAsyncClientInitialization  = true;
+    // the name of the checkpoint logged for each asynchronous request
+    private String                    asyncCheckpointName;
+    // the asynchronous requests in progress, they are cancelled when the client is closed
+    private final Set<CompletableFuture<HttpResponse>> asyncRequestsInProgress = Collections.newSetFromMap(new ConcurrentHashMap<CompletableFuture<HttpResponse>, Boolean>());
+
     // socket settings
     protected int                     connectTimeoutSeconds           = 0;
     protected int                     readTimeoutSeconds              = 0;
@@ -549,6 +570,8 @@ public HttpHeader[] getRequestHeaders() {
      * otherwise it will return an empty map.
      * The map returned should include the user-specified HTTP headers as well as
      * any generated by the HTTPClient.
+     * <br>The asynchronous requests do not change the returned headers, as many of them can be in progress
+     * at the same time.
      *
      * @return The request headers sent to the endpoint
      */
@@ -1183,6 +1206,118 @@ public HttpResponse head() throws HttpException {
         return execute(method);
     }
 
+    /**
+     * Send the request to the endpoint using a HTTP POST without waiting for the response.
+     * <br>See {@link #getAsync()} for details about the asynchronous requests.
+     *
+     * @return the future response
+     * @throws HttpException if the request can not be sent
+     */
+    @PublicAtsApi
+    public CompletableFuture<HttpResponse> postAsync() throws HttpException {
+
+        final URI uri = constructURI();
+        HttpPost method = new HttpPost(uri);
+        constructRequestBody();
+
+        log.info("We will asynchronously POST object to " + uri);
+        method.setEntity(requestBody);
+        return executeAsync(method);
+    }
+
+    /**
+     * Send the request to the endpoint using a HTTP PUT without waiting for the response.
+     * <br>See {@link #getAsync()} for details about the asynchronous requests.
+     *
+     * @return the future response
+     * @throws HttpException if the request can not be sent
+     */
+    @PublicAtsApi
+    public CompletableFuture<HttpResponse> putAsync() throws HttpException {
+
+        final URI uri = constructURI();
+        HttpPut method = new HttpPut(uri);
+        constructRequestBody();
+
+        log.info("We will asynchronously PUT object to " + uri);
+        method.setEntity(requestBody);
+        return executeAsync(method);
+    }
+
+    /**
+     * Invoke the endpoint URL using a HTTP GET without waiting for the response.
+     * <br>The asynchronous requests are sent by a non-blocking client which serves many requests at the same
+     * time with a small number of I/O threads, so a single thread can have many requests in progress.
+     * The number of I/O threads and the maximum number of connections are taken from the
+     * {@link ActionLibraryConfigurator} when this client sends its first asynchronous request.
+     * <br>The request settings (headers, parameters, body etc.) are taken at the time of this call, so they can
+     * be changed for the next request right after it.
+     * <br>The returned future completes in some of the I/O threads. If an asynchronous checkpoint name is set,
+     * the request time is logged as a checkpoint of the current thread.
+     * <br>Cancelling the returned future aborts the request. The requests still in progress are cancelled
+     * when this client is closed.
+     *
+     * @return the future response. It completes exceptionally with {@link HttpException} if the request fails.
+     * @throws HttpException if the request can not be sent
+     */
+    @PublicAtsApi
+    public CompletableFuture<HttpResponse> getAsync() throws HttpException {
+
+        final URI uri = constructURI();
+        HttpGet method = new HttpGet(uri);
+
+        log.info("We will asynchronously GET from " + uri);
+        return executeAsync(method);
+    }
+
+    /**
+     * Invoke the endpoint URL using a HTTP DELETE without waiting for the response.
+     * <br>See {@link #getAsync()} for details about the asynchronous requests.
+     *
+     * @return the future response
+     * @throws HttpException if the request can not be sent
+     */
+    @PublicAtsApi
+    public CompletableFuture<HttpResponse> deleteAsync() throws HttpException {
+
+        final URI uri = constructURI();
+        HttpDelete method = new HttpDelete(uri);
+
+        log.info("We will asynchronously DELETE from " + uri);
+        return executeAsync(method);
+    }
+
+    /**
+     * Invoke the endpoint URL using a HTTP HEAD without waiting for the response.
+     * <br>See {@link #getAsync()} for details about the asynchronous requests.
+     *
+     * @return the future response
+     * @throws HttpException if the request can not be sent
+     */
+    @PublicAtsApi
+    public CompletableFuture<HttpResponse> headAsync() throws HttpException {
+
+        final URI uri = constructURI();
+        HttpHead method = new HttpHead(uri);
+
+        log.info("We will asynchronously run a HEAD request from " + uri);
+        return executeAsync(method);
+    }
+
+    /**
+     * Set the name of the checkpoint logged for each of the following asynchronous requests.
+     * <br>The checkpoint is logged when the response is received, with the time since the request was sent.
+     * It belongs to the thread which sent the request, so when used in an action it is part of the
+     * load queue of this action.
+     *
+     * @param checkpointName the checkpoint name, null to not log checkpoints
+     */
+    @PublicAtsApi
+    public void setAsyncCheckpointName( String checkpointName ) {
+
+        this.asyncCheckpointName = checkpointName;
+    }
+
     /**
      * Close HttpClient stream and releases any system resources associated with it
      */
@@ -1196,6 +1331,26 @@ public void close() {
             this.httpClient = null;
             invalidateInternalClient();
         }
+
+        closeAsyncClient();
+    }
+
+    /**
+     * Close the client for asynchronous requests. The requests which are still in progress are cancelled.
+     */
+    private void closeAsyncClient() {
+
+        for (CompletableFuture<HttpResponse> asyncRequest : new ArrayList<CompletableFuture<HttpResponse>>(asyncRequestsInProgress)) {
+            asyncRequest.cancel(true);
+        }
+
+        if (this.asyncHttpClient != null) {
+
+            IoUtils.closeStream(this.asyncHttpClient, "Failed to close asynchronous HttpClient");
+
+            this.asyncHttpClient = null;
+            this.needsAsyncClientInitialization = true;
+        }
     }
 
     @Override
@@ -1217,6 +1372,7 @@ protected void finalize() throws Throwable {
     protected void invalidateInternalClient() {
 
         this.needsInternalClientInialization = true;
+        this.needsAsyncClientInitialization = true;
     }
 
     protected void initialzeInternalClient() {
@@ -1226,37 +1382,22 @@ protected void initialzeInternalClient() {
             return;
         }
 
-        // release any resources if this client was already used
-        close();
+        // release any resources if this client was already used,
+        // the asynchronous requests in progress are not affected
+        if (this.httpClient != null) {
+            IoUtils.closeStream(this.httpClient, "Failed to close HttpClient");
+            this.httpClient = null;
+        }
 
         // rebuild the client
         HttpClientBuilder httpClientBuilder = HttpClients.custom();
 
         // Add this interceptor to get the values of all HTTP headers in the request.
         // Some of them are provided by the user while others are generated by Apache HTTP Components.
-        httpClientBuilder.addInterceptorLast(new HttpRequestInterceptor() {
-            @Override
-            public void process( HttpRequest request, HttpContext context ) throws HttpException,
-                                                                            IOException {
-
-                Header[] requestHeaders = request.getAllHeaders();
-                actualRequestHeaders = new ArrayList<HttpHeader>();
-                for (Header header : requestHeaders) {
-                    addHeaderToList(actualRequestHeaders, header.getName(), header.getValue());
-                }
-                if (debugLevel != HttpDebugLevel.NONE) {
-                    logHTTPRequest(requestHeaders, request);
-                }
-            }
-        });
+        httpClientBuilder.addInterceptorLast(createRequestInterceptor(true));
 
         // connect and read timeouts
-        httpClientBuilder.setDefaultRequestConfig(RequestConfig.custom()
-                                                               .setConnectTimeout(connectTimeoutSeconds
-                                                                                  * 1000)
-                                                               .setSocketTimeout(readTimeoutSeconds
-                                                                                 * 1000)
-                                                               .build());
+        httpClientBuilder.setDefaultRequestConfig(createRequestConfig());
 
         // socket buffer size
         if (this.socketBufferSize > 0) {
@@ -1293,6 +1434,96 @@ public void process( HttpRequest request, HttpContext context ) throws HttpExcep
         needsInternalClientInialization = false;
     }
 
+    private void initializeAsyncClient() {
+
+        if (!needsAsyncClientInitialization) {
+            // asynchronous client is already initialized
+            return;
+        }
+
+        // the requests in progress are aborted, but this happens only when some client setting was changed
+        closeAsyncClient();
+
+        ActionLibraryConfigurator actionLibraryConfigurator = ActionLibraryConfigurator.getInstance();
+        HttpAsyncClientBuilder asyncClientBuilder = HttpAsyncClients.custom();
+
+        // the actual request headers are kept for the blocking requests only
+        asyncClientBuilder.addInterceptorLast(createRequestInterceptor(false));
+
+        // the I/O threads serve all requests, they never wait for a response
+        IOReactorConfig.Builder ioReactorConfig = IOReactorConfig.custom()
+                                                                 .setIoThreadCount(actionLibraryConfigurator.getHttpAsyncIoThreads())
+                                                                 .setConnectTimeout(connectTimeoutSeconds * 1000)
+                                                                 .setSoTimeout(readTimeoutSeconds * 1000);
+        if (this.socketBufferSize > 0) {
+            ioReactorConfig.setRcvBufSize(this.socketBufferSize).setSndBufSize(this.socketBufferSize);
+        }
+        asyncClientBuilder.setDefaultIOReactorConfig(ioReactorConfig.build());
+        asyncClientBuilder.setDefaultRequestConfig(createRequestConfig());
+
+        // by default only 2 connections per host are allowed, which would serialize the requests
+        int maxConnections = actionLibraryConfigurator.getHttpAsyncMaxConnections();
+        asyncClientBuilder.setMaxConnTotal(maxConnections);
+        asyncClientBuilder.setMaxConnPerRoute(maxConnections);
+
+        if (isOverSsl) {
+            asyncClientBuilder.setSSLStrategy(new SSLIOSessionStrategy(createSSLContext(), supportedProtocols,
+                                                                       supportedCipherSuites,
+                                                                       new NoopHostnameVerifier()));
+        }
+
+        if (!StringUtils.isNullOrEmpty(username)) {
+            asyncClientBuilder.setDefaultCredentialsProvider(createCredentialsProvider());
+            Registry<AuthSchemeProvider> authSchemeRegistry = setupAuthSchemes();
+            if (authSchemeRegistry != null) {
+                asyncClientBuilder.setDefaultAuthSchemeRegistry(authSchemeRegistry);
+            }
+        }
+
+        if (AtsSystemProperties.SYSTEM_HTTP_PROXY_HOST != null
+            && AtsSystemProperties.SYSTEM_HTTP_PROXY_PORT != null) {
+
+            HttpHost proxy = new HttpHost(AtsSystemProperties.SYSTEM_HTTP_PROXY_HOST,
+                                          Integer.parseInt(AtsSystemProperties.SYSTEM_HTTP_PROXY_PORT));
+            asyncClientBuilder.setRoutePlanner(new DefaultProxyRoutePlanner(proxy));
+        }
+
+        asyncHttpClient = asyncClientBuilder.build();
+        asyncHttpClient.start();
+
+        needsAsyncClientInitialization = false;
+    }
+
+    private HttpRequestInterceptor createRequestInterceptor( final boolean keepActualRequestHeaders ) {
+
+        return new HttpRequestInterceptor() {
+            @Override
+            public void process( HttpRequest request, HttpContext context ) throws HttpException,
+                                                                            IOException {
+
+                Header[] requestHeaders = request.getAllHeaders();
+                if (keepActualRequestHeaders) {
+                    List<HttpHeader> headers = new ArrayList<HttpHeader>();
+                    for (Header header : requestHeaders) {
+                        addHeaderToList(headers, header.getName(), header.getValue());
+                    }
+                    actualRequestHeaders = headers;
+                }
+                if (debugLevel != HttpDebugLevel.NONE) {
+                    logHTTPRequest(requestHeaders, request);
+                }
+            }
+        };
+    }
+
+    private RequestConfig createRequestConfig() {
+
+        return RequestConfig.custom()
+                            .setConnectTimeout(connectTimeoutSeconds * 1000)
+                            .setSocketTimeout(readTimeoutSeconds * 1000)
+                            .build();
+    }
+
     /**
      * Main execute method that sends request and receives response.
      *
@@ -1308,6 +1539,7 @@ private HttpResponse execute( HttpRequestBase httpMethod ) throws HttpException
         addHeadersToHttpMethod(httpMethod);
 
         // Create response handler
+        final String responseBodyFilePath = this.responseBodyFilePath;
         ResponseHandler<HttpResponse> responseHandler = new ResponseHandler<HttpResponse>() {
 
             @Override
@@ -1315,49 +1547,7 @@ private HttpResponse execute( HttpRequestBase httpMethod ) throws HttpException
                     handleResponse( final org.apache.http.HttpResponse response ) throws ClientProtocolException,
                                                                                   IOException {
 
-                int status = response.getStatusLine().getStatusCode();
-                Header[] responseHeaders = response.getAllHeaders();
-                List<HttpHeader> responseHeadersList = new ArrayList<HttpHeader>();
-
-                for (Header header : responseHeaders) {
-                    addHeaderToList(responseHeadersList, header.getName(), header.getValue());
-                }
-                if ( (debugLevel & HttpDebugLevel.HEADERS) == HttpDebugLevel.HEADERS) {
-                    logHTTPResponse(responseHeaders, response);
-                }
-
-                try {
-                    HttpEntity entity = response.getEntity();
-                    if (entity == null) {
-                        // No response body, generally have '204 No content' status
-                        return new HttpResponse(status, response.getStatusLine().getReasonPhrase(),
-                                                responseHeadersList);
-                    } else {
-                        if (responseBodyFilePath != null) {
-
-                            FileOutputStream fos = null;
-                            try {
-                                fos = new FileOutputStream(new File(responseBodyFilePath), false);
-                                entity.writeTo(fos);
-                            } finally {
-                                IoUtils.closeStream(fos);
-                            }
-                            return new HttpResponse(status, response.getStatusLine().getReasonPhrase(),
-                                                    responseHeadersList);
-                        } else {
-
-                            ByteArrayOutputStream bos = new ByteArrayOutputStream();
-                            entity.writeTo(bos);
-                            return new HttpResponse(status, response.getStatusLine().getReasonPhrase(),
-                                                    responseHeadersList, bos.toByteArray());
-                        }
-                    }
-                } finally {
-                    if (response instanceof CloseableHttpResponse) {
-                        IoUtils.closeStream((CloseableHttpResponse) response,
-                                            "Failed to close HttpResponse");
-                    }
-                }
+                return createResponse(response, responseBodyFilePath);
             }
         };
 
@@ -1371,21 +1561,186 @@ private HttpResponse execute( HttpRequestBase httpMethod ) throws HttpException
                                     + " seconds.", e);
         } finally {
 
-            // clear internal variables
-            ActionLibraryConfigurator actionLibraryConfigurator = ActionLibraryConfigurator.getInstance();
-            if (!actionLibraryConfigurator.getHttpKeepRequestHeaders()) {
-                this.requestHeaders.clear();
+            clearRequestSettings();
+        }
+    }
+
+    /**
+     * Send the request without waiting for the response.
+     *
+     * @param httpMethod the POST/PUT etc. method
+     * @return the future response
+     * @throws HttpException
+     */
+    private CompletableFuture<HttpResponse> executeAsync( HttpRequestBase httpMethod ) throws HttpException {
+
+        initializeAsyncClient();
+
+        // Add HTTP headers
+        addHeadersToHttpMethod(httpMethod);
+
+        // these might be changed for the next request before this one completes
+        final String responseBodyFilePath = this.responseBodyFilePath;
+        final String url = this.actualUrl;
+
+        // the requests can not share a context, but they share the cookies and the authentication cache
+        HttpClientContext requestContext = HttpClientContext.adapt(new BasicHttpContext(httpContext));
+
+        final CompletableFuture<HttpResponse> futureResponse = new CompletableFuture<HttpResponse>();
+        final AsyncRequestCheckpoint checkpoint = AsyncRequestCheckpoint.start(asyncCheckpointName);
+        // the callback is invoked by some of the I/O threads
+        FutureCallback<org.apache.http.HttpResponse> callback = new FutureCallback<org.apache.http.HttpResponse>() {
+
+            @Override
+            public void completed( org.apache.http.HttpResponse response ) {
+
+                HttpResponse httpResponse;
+                try {
+                    httpResponse = createResponse(response, responseBodyFilePath);
+                } catch (Exception e) {
+                    failed(e);
+                    return;
+                }
+                if (checkpoint != null) {
+                    checkpoint.end(getBodySize(httpResponse, responseBodyFilePath), true);
+                }
+                futureResponse.complete(httpResponse);
+            }
+
+            @Override
+            public void failed( Exception e ) {
+
+                if (checkpoint != null) {
+                    checkpoint.end(0, false);
+                }
+                futureResponse.completeExceptionally(new HttpException("Exception occurred sending message to URL '"
+                                                                       + url + "' with a read timeout of "
+                                                                       + readTimeoutSeconds
+                                                                       + " seconds and a connect timeout of "
+                                                                       + connectTimeoutSeconds + " seconds.", e));
+            }
+
+            @Override
+            public void cancelled() {
+
+                if (checkpoint != null) {
+                    checkpoint.end(0, false);
+                }
+                futureResponse.cancel(false);
+            }
+        };
+
+        try {
+            Future<org.apache.http.HttpResponse> request = asyncHttpClient.execute(httpMethod, requestContext,
+                                                                                   callback);
+            trackAsyncRequest(futureResponse, request);
+        } finally {
+
+            clearRequestSettings();
+        }
+        return futureResponse;
+    }
+
+    /**
+     * Keep the request until it completes, so it can be cancelled when the client is closed
+     *
+     * @param futureResponse the future returned to the user
+     * @param request the request in progress
+     */
+    private void trackAsyncRequest( final CompletableFuture<HttpResponse> futureResponse,
+                                    final Future<?> request ) {
+
+        asyncRequestsInProgress.add(futureResponse);
+        futureResponse.whenComplete(new BiConsumer<HttpResponse, Throwable>() {
+
+            @Override
+            public void accept( HttpResponse response, Throwable throwable ) {
+
+                asyncRequestsInProgress.remove(futureResponse);
+                if (futureResponse.isCancelled()) {
+                    // abort the request if it is still in progress
+                    request.cancel(true);
+                }
             }
-            if (!actionLibraryConfigurator.getHttpKeepRequestParameters()) {
-                this.requestParameters.clear();
+        });
+    }
+
+    private HttpResponse createResponse( org.apache.http.HttpResponse response,
+                                         String responseBodyFilePath ) throws IOException {
+
+        int status = response.getStatusLine().getStatusCode();
+        Header[] responseHeaders = response.getAllHeaders();
+        List<HttpHeader> responseHeadersList = new ArrayList<HttpHeader>();
+
+        for (Header header : responseHeaders) {
+            addHeaderToList(responseHeadersList, header.getName(), header.getValue());
+        }
+        if ( (debugLevel & HttpDebugLevel.HEADERS) == HttpDebugLevel.HEADERS) {
+            logHTTPResponse(responseHeaders, response);
+        }
+
+        try {
+            HttpEntity entity = response.getEntity();
+            if (entity == null) {
+                // No response body, generally have '204 No content' status
+                return new HttpResponse(status, response.getStatusLine().getReasonPhrase(),
+                                        responseHeadersList);
+            } else {
+                if (responseBodyFilePath != null) {
+
+                    FileOutputStream fos = null;
+                    try {
+                        fos = new FileOutputStream(new File(responseBodyFilePath), false);
+                        entity.writeTo(fos);
+                    } finally {
+                        IoUtils.closeStream(fos);
+                    }
+                    return new HttpResponse(status, response.getStatusLine().getReasonPhrase(),
+                                            responseHeadersList);
+                } else {
+
+                    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+                    entity.writeTo(bos);
+                    return new HttpResponse(status, response.getStatusLine().getReasonPhrase(),
+                                            responseHeadersList, bos.toByteArray());
+                }
             }
-            if (!actionLibraryConfigurator.getHttpKeepRequestBody()) {
-                this.requestBody = null;
+        } finally {
+            if (response instanceof CloseableHttpResponse) {
+                IoUtils.closeStream((CloseableHttpResponse) response,
+                                    "Failed to close HttpResponse");
             }
-            this.responseBodyFilePath = null;
         }
     }
 
+    private long getBodySize( HttpResponse response, String responseBodyFilePath ) {
+
+        if (response.getBody() != null) {
+            return response.getBody().length;
+        }
+        return responseBodyFilePath != null
+                                            ? new File(responseBodyFilePath).length()
+                                            : 0;
+    }
+
+    /**
+     * Clear the settings which are used for one request only
+     */
+    private void clearRequestSettings() {
+
+        ActionLibraryConfigurator actionLibraryConfigurator = ActionLibraryConfigurator.getInstance();
+        if (!actionLibraryConfigurator.getHttpKeepRequestHeaders()) {
+            this.requestHeaders.clear();
+        }
+        if (!actionLibraryConfigurator.getHttpKeepRequestParameters()) {
+            this.requestParameters.clear();
+        }
+        if (!actionLibraryConfigurator.getHttpKeepRequestBody()) {
+            this.requestBody = null;
+        }
+        this.responseBodyFilePath = null;
+    }
+
     private void logHTTPRequest( Header[] requestHeaders, HttpRequest request ) {
 
         StringBuilder requestMessage = new StringBuilder();
@@ -1493,10 +1848,29 @@ private URI constructURI() throws HttpException {
      */
     private void setupAuthentication( HttpClientBuilder httpClientBuilder ) throws HttpException {
 
+        httpClientBuilder.setDefaultCredentialsProvider(createCredentialsProvider());
+
+        Registry<AuthSchemeProvider> authSchemeRegistry = setupAuthSchemes();
+        if (authSchemeRegistry != null) {
+            httpClientBuilder.setDefaultAuthSchemeRegistry(authSchemeRegistry);
+        }
+    }
+
+    private CredentialsProvider createCredentialsProvider() {
+
         CredentialsProvider credsProvider = new BasicCredentialsProvider();
         credsProvider.setCredentials(new AuthScope(AuthScope.ANY_HOST, AuthScope.ANY_PORT),
                                      new UsernamePasswordCredentials(username, password));
-        httpClientBuilder.setDefaultCredentialsProvider(credsProvider);
+        return credsProvider;
+    }
+
+    /**
+     * Set up the preemptive authentication or the SPNEGO authentication scheme
+     *
+     * @return the SPNEGO authentication scheme registry or null if not needed
+     * @throws HttpException
+     */
+    private Registry<AuthSchemeProvider> setupAuthSchemes() throws HttpException {
 
         if (authType == AuthType.always) {
             AuthCache authCache = new BasicAuthCache();
@@ -1515,13 +1889,12 @@ private void setupAuthentication( HttpClientBuilder httpClientBuilder ) throws H
                 GssClient gssClient = new GssClient(username, password, kerberosClientKeytab, krb5ConfFile);
                 AuthSchemeProvider nsf = new SPNegoSchemeFactory(gssClient, kerberosServicePrincipalName,
                                                                  kerberosServicePrincipalType);
-                final Registry<AuthSchemeProvider> authSchemeRegistry = RegistryBuilder.<AuthSchemeProvider> create()
-                                                                                       .register(AuthSchemes.SPNEGO,
-                                                                                                 nsf)
-                                                                                       .build();
-                httpClientBuilder.setDefaultAuthSchemeRegistry(authSchemeRegistry);
+                return RegistryBuilder.<AuthSchemeProvider> create()
+                                      .register(AuthSchemes.SPNEGO, nsf)
+                                      .build();
             }
         }
+        return null;
     }
 
     /**
@@ -1533,6 +1906,23 @@ private void setupAuthentication( HttpClientBuilder httpClientBuilder ) throws H
      */
     private void setupSSL( HttpClientBuilder httpClientBuilder ) throws HttpException {
 
+        // Allow all supported protocols
+        SSLConnectionSocketFactory sslsf = new SSLConnectionSocketFactory(createSSLContext(), supportedProtocols,
+                                                                          supportedCipherSuites,
+                                                                          new NoopHostnameVerifier());
+
+        httpClientBuilder.setSSLSocketFactory(sslsf);
+    }
+
+    /**
+     * Create the SSL context with the trusted certificates and client private key and certificate,
+     * if applicable.
+     *
+     * @return the SSL context
+     * @throws HttpException
+     */
+    private SSLContext createSSLContext() throws HttpException {
+
         try {
             SSLContextBuilder sslContextBuilder = SSLContexts.custom();
 
@@ -1569,13 +1959,7 @@ public boolean isTrusted( X509Certificate[] chain,
                                                   clientSSLKeyStorePassword.toCharArray());
             }
 
-            SSLContext sslContext = sslContextBuilder.build();
-            // Allow all supported protocols
-            SSLConnectionSocketFactory sslsf = new SSLConnectionSocketFactory(sslContext, supportedProtocols,
-                                                                              supportedCipherSuites,
-                                                                              new NoopHostnameVerifier());
-
-            httpClientBuilder.setSSLSocketFactory(sslsf);
+            return sslContextBuilder.build();
 
         } catch (Exception e) {
             throw new HttpException("Exception occurred when setting up SSL.", e);
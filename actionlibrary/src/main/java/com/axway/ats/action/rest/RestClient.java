@@ -1,5 +1,5 @@
 /*
- * Copyright 2017-2020 Axway Software
+ * Copyright 2017-2021 Axway Software
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,25 +18,36 @@
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
 import java.util.regex.Pattern;
 
 import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLContext;
+import javax.ws.rs.client.AsyncInvoker;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.client.ClientRequestContext;
 import javax.ws.rs.client.ClientRequestFilter;
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.Invocation;
+import javax.ws.rs.client.InvocationCallback;
 import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.Cookie;
 import javax.ws.rs.core.Form;
@@ -67,6 +78,7 @@
 import org.glassfish.jersey.media.multipart.MultiPartMediaTypes;
 
 import com.axway.ats.action.ActionLibraryConfigurator;
+import com.axway.ats.action.AsyncRequestCheckpoint;
 import com.axway.ats.action.exceptions.RestException;
 import com.axway.ats.action.json.JsonText;
 import com.axway.ats.action.xml.XmlText;
@@ -168,10 +180,21 @@ public class RESTDebugLevel {
 
     private boolean                   bufferResponse                     = true;
 
+    // the client is created again when some of its transport settings is changed
     private boolean                   invalidateClient                   = true;
+    // the invocation builder is created again when some of the request settings is changed
+    private boolean                   invalidateInvocationBuilder        = true;
+    // the settings the current client was created with
+    private String                    clientTarget;
+    private boolean                   clientSuppressesHttpCompliance;
 
     private boolean                   usePooling                         = false;
 
+    // the name of the checkpoint logged for each asynchronous request
+    private String                    asyncCheckpointName;
+    // the asynchronous requests in progress, they are cancelled when the client is disconnected
+    private final Set<CompletableFuture<RestResponse>> asyncRequestsInProgress = Collections.newSetFromMap(new ConcurrentHashMap<CompletableFuture<RestResponse>, Boolean>());
+
     /**
      * Constructor not specifying the target URI.
      * You have to specify one using the appropriate set method
@@ -202,10 +225,15 @@ public RestClient( String uri ) {
      *      <li>If you do not read the response entity</li>
      *      <li>If the response entity is read into an InputStream but you do not call close on that InputStream</li>
      * </ul>
+     * The asynchronous requests which are still in progress are cancelled.
      */
     @PublicAtsApi
     public void disconnect() {
 
+        for (CompletableFuture<RestResponse> asyncRequest : new ArrayList<CompletableFuture<RestResponse>>(asyncRequestsInProgress)) {
+            asyncRequest.cancel(true);
+        }
+
         /* If you don't read the entity, then you need to close the response manually by response.close().
          * Also if the entity is read into an InputStream (by response.readEntity(InputStream.class)),
          * the connection stays open until you finish reading from the InputStream.
@@ -281,9 +309,12 @@ public RestClient newCopy() {
         newClient.bufferResponse = this.bufferResponse;
 
         newClient.invalidateClient = true;//this.invalidateClient;
+        newClient.invalidateInvocationBuilder = true;
 
         newClient.usePooling = this.usePooling;
 
+        newClient.asyncCheckpointName = this.asyncCheckpointName;
+
         return newClient;
     }
 
@@ -319,6 +350,9 @@ private void initInternalVariables() {
         if (!actionLibraryConfigurator.getRestKeepResponseMediaCharset()) {
             responseMediaCharset = actionLibraryConfigurator.getRestDefaultResponseMediaCharset();
         }
+
+        // some of the request settings might be cleared
+        invalidateInvocationBuilder = true;
     }
 
     /**
@@ -344,7 +378,7 @@ public RestClient setURI( String uri ) {
 
         // should we clear some cookies as well, since a new URI is set?
 
-        this.invalidateClient = true;
+        this.invalidateInvocationBuilder = true;
 
         return this;
     }
@@ -436,7 +470,7 @@ public RestClient addResourcePath( String... resourcePathArray ) {
                 for (String token : resourcePathToken.split("/")) {
                     if (token.length() > 0) {
                         this.resourcePath.add(token);
-                        this.invalidateClient = true;
+                        this.invalidateInvocationBuilder = true;
                     }
                 }
             }
@@ -472,7 +506,7 @@ public RestClient addRequestHeader( String name, String value ) {
             requestHeaders.put(name, values);
         }
 
-        this.invalidateClient = true;
+        this.invalidateInvocationBuilder = true;
 
         return this;
     }
@@ -505,7 +539,7 @@ public RestClient addRequestHeader( String name, int value ) {
             requestHeaders.put(name, values);
         }
 
-        this.invalidateClient = true;
+        this.invalidateInvocationBuilder = true;
 
         return this;
     }
@@ -538,7 +572,7 @@ public RestClient addRequestHeader( String name, long value ) {
             requestHeaders.put(name, values);
         }
 
-        this.invalidateClient = true;
+        this.invalidateInvocationBuilder = true;
 
         return this;
     }
@@ -558,7 +592,7 @@ public RestClient setRequestHeader( String name, String value ) {
         values.add(value);
         requestHeaders.put(name, values);
 
-        this.invalidateClient = true;
+        this.invalidateInvocationBuilder = true;
 
         return this;
     }
@@ -589,7 +623,7 @@ public RestClient removeRequestHeader( String name ) {
             log.warn("Header with name '" + name
                      + "' will not be removed since it was not found in request headers.");
         } else {
-            this.invalidateClient = true;
+            this.invalidateInvocationBuilder = true;
         }
 
         return this;
@@ -612,7 +646,7 @@ public RestClient removeRequestHeaders( String... names ) {
             for (String name : names) {
                 if (key.equalsIgnoreCase(name)) {
                     keys.remove();
-                    this.invalidateClient = true;
+                    this.invalidateInvocationBuilder = true;
                 }
             }
         }
@@ -643,7 +677,7 @@ public RestClient addRequestParameter( String name, String... values ) {
 
         requestParameters.put(name, valuesList);
 
-        this.invalidateClient = true;
+        this.invalidateInvocationBuilder = true;
 
         return this;
     }
@@ -664,7 +698,7 @@ public RestClient addRequestParameter( String name, List<String> values ) {
 
         requestParameters.put(name, values);
 
-        this.invalidateClient = true;
+        this.invalidateInvocationBuilder = true;
 
         return this;
     }
@@ -686,7 +720,7 @@ public RestClient addRequestParameters( Map<String, List<String>> requestParamet
             this.requestParameters.put(valueEntry.getKey(), valueEntry.getValue());
         }
 
-        this.invalidateClient = true;
+        this.invalidateInvocationBuilder = true;
 
         return this;
     }
@@ -707,7 +741,7 @@ public RestClient removeRequestParameter( String name ) {
             String key = keys.next();
             if (key.equals(name)) {
                 keys.remove();
-                this.invalidateClient = true;
+                this.invalidateInvocationBuilder = true;
                 return this;
             }
         }
@@ -736,7 +770,7 @@ public RestClient removeRequestParameters( String... names ) {
             for (String name : names) {
                 if (key.equals(name)) {
                     keys.remove();
-                    this.invalidateClient = true;
+                    this.invalidateInvocationBuilder = true;
                 }
             }
         }
@@ -756,7 +790,7 @@ public RestClient addCookie( Cookie cookie ) {
 
         this.cookies.add(cookie);
 
-        this.invalidateClient = true;
+        this.invalidateInvocationBuilder = true;
 
         return this;
     }
@@ -771,7 +805,7 @@ public RestClient clearCookies() {
 
         this.cookies.clear();
 
-        this.invalidateClient = true;
+        this.invalidateInvocationBuilder = true;
 
         return this;
     }
@@ -801,7 +835,7 @@ public RestClient setRequestMediaType( String mediaType ) {
                 break;
         }
 
-        this.invalidateClient = true;
+        this.invalidateInvocationBuilder = true;
 
         return this;
     }
@@ -835,7 +869,7 @@ public RestClient setRequestMediaType( String mediaType, String mediaCharset ) {
 
         this.requestMediaCharset = mediaCharset;
 
-        this.invalidateClient = true;
+        this.invalidateInvocationBuilder = true;
 
         return this;
     }
@@ -853,7 +887,7 @@ public RestClient setResponseMediaType( String mediaType ) {
 
         this.responseMediaType = RestMediaType.checkValueIsValid(mediaType);
 
-        this.invalidateClient = true;
+        this.invalidateInvocationBuilder = true;
 
         return this;
     }
@@ -873,7 +907,7 @@ public RestClient setResponseMediaType( String mediaType, String mediaCharset )
         this.responseMediaType = RestMediaType.checkValueIsValid(mediaType);
         this.responseMediaCharset = mediaCharset;
 
-        this.invalidateClient = true;
+        this.invalidateInvocationBuilder = true;
 
         return this;
     }
@@ -900,11 +934,8 @@ public RestResponse execute( String httpMethod ) {
     @PublicAtsApi
     public RestResponse execute( String httpMethod, Object bodyContent ) {
 
-        if (this.invalidateClient) {
-            constructInvocationBuilder("execute " + httpMethod
-                                       + " against", false);
-            this.invalidateClient = false;
-        }
+        prepareInvocationBuilder("execute " + httpMethod + " against", false);
+
         // execute HTTP method
         RestResponse response = null;
         String errorMessage = "Content type is not set! Content type is mandatory for POST or PUT.";
@@ -953,10 +984,7 @@ public RestResponse execute( String httpMethod, Object bodyContent ) {
     @PublicAtsApi
     public RestResponse get() {
 
-        if (this.invalidateClient) {
-            constructInvocationBuilder("GET from", false);
-            this.invalidateClient = false;
-        }
+        prepareInvocationBuilder("GET from", false);
 
         // execute GET
         RestResponse response = new RestResponse(invocationBuilder.get(), this.bufferResponse);
@@ -977,10 +1005,7 @@ public RestResponse get() {
     @PublicAtsApi
     public RestResponse postObject( Object object ) {
 
-        if (this.invalidateClient) {
-            constructInvocationBuilder("POST object to", false);
-            this.invalidateClient = false;
-        }
+        prepareInvocationBuilder("POST object to", false);
 
         // execute POST
         RestResponse response = null;
@@ -1031,10 +1056,7 @@ public RestResponse postObject( Object object ) {
     @PublicAtsApi
     public RestResponse postForm( RestForm restForm ) {
 
-        if (this.invalidateClient) {
-            constructInvocationBuilder("POST form to", false);
-            this.invalidateClient = false;
-        }
+        prepareInvocationBuilder("POST form to", false);
 
         // execute POST
         RestResponse response = new RestResponse(invocationBuilder.post(Entity.entity(restForm.getForm(),
@@ -1057,15 +1079,7 @@ public RestResponse postForm( RestForm restForm ) {
     @PublicAtsApi
     public RestResponse putObject( Object object ) {
 
-        if (this.invalidateClient) {
-            if (object != null) {
-                constructInvocationBuilder("PUT object to", false);
-            } else {
-                constructInvocationBuilder("PUT object to", true);
-            }
-
-            this.invalidateClient = false;
-        }
+        prepareInvocationBuilder("PUT object to", object == null);
 
         // execute PUT
         RestResponse response = null;
@@ -1116,15 +1130,7 @@ public RestResponse putObject( Object object ) {
     @PublicAtsApi
     public RestResponse putForm( RestForm restForm ) {
 
-        if (this.invalidateClient) {
-            if (restForm != null) {
-                constructInvocationBuilder("PUT form to", false);
-            } else {
-                constructInvocationBuilder("PUT form to", true);
-            }
-
-            this.invalidateClient = false;
-        }
+        prepareInvocationBuilder("PUT form to", restForm == null);
 
         // execute PUT
         RestResponse response;
@@ -1152,11 +1158,7 @@ public RestResponse putForm( RestForm restForm ) {
     @PublicAtsApi
     public RestResponse delete() {
 
-        if (this.invalidateClient) {
-            constructInvocationBuilder("DELETE from", false);
-
-            this.invalidateClient = false;
-        }
+        prepareInvocationBuilder("DELETE from", false);
 
         // execute DELETE
         RestResponse response = new RestResponse(invocationBuilder.delete(), this.bufferResponse);
@@ -1168,6 +1170,244 @@ public RestResponse delete() {
         return response;
     }
 
+    /**
+     * Execute any HTTP method without request body and without waiting for the response
+     * <br>See {@link #getAsync()} for details about the asynchronous requests.
+     *
+     * @param httpMethod the HTTP method name(for example GET or POST)
+     * @return the future response
+     */
+    @PublicAtsApi
+    public CompletableFuture<RestResponse> executeAsync( String httpMethod ) {
+
+        return executeAsync(httpMethod, null);
+    }
+
+    /**
+     * Execute any HTTP method without waiting for the response
+     * <br>See {@link #getAsync()} for details about the asynchronous requests.
+     *
+     * @param httpMethod the HTTP method name(for example GET or POST)
+     * @param bodyContent the request body content(pass null if no body required)
+     * @return the future response
+     */
+    @PublicAtsApi
+    public CompletableFuture<RestResponse> executeAsync( String httpMethod, Object bodyContent ) {
+
+        prepareInvocationBuilder("asynchronously execute " + httpMethod + " against", false);
+
+        Entity<?> entity = null;
+        if (bodyContent != null) {
+            entity = createEntity(bodyContent,
+                                  "Content type is not set! Content type is mandatory for POST or PUT.");
+        }
+        return invokeAsync(httpMethod, entity);
+    }
+
+    /**
+     * Execute a GET REST method without waiting for the response
+     * <br>The request is sent by the connector provider in the background. With a non-blocking connector
+     * provider a single thread can have many requests in progress, with a blocking one (like the default one)
+     * each request in progress takes one of the client's asynchronous threads. The number of these threads
+     * is taken from the {@link ActionLibraryConfigurator} when the client is created.
+     * <br>When using ApacheConnectorProvider, enable the {@link #setUsePooling(boolean) pooling}, so the requests
+     * in progress do not wait for each other's connection.
+     * <br>The request settings (headers, parameters, etc.) are taken at the time of this call, so they can
+     * be changed for the next request right after it.
+     * <br>If an asynchronous checkpoint name is set, the request time is logged as a checkpoint of the current thread.
+     * <br>Cancelling the returned future cancels the request. The requests still in progress are cancelled
+     * when this client is {@link #disconnect() disconnected}.
+     *
+     * @return the future response. It completes exceptionally with {@link RestException} if the request fails.
+     */
+    @PublicAtsApi
+    public CompletableFuture<RestResponse> getAsync() {
+
+        prepareInvocationBuilder("asynchronously GET from", false);
+
+        return invokeAsync("GET", null);
+    }
+
+    /**
+     * Execute a POST method on an object without waiting for the response
+     * <br>See {@link #getAsync()} for details about the asynchronous requests.
+     *
+     * @param object the object to post
+     * @return the future response
+     */
+    @PublicAtsApi
+    public CompletableFuture<RestResponse> postObjectAsync( Object object ) {
+
+        prepareInvocationBuilder("asynchronously POST object to", false);
+
+        Entity<?> entity = null;
+        if (object != null) {
+            entity = createEntity(object, "Content type is not set! Content type is mandatory for POST.");
+        }
+        return invokeAsync("POST", entity);
+    }
+
+    /**
+     * Execute a POST method on a form without waiting for the response
+     * <br>See {@link #getAsync()} for details about the asynchronous requests.
+     *
+     * @param restForm the form to post
+     * @return the future response
+     */
+    @PublicAtsApi
+    public CompletableFuture<RestResponse> postFormAsync( RestForm restForm ) {
+
+        prepareInvocationBuilder("asynchronously POST form to", false);
+
+        return invokeAsync("POST",
+                           Entity.entity(restForm.getForm(), MediaType.APPLICATION_FORM_URLENCODED_TYPE));
+    }
+
+    /**
+     * Execute a PUT method on an object without waiting for the response
+     * <br>See {@link #getAsync()} for details about the asynchronous requests.
+     *
+     * @param object the object to put
+     * @return the future response
+     */
+    @PublicAtsApi
+    public CompletableFuture<RestResponse> putObjectAsync( Object object ) {
+
+        prepareInvocationBuilder("asynchronously PUT object to", object == null);
+
+        Entity<?> entity = null;
+        if (object != null) {
+            entity = createEntity(object, "Content type is not set! Content type is mandatory for PUT.");
+        }
+        return invokeAsync("PUT", entity);
+    }
+
+    /**
+     * Execute a DELETE method without waiting for the response
+     * <br>See {@link #getAsync()} for details about the asynchronous requests.
+     *
+     * @return the future response
+     */
+    @PublicAtsApi
+    public CompletableFuture<RestResponse> deleteAsync() {
+
+        prepareInvocationBuilder("asynchronously DELETE from", false);
+
+        return invokeAsync("DELETE", null);
+    }
+
+    /**
+     * Set the name of the checkpoint logged for each of the following asynchronous requests.
+     * <br>The checkpoint is logged when the response is received, with the time since the request was sent.
+     * It belongs to the thread which sent the request, so when used in an action it is part of the
+     * load queue of this action.
+     *
+     * @param checkpointName the checkpoint name, null to not log checkpoints
+     * @return this client's instance
+     */
+    @PublicAtsApi
+    public RestClient setAsyncCheckpointName( String checkpointName ) {
+
+        this.asyncCheckpointName = checkpointName;
+
+        return this;
+    }
+
+    private CompletableFuture<RestResponse> invokeAsync( final String httpMethod, Entity<?> entity ) {
+
+        final CompletableFuture<RestResponse> futureResponse = new CompletableFuture<RestResponse>();
+        final AsyncRequestCheckpoint checkpoint = AsyncRequestCheckpoint.start(this.asyncCheckpointName);
+        final boolean bufferResponse = this.bufferResponse;
+
+        // the callback is invoked by some of the client's asynchronous threads
+        InvocationCallback<Response> callback = new InvocationCallback<Response>() {
+
+            @Override
+            public void completed( Response response ) {
+
+                RestResponse restResponse;
+                try {
+                    restResponse = new RestResponse(response, bufferResponse);
+                    logRESTResponse(restResponse);
+                } catch (Exception e) {
+                    failed(e);
+                    return;
+                }
+                if (checkpoint != null) {
+                    checkpoint.end(Math.max(0, restResponse.getContentLength()), true);
+                }
+                futureResponse.complete(restResponse);
+            }
+
+            @Override
+            public void failed( Throwable throwable ) {
+
+                if (checkpoint != null) {
+                    checkpoint.end(0, false);
+                }
+                futureResponse.completeExceptionally(new RestException("Error executing asynchronous "
+                                                                       + httpMethod + " request", throwable));
+            }
+        };
+
+        AsyncInvoker asyncInvoker = invocationBuilder.async();
+        Future<Response> request;
+        if (entity != null) {
+            request = asyncInvoker.method(httpMethod, entity, callback);
+        } else {
+            request = asyncInvoker.method(httpMethod, callback);
+        }
+        trackAsyncRequest(futureResponse, request);
+
+        initInternalVariables();
+
+        return futureResponse;
+    }
+
+    /**
+     * Keep the request until it completes, so it can be cancelled when the client is disconnected
+     *
+     * @param futureResponse the future returned to the user
+     * @param request the request in progress
+     */
+    private void trackAsyncRequest( final CompletableFuture<RestResponse> futureResponse,
+                                    final Future<?> request ) {
+
+        asyncRequestsInProgress.add(futureResponse);
+        futureResponse.whenComplete(new BiConsumer<RestResponse, Throwable>() {
+
+            @Override
+            public void accept( RestResponse response, Throwable throwable ) {
+
+                asyncRequestsInProgress.remove(futureResponse);
+                if (futureResponse.isCancelled()) {
+                    // abort the request if it is still in progress
+                    request.cancel(true);
+                }
+            }
+        });
+    }
+
+    private Entity<?> createEntity( Object bodyContent, String errorMessage ) {
+
+        if (this.requestMediaType == null) {
+            throw new RestException(errorMessage);
+        }
+        if (this.requestMediaType instanceof String) {
+            if (StringUtils.isNullOrEmpty((String) requestMediaType)) {
+                throw new RestException(errorMessage);
+            }
+            return Entity.entity(getActualBodyObject(bodyContent),
+                                 RestMediaType.toMediaType((String) requestMediaType, requestMediaCharset));
+        } else if (this.requestMediaType instanceof MediaType) {
+            this.requestMediaType = ((MediaType) this.requestMediaType).withCharset(this.requestMediaCharset);
+            return Entity.entity(getActualBodyObject(bodyContent), (MediaType) this.requestMediaType);
+        } else {
+            throw new IllegalArgumentException("Could not construct Content-Type from object of class '"
+                                               + this.requestMediaType.getClass() + "'");
+        }
+    }
+
     private Object getActualBodyObject( Object bodyContent ) {
 
         if (bodyContent != null) {
@@ -1190,6 +1430,9 @@ private Object getActualBodyObject( Object bodyContent ) {
     @PublicAtsApi
     public RestClientConfigurator getClientConfigurator() {
 
+        // the returned configurator might be changed by the caller
+        this.invalidateClient = true;
+
         return this.clientConfigurator;
     }
 
@@ -1203,6 +1446,8 @@ public RestClient setClientConfigurator( RestClientConfigurator clientConfigurat
 
         this.clientConfigurator = clientConfigurator;
 
+        this.invalidateClient = true;
+
         return this;
     }
 
@@ -1218,6 +1463,9 @@ public RestClient setVerboseMode( int level ) {
         if (debugLevel != RESTDebugLevel.NONE && debugLevel != RESTDebugLevel.TARGET_URI) {
             requestFilterNeedsRegistration = true;
         }
+
+        this.invalidateClient = true;
+
         return this;
     }
 
@@ -1248,6 +1496,9 @@ public RestClient setBufferResponse( boolean bufferResponse ) {
 
     /**
      * Set whether a connection pool will be used to obtain connection.<br>
+     * Unless a custom connection manager or connection factory is provided, the pool is shared by all
+     * REST clients in this process which work with the same host and TLS settings.
+     * See {@link RestConnectionPools} for its statistics and limits.<br>
      * <strong>Note</strong> that this currently works only if ApacheConnectorProvider is registered
      * @param usePooling - true/false with behavior explained above.
      * */
@@ -1256,9 +1507,33 @@ public RestClient setUsePooling( boolean usePooling ) {
 
         this.usePooling = usePooling;
 
+        this.invalidateClient = true;
+
         return this;
     }
 
+    private void prepareInvocationBuilder( String descriptionToken,
+                                           boolean suppressHttpComplianceValidation ) {
+
+        // the scheme, host and port, the connections can be reused only for the same target
+        String target = RestConnectionPools.getPoolKey(constructUrl(), null);
+
+        // the client holds the connections, so it is created again only when some transport setting is changed,
+        // otherwise only the request settings are applied on the existing client
+        if (this.invalidateClient || this.client == null || !target.equals(this.clientTarget)
+            || this.clientSuppressesHttpCompliance != suppressHttpComplianceValidation) {
+
+            constructInvocationBuilder(descriptionToken, suppressHttpComplianceValidation);
+
+            this.clientTarget = target;
+            this.clientSuppressesHttpCompliance = suppressHttpComplianceValidation;
+            this.invalidateClient = false;
+        } else if (this.invalidateInvocationBuilder) {
+            createInvocationBuilder(descriptionToken);
+        }
+        this.invalidateInvocationBuilder = false;
+    }
+
     private void constructInvocationBuilder( String descriptionToken,
                                              boolean suppressHttpComplianceValidation ) {
 
@@ -1371,15 +1646,13 @@ private void constructApacheConnectorInvocationBuilder( String descriptionToken,
         // check if user had specified custom connection manager and custom connection factory
         boolean hasConnectionManager = this.clientConfigurator.getConnectionManager() != null;
         boolean hasConnectionFactory = this.clientConfigurator.getConnectionFactory() != null;
+        // the shared connection managers are created with their own socket factories only once
+        boolean useSharedConnectionManager = !hasConnectionManager && usePooling && !hasConnectionFactory;
         // handle HTTPS requests
-        Registry registry = null;
-        if (isHttps()) {
+        Registry<ConnectionSocketFactory> registry = null;
+        if (isHttps() && !hasConnectionManager && !useSharedConnectionManager) {
             // configure Trust-all SSL context
-            if (!hasConnectionManager) {
-
-            }
             registry = constructRegistry();
-
         }
 
         HttpClientConnectionManager connectionManager = null;
@@ -1398,7 +1671,23 @@ private void constructApacheConnectorInvocationBuilder( String descriptionToken,
             } else {
                 connectionFactory = new ManagedHttpClientConnectionFactory();
             }
-            if (registry != null) {
+            if (useSharedConnectionManager) {
+                // reuse the connections of the other clients working with the same target
+                connectionManager = RestConnectionPools.getConnectionManager(constructUrl(),
+                                                                             getTlsConfiguration(),
+                                                                             new RestConnectionPools.SocketFactoryRegistryProvider() {
+
+                                                                                 @Override
+                                                                                 public Registry<ConnectionSocketFactory>
+                                                                                         getSocketFactoryRegistry() {
+
+                                                                                     // configure Trust-all SSL context
+                                                                                     return isHttps()
+                                                                                                      ? constructRegistry()
+                                                                                                      : null;
+                                                                                 }
+                                                                             });
+            } else if (registry != null) {
                 if (usePooling) {
                     connectionManager = new PoolingHttpClientConnectionManager(registry, connectionFactory);
                 } else {
@@ -1430,6 +1719,12 @@ private void constructApacheConnectorInvocationBuilder( String descriptionToken,
             clientConfig.property((String) apacheClientProperties.getDeclaredField("CONNECTION_MANAGER")
                                                                  .get(null),
                                   connectionManager);
+            if (useSharedConnectionManager) {
+                // closing this client must not close the connections of the other clients
+                clientConfig.property((String) apacheClientProperties.getDeclaredField("CONNECTION_MANAGER_SHARED")
+                                                                     .get(null),
+                                      true);
+            }
         } catch (Exception e) {
             throw new RuntimeException("Could not set validity timeinterval for '"
                                        + connectionManager.getClass().getName() + "'", e);
@@ -1444,7 +1739,51 @@ private void constructApacheConnectorInvocationBuilder( String descriptionToken,
         createInvocationBuilder(descriptionToken);
     }
 
-    private Registry constructRegistry() {
+    /**
+     * @return description of all settings used for creating the TLS connections,
+     * the clients share a connection pool only if they have the same settings
+     */
+    String getTlsConfiguration() {
+
+        StringBuilder protocols = new StringBuilder();
+        for (String protocol : this.supportedProtocols) {
+            if (!StringUtils.isNullOrEmpty(protocol)) {
+                if (protocols.length() > 0) {
+                    protocols.append(",");
+                }
+                protocols.append(protocol);
+            }
+        }
+
+        // the cipher suites are not configurable, the default ones are always used
+        StringBuilder tlsConfiguration = new StringBuilder("protocols=").append(protocols);
+        String certificateFileName = clientConfigurator.getCertificateFileName();
+        if (!StringUtils.isNullOrEmpty(certificateFileName)) {
+            // the pool key is visible in the pool statistics, so the password is not included as it is
+            tlsConfiguration.append(" certificate=")
+                            .append(certificateFileName)
+                            .append(" password=")
+                            .append(getDigest(clientConfigurator.getCertificateFilePassword()));
+        }
+        return tlsConfiguration.toString();
+    }
+
+    private String getDigest( String value ) {
+
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                                         .digest(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+            StringBuilder hexDigest = new StringBuilder();
+            for (byte digestByte : digest) {
+                hexDigest.append(String.format("%02x", digestByte));
+            }
+            return hexDigest.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Unable to create a digest of the certificate password", e);
+        }
+    }
+
+    private Registry<ConnectionSocketFactory> constructRegistry() {
 
         try {
             SSLContextBuilder builder = SSLContextBuilder.create();
@@ -1470,7 +1809,9 @@ public boolean isTrusted( X509Certificate[] chain, String authType ) throws Cert
             SSLConnectionSocketFactory sslsf = new SSLConnectionSocketFactory(sslContext,
                                                                               new NoopHostnameVerifier());
 
-            Registry registry = RegistryBuilder.create().register("https", sslsf).build();
+            Registry<ConnectionSocketFactory> registry = RegistryBuilder.<ConnectionSocketFactory> create()
+                                                                        .register("https", sslsf)
+                                                                        .build();
 
             return registry;
         } catch (Exception e) {
@@ -1645,6 +1986,10 @@ private ClientConfig createClientConfig(
             clientConfig.register(providerClass);
         }
 
+        // the number of threads for the asynchronous requests, the user provided value is applied below
+        clientConfig.property(ClientProperties.ASYNC_THREADPOOL_SIZE,
+                              ActionLibraryConfigurator.getInstance().getRestAsyncThreads());
+
         // attach any configuration properties
         Map<String, Object> properties = clientConfigurator.getProperties();
         for (Entry<String, Object> propertyEntry : properties.entrySet()) {
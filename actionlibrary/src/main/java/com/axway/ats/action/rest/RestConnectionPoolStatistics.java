@@ -0,0 +1,94 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.action.rest;
+
+import com.axway.ats.common.PublicAtsApi;
+
+/**
+ * Statistics about one of the {@link RestConnectionPools connection pools} shared by the REST clients.
+ * <br>This is a snapshot taken at the time of the request, it does not change afterwards.
+ */
+@PublicAtsApi
+public class RestConnectionPoolStatistics {
+
+    private final String poolKey;
+    private final int    leasedConnections;
+    private final int    availableConnections;
+    private final int    pendingRequests;
+    private final int    maxConnections;
+
+    RestConnectionPoolStatistics( String poolKey, int leasedConnections, int availableConnections,
+                                  int pendingRequests, int maxConnections ) {
+
+        this.poolKey = poolKey;
+        this.leasedConnections = leasedConnections;
+        this.availableConnections = availableConnections;
+        this.pendingRequests = pendingRequests;
+        this.maxConnections = maxConnections;
+    }
+
+    /**
+     * @return the target of the pool, for example <i>https://localhost:8443 [protocols=TLSv1.2]</i>
+     */
+    @PublicAtsApi
+    public String getPoolKey() {
+
+        return poolKey;
+    }
+
+    /**
+     * @return the number of connections currently used by some request
+     */
+    @PublicAtsApi
+    public int getLeasedConnections() {
+
+        return leasedConnections;
+    }
+
+    /**
+     * @return the number of open connections currently waiting in the pool
+     */
+    @PublicAtsApi
+    public int getAvailableConnections() {
+
+        return availableConnections;
+    }
+
+    /**
+     * @return the number of requests currently waiting for a connection
+     */
+    @PublicAtsApi
+    public int getPendingRequests() {
+
+        return pendingRequests;
+    }
+
+    /**
+     * @return the maximum number of connections in the pool
+     */
+    @PublicAtsApi
+    public int getMaxConnections() {
+
+        return maxConnections;
+    }
+
+    @Override
+    public String toString() {
+
+        return String.format("%s: leased=%d, available=%d, pending=%d, max=%d", poolKey, leasedConnections,
+                             availableConnections, pendingRequests, maxConnections);
+    }
+}
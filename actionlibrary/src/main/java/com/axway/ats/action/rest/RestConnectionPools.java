@@ -0,0 +1,213 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.action.rest;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.config.Registry;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.axway.ats.action.ActionLibraryConfigurator;
+import com.axway.ats.common.PublicAtsApi;
+import com.axway.ats.core.utils.StringUtils;
+
+/**
+ * The connection pools shared by all REST clients in this process.
+ * <br>There is one pool per target host and TLS configuration, so the REST clients working with the same host
+ * reuse the already opened connections instead of each client opening its own ones.
+ * <br>The pools are used by the REST clients which are configured with Apache connector provider and pooling,
+ * but without a custom connection manager or connection factory.
+ * <br>The pool limits and the idle timeout are taken from the {@link ActionLibraryConfigurator} when a pool is created.
+ */
+@PublicAtsApi
+public class RestConnectionPools {
+
+    private static final Logger                      log                       = LogManager.getLogger(RestConnectionPools.class);
+
+    // how often the expired and idle connections are closed
+    private static final long                        EVICTION_INTERVAL         = 5 * 1000;
+
+    // the connections are checked before reusing them when they were not used for this time
+    private static final int                         VALIDATE_AFTER_INACTIVITY = 10 * 1000;
+
+    // the pools by their keys, sorted for readable statistics
+    private static final Map<String, ConnectionPool> pools                     = new TreeMap<>();
+
+    private static ScheduledExecutorService          evictionExecutor;
+
+    private RestConnectionPools() {}
+
+    /**
+     * Get the shared connection manager for some target. It is created the first time it is needed.
+     *
+     * @param url the target URL
+     * @param tlsConfiguration description of all TLS settings, for example the protocols and the client certificate.
+     * Targets with different TLS settings do not share connections, so the socket factories of a new connection
+     * manager are valid for all clients with the same settings. Not used for plain HTTP targets.
+     * @param socketFactoryRegistryProvider creates the socket factories of a new connection manager, so for example
+     * the SSL context is not created when the pool already exists. When null or it returns null, the default socket
+     * factories are used.
+     * @return the connection manager
+     */
+    static synchronized PoolingHttpClientConnectionManager getConnectionManager(
+                                                                                URL url, String tlsConfiguration,
+                                                                                SocketFactoryRegistryProvider socketFactoryRegistryProvider ) {
+
+        String key = getPoolKey(url, tlsConfiguration);
+        ConnectionPool pool = pools.get(key);
+        if (pool == null) {
+            ActionLibraryConfigurator configurator = ActionLibraryConfigurator.getInstance();
+
+            Registry<ConnectionSocketFactory> socketFactoryRegistry = socketFactoryRegistryProvider != null
+                                                                                                            ? socketFactoryRegistryProvider.getSocketFactoryRegistry()
+                                                                                                            : null;
+            PoolingHttpClientConnectionManager connectionManager = socketFactoryRegistry != null
+                                                                                                  ? new PoolingHttpClientConnectionManager(socketFactoryRegistry)
+                                                                                                  : new PoolingHttpClientConnectionManager();
+            connectionManager.setMaxTotal(configurator.getRestPoolMaxTotalConnections());
+            connectionManager.setDefaultMaxPerRoute(configurator.getRestPoolMaxRouteConnections());
+            connectionManager.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY);
+
+            pool = new ConnectionPool(connectionManager, configurator.getRestPoolIdleTimeout());
+            pools.put(key, pool);
+            startEviction();
+
+            log.debug("Created shared REST connection pool for " + key);
+        }
+        return pool.connectionManager;
+    }
+
+    /**
+     * Get the statistics of all shared connection pools
+     *
+     * @return a snapshot of the pool statistics, one for each pool
+     */
+    @PublicAtsApi
+    public static synchronized List<RestConnectionPoolStatistics> getStatistics() {
+
+        List<RestConnectionPoolStatistics> statistics = new ArrayList<>();
+        for (Entry<String, ConnectionPool> poolEntry : pools.entrySet()) {
+            PoolStats poolStats = poolEntry.getValue().connectionManager.getTotalStats();
+            statistics.add(new RestConnectionPoolStatistics(poolEntry.getKey(), poolStats.getLeased(),
+                                                            poolStats.getAvailable(), poolStats.getPending(),
+                                                            poolStats.getMax()));
+        }
+        return statistics;
+    }
+
+    /**
+     * Close all connections and remove all shared connection pools.
+     * <br><b>Note:</b> The REST clients which already used some of these pools must be disconnected,
+     * so they create new pools on their next request.
+     */
+    @PublicAtsApi
+    public static synchronized void closeAll() {
+
+        for (ConnectionPool pool : pools.values()) {
+            pool.connectionManager.shutdown();
+        }
+        pools.clear();
+
+        if (evictionExecutor != null) {
+            evictionExecutor.shutdownNow();
+            evictionExecutor = null;
+        }
+    }
+
+    static String getPoolKey( URL url, String tlsConfiguration ) {
+
+        String protocol = url.getProtocol().toLowerCase();
+        int port = url.getPort() != -1
+                                        ? url.getPort()
+                                        : url.getDefaultPort();
+        String key = protocol + "://" + url.getHost().toLowerCase() + ":" + port;
+        if ("https".equals(protocol) && !StringUtils.isNullOrEmpty(tlsConfiguration)) {
+            key = key + " [" + tlsConfiguration + "]";
+        }
+        return key;
+    }
+
+    private static void startEviction() {
+
+        if (evictionExecutor != null) {
+            return;
+        }
+
+        evictionExecutor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+
+            @Override
+            public Thread newThread( Runnable runnable ) {
+
+                Thread thread = new Thread(runnable, "RestConnectionPools_eviction");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        evictionExecutor.scheduleWithFixedDelay(new Runnable() {
+
+            @Override
+            public void run() {
+
+                evictIdleConnections();
+            }
+        }, EVICTION_INTERVAL, EVICTION_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    private static synchronized void evictIdleConnections() {
+
+        for (ConnectionPool pool : pools.values()) {
+            try {
+                pool.connectionManager.closeExpiredConnections();
+                pool.connectionManager.closeIdleConnections(pool.idleTimeout, TimeUnit.MILLISECONDS);
+            } catch (Exception e) {
+                log.warn("Error closing idle REST connections", e);
+            }
+        }
+    }
+
+    /**
+     * Creates the socket factories of a new shared connection manager
+     */
+    interface SocketFactoryRegistryProvider {
+
+        Registry<ConnectionSocketFactory> getSocketFactoryRegistry();
+    }
+
+    private static class ConnectionPool {
+
+        private final PoolingHttpClientConnectionManager connectionManager;
+        private final long                               idleTimeout;
+
+        ConnectionPool( PoolingHttpClientConnectionManager connectionManager, long idleTimeout ) {
+
+            this.connectionManager = connectionManager;
+            this.idleTimeout = idleTimeout;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.action;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A local HTTP server for the tests of the HTTP and REST clients.
+ * <ul>
+ *   <li><i>/echo</i> returns the request method, the value of the <i>X-Test</i> header, the query and the body,
+ *   separated by '|'</li>
+ *   <li><i>/slow</i> does not respond until the server is stopped</li>
+ * </ul>
+ */
+public class LocalHttpServer {
+
+    public static final String    TEST_HEADER          = "X-Test";
+
+    private final HttpServer      server;
+    private final ExecutorService executor;
+
+    // released when the server is stopped
+    private final CountDownLatch  stopLatch            = new CountDownLatch(1);
+    // released when a request to the slow resource is received
+    private final CountDownLatch  slowRequestsReceived = new CountDownLatch(1);
+
+    public LocalHttpServer() throws IOException {
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/echo", new HttpHandler() {
+
+            @Override
+            public void handle( HttpExchange exchange ) throws IOException {
+
+                String echo = exchange.getRequestMethod() + "|"
+                              + exchange.getRequestHeaders().getFirst(TEST_HEADER) + "|"
+                              + exchange.getRequestURI().getQuery() + "|"
+                              + new String(readBody(exchange.getRequestBody()), StandardCharsets.UTF_8);
+                respond(exchange, echo);
+            }
+        });
+        server.createContext("/slow", new HttpHandler() {
+
+            @Override
+            public void handle( HttpExchange exchange ) throws IOException {
+
+                slowRequestsReceived.countDown();
+                try {
+                    stopLatch.await(30, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                respond(exchange, "slow");
+            }
+        });
+
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public String getUrl() {
+
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Wait until a request to the slow resource is received
+     *
+     * @return whether a request was received in time
+     */
+    public boolean waitForSlowRequest() throws InterruptedException {
+
+        return slowRequestsReceived.await(10, TimeUnit.SECONDS);
+    }
+
+    public void stop() {
+
+        stopLatch.countDown();
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * @return the URL of a local port on which nobody listens
+     */
+    public static String getUnusedUrl() throws IOException {
+
+        ServerSocket socket = new ServerSocket(0);
+        try {
+            return "http://localhost:" + socket.getLocalPort();
+        } finally {
+            socket.close();
+        }
+    }
+
+    private static byte[] readBody( InputStream body ) throws IOException {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ( (read = body.read(buffer)) != -1) {
+            bytes.write(buffer, 0, read);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void respond( HttpExchange exchange, String body ) throws IOException {
+
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "text/plain; charset=UTF-8");
+        exchange.sendResponseHeaders(200, bytes.length);
+        OutputStream responseBody = exchange.getResponseBody();
+        try {
+            responseBody.write(bytes);
+        } finally {
+            responseBody.close();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.action;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.axway.ats.core.threads.ThreadsPerCaller;
+import com.axway.ats.log.model.CheckpointResult;
+
+public class Test_AsyncRequestCheckpoint extends BaseTest {
+
+    private static final String CALLER = "127.0.0.1:8080";
+
+    @After
+    public void after() {
+
+        ThreadsPerCaller.unregisterThread();
+    }
+
+    @Test
+    public void logFromForeignThread() throws Exception {
+
+        ThreadsPerCaller.registerThread(CALLER);
+        final RecordingCheckpoint checkpoint = new RecordingCheckpoint("async request");
+
+        // the request completes in a thread which is not registered for any caller
+        final List<String> callersAfterLogging = new ArrayList<>();
+        Thread engineThread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+
+                checkpoint.end(100, true);
+                callersAfterLogging.add(ThreadsPerCaller.getCaller());
+            }
+        }, "I/O dispatcher 1");
+        engineThread.start();
+        engineThread.join();
+
+        assertEquals(CALLER, checkpoint.loggingCaller);
+        assertEquals(CheckpointResult.PASSED, checkpoint.result);
+        assertEquals(100, checkpoint.transferSize);
+        // the foreign thread is unregistered after logging
+        assertEquals(1, callersAfterLogging.size());
+        assertNull(callersAfterLogging.get(0));
+    }
+
+    @Test
+    public void logFromThreadOfAnotherCaller() throws Exception {
+
+        ThreadsPerCaller.registerThread(CALLER);
+        final RecordingCheckpoint checkpoint = new RecordingCheckpoint("async request");
+
+        final List<String> callersAfterLogging = new ArrayList<>();
+        Thread engineThread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+
+                ThreadsPerCaller.registerThread("another caller");
+                try {
+                    checkpoint.end(0, false);
+                    callersAfterLogging.add(ThreadsPerCaller.getCaller());
+                } finally {
+                    ThreadsPerCaller.unregisterThread();
+                }
+            }
+        }, "jersey-client-async-executor-1");
+        engineThread.start();
+        engineThread.join();
+
+        assertEquals(CALLER, checkpoint.loggingCaller);
+        assertEquals(CheckpointResult.FAILED, checkpoint.result);
+        // the original registration of the foreign thread is restored
+        assertEquals("another caller", callersAfterLogging.get(0));
+    }
+
+    @Test
+    public void logFromSendingThread() {
+
+        ThreadsPerCaller.registerThread(CALLER);
+        RecordingCheckpoint checkpoint = new RecordingCheckpoint("async request");
+
+        checkpoint.end(10, true);
+
+        assertEquals(CALLER, checkpoint.loggingCaller);
+        // the sending thread stays registered
+        assertEquals(CALLER, ThreadsPerCaller.getCaller());
+    }
+
+    @Test
+    public void noCheckpointWithoutName() {
+
+        assertNull(AsyncRequestCheckpoint.start(null));
+    }
+
+    private static class RecordingCheckpoint extends AsyncRequestCheckpoint {
+
+        private String           loggingCaller;
+        private long             transferSize;
+        private CheckpointResult result;
+
+        RecordingCheckpoint( String name ) {
+
+            super(name);
+        }
+
+        @Override
+        void insertCheckpoint( long responseTime, long transferSize, CheckpointResult result ) {
+
+            this.loggingCaller = ThreadsPerCaller.getCaller();
+            this.transferSize = transferSize;
+            this.result = result;
+        }
+    }
+}
@@ -26,6 +26,7 @@
 import com.axway.ats.core.dbaccess.DbConnection;
 import com.axway.ats.core.dbaccess.DbProvider;
 import com.axway.ats.core.dbaccess.DbRecordValue;
+import com.axway.ats.core.dbaccess.DbRecordValuesIterator;
 import com.axway.ats.core.dbaccess.DbRecordValuesList;
 import com.axway.ats.core.dbaccess.DbReturnModes;
 import com.axway.ats.core.dbaccess.exceptions.DbException;
@@ -154,6 +155,13 @@ public DbRecordValuesList[] select( DbQuery dbQuery, DbReturnModes dbReturnMode
         return null;
     }
 
+    @Override
+    public DbRecordValuesIterator selectIterator( DbQuery dbQuery,
+                                                  DbReturnModes dbReturnMode ) throws DbException {
+
+        return DbRecordValuesIterator.fromArray(new DbRecordValuesList[0]);
+    }
+
     @Override
     public InputStream selectValue( String tableName, String keyColumn, String keyValue,
                                     String queryColumn ) throws DbException {
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.action.dbaccess.snapshot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import com.axway.ats.action.BaseTest;
+import com.axway.ats.common.dbaccess.snapshot.DatabaseSnapshotUtils;
+import com.axway.ats.common.dbaccess.snapshot.TableDescription;
+import com.axway.ats.common.dbaccess.snapshot.TableRowsLoader;
+
+public class Test_BinaryDatabaseSnapshotBackup extends BaseTest {
+
+    private File backupFile;
+
+    @Before
+    public void setUp() throws IOException {
+
+        backupFile = File.createTempFile("ats_db_snapshot", ".bin");
+    }
+
+    @After
+    public void tearDown() {
+
+        backupFile.delete();
+    }
+
+    @Test
+    public void saveAndLoad() throws Exception {
+
+        List<String> rows = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            rows.add("id=" + i + ", name=row \u00e4\u00f6\u00fc " + i);
+        }
+
+        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        Element dbNode = document.createElement(DatabaseSnapshotUtils.NODE_DB_SNAPSHOT);
+        document.appendChild(dbNode);
+        dbNode.appendChild(createTableNode(document, "big_table", null));
+        dbNode.appendChild(createTableNode(document, "empty_table", null));
+        dbNode.appendChild(createTableNode(document, "skipped_table", "7"));
+
+        BinaryDatabaseSnapshotBackup.Writer writer = new BinaryDatabaseSnapshotBackup.Writer(backupFile.getPath());
+        writer.startTable("big_table");
+        for (String row : rows) {
+            writer.addRow(row);
+        }
+        writer.endTable();
+        writer.startTable("empty_table");
+        writer.endTable();
+        writer.close(document);
+
+        assertTrue(BinaryDatabaseSnapshotBackup.isBinaryBackupFile(backupFile.getPath()));
+        BinaryDatabaseSnapshotBackup backup = BinaryDatabaseSnapshotBackup.load(backupFile.getPath());
+
+        assertEquals(rows, loadRows(backup, "BIG_TABLE"));
+        assertEquals(2500, backup.loadTableLength("snapshot", newTable("big_table")));
+
+        assertTrue(loadRows(backup, "empty_table").isEmpty());
+        assertEquals(0, backup.loadTableLength("snapshot", newTable("empty_table")));
+
+        // only the number of rows is saved for this table
+        assertEquals(7, backup.loadTableLength("snapshot", newTable("skipped_table")));
+    }
+
+    @Test
+    public void xmlFileIsNotBinary() throws IOException {
+
+        try (FileOutputStream output = new FileOutputStream(backupFile)) {
+            output.write("<DB_SNAPSHOT name=\"snapshot\"/>".getBytes("UTF-8"));
+        }
+
+        assertFalse(BinaryDatabaseSnapshotBackup.isBinaryBackupFile(backupFile.getPath()));
+    }
+
+    private Element createTableNode( Document document, String name, String numberRows ) {
+
+        Element tableNode = document.createElement(DatabaseSnapshotUtils.NODE_TABLE);
+        tableNode.setAttribute(DatabaseSnapshotUtils.ATTR_TABLE_NAME, name);
+        if (numberRows != null) {
+            tableNode.setAttribute(DatabaseSnapshotUtils.ATTR_TABLE_NUMBER_ROWS, numberRows);
+        }
+        return tableNode;
+    }
+
+    private TableDescription newTable( String name ) {
+
+        TableDescription table = new TableDescription();
+        table.setName(name);
+        return table;
+    }
+
+    private List<String> loadRows( BinaryDatabaseSnapshotBackup backup, String table ) {
+
+        final List<String> rows = new ArrayList<>();
+        backup.loadTableRows("snapshot", newTable(table), new TableRowsLoader.RowHandler() {
+            @Override
+            public void handleRow( String row ) {
+
+                rows.add(row);
+            }
+        });
+        return rows;
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.action.dbaccess.snapshot;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.eq;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.getCurrentArguments;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.easymock.IAnswer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.axway.ats.action.ActionLibraryConfigurator;
+import com.axway.ats.action.BaseTest;
+import com.axway.ats.common.dbaccess.DbQuery;
+import com.axway.ats.common.dbaccess.snapshot.DatabaseSnapshotException;
+import com.axway.ats.common.dbaccess.snapshot.TableDescription;
+import com.axway.ats.core.dbaccess.DbColumn;
+import com.axway.ats.core.dbaccess.DbProvider;
+import com.axway.ats.core.dbaccess.DbRecordValue;
+import com.axway.ats.core.dbaccess.DbRecordValuesIterator;
+import com.axway.ats.core.dbaccess.DbRecordValuesList;
+import com.axway.ats.core.dbaccess.DbReturnModes;
+import com.axway.ats.core.dbaccess.exceptions.DbException;
+import com.axway.ats.core.dbaccess.mssql.DbConnSQLServer;
+import com.axway.ats.harness.config.TestBox;
+
+/**
+ * Compares the tables of two snapshots in parallel. The DB providers are mocked,
+ * each of them returns two rows per table.
+ */
+public class Test_DatabaseSnapshot extends BaseTest {
+
+    private static final int NUMBER_OF_TABLES = 6;
+
+    // all DB providers created by the snapshots, including the ones of the comparing threads
+    private List<DbProvider> dbProviders;
+    // the tables loaded by the DB providers, as 'snapshot name:table name'
+    private Set<String>      loadedTables;
+
+    @Before
+    public void setUp() {
+
+        dbProviders = Collections.synchronizedList(new ArrayList<DbProvider>());
+        loadedTables = Collections.synchronizedSet(new TreeSet<String>());
+
+        ActionLibraryConfigurator.getInstance().setDbSnapshotThreads(3);
+    }
+
+    @After
+    public void tearDown() {
+
+        ActionLibraryConfigurator.getInstance().clearTempProperties();
+    }
+
+    @Test
+    public void differencesOfAllTablesAreCollected() {
+
+        DatabaseSnapshot first = takeSnapshot("first", null, null);
+        DatabaseSnapshot second = takeSnapshot("second", "table3", null);
+
+        try {
+            first.compare(second);
+            fail("The snapshots must differ");
+        } catch (DatabaseSnapshotException e) {
+            String differences = e.getMessage();
+            assertTrue(differences, differences.contains("table3"));
+            assertTrue(differences, differences.contains("changed value"));
+            for (int i = 1; i <= NUMBER_OF_TABLES; i++) {
+                if (i != 3) {
+                    assertTrue(differences, !differences.contains("table" + i + "]"));
+                }
+            }
+        }
+
+        assertAllTablesLoaded(null);
+        assertAllDbProvidersDisconnected();
+    }
+
+    @Test
+    public void failureInOneThreadWaitsForTheOtherTables() {
+
+        DatabaseSnapshot first = takeSnapshot("first", null, null);
+        DatabaseSnapshot second = takeSnapshot("second", null, "table2");
+
+        try {
+            first.compare(second);
+            fail("The snapshots must not be compared");
+        } catch (DbException e) {
+            assertEquals("Unable to load table2", e.getMessage());
+        }
+
+        // the tables after the failed one are still compared
+        assertAllTablesLoaded("table2");
+        assertAllDbProvidersDisconnected();
+    }
+
+    private DatabaseSnapshot takeSnapshot( String snapshotName, final String changedTable,
+                                           final String failingTable ) {
+
+        DatabaseSnapshot snapshot = new DatabaseSnapshot(snapshotName, new TestBox()) {
+
+            @Override
+            DbProvider newDbProvider() {
+
+                return newMockedDbProvider(name, changedTable, failingTable);
+            }
+        };
+        snapshot.takeSnapshot();
+        return snapshot;
+    }
+
+    private DbProvider newMockedDbProvider( final String snapshotName, final String changedTable,
+                                            final String failingTable ) {
+
+        DbProvider dbProvider = createNiceMock(DbProvider.class);
+        expect(dbProvider.getDbConnection()).andReturn(new DbConnSQLServer("localhost", "db", "user",
+                                                                           "password"))
+                                            .anyTimes();
+        expect(dbProvider.getTableDescriptions(anyObject(List.class))).andAnswer(new IAnswer<List<TableDescription>>() {
+
+            @Override
+            public List<TableDescription> answer() {
+
+                List<TableDescription> tables = new ArrayList<>();
+                for (int i = 1; i <= NUMBER_OF_TABLES; i++) {
+                    TableDescription table = new TableDescription();
+                    table.setName("table" + i);
+                    table.setColumnDescriptions(new ArrayList<>(Arrays.asList("name=id, type=int",
+                                                                              "name=value, type=varchar")));
+                    tables.add(table);
+                }
+                return tables;
+            }
+        }).anyTimes();
+        expect(dbProvider.selectIterator(anyObject(DbQuery.class),
+                                         eq(DbReturnModes.OBJECT))).andAnswer(new IAnswer<DbRecordValuesIterator>() {
+
+                                             @Override
+                                             public DbRecordValuesIterator answer() {
+
+                                                 String query = ((DbQuery) getCurrentArguments()[0]).getQuery();
+                                                 String tableName = query.substring(query.lastIndexOf(' ') + 1);
+                                                 loadedTables.add(snapshotName + ":" + tableName);
+                                                 if (tableName.equals(failingTable)) {
+                                                     throw new DbException("Unable to load " + tableName);
+                                                 }
+
+                                                 String value = tableName.equals(changedTable)
+                                                                                               ? "changed value"
+                                                                                               : "value";
+                                                 return DbRecordValuesIterator.fromArray(new DbRecordValuesList[]{ newRow(tableName,
+                                                                                                                          1,
+                                                                                                                          "value"),
+                                                                                                                   newRow(tableName,
+                                                                                                                          2,
+                                                                                                                          value) });
+                                             }
+                                         })
+                                         .anyTimes();
+        dbProvider.disconnect();
+        expectLastCall().once();
+        replay(dbProvider);
+
+        dbProviders.add(dbProvider);
+        return dbProvider;
+    }
+
+    private DbRecordValuesList newRow( String tableName, int id, String value ) {
+
+        DbColumn idColumn = new DbColumn(tableName, "id");
+        idColumn.setColumnType("int");
+        DbColumn valueColumn = new DbColumn(tableName, "value");
+        valueColumn.setColumnType("varchar");
+
+        DbRecordValuesList row = new DbRecordValuesList();
+        row.add(new DbRecordValue(idColumn, id));
+        row.add(new DbRecordValue(valueColumn, value));
+        return row;
+    }
+
+    private void assertAllTablesLoaded( String failingTable ) {
+
+        for (int i = 1; i <= NUMBER_OF_TABLES; i++) {
+            String tableName = "table" + i;
+            assertTrue(loadedTables.toString(), loadedTables.contains("second:" + tableName));
+            if (!tableName.equals(failingTable)) {
+                assertTrue(loadedTables.toString(), loadedTables.contains("first:" + tableName));
+            }
+        }
+    }
+
+    private void assertAllDbProvidersDisconnected() {
+
+        // one for each snapshot and at least two for some of the comparing threads
+        assertTrue(String.valueOf(dbProviders.size()), dbProviders.size() >= 4);
+        for (DbProvider dbProvider : dbProviders) {
+            verify(dbProvider);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.action.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.axway.ats.action.BaseTest;
+import com.axway.ats.action.LocalHttpServer;
+
+public class Test_HttpClient extends BaseTest {
+
+    private LocalHttpServer server;
+    private HttpClient      client;
+
+    @Before
+    public void before() throws Exception {
+
+        server = new LocalHttpServer();
+        client = new HttpClient(server.getUrl());
+    }
+
+    @After
+    public void after() {
+
+        client.close();
+        server.stop();
+    }
+
+    @Test
+    public void getAsync() throws Exception {
+
+        client.addResourcePath("echo");
+        client.addRequestHeader(LocalHttpServer.TEST_HEADER, "value");
+
+        HttpResponse response = client.getAsync().get(10, TimeUnit.SECONDS);
+
+        assertEquals(200, response.getStatusCode());
+        assertEquals("GET|value|null|", response.getBodyAsString());
+    }
+
+    @Test
+    public void manyRequestsInProgress() throws Exception {
+
+        client.addResourcePath("echo");
+
+        CompletableFuture<?>[] responses = new CompletableFuture<?>[20];
+        for (int i = 0; i < responses.length; i++) {
+            client.addRequestParameter("request", String.valueOf(i));
+            responses[i] = client.deleteAsync();
+        }
+
+        for (int i = 0; i < responses.length; i++) {
+            HttpResponse response = (HttpResponse) responses[i].get(10, TimeUnit.SECONDS);
+            assertEquals("DELETE|null|request=" + i + "|", response.getBodyAsString());
+        }
+    }
+
+    @Test
+    public void requestSettingsAreTakenAtCallTime() throws Exception {
+
+        client.addResourcePath("echo");
+        client.addRequestHeader(LocalHttpServer.TEST_HEADER, "first");
+        client.addRequestParameter("name", "first");
+        client.setRequestBody("first body", "text/plain");
+        CompletableFuture<HttpResponse> firstResponse = client.postAsync();
+
+        // the request settings are cleared right after the call
+        assertEquals(0, client.getRequestHeaders().length);
+        assertTrue(client.getRequestParameters().isEmpty());
+
+        // the settings of the next request do not affect the one in progress
+        client.addRequestHeader(LocalHttpServer.TEST_HEADER, "second");
+        client.setRequestBody("second body", "text/plain");
+        CompletableFuture<HttpResponse> secondResponse = client.putAsync();
+
+        assertEquals("POST|first|name=first|first body",
+                     firstResponse.get(10, TimeUnit.SECONDS).getBodyAsString());
+        assertEquals("PUT|second|null|second body", secondResponse.get(10, TimeUnit.SECONDS).getBodyAsString());
+    }
+
+    @Test
+    public void failedRequest() throws Exception {
+
+        HttpClient unreachableClient = new HttpClient(LocalHttpServer.getUnusedUrl());
+        try {
+            unreachableClient.setTimeouts(5, 5);
+            unreachableClient.getAsync().get(10, TimeUnit.SECONDS);
+            fail("The request to an unused port must fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof HttpException);
+        } finally {
+            unreachableClient.close();
+        }
+    }
+
+    @Test
+    public void cancelOnClose() throws Exception {
+
+        client.addResourcePath("slow");
+        CompletableFuture<HttpResponse> response = client.headAsync();
+        assertTrue(server.waitForSlowRequest());
+
+        client.close();
+
+        assertTrue(response.isCancelled());
+        try {
+            response.get(10, TimeUnit.SECONDS);
+            fail("The request in progress must be cancelled");
+        } catch (CancellationException e) {
+            // expected
+        }
+    }
+}
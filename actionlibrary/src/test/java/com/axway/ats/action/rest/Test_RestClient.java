@@ -17,18 +17,25 @@
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Before;
 import org.junit.After;
 import org.junit.Test;
 
 import com.axway.ats.action.BaseTest;
+import com.axway.ats.action.LocalHttpServer;
+import com.axway.ats.action.exceptions.RestException;
 import com.axway.ats.core.utils.SslUtils;
 
 public class Test_RestClient extends BaseTest {
@@ -116,4 +123,110 @@ public void testCopy() {
         assertTrue(clientCopy.getClientConfigurator().getProviderClasses().containsAll(providerClasses));
         assertTrue(clientCopy.getClientConfigurator().getProviders().containsAll(providers));
     }
+
+    @Test
+    public void getAsync() throws Exception {
+
+        LocalHttpServer server = new LocalHttpServer();
+        RestClient client = new RestClient(server.getUrl());
+        try {
+            client.addResourcePath("echo");
+            client.addRequestHeader(LocalHttpServer.TEST_HEADER, "value");
+
+            RestResponse response = client.getAsync().get(10, TimeUnit.SECONDS);
+
+            assertEquals(200, response.getStatusCode());
+            assertEquals("GET|value|null|", response.getBodyAsString());
+        } finally {
+            client.disconnect();
+            server.stop();
+        }
+    }
+
+    @Test
+    public void postObjectAsync() throws Exception {
+
+        LocalHttpServer server = new LocalHttpServer();
+        RestClient client = new RestClient(server.getUrl());
+        try {
+            client.addResourcePath("echo");
+            client.setRequestMediaType("text/plain");
+
+            RestResponse response = client.postObjectAsync("request body").get(10, TimeUnit.SECONDS);
+
+            assertEquals("POST|null|null|request body", response.getBodyAsString());
+        } finally {
+            client.disconnect();
+            server.stop();
+        }
+    }
+
+    /**
+     * The request settings are cleared right after each call, this must not affect the requests in progress
+     */
+    @Test
+    public void asyncRequestSettingsAreTakenAtCallTime() throws Exception {
+
+        LocalHttpServer server = new LocalHttpServer();
+        RestClient client = new RestClient(server.getUrl());
+        try {
+            client.addResourcePath("echo");
+            client.addRequestHeader(LocalHttpServer.TEST_HEADER, "first");
+            client.addRequestParameter("name", "first");
+            CompletableFuture<RestResponse> firstResponse = client.getAsync();
+
+            client.addResourcePath("echo");
+            client.setRequestMediaType("text/plain");
+            CompletableFuture<RestResponse> secondResponse = client.putObjectAsync("second body");
+
+            client.addResourcePath("echo");
+            CompletableFuture<RestResponse> thirdResponse = client.deleteAsync();
+
+            assertEquals("GET|first|name=first|", firstResponse.get(10, TimeUnit.SECONDS).getBodyAsString());
+            assertEquals("PUT|null|null|second body",
+                         secondResponse.get(10, TimeUnit.SECONDS).getBodyAsString());
+            assertEquals("DELETE|null|null|", thirdResponse.get(10, TimeUnit.SECONDS).getBodyAsString());
+        } finally {
+            client.disconnect();
+            server.stop();
+        }
+    }
+
+    @Test
+    public void failedAsyncRequest() throws Exception {
+
+        RestClient client = new RestClient(LocalHttpServer.getUnusedUrl());
+        try {
+            client.executeAsync("GET").get(10, TimeUnit.SECONDS);
+            fail("The request to an unused port must fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RestException);
+        } finally {
+            client.disconnect();
+        }
+    }
+
+    @Test
+    public void cancelAsyncRequestsOnDisconnect() throws Exception {
+
+        LocalHttpServer server = new LocalHttpServer();
+        RestClient client = new RestClient(server.getUrl());
+        try {
+            client.addResourcePath("slow");
+            CompletableFuture<RestResponse> response = client.getAsync();
+            assertTrue(server.waitForSlowRequest());
+
+            client.disconnect();
+
+            assertTrue(response.isCancelled());
+            try {
+                response.get(10, TimeUnit.SECONDS);
+                fail("The request in progress must be cancelled");
+            } catch (CancellationException e) {
+                // expected
+            }
+        } finally {
+            server.stop();
+        }
+    }
 }
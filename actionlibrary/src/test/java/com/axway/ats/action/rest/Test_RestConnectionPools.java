@@ -0,0 +1,151 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.action.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.junit.After;
+import org.junit.Test;
+
+import com.axway.ats.action.BaseTest;
+
+public class Test_RestConnectionPools extends BaseTest {
+
+    @After
+    public void after() {
+
+        RestConnectionPools.closeAll();
+    }
+
+    @Test
+    public void poolKey() throws Exception {
+
+        assertEquals("http://localhost:80", RestConnectionPools.getPoolKey(new URL("http://LocalHost/path"),
+                                                                           "TLSv1.2"));
+        assertEquals("https://localhost:443 [protocols=TLSv1.2]",
+                     RestConnectionPools.getPoolKey(new URL("https://localhost/path?a=b"), "protocols=TLSv1.2"));
+    }
+
+    @Test
+    public void sharedConnectionManagers() throws Exception {
+
+        PoolingHttpClientConnectionManager connectionManager = RestConnectionPools.getConnectionManager(new URL("http://localhost:8080/first"),
+                                                                                                        "TLSv1.2",
+                                                                                                        null);
+        // the path and the TLS settings do not matter for plain HTTP
+        assertSame(connectionManager,
+                   RestConnectionPools.getConnectionManager(new URL("http://localhost:8080/second"), "TLSv1.1",
+                                                            null));
+        assertNotSame(connectionManager,
+                      RestConnectionPools.getConnectionManager(new URL("http://localhost:8081/first"), "TLSv1.2",
+                                                               null));
+
+        PoolingHttpClientConnectionManager secureConnectionManager = RestConnectionPools.getConnectionManager(new URL("https://localhost:8443"),
+                                                                                                              "TLSv1.2",
+                                                                                                              null);
+        assertSame(secureConnectionManager,
+                   RestConnectionPools.getConnectionManager(new URL("https://localhost:8443/path"), "TLSv1.2",
+                                                            null));
+        assertNotSame(secureConnectionManager,
+                      RestConnectionPools.getConnectionManager(new URL("https://localhost:8443"), "TLSv1.1",
+                                                               null));
+
+        List<RestConnectionPoolStatistics> statistics = RestConnectionPools.getStatistics();
+        assertEquals(4, statistics.size());
+        assertEquals("http://localhost:8080", statistics.get(0).getPoolKey());
+        assertEquals(0, statistics.get(0).getLeasedConnections());
+        assertEquals(0, statistics.get(0).getAvailableConnections());
+
+        RestConnectionPools.closeAll();
+        assertEquals(0, RestConnectionPools.getStatistics().size());
+    }
+
+    @Test
+    public void socketFactoriesAreCreatedOnlyForNewPools() throws Exception {
+
+        final AtomicInteger createdRegistries = new AtomicInteger();
+        RestConnectionPools.SocketFactoryRegistryProvider registryProvider = new RestConnectionPools.SocketFactoryRegistryProvider() {
+
+            @Override
+            public Registry<ConnectionSocketFactory> getSocketFactoryRegistry() {
+
+                createdRegistries.incrementAndGet();
+                return RegistryBuilder.<ConnectionSocketFactory> create()
+                                      .register("https", SSLConnectionSocketFactory.getSocketFactory())
+                                      .build();
+            }
+        };
+
+        PoolingHttpClientConnectionManager connectionManager = RestConnectionPools.getConnectionManager(new URL("https://localhost:8443"),
+                                                                                                        "TLSv1.2",
+                                                                                                        registryProvider);
+        assertEquals(1, createdRegistries.get());
+
+        // the existing pool is reused without creating its socket factories again
+        assertSame(connectionManager,
+                   RestConnectionPools.getConnectionManager(new URL("https://localhost:8443/path"), "TLSv1.2",
+                                                            registryProvider));
+        assertEquals(1, createdRegistries.get());
+
+        RestConnectionPools.getConnectionManager(new URL("https://localhost:8443"), "TLSv1.1", registryProvider);
+        assertEquals(2, createdRegistries.get());
+    }
+
+    @Test
+    public void tlsConfigurationOfClients() {
+
+        assertEquals("protocols=TLSv1.2", createClient(null, null).getTlsConfiguration());
+        assertEquals("protocols=TLSv1.1,TLSv1.2",
+                     createClient(null, null).setSupportedProtocols(new String[]{ "TLSv1.1", "TLSv1.2" })
+                                             .getTlsConfiguration());
+
+        String tlsConfiguration = createClient("cert.p12", "password").getTlsConfiguration();
+        // same settings
+        assertEquals(tlsConfiguration, createClient("cert.p12", "password").getTlsConfiguration());
+        // same certificate, but different password
+        assertFalse(tlsConfiguration.equals(createClient("cert.p12", "other password").getTlsConfiguration()));
+        // same certificate, but different protocols
+        assertFalse(tlsConfiguration.equals(createClient("cert.p12",
+                                                         "password").setSupportedProtocols(new String[]{ "TLSv1.1",
+                                                                                                          "TLSv1.2" })
+                                                                    .getTlsConfiguration()));
+        // the password is not exposed in the pool statistics
+        assertFalse(tlsConfiguration.contains("password=password"));
+    }
+
+    private RestClient createClient( String certificateFileName, String certificatePassword ) {
+
+        RestClient client = new RestClient("https://localhost:8443");
+        if (certificateFileName != null) {
+            RestClientConfigurator clientConfigurator = new RestClientConfigurator();
+            clientConfigurator.setSSLCertificate(certificateFileName, certificatePassword);
+            client.setClientConfigurator(clientConfigurator);
+        }
+        return client;
+    }
+}
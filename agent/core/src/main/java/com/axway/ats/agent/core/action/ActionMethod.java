@@ -1,5 +1,5 @@
 /*
- * Copyright 2017 Axway Software
+ * Copyright 2017-2021 Axway Software
  * 
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,12 +16,19 @@
 package com.axway.ats.agent.core.action;
 
 import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -39,7 +46,9 @@
 
 /**
  * This class represents a single action-implementing method relation
- * It can be used to invoke the method which implements the current action
+ * It can be used to invoke the method which implements the current action.
+ * <br>Everything about the method which does not depend on the arguments is found once
+ * when the action method is created, as the action may be invoked many times in a load queue.
  */
 public class ActionMethod {
 
@@ -56,6 +65,41 @@ public class ActionMethod {
     private boolean             isDeprecated;
     protected boolean           hasEnumParameter;
 
+    // ATS actions for internal usage, they are not logged as the user actions
+    private boolean             isInternalAction;
+    private Class<?>[]          parameterTypes;
+    private Annotation[][]      parameterAnnotations;
+    // the enumeration type of each parameter which accepts enumerations or arrays of enumerations, null otherwise
+    private Class<?>[]          enumParameterTypes;
+    // invokes the method with an instance and array of arguments, null if the method cannot be invoked this way
+    private MethodHandle        methodHandle;
+
+    /**
+     * The wrapper types which the reflection accepts for each primitive parameter type
+     */
+    private static final Map<Class<?>, List<Class<?>>> ACCEPTED_WRAPPER_TYPES;
+
+    static {
+        ACCEPTED_WRAPPER_TYPES = new HashMap<Class<?>, List<Class<?>>>();
+        ACCEPTED_WRAPPER_TYPES.put(boolean.class, Arrays.<Class<?>> asList(Boolean.class));
+        ACCEPTED_WRAPPER_TYPES.put(byte.class, Arrays.<Class<?>> asList(Byte.class));
+        ACCEPTED_WRAPPER_TYPES.put(char.class, Arrays.<Class<?>> asList(Character.class));
+        ACCEPTED_WRAPPER_TYPES.put(short.class, Arrays.<Class<?>> asList(Short.class, Byte.class));
+        ACCEPTED_WRAPPER_TYPES.put(int.class,
+                                   Arrays.<Class<?>> asList(Integer.class, Character.class, Short.class,
+                                                            Byte.class));
+        ACCEPTED_WRAPPER_TYPES.put(long.class,
+                                   Arrays.<Class<?>> asList(Long.class, Integer.class, Character.class,
+                                                            Short.class, Byte.class));
+        ACCEPTED_WRAPPER_TYPES.put(float.class,
+                                   Arrays.<Class<?>> asList(Float.class, Long.class, Integer.class,
+                                                            Character.class, Short.class, Byte.class));
+        ACCEPTED_WRAPPER_TYPES.put(double.class,
+                                   Arrays.<Class<?>> asList(Double.class, Float.class, Long.class,
+                                                            Integer.class, Character.class, Short.class,
+                                                            Byte.class));
+    }
+
     /**
      * @param componentName name of the component
      * @param actionName name of the action
@@ -87,9 +131,9 @@ public ActionMethod( String componentName, String actionName, Method method, Cla
         //get the parameter names in their order
         //generate a map of the parameters
         this.parameterNames = new ArrayList<String>();
-        Annotation[][] methodParameterAnnotations = method.getParameterAnnotations();
-        for (int i = 0; i < methodParameterAnnotations.length; i++) {
-            Annotation[] paramAnnotations = methodParameterAnnotations[i];
+        this.parameterAnnotations = method.getParameterAnnotations();
+        for (int i = 0; i < parameterAnnotations.length; i++) {
+            Annotation[] paramAnnotations = parameterAnnotations[i];
             for (Annotation paramAnnotation : paramAnnotations) {
                 if (paramAnnotation instanceof Parameter) {
                     parameterNames.add( ((Parameter) paramAnnotation).name());
@@ -104,12 +148,57 @@ public ActionMethod( String componentName, String actionName, Method method, Cla
         }
 
         //check if this method has an Enumeration parameter
-        for (Class<?> paramType : method.getParameterTypes()) {
-            if (paramType.isEnum() || (paramType.isArray() && paramType.getComponentType().isEnum())) {
+        this.parameterTypes = method.getParameterTypes();
+        this.enumParameterTypes = new Class<?>[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            Class<?> paramType = parameterTypes[i];
+            if (paramType.isArray()) {
+                paramType = paramType.getComponentType();
+            }
+            if (paramType.isEnum()) {
+                this.enumParameterTypes[i] = paramType;
                 this.hasEnumParameter = true;
-                break;
             }
         }
+
+        /*
+         * ATS has some actions for internal usage and users should not see them.
+         * Currently we do not have some good way to distinguish these actions from the regular ones, for
+         * example we could use a new attribute in the Action annotation.
+         * For now we can filter these ATS internal actions by expecting their names match the next regular
+         * expression.
+         */
+        this.isInternalAction = actionName.matches("Internal.*Operations.*")
+                                || actionName.startsWith("InternalProcessTalker");
+
+        this.methodHandle = createMethodHandle(method);
+    }
+
+    /**
+     * Create a method handle which accepts the instance and the array of arguments.
+     * After warming up, invoking it costs about as much as a direct call, while the reflection
+     * checks and copies the arguments on each invocation.
+     *
+     * @param method the java method
+     * @return the method handle or null if the method is not accessible
+     */
+    private static MethodHandle createMethodHandle( Method method ) {
+
+        MethodHandle methodHandle;
+        try {
+            methodHandle = MethodHandles.lookup().unreflect(method).asFixedArity();
+        } catch (IllegalAccessException e) {
+            log.debug("Method '" + method + "' will be invoked by reflection as it is not accessible", e);
+            return null;
+        }
+
+        if (Modifier.isStatic(method.getModifiers())) {
+            // the instance is ignored, as when invoking by reflection
+            methodHandle = MethodHandles.dropArguments(methodHandle, 0, Object.class);
+        }
+
+        return methodHandle.asSpreader(Object[].class, method.getParameterCount())
+                           .asType(MethodType.methodType(Object.class, Object.class, Object[].class));
     }
 
     /**
@@ -157,18 +246,9 @@ protected Object doInvoke( Object instance, List<String> parameterNames,
                                                           IllegalAccessException, InvocationTargetException,
                                                           ActionExecutionException {
 
-        /*
-         * Here we log the action we are going to be execute.
-         *
-         * ATS has some actions for internal usage and users should not see them.
-         * Currently we do not have some good way to distinguish these actions from the regular ones, for
-         * example we could use a new attribute in the Action annotation.
-         * For now we can filter these ATS internal actions by expecting their names match the next regular
-         * expression.
-         */
+        // Here we log the action we are going to be execute.
         if (log.isInfoEnabled()) {
-            if (!actionName.matches("Internal.*Operations.*")
-                && !actionName.startsWith("InternalProcessTalker")) {
+            if (!isInternalAction) {
                 log.info("Executing '" + actionName + "' with arguments "
                          + StringUtils.methodInputArgumentsToString(parameterValues));
             } else {
@@ -179,7 +259,44 @@ protected Object doInvoke( Object instance, List<String> parameterNames,
             }
         }
 
-        return method.invoke(instance, parameterValues);
+        if (methodHandle == null) {
+            return method.invoke(instance, parameterValues);
+        }
+
+        // the method handle converts the arguments without the checks done by the reflection
+        checkArguments(parameterValues);
+        try {
+            return methodHandle.invokeExact(instance, parameterValues);
+        } catch (Throwable t) {
+            // the exceptions come from the method itself, wrap them as the reflection does
+            throw new InvocationTargetException(t);
+        }
+    }
+
+    /**
+     * Check the arguments the same way the reflection does before invoking a method
+     *
+     * @param parameterValues the arguments
+     * @throws IllegalArgumentException if the arguments cannot be passed to the method
+     */
+    private void checkArguments( Object[] parameterValues ) throws IllegalArgumentException {
+
+        if (parameterValues.length != parameterTypes.length) {
+            throw new IllegalArgumentException("wrong number of arguments");
+        }
+
+        for (int i = 0; i < parameterTypes.length; i++) {
+            Class<?> parameterType = parameterTypes[i];
+            Object parameterValue = parameterValues[i];
+            if (parameterType.isPrimitive()) {
+                if (parameterValue == null
+                    || !ACCEPTED_WRAPPER_TYPES.get(parameterType).contains(parameterValue.getClass())) {
+                    throw new IllegalArgumentException("argument type mismatch");
+                }
+            } else if (parameterValue != null && !parameterType.isInstance(parameterValue)) {
+                throw new IllegalArgumentException("argument type mismatch");
+            }
+        }
     }
 
     /**
@@ -271,26 +388,23 @@ protected Object[] convertToEnums( Object[] args ) throws ActionExecutionExcepti
         Object[] processedArgs = new Object[args.length];
 
         //try to convert all strings to enums
-        Class<?>[] parameterTypes = method.getParameterTypes();
         for (int i = 0; i < parameterTypes.length; i++) {
 
-            if (args[i] == null) {
-                processedArgs[i] = null;
+            Class<?> paramType = enumParameterTypes[i];
+            if (args[i] == null || paramType == null) {
+                processedArgs[i] = args[i];
                 continue;
             }
 
             boolean isParamArray = parameterTypes[i].isArray();
-            Class<?> paramType;
             Class<?> argType;
             if (isParamArray) {
-                paramType = parameterTypes[i].getComponentType();
                 argType = args[i].getClass().getComponentType();
             } else {
-                paramType = parameterTypes[i];
                 argType = args[i].getClass();
             }
 
-            if (argType == String.class && paramType.isEnum()) {
+            if (argType == String.class) {
                 try {
                     if (isParamArray) {
                         Object convertedEnums = Array.newInstance(paramType, Array.getLength(args[i]));
@@ -332,10 +446,9 @@ protected Object[] convertToEnums( Object[] args ) throws ActionExecutionExcepti
      */
     protected void validateArguments( Object[] args ) throws ActionExecutionException {
 
-        Annotation[][] annotations = method.getParameterAnnotations();
-        for (int i = 0; i < annotations.length; i++) {
+        for (int i = 0; i < parameterAnnotations.length; i++) {
 
-            Annotation[] paramAnnotations = annotations[i];
+            Annotation[] paramAnnotations = parameterAnnotations[i];
 
             for (Annotation paramAnnotation : paramAnnotations) {
                 if (paramAnnotation instanceof Parameter) {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2017 Axway Software
+ * Copyright 2017-2021 Axway Software
  * 
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,6 +19,8 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.axway.ats.agent.core.exceptions.ActionAlreadyDefinedException;
 import com.axway.ats.agent.core.exceptions.NoCompatibleMethodFoundException;
@@ -31,17 +33,21 @@
  * action name. One action name can be associated with several methods for
  * the purposes of overloading and deprecation. This class is responsible for choosing
  * the proper method to execute based on the given action name and arguments.
+ * The chosen method is remembered for the types of the arguments, so it is searched only once.
  */
 public class ActionMethodContainer {
 
-    private final String                          componentName;
-    private final String                          actionName;
-    private final ArrayList<ActionMethod>         actionMethods;
+    private final String                            componentName;
+    private final String                            actionName;
+    private final ArrayList<ActionMethod>           actionMethods;
+
+    // the chosen action methods by the types of the arguments
+    private final Map<List<Class<?>>, ActionMethod> resolvedActionMethods;
 
     /**
      * The custom type comparison rules
      */
-    private static final List<TypeComparisonRule> customComparisonRules;
+    private static final List<TypeComparisonRule>   customComparisonRules;
 
     //init the custom type comparison rules
     static {
@@ -58,6 +64,7 @@ public ActionMethodContainer( String componentName, String actionName ) {
         this.componentName = componentName;
         this.actionName = actionName;
         this.actionMethods = new ArrayList<ActionMethod>();
+        this.resolvedActionMethods = new ConcurrentHashMap<List<Class<?>>, ActionMethod>();
     }
 
     /**
@@ -98,6 +105,9 @@ public boolean add( ActionMethod actionMethod ) throws ActionAlreadyDefinedExcep
             }
         }
 
+        //the new method may be more specific than the already chosen ones
+        resolvedActionMethods.clear();
+
         //add the action method
         return actionMethods.add(actionMethod);
     }
@@ -111,6 +121,18 @@ public boolean add( ActionMethod actionMethod ) throws ActionAlreadyDefinedExcep
      */
     public ActionMethod get( Class<?>[] argTypes ) throws NoCompatibleMethodFoundException {
 
+        ActionMethod actionMethod = resolvedActionMethods.get(Arrays.asList(argTypes));
+        if (actionMethod == null) {
+            actionMethod = find(argTypes);
+            // copy the types, the caller may change its array
+            resolvedActionMethods.put(Arrays.asList(argTypes.clone()), actionMethod);
+        }
+
+        return actionMethod;
+    }
+
+    private ActionMethod find( Class<?>[] argTypes ) throws NoCompatibleMethodFoundException {
+
         //find the action method implementation based on the arguments
         MethodFinder methodFinder = new MethodFinder("methods for action " + actionName, getMethods(),
                                                      customComparisonRules);
@@ -174,6 +174,10 @@ public void apply() {
             builder.setDriver(appenderConfiguration.getDriver());
             builder.setEnableCheckpoints(appenderConfiguration.getEnableCheckpoints());
             builder.setEvents(appenderConfiguration.getMaxNumberLogEvents());
+            builder.setBulkInsert(appenderConfiguration.isBulkInsert());
+            builder.setQueueType(appenderConfiguration.getQueueType());
+            builder.setWaitStrategy(appenderConfiguration.getWaitStrategy());
+            builder.setOverflowPolicy(appenderConfiguration.getOverflowPolicy());
             builder.setFilter(ThresholdFilter.createFilter(appenderConfiguration.getLoggingThreshold(),
                                                            Filter.Result.ACCEPT, Filter.Result.DENY));
             builder.setHost(appenderConfiguration.getHost());
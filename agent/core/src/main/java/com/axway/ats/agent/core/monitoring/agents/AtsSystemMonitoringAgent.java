@@ -15,11 +15,22 @@
  */
 package com.axway.ats.agent.core.monitoring.agents;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -30,12 +41,15 @@
 import com.axway.ats.common.performance.monitor.PerformanceMonitor;
 import com.axway.ats.common.performance.monitor.beans.MonitorResults;
 import com.axway.ats.common.performance.monitor.beans.ReadingBean;
+import com.axway.ats.common.systemproperties.AtsSystemProperties;
 import com.axway.ats.core.monitoring.MonitoringException;
 import com.axway.ats.core.threads.ThreadsPerCaller;
 import com.axway.ats.core.utils.HostUtils;
 import com.axway.ats.core.utils.TimeUtils;
-import com.axway.ats.log.AtsDbLogger;
+import com.axway.ats.log.appenders.PassiveDbAppender;
 import com.axway.ats.log.autodb.exceptions.DatabaseAccessException;
+import com.axway.ats.log.autodb.io.DbAccessFactory;
+import com.axway.ats.log.autodb.io.SQLServerDbWriteAccess;
 
 /**
  * A monitoring agent, it works on the MONITORED machine.
@@ -44,15 +58,13 @@ public class AtsSystemMonitoringAgent extends AbstractMonitoringAgent {
 
     private static Logger            log                         = LogManager.getLogger(AtsSystemMonitoringAgent.class);
 
-    /*
-     * Skip checking in db appender is attached, because we are on the agent and not the executor.
-     * */
-    private static AtsDbLogger       dblog                       = AtsDbLogger.getLogger(AtsSystemMonitoringAgent.class.getName(), true);
-
     private static final int         MAX_LENGTH_STATISTIC_IDS    = 950;
     private static final int         MAX_LENGTH_STATISTIC_VALUES = 7950;
 
     private static final int         MAX_NUMBER_LOGGED_ERRORS    = 10;
+    private static final int         DEFAULT_READINGS_BUFFER_SIZE = 1000000;
+    private static final int         DEFAULT_READINGS_UPLOAD_INTERVAL = 5;
+    private static final int         DEFAULT_POLLING_THREADS     = 4;
     private static final String      CUSTOM_READING_PREFIX       = "[custom] ";
 
     private List<PerformanceMonitor> monitors;
@@ -164,16 +176,30 @@ enum MONITORING_THREAD_STATE {
         RUNNING, STOPPING, STOPPED
     }
 
+    /**
+     * Polls the monitors at fixed rate. The monitors are polled concurrently and all readings from one poll
+     * get the same timestamp. A monitor which does not return its readings in time is skipped for this poll
+     * and is not polled again until its previous poll is over. The readings of such late poll are logged
+     * together with the next poll, but with their own timestamp.
+     * <br>The readings are passed to a {@link ResultsWriter}, so a slow log DB does not delay the polls.
+     */
     class MonitoringThread extends Thread {
 
-        private Logger                  log = LogManager.getLogger(MonitoringThread.class);
+        private Logger                                          log = LogManager.getLogger(MonitoringThread.class);
+
+        private final int                                       pollInterval;
+        private long                                            executorTimeOffset;
+
+        private MONITORING_THREAD_STATE                         monitoringThreadState;
 
-        private final int               pollInterval;
-        private long                    executorTimeOffset;
+        private String                                          callerId;
 
-        private MONITORING_THREAD_STATE monitoringThreadState;
+        private ExecutorService                                 pollingExecutor;
 
-        private String                  callerId;
+        // the polls which did not complete in time
+        private Map<PerformanceMonitor, Future<MonitorResults>> pendingPolls;
+
+        private ResultsWriter                                   resultsWriter;
 
         MonitoringThread( int pollInterval,
                           long executorTimeOffset ) {
@@ -183,6 +209,7 @@ class MonitoringThread extends Thread {
             this.pollInterval = pollInterval;
             this.executorTimeOffset = executorTimeOffset;
             this.callerId = ThreadsPerCaller.getCaller();
+            this.pendingPolls = new HashMap<PerformanceMonitor, Future<MonitorResults>>();
 
             setName("Monitoring_system-" + this.callerId);
 
@@ -195,108 +222,63 @@ public void run() {
             ThreadsPerCaller.registerThread(this.callerId);
 
             log.info("Started monitoring in intervals of " + pollInterval + " milliseconds");
+
+            int pollTimeout = AtsSystemProperties.getPropertyAsNumber(AtsSystemProperties.AGENT__MONITOR_POLL_TIMEOUT,
+                                                                      pollInterval);
+            if (pollTimeout <= 0) {
+                pollTimeout = pollInterval;
+            }
+            pollingExecutor = Executors.newFixedThreadPool(getNumberOfPollingThreads(),
+                                                           new PollingThreadFactory(callerId));
             try {
-                boolean hasFailureInPreviousPoll = false;
-                int lastPollDuration = 0;
+                resultsWriter = new ResultsWriter(callerId);
+                resultsWriter.start();
+
+                // the polls are scheduled at fixed rate, so the poll durations do not shift the next polls
+                long firstPollTime = System.currentTimeMillis() + pollInterval;
+                long pollNumber = 0;
                 while (monitoringThreadState == MONITORING_THREAD_STATE.RUNNING) {
 
-                    int sleepTimeBeforeNextPoll = pollInterval - lastPollDuration;
-                    if (sleepTimeBeforeNextPoll < 0) {
+                    long pollTime = firstPollTime + pollNumber * pollInterval;
+                    long sleepTimeBeforeNextPoll = pollTime - System.currentTimeMillis();
+                    if (sleepTimeBeforeNextPoll <= -pollInterval) {
                         // we get here when the last poll took longer than the
                         // user provided poll interval
-                        sleepTimeBeforeNextPoll = 0;
-                        log.warn("Last poll time took longer than the poll interval."
-                                 + " Details: last poll duration " + lastPollDuration
-                                 + " ms, poll interval is " + pollInterval
+                        long missedPolls = -sleepTimeBeforeNextPoll / pollInterval;
+                        log.warn("Last poll time took longer than the poll interval, so " + missedPolls
+                                 + " polls will be skipped. Poll interval is " + pollInterval
                                  + " ms. You should probably consider increasing the poll interval");
-                    } else {
-                        if (sleepTimeBeforeNextPoll > pollInterval) {
-                            sleepTimeBeforeNextPoll = 0;
-                            log.warn("Polling duration is calculated as negative number (" + lastPollDuration
-                                     + " ms). Possible reason is that system "
-                                     + "time had been changed back. Poll will be issued now.");
-                        }
+                        pollNumber += missedPolls;
+                        pollTime += missedPolls * pollInterval;
+                    } else if (sleepTimeBeforeNextPoll > pollInterval) {
+                        log.warn("Time to the next poll is calculated as " + sleepTimeBeforeNextPoll
+                                 + " ms which is more than the poll interval. Possible reason is that system "
+                                 + "time had been changed back. Poll will be issued now.");
+                        firstPollTime = System.currentTimeMillis();
+                        pollNumber = 0;
+                        pollTime = firstPollTime;
                     }
 
-                    Thread.sleep(sleepTimeBeforeNextPoll);
+                    sleepTimeBeforeNextPoll = pollTime - System.currentTimeMillis();
+                    if (sleepTimeBeforeNextPoll > 0) {
+                        Thread.sleep(sleepTimeBeforeNextPoll);
+                    }
+                    pollNumber++;
 
-                    long startPollingTime = System.currentTimeMillis();
-                    long currentTimestamp = System.currentTimeMillis() + this.executorTimeOffset;
+                    // all readings from this poll are for the scheduled poll time
+                    long currentTimestamp = pollTime + this.executorTimeOffset;
 
                     // poll for new data
-                    List<MonitorResults> newResults = new ArrayList<MonitorResults>();
-                    for (PerformanceMonitor monitor : monitors) {
-                        String monitorDescription = monitor.getDescription();
-                        if (log.isDebugEnabled()) {
-                            log.debug("Poll data for monitor: " + monitorDescription);
-                        }
-                        try {
-                            if (!monitor.isInitialized()) {
-
-                                MonitorResults results = new MonitorResults(currentTimestamp,
-                                                                            monitor.pollNewDataForFirstTime());
-                                if (! (monitor instanceof AtsSystemMonitor)
-                                    && ! (monitor instanceof AtsJvmMonitor)) {
-                                    // this is a custom monitor, so will add the
-                                    // '[custom]' prefix
-                                    for (ReadingBean reading : results.getReadings()) {
-                                        if (reading instanceof ReadingBean) {
-                                            ReadingBean newReading = (ReadingBean) reading;
-                                            newReading.setName(CUSTOM_READING_PREFIX
-                                                               + newReading.getName());
-                                        }
-                                    }
-                                }
-                                newResults.add(results);
-
-                                // The monitor passed the 'first time poll', so
-                                // we got the list of FullReadingBean.
-                                // If we do not get here, an error has happened
-                                // and we will call same method again the next
-                                // time.
-                                monitor.setInitialized();
-                            } else {
-                                newResults.add(new MonitorResults(currentTimestamp,
-                                                                  monitor.pollNewData()));
-
-                            }
-                            if (hasFailureInPreviousPoll) {
-                                // reset the polling errors counter because the
-                                // monitor is now OK
-                                pollErrors.remove(monitorDescription);
-                            }
-                        } catch (Throwable th) {
-                            handlePollError(currentTimestamp, monitorDescription, th);
-                        }
-                    }
-
+                    List<MonitorResults> newResults = pollMonitors(currentTimestamp, pollTimeout);
                     if (newResults.size() > 0) {
                         if (log.isDebugEnabled()) {
                             log.debug("new data: " + newResults.toString());
                         }
 
-                        int resultsAddeed = 0;
-
-                        if (newResults.size() > 0) {
-
-                            // update the DB definitions if needed
-                            for (MonitorResults monitorResult : newResults) {
-                                updateDatabaseRepository(HostUtils.getLocalHostIP(), monitorResult.getReadings());
-                            }
-
-                            // log the results to the database
-                            resultsAddeed = logResults(newResults);
-                            log.debug("Successfully sent " + resultsAddeed
-                                      + " system monitoring results to the logging database");
-                        } else {
-                            log.warn("No new system monitoring results to log");
-                        }
+                        resultsWriter.addResults(newResults);
+                    } else {
+                        log.warn("No new system monitoring results to log");
                     }
-
-                    lastPollDuration = (int) (System.currentTimeMillis() - startPollingTime);
-
-                    // check if there is a failure during the poll
-                    hasFailureInPreviousPoll = newResults.size() == 0;
                 }
             } catch (InterruptedException e) {
                 // we have been stopped by interrupting the monitoring thread
@@ -304,6 +286,15 @@ public void run() {
             } catch (Throwable th) {
                 log.error("Monitoring is aborted due to unexpected error", th);
             } finally {
+                pollingExecutor.shutdownNow();
+                if (resultsWriter != null) {
+                    resultsWriter.stopRunning();
+                    try {
+                        // let the already polled results go to the DB
+                        resultsWriter.join(pollInterval);
+                    } catch (InterruptedException e) {}
+                }
+
                 this.monitoringThreadState = MONITORING_THREAD_STATE.STOPPED;
                 ThreadsPerCaller.unregisterThread();
             }
@@ -325,6 +316,111 @@ public boolean isStopped() {
             return this.monitoringThreadState == MONITORING_THREAD_STATE.STOPPED;
         }
 
+        private int getNumberOfPollingThreads() {
+
+            int pollingThreads = AtsSystemProperties.getPropertyAsNumber(AtsSystemProperties.AGENT__MONITOR_POLLING_THREADS,
+                                                                         DEFAULT_POLLING_THREADS);
+            if (pollingThreads <= 0) {
+                pollingThreads = DEFAULT_POLLING_THREADS;
+            }
+            // no need of more threads than monitors
+            return Math.max(1, Math.min(pollingThreads, monitors.size()));
+        }
+
+        private List<MonitorResults> pollMonitors(
+                                                   final long currentTimestamp,
+                                                   int pollTimeout ) throws InterruptedException {
+
+            List<MonitorResults> newResults = new ArrayList<MonitorResults>();
+
+            // start polling all monitors
+            Map<PerformanceMonitor, Future<MonitorResults>> polls = new LinkedHashMap<PerformanceMonitor, Future<MonitorResults>>();
+            for (final PerformanceMonitor monitor : monitors) {
+                Future<MonitorResults> pendingPoll = pendingPolls.get(monitor);
+                if (pendingPoll != null) {
+                    if (!pendingPoll.isDone()) {
+                        handlePollError(currentTimestamp, monitor.getDescription(),
+                                        new TimeoutException("The previous poll of this monitor is still running"));
+                        continue;
+                    }
+                    pendingPolls.remove(monitor);
+
+                    // the late results keep their own timestamp. When this was the first poll of the monitor,
+                    // they also bring the reading definitions needed for logging its next readings
+                    try {
+                        newResults.add(pendingPoll.get());
+                    } catch (ExecutionException e) {
+                        handlePollError(currentTimestamp, monitor.getDescription(), e.getCause());
+                    }
+                }
+
+                polls.put(monitor, pollingExecutor.submit(new Callable<MonitorResults>() {
+
+                    @Override
+                    public MonitorResults call() throws Exception {
+
+                        return pollMonitor(monitor, currentTimestamp);
+                    }
+                }));
+            }
+
+            // collect the results, all monitors must be ready by the same deadline
+            long pollDeadline = System.currentTimeMillis() + pollTimeout;
+            for (Entry<PerformanceMonitor, Future<MonitorResults>> poll : polls.entrySet()) {
+                String monitorDescription = poll.getKey().getDescription();
+                try {
+                    long timeToDeadline = Math.max(0, pollDeadline - System.currentTimeMillis());
+                    newResults.add(poll.getValue().get(timeToDeadline, TimeUnit.MILLISECONDS));
+
+                    // reset the polling errors counter because the
+                    // monitor is now OK
+                    pollErrors.remove(monitorDescription);
+                } catch (TimeoutException e) {
+                    // the monitor is not interrupted, but it will not be polled again until it is done
+                    pendingPolls.put(poll.getKey(), poll.getValue());
+                    handlePollError(currentTimestamp, monitorDescription,
+                                    new TimeoutException("No readings were returned in " + pollTimeout + " ms"));
+                } catch (ExecutionException e) {
+                    handlePollError(currentTimestamp, monitorDescription, e.getCause());
+                }
+            }
+
+            return newResults;
+        }
+
+        private MonitorResults pollMonitor(
+                                            PerformanceMonitor monitor,
+                                            long currentTimestamp ) throws Exception {
+
+            if (log.isDebugEnabled()) {
+                log.debug("Poll data for monitor: " + monitor.getDescription());
+            }
+
+            if (!monitor.isInitialized()) {
+
+                MonitorResults results = new MonitorResults(currentTimestamp,
+                                                            monitor.pollNewDataForFirstTime());
+                if (! (monitor instanceof AtsSystemMonitor)
+                    && ! (monitor instanceof AtsJvmMonitor)) {
+                    // this is a custom monitor, so will add the
+                    // '[custom]' prefix
+                    for (ReadingBean reading : results.getReadings()) {
+                        reading.setName(CUSTOM_READING_PREFIX + reading.getName());
+                    }
+                }
+
+                // The monitor passed the 'first time poll', so
+                // we got the list of FullReadingBean.
+                // If we do not get here, an error has happened
+                // and we will call same method again the next
+                // time.
+                monitor.setInitialized();
+                return results;
+            } else {
+                return new MonitorResults(currentTimestamp, monitor.pollNewData());
+            }
+        }
+
         private void handlePollError(
                                       long currentTimestamp,
                                       String monitorDescription,
@@ -339,7 +435,7 @@ private void handlePollError(
 
             if (monitorErrors < MAX_NUMBER_LOGGED_ERRORS) {
                 log.error("Error polling monitor '" + monitorDescription
-                          + "'. All polled values from all monitors will be skipped for "
+                          + "'. The values polled from this monitor will be skipped for "
                           + TimeUtils.getFormattedDateTillMilliseconds(new Date(currentTimestamp))
                           + " timestamp", th);
             } else if (monitorErrors == MAX_NUMBER_LOGGED_ERRORS) {
@@ -348,79 +444,323 @@ private void handlePollError(
                           + monitorDescription, th);
             }
         }
+    }
 
-        private int logResults(
-                                List<MonitorResults> monitorResults ) {
+    /**
+     * Creates the threads which poll the monitors. They are registered with the caller
+     * of the monitoring, as it is done for the monitoring thread.
+     */
+    static class PollingThreadFactory implements ThreadFactory {
 
-            // counter to hold the number of results which have logged
-            int resultsAddeed = 0;
+        private final String callerId;
+        private int          threadsCount;
 
-            for (MonitorResults newResultsLine : monitorResults) {
-                resultsAddeed += logResultsForOneTimestamp(newResultsLine);
-            }
+        PollingThreadFactory( String callerId ) {
 
-            return resultsAddeed;
+            this.callerId = callerId;
         }
 
-        private int logResultsForOneTimestamp(
-                                               MonitorResults resultsLine ) {
+        @Override
+        public synchronized Thread newThread(
+                                              final Runnable runnable ) {
 
-            int resultsAddeed = 0;
+            Thread thread = new Thread(new Runnable() {
 
-            // transform all reading info into 2 Strings: one for DB IDs and one
-            // for their values
-            StringBuilder statisticDbIds = new StringBuilder();
-            StringBuilder statisticValues = new StringBuilder();
-            for (ReadingBean reading : resultsLine.getReadings()) {
-                String readingDbId = String.valueOf(reading.getDbId());
-                if (readingDbId == null) {
-                    /*log.error( "We do not have information in the database about this reading ["
-                               + reading.toString() + "]. We will not insert this reading in the database." );*/
-                    log.error("This reading [" + reading.toString()
-                              + "] does not have set a reading ID which indicates an error in some of the attached monitors. We will not insert this reading in the database.");
-                    continue;
+                @Override
+                public void run() {
+
+                    ThreadsPerCaller.registerThread(callerId);
+                    try {
+                        runnable.run();
+                    } finally {
+                        ThreadsPerCaller.unregisterThread();
+                    }
                 }
-                String readingValue = reading.getValue();
-                if (readingValue == null) {
-                    log.error("Null value is passed for this reading [" + reading.toString()
-                              + "]. We will not insert this reading in the database.");
+            }, "Monitoring_system_poll_" + (++threadsCount) + "-" + callerId);
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /**
+     * Sends the polled results to the log DB.
+     * <br>The readings are first kept in a {@link ReadingsRingBuffer} and are sent in chunks once per upload interval.
+     * The log DB accepts system statistics only as ID and value strings per timestamp, so the readings of a chunk are
+     * sent grouped by timestamp and are not delta encoded or compressed.
+     * While the log DB is not reachable, the readings stay in the buffer and are sent when the DB is reachable again.
+     */
+    class ResultsWriter extends Thread {
+
+        private Logger                       log                    = LogManager.getLogger(ResultsWriter.class);
+
+        // the max number of readings read from the buffer at once
+        private static final int             CHUNK_SIZE             = 10000;
+
+        private final ReadingsRingBuffer     readings;
+        private final ReadingsRingBuffer.Chunk chunk;
+
+        private final long                   uploadInterval;
+
+        private final Object                 stopLock               = new Object();
+        private volatile boolean             isRunning;
+
+        private String                       callerId;
+
+        private SQLServerDbWriteAccess       dbAccess;
+        private boolean                      isDbUnreachable;
+
+        private long                         numberOverwrittenReadings;
+
+        ResultsWriter( String callerId ) throws IOException {
+
+            int bufferSize = AtsSystemProperties.getPropertyAsNumber(AtsSystemProperties.AGENT__MONITOR_READINGS_BUFFER_SIZE,
+                                                                     DEFAULT_READINGS_BUFFER_SIZE);
+            if (bufferSize <= 0) {
+                bufferSize = DEFAULT_READINGS_BUFFER_SIZE;
+            }
+            int uploadInterval = AtsSystemProperties.getPropertyAsNumber(AtsSystemProperties.AGENT__MONITOR_READINGS_UPLOAD_INTERVAL,
+                                                                         DEFAULT_READINGS_UPLOAD_INTERVAL);
+            if (uploadInterval <= 0) {
+                uploadInterval = DEFAULT_READINGS_UPLOAD_INTERVAL;
+            }
+
+            this.readings = new ReadingsRingBuffer(bufferSize);
+            this.chunk = new ReadingsRingBuffer.Chunk(CHUNK_SIZE);
+            this.uploadInterval = TimeUnit.SECONDS.toMillis(uploadInterval);
+            this.isRunning = true;
+            this.callerId = callerId;
+
+            setName("Monitoring_system_writer-" + this.callerId);
+            setDaemon(true);
+        }
+
+        /**
+         * Keep the results of one poll until they are sent to the DB
+         */
+        void addResults(
+                         List<MonitorResults> results ) {
+
+            int testcaseId = getTestcaseId();
+            if (testcaseId < 0) {
+                log.warn("There is no running testcase, so " + results.size()
+                         + " system monitoring results will not be logged");
+                return;
+            }
+
+            for (MonitorResults monitorResults : results) {
+                try {
+                    // update the DB definitions if needed
+                    updateDatabaseRepository(HostUtils.getLocalHostIP(), monitorResults.getReadings());
+                } catch (MonitoringException e) {
+                    log.error("The readings polled at "
+                              + TimeUtils.getFormattedDateTillMilliseconds(new Date(monitorResults.getTimestamp()))
+                              + " will not be logged", e);
                     continue;
                 }
-                statisticDbIds.append(readingDbId);
+
+                for (ReadingBean reading : monitorResults.getReadings()) {
+                    String readingValue = reading.getValue();
+                    if (readingValue == null) {
+                        log.error("Null value is passed for this reading [" + reading.toString()
+                                  + "]. We will not insert this reading in the database.");
+                        continue;
+                    }
+                    if (!readings.add(monitorResults.getTimestamp(), testcaseId, reading.getDbId(),
+                                      readingValue)) {
+                        log.error("Value longer than " + ReadingsRingBuffer.MAX_VALUE_LENGTH
+                                  + " bytes is passed for this reading [" + reading.toString()
+                                  + "]. We will not insert this reading in the database.");
+                    }
+                }
+            }
+        }
+
+        /**
+         * Place an order to stop after one more attempt to send the pending readings
+         */
+        void stopRunning() {
+
+            synchronized (stopLock) {
+                this.isRunning = false;
+                stopLock.notifyAll();
+            }
+        }
+
+        @Override
+        public void run() {
+
+            ThreadsPerCaller.registerThread(this.callerId);
+            try {
+                while (isRunning) {
+                    synchronized (stopLock) {
+                        if (isRunning) {
+                            stopLock.wait(uploadInterval);
+                        }
+                    }
+
+                    sendReadings();
+                }
+            } catch (InterruptedException e) {
+                log.error("Sending system monitoring results was interrupted. " + readings.size()
+                          + " readings will not be sent to the logging database", e);
+            } finally {
+                if (readings.size() > 0) {
+                    log.error(readings.size() + " system monitoring readings could not be sent to the logging database");
+                }
+                readings.close();
+                ThreadsPerCaller.unregisterThread();
+            }
+        }
+
+        private void sendReadings() {
+
+            while (readings.size() > 0) {
+                readings.peek(chunk);
+                int sentReadings = sendChunk();
+                readings.remove(chunk, sentReadings);
+                if (sentReadings < chunk.size()) {
+                    // the log DB is not reachable, we will try again later
+                    break;
+                }
+            }
+
+            long newOverwrittenReadings = readings.getNumberOverwrittenReadings() - numberOverwrittenReadings;
+            if (newOverwrittenReadings > 0) {
+                numberOverwrittenReadings += newOverwrittenReadings;
+                log.error(newOverwrittenReadings + " system monitoring readings were lost, because they were not sent "
+                          + "to the logging database before the readings buffer got full. You can increase the buffer size with the '"
+                          + AtsSystemProperties.AGENT__MONITOR_READINGS_BUFFER_SIZE + "' system property");
+            }
+        }
+
+        /**
+         * Send the readings from the chunk. The readings with same timestamp are sent together.
+         *
+         * @return the number of readings which are done with, the rest must be sent again later
+         */
+        private int sendChunk() {
+
+            StringBuilder statisticDbIds = new StringBuilder();
+            StringBuilder statisticValues = new StringBuilder();
+            int firstUnsentReading = 0;
+            for (int i = 0; i < chunk.size(); i++) {
+                statisticDbIds.append(chunk.getStatisticDbId(i));
                 statisticDbIds.append("_");
 
-                statisticValues.append(readingValue);
+                statisticValues.append(chunk.getValue(i));
                 statisticValues.append("_");
 
-                resultsAddeed++;
-
-                if (statisticDbIds.length() > MAX_LENGTH_STATISTIC_IDS
+                boolean isLastForTimestamp = i == chunk.size() - 1
+                                             || chunk.getTimestamp(i + 1) != chunk.getTimestamp(i)
+                                             || chunk.getTestcaseId(i + 1) != chunk.getTestcaseId(i);
+                if (isLastForTimestamp
+                    || statisticDbIds.length() > MAX_LENGTH_STATISTIC_IDS
                     || statisticValues.length() > MAX_LENGTH_STATISTIC_VALUES) {
                     // we have to send a chunk
                     statisticDbIds.setLength(statisticDbIds.length() - 1);
                     statisticValues.setLength(statisticValues.length() - 1);
-                    dblog.insertSystemStatistcs(HostUtils.getLocalHostIP(),
-                                                statisticDbIds.toString(),
-                                                statisticValues.toString(),
-                                                resultsLine.getTimestamp());
+                    if (!insertSystemStatistics(chunk.getTestcaseId(i), statisticDbIds.toString(),
+                                                statisticValues.toString(), chunk.getTimestamp(i))) {
+                        return firstUnsentReading;
+                    }
+                    firstUnsentReading = i + 1;
 
                     statisticDbIds.setLength(0);
                     statisticValues.setLength(0);
                 }
             }
 
-            if (statisticDbIds.length() > 0) {
-                // send the last(or only) chunk
-                statisticDbIds.setLength(statisticDbIds.length() - 1);
-                statisticValues.setLength(statisticValues.length() - 1);
+            return chunk.size();
+        }
 
-                dblog.insertSystemStatistcs(HostUtils.getLocalHostIP(),
-                                            statisticDbIds.toString(),
-                                            statisticValues.toString(),
-                                            resultsLine.getTimestamp());
+        /**
+         * @return false if the statistics are not sent because the log DB is not reachable
+         */
+        private boolean insertSystemStatistics(
+                                                int testcaseId,
+                                                String statisticDbIds,
+                                                String statisticValues,
+                                                long timestamp ) {
+
+            PassiveDbAppender appender = PassiveDbAppender.getCurrentInstance(callerId);
+            if (appender != null && appender.isTestcaseDeleted(testcaseId)) {
+                // the testcase was deleted, for example by a retry analyzer, so its readings are not needed
+                return true;
             }
 
-            return resultsAddeed;
+            try {
+                getDbAccess().insertSystemStatistics(testcaseId, HostUtils.getLocalHostIP(), statisticDbIds,
+                                                     statisticValues, timestamp, true);
+                if (isDbUnreachable) {
+                    isDbUnreachable = false;
+                    log.info("The logging database is reachable again. Sending the " + readings.size()
+                             + " kept system monitoring readings");
+                }
+                return true;
+            } catch (Exception e) {
+                if (isDbReachable()) {
+                    if (!isTestcasePresent(testcaseId)) {
+                        // this is the normal way to understand a testcase was deleted
+                        log.warn("Testcase with id '" + testcaseId + "' appears to be deleted from the logging "
+                                 + "database. Its system monitoring readings will be skipped.");
+                        if (appender != null) {
+                            appender.markTestcaseAsDeleted(testcaseId);
+                        }
+                        return true;
+                    }
+
+                    // there is some problem with these statistics only
+                    log.error("Could not send system statistics with IDs '" + statisticDbIds + "' and values '"
+                              + statisticValues + "' to the logging database. They will be skipped", e);
+                    return true;
+                }
+
+                if (!isDbUnreachable) {
+                    isDbUnreachable = true;
+                    log.warn("The logging database is not reachable. The system monitoring readings will be kept and sent "
+                             + "when it is reachable again", e);
+                }
+                dbAccess = null;
+                return false;
+            }
+        }
+
+        private boolean isDbReachable() {
+
+            try {
+                getDbAccess().checkConnection();
+                return true;
+            } catch (Exception e) {
+                return false;
+            }
+        }
+
+        private boolean isTestcasePresent(
+                                           int testcaseId ) {
+
+            try {
+                return getDbAccess().isTestcasePresent(testcaseId);
+            } catch (Exception e) {
+                // we can not tell, so the testcase is not considered deleted
+                return true;
+            }
+        }
+
+        private SQLServerDbWriteAccess getDbAccess() throws DatabaseAccessException {
+
+            if (dbAccess == null) {
+                dbAccess = new DbAccessFactory().getNewDbWriteAccessObjectViaPassiveDbAppender(callerId);
+            }
+            return dbAccess;
+        }
+
+        private int getTestcaseId() {
+
+            PassiveDbAppender appender = PassiveDbAppender.getCurrentInstance(callerId);
+            if (appender == null) {
+                return -1;
+            }
+            return appender.getTestCaseId();
         }
 
         private void updateDatabaseRepository(
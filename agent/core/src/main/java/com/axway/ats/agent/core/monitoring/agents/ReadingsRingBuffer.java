@@ -0,0 +1,225 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.monitoring.agents;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Keeps the polled system readings until they are sent to the log DB.
+ * <br>Each reading is stored as a fixed width record in a memory-mapped file,
+ * so many readings can be kept without using the java heap, for example while the log DB is not reachable.
+ * <br>The reading values are kept as they are provided by the monitors, up to {@link #MAX_VALUE_LENGTH} bytes.
+ * <br>When the buffer is full, the oldest readings are overwritten.
+ * <br>The readings are expected to be added by one thread and read by another thread.
+ */
+public class ReadingsRingBuffer {
+
+    /**
+     * The max length of a reading value in UTF-8 bytes
+     */
+    public static final int        MAX_VALUE_LENGTH = 62;
+
+    // timestamp(long), testcase ID(int), statistic DB ID(int), value length(short), value bytes
+    static final int               RECORD_SIZE      = 8 + 4 + 4 + 2 + MAX_VALUE_LENGTH;
+
+    private final int              capacity;
+    private final File             file;
+    private final MappedByteBuffer buffer;
+
+    // the number of readings ever added and ever removed, the difference is the number of readings in the buffer
+    private long                   writePosition;
+    private long                   readPosition;
+
+    private long                   numberOverwrittenReadings;
+
+    /**
+     * @param capacity the max number of readings kept in the buffer
+     * @throws IOException if the backing file cannot be created
+     */
+    public ReadingsRingBuffer( int capacity ) throws IOException {
+
+        if (capacity <= 0 || capacity > Integer.MAX_VALUE / RECORD_SIZE) {
+            throw new IllegalArgumentException("The capacity of the readings buffer must be a positive number up to "
+                                               + Integer.MAX_VALUE / RECORD_SIZE + ", but it is " + capacity);
+        }
+        this.capacity = capacity;
+
+        this.file = File.createTempFile("ats_system_readings_", ".buf");
+        this.file.deleteOnExit();
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            this.buffer = randomAccessFile.getChannel()
+                                          .map(FileChannel.MapMode.READ_WRITE, 0, (long) capacity * RECORD_SIZE);
+        } finally {
+            // the mapping stays valid after the channel is closed
+            randomAccessFile.close();
+        }
+    }
+
+    /**
+     * Add a reading. If the buffer is full, the oldest reading is overwritten.
+     *
+     * @return false if the value is longer than {@link #MAX_VALUE_LENGTH} bytes, so it is not added
+     */
+    public boolean add( long timestamp, int testcaseId, int statisticDbId, String value ) {
+
+        byte[] valueBytes = value.getBytes(StandardCharsets.UTF_8);
+        if (valueBytes.length > MAX_VALUE_LENGTH) {
+            return false;
+        }
+        add(timestamp, testcaseId, statisticDbId, valueBytes);
+        return true;
+    }
+
+    private synchronized void add( long timestamp, int testcaseId, int statisticDbId, byte[] value ) {
+
+        if (writePosition - readPosition == capacity) {
+            readPosition++;
+            numberOverwrittenReadings++;
+        }
+
+        int index = getIndex(writePosition);
+        buffer.putLong(index, timestamp);
+        buffer.putInt(index + 8, testcaseId);
+        buffer.putInt(index + 12, statisticDbId);
+        buffer.putShort(index + 16, (short) value.length);
+        for (int i = 0; i < value.length; i++) {
+            buffer.put(index + 18 + i, value[i]);
+        }
+        writePosition++;
+    }
+
+    /**
+     * Copy the oldest readings into the chunk without removing them from the buffer
+     *
+     * @param chunk the chunk to fill, up to its capacity
+     */
+    public synchronized void peek( Chunk chunk ) {
+
+        chunk.firstPosition = readPosition;
+        chunk.size = (int) Math.min(writePosition - readPosition, chunk.timestamps.length);
+        for (int i = 0; i < chunk.size; i++) {
+            int index = getIndex(readPosition + i);
+            chunk.timestamps[i] = buffer.getLong(index);
+            chunk.testcaseIds[i] = buffer.getInt(index + 8);
+            chunk.statisticDbIds[i] = buffer.getInt(index + 12);
+            chunk.values[i] = getValue(index);
+        }
+    }
+
+    /**
+     * Remove the first readings of a chunk, as they are already sent.
+     * The readings which were overwritten in the meantime are not removed twice.
+     *
+     * @param chunk a chunk filled by {@link #peek(Chunk)}
+     * @param numberReadings the number of readings to remove from the beginning of the chunk
+     */
+    public synchronized void remove( Chunk chunk, int numberReadings ) {
+
+        readPosition = Math.max(readPosition, chunk.firstPosition + Math.min(numberReadings, chunk.size));
+    }
+
+    /**
+     * @return the number of readings in the buffer
+     */
+    public synchronized int size() {
+
+        return (int) (writePosition - readPosition);
+    }
+
+    /**
+     * @return the number of readings which were overwritten before they were sent
+     */
+    public synchronized long getNumberOverwrittenReadings() {
+
+        return numberOverwrittenReadings;
+    }
+
+    /**
+     * Delete the backing file. The buffer must not be used after this call.
+     */
+    public void close() {
+
+        // if the file is still mapped, it will be deleted on JVM exit
+        file.delete();
+    }
+
+    private String getValue( int index ) {
+
+        byte[] value = new byte[buffer.getShort(index + 16)];
+        for (int i = 0; i < value.length; i++) {
+            value[i] = buffer.get(index + 18 + i);
+        }
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private int getIndex( long position ) {
+
+        return (int) (position % capacity) * RECORD_SIZE;
+    }
+
+    /**
+     * A reusable holder of readings copied from the buffer
+     */
+    public static class Chunk {
+
+        private long           firstPosition;
+        private int            size;
+
+        private final long[]   timestamps;
+        private final int[]    testcaseIds;
+        private final int[]    statisticDbIds;
+        private final String[] values;
+
+        public Chunk( int capacity ) {
+
+            this.timestamps = new long[capacity];
+            this.testcaseIds = new int[capacity];
+            this.statisticDbIds = new int[capacity];
+            this.values = new String[capacity];
+        }
+
+        public int size() {
+
+            return size;
+        }
+
+        public long getTimestamp( int i ) {
+
+            return timestamps[i];
+        }
+
+        public int getTestcaseId( int i ) {
+
+            return testcaseIds[i];
+        }
+
+        public int getStatisticDbId( int i ) {
+
+            return statisticDbIds[i];
+        }
+
+        public String getValue( int i ) {
+
+            return values[i];
+        }
+    }
+}
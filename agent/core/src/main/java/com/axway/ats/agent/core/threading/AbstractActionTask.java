@@ -36,7 +36,9 @@
 import com.axway.ats.agent.core.monitoring.UserActionsMonitoringAgent;
 import com.axway.ats.agent.core.monitoring.queue.QueueExecutionStatistics;
 import com.axway.ats.agent.core.templateactions.CompositeResult;
+import com.axway.ats.agent.core.threading.data.IndexedParameterDataProvider;
 import com.axway.ats.agent.core.threading.data.ParameterDataProvider;
+import com.axway.ats.agent.core.threading.data.config.ParameterProviderLevel;
 import com.axway.ats.agent.core.threading.data.config.UsernameDataConfig;
 import com.axway.ats.agent.core.threading.listeners.ActionTaskListener;
 import com.axway.ats.common.systemproperties.AtsSystemProperties;
@@ -56,6 +58,10 @@ public abstract class AbstractActionTask implements Runnable {
      * Property to enable fill action time logging in addition to net time
      */
     public static final boolean           REGISTER_FULL_AND_NET_ACTION_TIME_FOR_TEMPLATE_ACTIONS;
+    /**
+     * How many queue invocations are reserved at once
+     */
+    private static final int              INVOCATIONS_BLOCK_SIZE;
 
     protected final AtsDbLogger           log;
 
@@ -69,6 +75,14 @@ public abstract class AbstractActionTask implements Runnable {
     protected List<ParameterDataProvider> dataProviders;
     protected List<Object>                actionClassInstances;
 
+    // true when some of the data providers must be used under a lock
+    private boolean                       isLockingDataProviders;
+    // the provider which counts the queue invocations, if there is one generating values per invocation
+    private IndexedParameterDataProvider  invocationsCounter;
+    // the invocations reserved by this thread
+    private long                          nextInvocation;
+    private long                          reservedInvocationsEnd;
+
     //listeners
     protected List<ActionTaskListener>    listeners;
 
@@ -104,6 +118,9 @@ public abstract class AbstractActionTask implements Runnable {
     static {
         REGISTER_FULL_AND_NET_ACTION_TIME_FOR_TEMPLATE_ACTIONS = AtsSystemProperties.getPropertyAsBoolean(AtsSystemProperties.AGENT__REGISTER_FULL_AND_NET_ACTION_TIME_FOR_TEMPLATE_ACTIONS_KEY,
                                                                                                           false);
+        INVOCATIONS_BLOCK_SIZE = Math.max(1,
+                                          AtsSystemProperties.getPropertyAsNonNegativeNumber(AtsSystemProperties.AGENT__LOAD_QUEUE_INVOCATIONS_BLOCK_SIZE,
+                                                                                             1));
     }
 
     // remember the remote caller which initiates this action
@@ -156,6 +173,19 @@ public AbstractActionTask( String caller, String queueName, ThreadsManager threa
         }
 
         this.dataProviders = dataProviders;
+        for (ParameterDataProvider dataProvider : dataProviders) {
+            if (dataProvider instanceof IndexedParameterDataProvider) {
+                IndexedParameterDataProvider indexedDataProvider = (IndexedParameterDataProvider) dataProvider;
+                if (invocationsCounter == null
+                    && indexedDataProvider.getParameterProviderLevel() == ParameterProviderLevel.PER_INVOCATION) {
+                    // all tasks of the queue share the same providers, so they will use the same counter
+                    invocationsCounter = indexedDataProvider;
+                }
+            } else {
+                // we do not know if the other providers can be used by many threads at the same time
+                isLockingDataProviders = true;
+            }
+        }
         this.listeners = listeners;
         this.actionClassInstances = new ArrayList<Object>();
 
@@ -580,12 +610,17 @@ protected final void generateInputArguments() {
             // We store all values from all data providers.
             List<ArgumentValue> argumentValues = new ArrayList<ArgumentValue>();
 
-            // Generate the new input arguments - all arguments should be
-            // generated at the same time, so other threads do not interfere.
-            synchronized (dataProviders) {
-                for (ParameterDataProvider dataProvider : dataProviders) {
-                    argumentValues.add(dataProvider.getValue(argumentValues));
+            // The indexed providers give the values for one and the same invocation number,
+            // so their values match as if all were generated at the same time.
+            // The other providers are used under a lock, so other threads do not interfere.
+            // In such case the invocation number is taken under the same lock, so the indexed values
+            // follow the order in which the other providers give their values.
+            if (isLockingDataProviders) {
+                synchronized (dataProviders) {
+                    generateArgumentValues(getNextInvocation(), argumentValues);
                 }
+            } else {
+                generateArgumentValues(getNextInvocation(), argumentValues);
             }
 
             // set the arguments as provided
@@ -595,6 +630,38 @@ protected final void generateInputArguments() {
         }
     }
 
+    private void generateArgumentValues( long invocation, List<ArgumentValue> argumentValues ) {
+
+        for (ParameterDataProvider dataProvider : dataProviders) {
+            if (dataProvider instanceof IndexedParameterDataProvider) {
+                argumentValues.add( ((IndexedParameterDataProvider) dataProvider).getValue(invocation,
+                                                                                           argumentValues));
+            } else {
+                argumentValues.add(dataProvider.getValue(argumentValues));
+            }
+        }
+    }
+
+    /**
+     * @return the number of the next invocation of this thread, a block of invocations is reserved
+     * when the previous one is used up. When some providers are used under a lock, the invocations
+     * are reserved one by one, as they must be taken in the order of the values of these providers.
+     */
+    private long getNextInvocation() {
+
+        if (invocationsCounter == null) {
+            return 0;
+        }
+        if (nextInvocation == reservedInvocationsEnd) {
+            int blockSize = isLockingDataProviders
+                                                   ? 1
+                                                   : INVOCATIONS_BLOCK_SIZE;
+            nextInvocation = invocationsCounter.reserveInvocations(blockSize);
+            reservedInvocationsEnd = nextInvocation + blockSize;
+        }
+        return nextInvocation++;
+    }
+
     /**
      *  Call the onStart handler for all listeners
      */
@@ -1,5 +1,5 @@
 /*
- * Copyright 2017 Axway Software
+ * Copyright 2017-2021 Axway Software
  * 
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -83,6 +83,15 @@ public String getParameterName() {
         return this.parameterName;
     }
 
+    /**
+     * Get the level at which new values are generated
+     * @return the parameter provider level
+     */
+    public ParameterProviderLevel getParameterProviderLevel() {
+
+        return this.parameterProviderLevel;
+    }
+
     /**
      * Get the data provider instance
      * @return the data provider instance
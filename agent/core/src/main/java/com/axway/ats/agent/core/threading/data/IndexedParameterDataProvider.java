@@ -0,0 +1,143 @@
+/*
+ * Copyright 2021 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.threading.data;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.axway.ats.agent.core.action.ArgumentValue;
+import com.axway.ats.agent.core.threading.data.config.ParameterProviderLevel;
+import com.axway.ats.agent.core.threading.exceptions.ParameterDataProviderInitalizationException;
+
+/**
+ * Base class for the data providers which take their values by index from a fixed number of values.
+ * <br>These providers keep their state in atomic counters, so many threads can get values
+ * from them at the same time without locking.
+ * <br>When generating values per invocation, the value is chosen by the invocation number.
+ * This way all such providers of one queue give the values from the same position when
+ * they are given the same invocation number, the same way as when they are used one after another
+ * under a lock.
+ */
+public abstract class IndexedParameterDataProvider extends AbstractParameterDataProvider {
+
+    // the number of invocations so far, used for PER_INVOCATION provider level
+    private final AtomicLong                    invocations;
+    // the number of threads which got a value so far, used for PER_THREAD_STATIC provider level
+    private final AtomicInteger                 threads;
+    // the index of the last value given to each thread
+    private final ConcurrentHashMap<Long, Long> threadIndexes;
+
+    public IndexedParameterDataProvider( String parameterName,
+                                         ParameterProviderLevel parameterProviderLevel ) {
+
+        super(parameterName, parameterProviderLevel);
+
+        this.invocations = new AtomicLong();
+        this.threads = new AtomicInteger();
+        this.threadIndexes = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Reserve a number of consecutive invocations, so a thread can use them one after another
+     * without touching the shared counter each time
+     *
+     * @param count the number of invocations to reserve
+     * @return the number of the first reserved invocation
+     */
+    public final long reserveInvocations( int count ) {
+
+        return invocations.getAndAdd(count);
+    }
+
+    /**
+     * Get the value for a known invocation number. The invocation number is used only when
+     * generating values per invocation, for the other provider levels this is the same as {@link #getValue(List)}
+     *
+     * @param invocation the invocation number as returned by {@link #reserveInvocations(int)}
+     * @param alreadyResolvedValues already resolved values for current queue iteration
+     * @return the value which should be passed as argument
+     */
+    public final ArgumentValue getValue( long invocation, List<ArgumentValue> alreadyResolvedValues ) {
+
+        if (parameterProviderLevel == ParameterProviderLevel.PER_INVOCATION) {
+            return new ArgumentValue(parameterName, getValueAt(toIndex(invocation)));
+        }
+        return getValue(alreadyResolvedValues);
+    }
+
+    @Override
+    protected final void doInitialize() throws ParameterDataProviderInitalizationException {
+
+        invocations.set(0);
+        threads.set(0);
+        threadIndexes.clear();
+    }
+
+    @Override
+    protected final ArgumentValue generateNewValuePerInvocation(
+                                                                 List<ArgumentValue> alreadyResolvedValues ) {
+
+        return getValue(invocations.getAndIncrement(), alreadyResolvedValues);
+    }
+
+    @Override
+    protected final ArgumentValue generateNewValuePerThread(
+                                                             long currentThreadId,
+                                                             List<ArgumentValue> alreadyResolvedValues ) {
+
+        // each thread goes through all values, starting from the first one
+        Long valueIndexPerThread = threadIndexes.get(currentThreadId);
+        if (valueIndexPerThread != null) {
+            valueIndexPerThread = toIndex(valueIndexPerThread + 1);
+        } else {
+            valueIndexPerThread = 0L;
+        }
+        threadIndexes.put(currentThreadId, valueIndexPerThread);
+        return new ArgumentValue(parameterName, getValueAt(valueIndexPerThread));
+    }
+
+    @Override
+    protected final ArgumentValue generateNewValuePerThreadStatic(
+                                                                   long currentThreadId,
+                                                                   List<ArgumentValue> alreadyResolvedValues ) {
+
+        // each thread takes the next value once and keeps it
+        Long valueIndexPerThread = threadIndexes.get(currentThreadId);
+        if (valueIndexPerThread == null) {
+            valueIndexPerThread = toIndex(threads.getAndIncrement());
+            threadIndexes.put(currentThreadId, valueIndexPerThread);
+        }
+        return new ArgumentValue(parameterName, getValueAt(valueIndexPerThread));
+    }
+
+    private long toIndex( long number ) {
+
+        return number % getValuesCount();
+    }
+
+    /**
+     * @return the number of values this provider chooses from, at least 1
+     */
+    protected abstract long getValuesCount();
+
+    /**
+     * @param index index of the value, from 0 to the number of values
+     * @return the value at this index
+     */
+    protected abstract Object getValueAt( long index );
+}
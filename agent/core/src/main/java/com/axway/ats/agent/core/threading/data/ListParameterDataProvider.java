@@ -1,5 +1,5 @@
 /*
- * Copyright 2017 Axway Software
+ * Copyright 2017-2021 Axway Software
  * 
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,18 +17,15 @@
 
 import java.util.List;
 
-import com.axway.ats.agent.core.action.ArgumentValue;
 import com.axway.ats.agent.core.threading.data.config.ParameterProviderLevel;
-import com.axway.ats.agent.core.threading.exceptions.ParameterDataProviderInitalizationException;
 
 /**
  * This parameter provider implementation will pick the next value from a list
  */
-public class ListParameterDataProvider extends AbstractParameterDataProvider {
+public class ListParameterDataProvider extends IndexedParameterDataProvider {
 
     private final List<?> values;
     private final int     valuesSize;
-    private int           currentIndex;
 
     ListParameterDataProvider( String parameterName,
                                List<?> values,
@@ -38,7 +35,6 @@ public class ListParameterDataProvider extends AbstractParameterDataProvider {
 
         this.values = values;
         this.valuesSize = values.size();
-        this.currentIndex = 0;
     }
 
     ListParameterDataProvider( String parameterName,
@@ -50,64 +46,19 @@ public class ListParameterDataProvider extends AbstractParameterDataProvider {
 
         this.values = values;
         this.valuesSize = values.size();
-        this.currentIndex = 0;
         this.dataProviderInstance = dataProviderInstance;
     }
 
     @Override
-    protected void doInitialize() throws ParameterDataProviderInitalizationException {
+    protected long getValuesCount() {
 
-        currentIndex = 0;
+        return valuesSize;
     }
 
     @Override
-    protected ArgumentValue generateNewValuePerInvocation(
-                                                           List<ArgumentValue> alreadyResolvedValues ) {
+    protected Object getValueAt( long index ) {
 
-        if (currentIndex >= valuesSize) {
-            currentIndex = 0;
-        }
-
-        return new ArgumentValue(parameterName, values.get(currentIndex++));
-    }
-
-    @Override
-    protected ArgumentValue generateNewValuePerThread(
-                                                       long currentThreadId,
-                                                       List<ArgumentValue> alreadyResolvedValues ) {
-
-        Integer valueIndexPerThread = perThreadIndexes.get(currentThreadId);
-        if (valueIndexPerThread != null) { // isStaticValue = false
-
-            valueIndexPerThread++;
-        } else {
-            valueIndexPerThread = currentIndex;
-        }
-        if (valueIndexPerThread >= valuesSize) {
-            valueIndexPerThread = 0;
-        }
-        perThreadIndexes.put(currentThreadId, valueIndexPerThread);
-        return new ArgumentValue(parameterName, values.get(valueIndexPerThread));
-    }
-
-    @Override
-    protected ArgumentValue generateNewValuePerThreadStatic(
-                                                             long currentThreadId,
-                                                             List<ArgumentValue> alreadyResolvedValues ) {
-
-        Integer valueIndexPerThread = perThreadIndexes.get(currentThreadId);
-        if (valueIndexPerThread != null) {
-            return new ArgumentValue(parameterName, values.get(valueIndexPerThread));
-        }
-        if (currentIndex >= valuesSize) {
-            currentIndex = 0;
-        }
-        valueIndexPerThread = currentIndex++;
-        if (valueIndexPerThread >= valuesSize) {
-            valueIndexPerThread = 0;
-        }
-        perThreadIndexes.put(currentThreadId, valueIndexPerThread);
-        return new ArgumentValue(parameterName, values.get(valueIndexPerThread));
+        return values.get((int) index);
     }
 
 }
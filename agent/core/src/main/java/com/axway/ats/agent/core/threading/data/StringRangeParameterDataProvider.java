@@ -1,5 +1,5 @@
 /*
- * Copyright 2017 Axway Software
+ * Copyright 2017-2021 Axway Software
  * 
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,20 +15,15 @@
  */
 package com.axway.ats.agent.core.threading.data;
 
-import java.util.List;
-
-import com.axway.ats.agent.core.action.ArgumentValue;
 import com.axway.ats.agent.core.threading.data.config.ParameterProviderLevel;
-import com.axway.ats.agent.core.threading.exceptions.ParameterDataProviderInitalizationException;
 
-public class StringRangeParameterDataProvider extends AbstractParameterDataProvider {
+public class StringRangeParameterDataProvider extends IndexedParameterDataProvider {
 
     private static final String REPLACEMENT_REGEX = "\\{0\\}";
 
     private String              staticValue;
     private int                 rangeStart;
     private int                 rangeEnd;
-    private int                 currentValue;
 
     /**
      * Constructor - to be used only by the factory
@@ -49,7 +44,6 @@ public class StringRangeParameterDataProvider extends AbstractParameterDataProvi
         this.staticValue = staticValue;
         this.rangeStart = rangeStart;
         this.rangeEnd = rangeEnd;
-        this.currentValue = rangeStart;
     }
 
     /**
@@ -73,70 +67,19 @@ public class StringRangeParameterDataProvider extends AbstractParameterDataProvi
         this.staticValue = staticValue;
         this.rangeStart = rangeStart;
         this.rangeEnd = rangeEnd;
-        this.currentValue = rangeStart;
         this.dataProviderInstance = dataConfiguratorClass;
     }
 
     @Override
-    protected void doInitialize() throws ParameterDataProviderInitalizationException {
-
-        this.currentValue = rangeStart;
-    }
-
-    @Override
-    protected ArgumentValue generateNewValuePerInvocation(
-                                                           List<ArgumentValue> alreadyResolvedValues ) {
-
-        if (currentValue > rangeEnd) {
-            currentValue = rangeStart;
-        }
-
-        return new ArgumentValue(parameterName,
-                                 staticValue.replaceAll(REPLACEMENT_REGEX,
-                                                        Integer.toString(currentValue++)));
-    }
-
-    @Override
-    protected ArgumentValue generateNewValuePerThread(
-                                                       long currentThreadId,
-                                                       List<ArgumentValue> alreadyResolvedValues ) {
+    protected long getValuesCount() {
 
-        Integer valueIndexPerThread = perThreadIndexes.get(currentThreadId);
-        if (valueIndexPerThread != null) {
-            valueIndexPerThread++;
-        } else {
-            valueIndexPerThread = currentValue;
-        }
-        if (valueIndexPerThread > rangeEnd) {
-            valueIndexPerThread = rangeStart;
-        }
-        perThreadIndexes.put(currentThreadId, valueIndexPerThread);
-        return new ArgumentValue(parameterName,
-                                 staticValue.replaceAll(REPLACEMENT_REGEX,
-                                                        Integer.toString(valueIndexPerThread)));
+        // when the end is before the start, only the start value is used
+        return Math.max(1, (long) rangeEnd - rangeStart + 1);
     }
 
     @Override
-    protected ArgumentValue generateNewValuePerThreadStatic(
-                                                             long currentThreadId,
-                                                             List<ArgumentValue> alreadyResolvedValues ) {
+    protected Object getValueAt( long index ) {
 
-        Integer valueIndexPerThread = perThreadIndexes.get(currentThreadId);
-        if (valueIndexPerThread != null) {
-            return new ArgumentValue(parameterName,
-                                     staticValue.replaceAll(REPLACEMENT_REGEX,
-                                                            Integer.toString(valueIndexPerThread)));
-        }
-        if (currentValue > rangeEnd) {
-            currentValue = rangeStart;
-        }
-        valueIndexPerThread = currentValue++;
-        if (valueIndexPerThread > rangeEnd) {
-            valueIndexPerThread = rangeStart;
-        }
-        perThreadIndexes.put(currentThreadId, valueIndexPerThread);
-        return new ArgumentValue(parameterName,
-                                 staticValue.replaceAll(REPLACEMENT_REGEX,
-                                                        Integer.toString(valueIndexPerThread)));
+        return staticValue.replaceAll(REPLACEMENT_REGEX, Integer.toString((int) (rangeStart + index)));
     }
 }
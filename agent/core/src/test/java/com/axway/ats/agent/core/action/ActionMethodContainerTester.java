@@ -29,4 +29,14 @@ public void ambiguousMethod(
                                  FileInputStream arg0 ) {
 
     }
+
+    public void overloadedMethod(
+                                  Object arg0 ) {
+
+    }
+
+    public void overloadedMethod(
+                                  File arg0 ) {
+
+    }
 }
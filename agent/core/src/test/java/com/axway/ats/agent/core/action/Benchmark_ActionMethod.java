@@ -0,0 +1,144 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.action;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.axway.ats.agent.core.model.Action;
+import com.axway.ats.agent.core.model.Parameter;
+
+/**
+ * Measures the overhead the agent adds on each invocation of an action, as it happens on each iteration
+ * of a load queue. The action itself does almost nothing.
+ * <br>The invocation by reflection of the same method is measured for comparison.
+ * <br>
+ * <br>This is not a unit test. Run it from the IDE or with the test classpath:
+ * <pre>java -cp ... com.axway.ats.agent.core.action.Benchmark_ActionMethod</pre>
+ */
+@BenchmarkMode( Mode.AverageTime)
+@OutputTimeUnit( TimeUnit.NANOSECONDS)
+@Warmup( iterations = 3, time = 2)
+@Measurement( iterations = 5, time = 2)
+@Fork( 1)
+@State( Scope.Thread)
+public class Benchmark_ActionMethod {
+
+    // the action is named as an internal one, so it is logged at debug level and the logging is not measured
+    private static final String     ACTION_NAME = "InternalBenchmarkOperations send";
+
+    private static final Class<?>[] ARG_TYPES   = new Class<?>[]{ String.class, Integer.class, String.class };
+
+    private BenchmarkActions        actionsInstance;
+    private ActionMethodContainer   actionMethodContainer;
+    private ActionMethod            actionMethod;
+    private Method                  method;
+    private Object[]                args;
+
+    public enum Priority {
+        LOW, HIGH
+    }
+
+    public static class BenchmarkActions {
+
+        @Action( name = ACTION_NAME)
+        public int send( @Parameter( name = "message") String message, @Parameter( name = "count") int count,
+                         @Parameter( name = "priority") Priority priority ) {
+
+            return count;
+        }
+
+        @Action( name = ACTION_NAME)
+        public int send( @Parameter( name = "message") String message ) {
+
+            return 0;
+        }
+    }
+
+    @Setup( Level.Trial)
+    public void setUp() throws Exception {
+
+        actionsInstance = new BenchmarkActions();
+        actionMethodContainer = new ActionMethodContainer("benchmark", ACTION_NAME);
+        for (Method actionsMethod : BenchmarkActions.class.getDeclaredMethods()) {
+            actionMethodContainer.add(new ActionMethod("benchmark", ACTION_NAME, actionsMethod,
+                                                       BenchmarkActions.class));
+        }
+
+        actionMethod = actionMethodContainer.get(ARG_TYPES);
+        method = actionMethod.getMethod();
+        args = new Object[]{ "message", 5, "HIGH" };
+    }
+
+    /**
+     * Finding the action method for the arguments, it is done for each action call
+     * which does not come from a load queue
+     */
+    @Benchmark
+    public ActionMethod resolveActionMethod() throws Exception {
+
+        return actionMethodContainer.get(ARG_TYPES);
+    }
+
+    /**
+     * Invoking the action method, including the conversion of the enumeration argument
+     */
+    @Benchmark
+    public Object invokeActionMethod() throws Exception {
+
+        return actionMethod.invoke(actionsInstance, args, false);
+    }
+
+    /**
+     * Invoking the action method and validating the arguments
+     */
+    @Benchmark
+    public Object invokeActionMethodWithValidation() throws Exception {
+
+        return actionMethod.invoke(actionsInstance, args, true);
+    }
+
+    /**
+     * Invoking the method by reflection with already converted arguments, for comparison
+     */
+    @Benchmark
+    public Object invokeByReflection() throws Exception {
+
+        return method.invoke(actionsInstance, "message", 5, Priority.HIGH);
+    }
+
+    public static void main( String[] args ) throws Exception {
+
+        Options options = new OptionsBuilder().include(Benchmark_ActionMethod.class.getSimpleName())
+                                              .build();
+        new Runner(options).run();
+    }
+}
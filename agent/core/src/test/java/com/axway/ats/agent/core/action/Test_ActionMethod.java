@@ -16,6 +16,12 @@
 package com.axway.ats.agent.core.action;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -25,13 +31,48 @@
 import com.axway.ats.agent.core.Component;
 import com.axway.ats.agent.core.ComponentActionMap;
 import com.axway.ats.agent.core.ComponentRepository;
+import com.axway.ats.agent.core.exceptions.ActionExecutionException;
 import com.axway.ats.agent.core.exceptions.AgentException;
+import com.axway.ats.agent.core.exceptions.InternalComponentException;
 import com.axway.ats.agent.core.exceptions.NoCompatibleMethodFoundException;
+import com.axway.ats.agent.core.model.Action;
+import com.axway.ats.agent.core.model.Parameter;
 
 public class Test_ActionMethod extends BaseTest {
 
     private static final String TEST_CALLER_IP      = "caller ip";
 
+    /**
+     * Actions invoked directly through their action methods
+     */
+    public static class InvokedActions {
+
+        @Action( name = "primitives")
+        public String primitives( @Parameter( name = "number") long number,
+                                  @Parameter( name = "fraction") double fraction ) {
+
+            return number + ":" + fraction;
+        }
+
+        @Action( name = "boxed")
+        public Long boxed( @Parameter( name = "number") Long number ) {
+
+            return number;
+        }
+
+        @Action( name = "static")
+        public static int doubled( @Parameter( name = "number") int number ) {
+
+            return 2 * number;
+        }
+
+        @Action( name = "failing")
+        public void failing( @Parameter( name = "message") String message ) throws IOException {
+
+            throw new IOException( message );
+        }
+    }
+
     @BeforeClass
     public static void setUpTest_ActionHandler() throws AgentException {
 
@@ -99,4 +140,121 @@ public void executeActionIncompatibleArgsZeroArgs() throws Exception {
                                                                  "action 1",
                                                                  new Object[]{} ) );
     }
+
+    @Test
+    public void wrongArgumentTypeIsRejected() throws Exception {
+
+        ActionMethod actionMethod = newActionMethod( "boxed", Long.class );
+        try {
+            actionMethod.doInvoke( new InvokedActions(), actionMethod.getParameterNames(), new Object[]{ "1" } );
+            fail( "The argument must be rejected" );
+        } catch (IllegalArgumentException e) {
+            assertEquals( "argument type mismatch", e.getMessage() );
+        }
+
+        try {
+            actionMethod.doInvoke( new InvokedActions(), actionMethod.getParameterNames(), new Object[]{} );
+            fail( "The arguments must be rejected" );
+        } catch (IllegalArgumentException e) {
+            assertEquals( "wrong number of arguments", e.getMessage() );
+        }
+
+        // the users get it as an action execution error
+        try {
+            actionMethod.invoke( new InvokedActions(), new Object[]{ "1" }, false );
+            fail( "The argument must be rejected" );
+        } catch (ActionExecutionException e) {
+            assertTrue( e.getCause() instanceof IllegalArgumentException );
+        }
+    }
+
+    @Test
+    public void exceptionFromActionIsWrapped() throws Exception {
+
+        ActionMethod actionMethod = newActionMethod( "failing", String.class );
+        try {
+            actionMethod.doInvoke( new InvokedActions(), actionMethod.getParameterNames(),
+                                   new Object[]{ "action failed" } );
+            fail( "The action must fail" );
+        } catch (InvocationTargetException e) {
+            assertTrue( e.getTargetException() instanceof IOException );
+            assertEquals( "action failed", e.getTargetException().getMessage() );
+        }
+
+        // the users get the exception thrown by the action
+        try {
+            actionMethod.invoke( new InvokedActions(), new Object[]{ "action failed" }, false );
+            fail( "The action must fail" );
+        } catch (InternalComponentException e) {
+            assertTrue( e.getMessage(), e.getMessage().contains( "action failed" ) );
+        }
+    }
+
+    @Test
+    public void staticAction() throws Exception {
+
+        ActionMethod actionMethod = newActionMethod( "doubled", int.class );
+
+        assertEquals( 6, actionMethod.invoke( new InvokedActions(), new Object[]{ 3 }, false ) );
+        // the instance is not used
+        assertEquals( 8, actionMethod.invoke( null, new Object[]{ 4 }, false ) );
+    }
+
+    @Test
+    public void argumentsAreConvertedAsByReflection() throws Exception {
+
+        Method primitives = InvokedActions.class.getMethod( "primitives", long.class, double.class );
+        assertSameInvocation( primitives, 1L, 2.5 );
+        // widening of primitive values
+        assertSameInvocation( primitives, 1, 2 );
+        assertSameInvocation( primitives, ( short ) 1, 2.5f );
+        assertSameInvocation( primitives, ( byte ) 1, 'a' );
+        assertSameInvocation( primitives, 'a', 2L );
+        // narrowing is not allowed
+        assertSameInvocation( primitives, 1.5, 2.5 );
+        assertSameInvocation( primitives, 1.5f, 2.5 );
+        // neither unboxing of null nor conversion of other types
+        assertSameInvocation( primitives, null, 2.5 );
+        assertSameInvocation( primitives, 1L, "2.5" );
+        assertSameInvocation( primitives, true, 2.5 );
+
+        Method boxed = InvokedActions.class.getMethod( "boxed", Long.class );
+        assertSameInvocation( boxed, 1L );
+        assertSameInvocation( boxed, new Object[]{ null } );
+        // no widening of wrapped values
+        assertSameInvocation( boxed, 1 );
+    }
+
+    private ActionMethod newActionMethod( String methodName, Class<?>... parameterTypes ) throws Exception {
+
+        Method method = InvokedActions.class.getMethod( methodName, parameterTypes );
+        return new ActionMethod( TEST_COMPONENT_NAME, method.getAnnotation( Action.class ).name(), method,
+                                 InvokedActions.class );
+    }
+
+    /**
+     * Invoke the method by reflection and through its action method, both must return the same
+     * result or reject the arguments
+     */
+    private void assertSameInvocation( Method method, Object... args ) throws Exception {
+
+        InvokedActions instance = new InvokedActions();
+        ActionMethod actionMethod = new ActionMethod( TEST_COMPONENT_NAME, "action", method,
+                                                      InvokedActions.class );
+
+        Object expectedResult;
+        try {
+            expectedResult = method.invoke( instance, args );
+        } catch (IllegalArgumentException e) {
+            expectedResult = e.getClass();
+        }
+
+        Object result;
+        try {
+            result = actionMethod.doInvoke( instance, actionMethod.getParameterNames(), args );
+        } catch (IllegalArgumentException e) {
+            result = e.getClass();
+        }
+        assertEquals( expectedResult, result );
+    }
 }
@@ -16,6 +16,7 @@
 package com.axway.ats.agent.core.action;
 
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 
 import java.io.File;
 import java.io.FileInputStream;
@@ -121,4 +122,32 @@ public void getNegativeAmbigous() throws SecurityException, NoSuchMethodExceptio
 
         methodContainer.get( new Class<?>[]{ null } );
     }
+
+    @Test
+    public void getCachedMethod() throws SecurityException, NoSuchMethodException, ActionAlreadyDefinedException,
+                                 NoCompatibleMethodFoundException {
+
+        //implementing methods
+        Method method1 = ActionMethodContainerTester.class.getDeclaredMethod( "overloadedMethod",
+                                                                              new Class<?>[]{ Object.class } );
+        Method method2 = ActionMethodContainerTester.class.getDeclaredMethod( "overloadedMethod",
+                                                                              new Class<?>[]{ File.class } );
+
+        //create a new container
+        ActionMethodContainer methodContainer = new ActionMethodContainer( "Component", "action" );
+        ActionMethod actionMethod1 = new ActionMethod( "Component", "action", method1, null );
+        methodContainer.add( actionMethod1 );
+
+        //the same method is returned for the same argument types, even if the caller changes its array
+        Class<?>[] argTypes = new Class<?>[]{ File.class };
+        assertSame( actionMethod1, methodContainer.get( argTypes ) );
+        argTypes[0] = String.class;
+        assertSame( actionMethod1, methodContainer.get( new Class<?>[]{ File.class } ) );
+
+        //the more specific method is found after it is added
+        ActionMethod actionMethod2 = new ActionMethod( "Component", "action", method2, null );
+        methodContainer.add( actionMethod2 );
+        assertSame( actionMethod2, methodContainer.get( new Class<?>[]{ File.class } ) );
+        assertSame( actionMethod1, methodContainer.get( argTypes ) );
+    }
 }
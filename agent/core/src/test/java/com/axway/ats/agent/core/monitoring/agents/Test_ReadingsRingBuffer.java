@@ -0,0 +1,169 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.agent.core.monitoring.agents;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class Test_ReadingsRingBuffer {
+
+    @Test
+    public void addPeekAndRemove() throws IOException {
+
+        ReadingsRingBuffer buffer = new ReadingsRingBuffer(10);
+        try {
+            buffer.add(1000, 1, 11, "1.5");
+            buffer.add(1000, 1, 12, "2");
+            buffer.add(2000, 1, 11, "3.25");
+            assertEquals(3, buffer.size());
+
+            ReadingsRingBuffer.Chunk chunk = new ReadingsRingBuffer.Chunk(2);
+            buffer.peek(chunk);
+            assertEquals(2, chunk.size());
+            assertEquals(1000, chunk.getTimestamp(0));
+            assertEquals(1, chunk.getTestcaseId(0));
+            assertEquals(11, chunk.getStatisticDbId(0));
+            assertEquals("1.5", chunk.getValue(0));
+            assertEquals(12, chunk.getStatisticDbId(1));
+            assertEquals("2", chunk.getValue(1));
+
+            // peeking does not remove
+            assertEquals(3, buffer.size());
+
+            buffer.remove(chunk, 1);
+            assertEquals(2, buffer.size());
+
+            buffer.peek(chunk);
+            assertEquals(2, chunk.size());
+            assertEquals(12, chunk.getStatisticDbId(0));
+            assertEquals(2000, chunk.getTimestamp(1));
+            assertEquals("3.25", chunk.getValue(1));
+
+            buffer.remove(chunk, chunk.size());
+            assertEquals(0, buffer.size());
+
+            buffer.peek(chunk);
+            assertEquals(0, chunk.size());
+        } finally {
+            buffer.close();
+        }
+    }
+
+    @Test
+    public void overwriteOldestWhenFull() throws IOException {
+
+        ReadingsRingBuffer buffer = new ReadingsRingBuffer(3);
+        try {
+            for (int i = 0; i < 5; i++) {
+                buffer.add(i, 1, i, String.valueOf(i));
+            }
+            assertEquals(3, buffer.size());
+            assertEquals(2, buffer.getNumberOverwrittenReadings());
+
+            ReadingsRingBuffer.Chunk chunk = new ReadingsRingBuffer.Chunk(10);
+            buffer.peek(chunk);
+            assertEquals(3, chunk.size());
+            assertEquals(2, chunk.getStatisticDbId(0));
+            assertEquals(3, chunk.getStatisticDbId(1));
+            assertEquals(4, chunk.getStatisticDbId(2));
+        } finally {
+            buffer.close();
+        }
+    }
+
+    @Test
+    public void removeAfterOverwrite() throws IOException {
+
+        ReadingsRingBuffer buffer = new ReadingsRingBuffer(3);
+        try {
+            buffer.add(0, 1, 0, "0");
+            buffer.add(1, 1, 1, "1");
+
+            ReadingsRingBuffer.Chunk chunk = new ReadingsRingBuffer.Chunk(10);
+            buffer.peek(chunk);
+
+            // while the chunk is being sent, new readings overwrite the first one
+            buffer.add(2, 1, 2, "2");
+            buffer.add(3, 1, 3, "3");
+            assertEquals(3, buffer.size());
+
+            // only the not overwritten reading from the chunk is removed
+            buffer.remove(chunk, chunk.size());
+            assertEquals(2, buffer.size());
+
+            buffer.peek(chunk);
+            assertEquals(2, chunk.getStatisticDbId(0));
+            assertEquals(3, chunk.getStatisticDbId(1));
+        } finally {
+            buffer.close();
+        }
+    }
+
+    @Test
+    public void valuesAreKeptAsProvided() throws IOException {
+
+        ReadingsRingBuffer buffer = new ReadingsRingBuffer(10);
+        try {
+            String longestValue = new String(new char[ReadingsRingBuffer.MAX_VALUE_LENGTH]).replace('\0', '9');
+
+            assertTrue(buffer.add(1000, 1, 11, "12.500"));
+            assertTrue(buffer.add(1000, 1, 12, "1.0E-5"));
+            assertTrue(buffer.add(1000, 1, 13, "not a number"));
+            assertTrue(buffer.add(1000, 1, 14, ""));
+            assertTrue(buffer.add(1000, 1, 15, longestValue));
+            assertFalse(buffer.add(1000, 1, 16, longestValue + "9"));
+            assertEquals(5, buffer.size());
+
+            ReadingsRingBuffer.Chunk chunk = new ReadingsRingBuffer.Chunk(10);
+            buffer.peek(chunk);
+            assertEquals("12.500", chunk.getValue(0));
+            assertEquals("1.0E-5", chunk.getValue(1));
+            assertEquals("not a number", chunk.getValue(2));
+            assertEquals("", chunk.getValue(3));
+            assertEquals(longestValue, chunk.getValue(4));
+        } finally {
+            buffer.close();
+        }
+    }
+
+    @Test
+    public void shorterValueOverwritesLongerOne() throws IOException {
+
+        ReadingsRingBuffer buffer = new ReadingsRingBuffer(1);
+        try {
+            buffer.add(0, 1, 0, "123456789");
+            buffer.add(1, 1, 1, "5");
+
+            ReadingsRingBuffer.Chunk chunk = new ReadingsRingBuffer.Chunk(10);
+            buffer.peek(chunk);
+            assertEquals(1, chunk.size());
+            assertEquals("5", chunk.getValue(0));
+        } finally {
+            buffer.close();
+        }
+    }
+
+    @Test( expected = IllegalArgumentException.class)
+    public void invalidCapacity() throws IOException {
+
+        new ReadingsRingBuffer(0);
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2017 Axway Software
+ * Copyright 2017-2021 Axway Software
  * 
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,7 +18,10 @@
 import static org.junit.Assert.assertEquals;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.junit.Test;
 
@@ -121,4 +124,72 @@ public void initialize() throws AgentException {
         assertEquals( "param1", generatedValue.getName() );
         assertEquals( "value10", generatedValue.getValue() );
     }
+
+    @Test
+    public void perInvocationGenerationByInvocationNumber() {
+
+        List<String> users = new ArrayList<String>();
+        List<String> passwords = new ArrayList<String>();
+        for( int i = 10; i < 13; i++ ) {
+            users.add( "user" + i );
+            passwords.add( "password" + i );
+        }
+
+        ListParameterDataProvider usersProvider = new ListParameterDataProvider( "user",
+                                                                                 users,
+                                                                                 ParameterProviderLevel.PER_INVOCATION );
+        ListParameterDataProvider passwordsProvider = new ListParameterDataProvider( "password",
+                                                                                     passwords,
+                                                                                     ParameterProviderLevel.PER_INVOCATION );
+
+        // the first provider counts the invocations for both
+        assertEquals( 0, usersProvider.reserveInvocations( 2 ) );
+        assertEquals( 2, usersProvider.reserveInvocations( 2 ) );
+
+        for( long invocation = 0; invocation < 4; invocation++ ) {
+            int index = 10 + ( int ) ( invocation % 3 );
+            assertEquals( "user" + index,
+                          usersProvider.getValue( invocation, new ArrayList<ArgumentValue>() ).getValue() );
+            assertEquals( "password" + index,
+                          passwordsProvider.getValue( invocation, new ArrayList<ArgumentValue>() ).getValue() );
+        }
+    }
+
+    @Test
+    public void perThreadStaticGenerationFromManyThreads() throws InterruptedException {
+
+        final List<String> values = new ArrayList<String>();
+        for( int i = 0; i < 20; i++ ) {
+            values.add( "value" + i );
+        }
+
+        final ListParameterDataProvider dataProvider = new ListParameterDataProvider( "param1",
+                                                                                      values,
+                                                                                      ParameterProviderLevel.PER_THREAD_STATIC );
+
+        final Set<Object> generatedValues = Collections.synchronizedSet( new HashSet<Object>() );
+        List<Thread> threads = new ArrayList<Thread>();
+        for( int i = 0; i < values.size(); i++ ) {
+            threads.add( new Thread() {
+                @Override
+                public void run() {
+
+                    Object value = dataProvider.getValue( new ArrayList<ArgumentValue>() ).getValue();
+                    // each thread keeps its value
+                    if( value.equals( dataProvider.getValue( new ArrayList<ArgumentValue>() ).getValue() ) ) {
+                        generatedValues.add( value );
+                    }
+                }
+            } );
+        }
+        for( Thread thread : threads ) {
+            thread.start();
+        }
+        for( Thread thread : threads ) {
+            thread.join();
+        }
+
+        // each thread got a different value
+        assertEquals( new HashSet<Object>( values ), generatedValues );
+    }
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2017-2019 Axway Software
+ * Copyright 2017-2021 Axway Software
  * 
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -87,4 +87,21 @@ public class DbKeys {
     @PublicAtsApi
     public static final String SERVER_TIMEZONE = "SERVER_TIMEZONE";
 
+    /**
+     * The number of rows fetched from the database at once when iterating over the result of a query
+     * without loading all of it in memory. For example when taking a database snapshot.<br>
+     * The value must be a positive number. Default is 1000.
+     * */
+    @PublicAtsApi
+    public static final String FETCH_SIZE      = "FETCH_SIZE";
+
+    /**
+     * <strong>Applicable to MySQL only.</strong><br>
+     * Use this property with value 'true' to allow loading data with LOAD DATA LOCAL INFILE statements.
+     * It is needed for restoring a database backup made in bulk format.<br>
+     * The server must allow it too, by its 'local_infile' variable.
+     * */
+    @PublicAtsApi
+    public static final String ALLOW_LOAD_LOCAL_INFILE = "ALLOW_LOAD_LOCAL_INFILE";
+
 }
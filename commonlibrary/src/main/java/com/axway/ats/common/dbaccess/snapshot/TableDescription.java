@@ -22,7 +22,6 @@
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -155,6 +154,23 @@ public void compare( TableDescription that, List<String> thisValuesList, List<St
                          int thisNumberOfRows, int thatNumberOfRows, IndexMatcher nameComparator,
                          DatabaseEqualityState equality ) {
 
+        compare(that, toRowsLoader(thisValuesList), toRowsLoader(thatValuesList), thisNumberOfRows,
+                thatNumberOfRows, nameComparator, equality);
+    }
+
+    /**
+     * Compares two instances of this table.
+     * <br>The table rows are loaded one by one, so only the rows which are different are kept in memory.
+     * 
+     * @param that THAT instance
+     * @param thisRows loads the rows of THIS instance, null if the table content is not compared
+     * @param thatRows loads the rows of THAT instance, null if the table content is not compared
+     * @param equality
+     */
+    public void compare( TableDescription that, TableRowsLoader thisRows, TableRowsLoader thatRows,
+                         int thisNumberOfRows, int thatNumberOfRows, IndexMatcher nameComparator,
+                         DatabaseEqualityState equality ) {
+
         boolean tablesAreSame = true;
 
         // check primary key column
@@ -172,26 +188,26 @@ public void compare( TableDescription that, List<String> thisValuesList, List<St
 
         // check the table content only if columns are same or the value lists are not initialized
         if (sameColumnNames) {
-            if (thisValuesList != null && thatValuesList != null) {
+            if (thisRows != null && thatRows != null) {
+
+                TableRowsComparator rowsComparator = new TableRowsComparator();
+                rowsComparator.compare(thisRows, thatRows);
 
                 // check the table size
-                if (thisValuesList.size() != thatValuesList.size()) {
+                if (rowsComparator.getThisNumberOfRows() != rowsComparator.getThatNumberOfRows()) {
                     tablesAreSame = false;
                     equality.addDifferentNumberOfRows(this.snapshotName, that.snapshotName,
-                                                      thisValuesList.size(), thatValuesList.size(), name);
+                                                      rowsComparator.getThisNumberOfRows(),
+                                                      rowsComparator.getThatNumberOfRows(), name);
                 }
 
-                // check the table content
-                removeSameRows(thisValuesList, thatValuesList);
-                removeSameRows(thatValuesList, thisValuesList);
-
                 // now if there are left rows, we report them as unexpected
                 // differences
-                for (String row : thisValuesList) {
+                for (String row : rowsComparator.getThisOnlyRows()) {
                     tablesAreSame = false;
                     equality.addRowPresentInOneSnapshotOnly(this.snapshotName, name, row);
                 }
-                for (String row : thatValuesList) {
+                for (String row : rowsComparator.getThatOnlyRows()) {
                     tablesAreSame = false;
                     equality.addRowPresentInOneSnapshotOnly(that.snapshotName, name, row);
                 }
@@ -213,22 +229,21 @@ public void compare( TableDescription that, List<String> thisValuesList, List<St
         }
     }
 
-    private void removeSameRows( List<String> someRows, List<String> otherRows ) {
+    private TableRowsLoader toRowsLoader( final List<String> rows ) {
 
-        Iterator<String> someIt = someRows.iterator();
-        while (someIt.hasNext()) {
-            String someRow = someIt.next();
+        if (rows == null) {
+            return null;
+        }
+
+        return new TableRowsLoader() {
+            @Override
+            public void loadRows( RowHandler rowHandler ) {
 
-            Iterator<String> otherIt = otherRows.iterator();
-            while (otherIt.hasNext()) {
-                String otherRow = otherIt.next();
-                if (someRow.equals(otherRow)) {
-                    someIt.remove();
-                    otherIt.remove();
-                    break;
+                for (String row : rows) {
+                    rowHandler.handleRow(row);
                 }
             }
-        }
+        };
     }
 
     private boolean checkColumns( TableDescription that, DatabaseEqualityState equality ) {
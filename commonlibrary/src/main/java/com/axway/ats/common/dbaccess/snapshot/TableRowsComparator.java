@@ -0,0 +1,200 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.common.dbaccess.snapshot;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares the rows of two instances of a table.
+ * <br>Instead of the rows, we keep their 128 bit fingerprints together with the number
+ * of times each of them is met in both tables. The rows present in one table only are searched for
+ * in a second pass, which is needed only if the tables are not the same.
+ * <br>So we keep in memory only the fingerprints and the rows which are different.
+ */
+class TableRowsComparator {
+
+    private static final String                       FINGERPRINT_ALGORITHM = "MD5";
+
+    private final MessageDigest                       digest;
+
+    // <row fingerprint, the same fingerprint holding the number of THIS rows minus the number of THAT rows>
+    private final Map<RowFingerprint, RowFingerprint> fingerprints          = new HashMap<>();
+
+    private int                                       thisNumberOfRows;
+    private int                                       thatNumberOfRows;
+
+    private final List<String>                        thisOnlyRows          = new ArrayList<>();
+    private final List<String>                        thatOnlyRows          = new ArrayList<>();
+
+    TableRowsComparator() {
+
+        try {
+            this.digest = MessageDigest.getInstance(FINGERPRINT_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not get the " + FINGERPRINT_ALGORITHM + " digest", e);
+        }
+    }
+
+    /**
+     * Compare the rows of both tables
+     *
+     * @param thisRows the rows of THIS table
+     * @param thatRows the rows of THAT table
+     */
+    void compare( TableRowsLoader thisRows, TableRowsLoader thatRows ) {
+
+        // first pass - count the fingerprints
+        thisRows.loadRows(new TableRowsLoader.RowHandler() {
+            @Override
+            public void handleRow( String row ) {
+
+                thisNumberOfRows++;
+                getFingerprint(row, true).count++;
+            }
+        });
+        thatRows.loadRows(new TableRowsLoader.RowHandler() {
+            @Override
+            public void handleRow( String row ) {
+
+                thatNumberOfRows++;
+                getFingerprint(row, true).count--;
+            }
+        });
+
+        // the rows with these fingerprints are present in both tables the same number of times
+        Iterator<RowFingerprint> it = fingerprints.keySet().iterator();
+        while (it.hasNext()) {
+            if (it.next().count == 0) {
+                it.remove();
+            }
+        }
+        if (fingerprints.isEmpty()) {
+            return;
+        }
+
+        // second pass - collect the rows which are present in one of the tables only
+        thisRows.loadRows(new TableRowsLoader.RowHandler() {
+            @Override
+            public void handleRow( String row ) {
+
+                RowFingerprint fingerprint = getFingerprint(row, false);
+                if (fingerprint != null && fingerprint.count > 0) {
+                    fingerprint.count--;
+                    thisOnlyRows.add(row);
+                }
+            }
+        });
+        thatRows.loadRows(new TableRowsLoader.RowHandler() {
+            @Override
+            public void handleRow( String row ) {
+
+                RowFingerprint fingerprint = getFingerprint(row, false);
+                if (fingerprint != null && fingerprint.count < 0) {
+                    fingerprint.count++;
+                    thatOnlyRows.add(row);
+                }
+            }
+        });
+        fingerprints.clear();
+    }
+
+    int getThisNumberOfRows() {
+
+        return thisNumberOfRows;
+    }
+
+    int getThatNumberOfRows() {
+
+        return thatNumberOfRows;
+    }
+
+    /**
+     * @return the rows present in THIS table only, in the order they were loaded
+     */
+    List<String> getThisOnlyRows() {
+
+        return thisOnlyRows;
+    }
+
+    /**
+     * @return the rows present in THAT table only, in the order they were loaded
+     */
+    List<String> getThatOnlyRows() {
+
+        return thatOnlyRows;
+    }
+
+    private RowFingerprint getFingerprint( String row, boolean addIfMissing ) {
+
+        byte[] hash = digest.digest(row.getBytes(StandardCharsets.UTF_8));
+        RowFingerprint key = new RowFingerprint(toLong(hash, 0), toLong(hash, 8));
+
+        RowFingerprint fingerprint = fingerprints.get(key);
+        if (fingerprint == null && addIfMissing) {
+            fingerprints.put(key, key);
+            fingerprint = key;
+        }
+        return fingerprint;
+    }
+
+    private static long toLong( byte[] bytes, int offset ) {
+
+        long value = 0;
+        for (int i = offset; i < offset + 8; i++) {
+            value = (value << 8) | (bytes[i] & 0xFF);
+        }
+        return value;
+    }
+
+    private static class RowFingerprint {
+
+        private final long high;
+        private final long low;
+
+        // not part of the fingerprint identity
+        private int        count;
+
+        RowFingerprint( long high, long low ) {
+
+            this.high = high;
+            this.low = low;
+        }
+
+        @Override
+        public boolean equals( Object obj ) {
+
+            if (! (obj instanceof RowFingerprint)) {
+                return false;
+            }
+            RowFingerprint that = (RowFingerprint) obj;
+            return this.high == that.high && this.low == that.low;
+        }
+
+        @Override
+        public int hashCode() {
+
+            // the bits of a MD5 hash are evenly distributed
+            return (int) low;
+        }
+    }
+}
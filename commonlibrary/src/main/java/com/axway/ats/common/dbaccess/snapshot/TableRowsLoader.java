@@ -0,0 +1,42 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.common.dbaccess.snapshot;
+
+/**
+ * Provides the rows of a table, one by one, when comparing databases.
+ * <br>This way the rows do not have to be kept in memory all together.
+ */
+public interface TableRowsLoader {
+
+    /**
+     * Pass all table rows to the row handler.
+     * <br>It might be called more than once, each time the same rows are expected.
+     *
+     * @param rowHandler the row handler
+     */
+    public void loadRows( RowHandler rowHandler );
+
+    /**
+     * Receives the table rows
+     */
+    public interface RowHandler {
+
+        /**
+         * @param row the row values as a string
+         */
+        public void handleRow( String row );
+    }
+}
@@ -23,7 +23,8 @@
 import com.axway.ats.common.PublicAtsApi;
 
 /**
- * This structure says how equal the snapshots are
+ * This structure says how equal the snapshots are.
+ * <br>The differences can be added from many threads, as the tables might be compared in parallel
  */
 @PublicAtsApi
 public class DatabaseEqualityState {
@@ -102,7 +103,7 @@ public List<String> getTablesPresentInOneSnapshotOnly( String snapshot ) {
         return tablesPerSnapshot;
     }
 
-    public void addTablePresentInOneSnapshotOnly( String snapshotName, String table ) {
+    public synchronized void addTablePresentInOneSnapshotOnly( String snapshotName, String table ) {
 
         List<String> tablesPerSnapshot = tablePresentInOneSnapshotOnly.get(snapshotName);
         if (tablesPerSnapshot == null) {
@@ -154,8 +155,8 @@ public String getDifferentPrimaryKeys( String snapshot, String table ) {
                                   : "";
     }
 
-    public void addDifferentPrimaryKeys( String firstSnapshotName, String secondSnapshotName,
-                                         String firstPrimaryKey, String secondPrimaryKey, String table ) {
+    public synchronized void addDifferentPrimaryKeys( String firstSnapshotName, String secondSnapshotName,
+                                                      String firstPrimaryKey, String secondPrimaryKey, String table ) {
 
         addDifferentPrimaryKey(firstSnapshotName, firstPrimaryKey, table);
         addDifferentPrimaryKey(secondSnapshotName, secondPrimaryKey, table);
@@ -209,8 +210,8 @@ public Integer getDifferentNumberOfRows( String snapshot, String table ) {
         return numberRows;
     }
 
-    public void addDifferentNumberOfRows( String firstSnapshotName, String secondSnapshotName,
-                                          int firstNumberOfRows, int secondNumberOfRows, String table ) {
+    public synchronized void addDifferentNumberOfRows( String firstSnapshotName, String secondSnapshotName,
+                                                       int firstNumberOfRows, int secondNumberOfRows, String table ) {
 
         addDifferentNumberOfRows(firstSnapshotName, table, firstNumberOfRows);
         addDifferentNumberOfRows(secondSnapshotName, table, secondNumberOfRows);
@@ -277,7 +278,7 @@ public List<String> getColumnsPresentInOneSnapshotOnlyAsStrings( String snapshot
         return result;
     }
 
-    public void addColumnPresentInOneSnapshotOnly( String snapshotName, String table, String column ) {
+    public synchronized void addColumnPresentInOneSnapshotOnly( String snapshotName, String table, String column ) {
 
         Map<String, List<String>> tablesPerSnapshot = columnPresentInOneSnapshotOnly.get(snapshotName);
         if (tablesPerSnapshot == null) {
@@ -350,8 +351,8 @@ public List<String> getIndexesPresentInOneSnapshotOnlyAsStrings( String snapshot
         return result;
     }
 
-    public void addIndexPresentInOneSnapshotOnly( String snapshotName, String table, String indexName,
-                                                  String index ) {
+    public synchronized void addIndexPresentInOneSnapshotOnly( String snapshotName, String table, String indexName,
+                                                               String index ) {
 
         Map<String, List<String>> tablesPerSnapshot = indexPresentInOneSnapshotOnly.get(snapshotName);
         if (tablesPerSnapshot == null) {
@@ -419,7 +420,7 @@ public List<String> getRowsPresentInOneSnapshotOnlyAsStrings( String snapshot, S
         return result;
     }
 
-    public void addRowPresentInOneSnapshotOnly( String snapshotName, String table, String rowValues ) {
+    public synchronized void addRowPresentInOneSnapshotOnly( String snapshotName, String table, String rowValues ) {
 
         Map<String, List<String>> tablesPerSnapshot = rowPresentInOneSnapshotOnly.get(snapshotName);
         if (tablesPerSnapshot == null) {
@@ -42,8 +42,32 @@ public class AtsSystemProperties {
     public static final String AGENT__MONITOR_POLL_INTERVAL                                      = "ats.agent.monitor.poll.interval";
     @PublicAtsApi
     public static final String AGENT__MONITOR_INITIAL_POLL_DELAY                                 = "ats.agent.monitor.initial.poll.delay";
+    /** The number of threads which poll the system monitors on the agent concurrently. Default value is 4 */
+    @PublicAtsApi
+    public static final String AGENT__MONITOR_POLLING_THREADS                                    = "ats.agent.monitor.polling.threads";
+    /** The maximum time a system monitor is given to return its readings.
+     * The readings of a monitor which is late are skipped for the current poll.<br>
+     * Note that the timeout must be in <strong>milliseconds</strong>. Default value is the poll interval.
+     * */
+    @PublicAtsApi
+    public static final String AGENT__MONITOR_POLL_TIMEOUT                                       = "ats.agent.monitor.poll.timeout";
+    /** The max number of system readings kept on the agent until they are sent to the log DB.
+     * When the log DB is not reachable for long time and the buffer gets full, the oldest readings are lost.
+     * Default value is 1000000 */
+    @PublicAtsApi
+    public static final String AGENT__MONITOR_READINGS_BUFFER_SIZE                               = "ats.agent.monitor.readings.buffer.size";
+    /** How often the kept system readings are sent to the log DB.<br>
+     * Note that the interval must be in <strong>seconds</strong>. Default value is 5 */
+    @PublicAtsApi
+    public static final String AGENT__MONITOR_READINGS_UPLOAD_INTERVAL                           = "ats.agent.monitor.readings.upload.interval";
     @PublicAtsApi
     public static final String AGENT__COMPONENTS_FOLDER                                          = "ats.agent.components.folder";
+    /** How many queue invocations a load queue thread takes at once when the parameter data providers
+     * generate values per invocation. Bigger blocks mean less contention between many threads, but the values
+     * are no more taken in strict order and some of them are not used when the queue ends.
+     * Not applied when some of the data providers are not indexed, as they are used under a lock. Default value is 1 */
+    @PublicAtsApi
+    public static final String AGENT__LOAD_QUEUE_INVOCATIONS_BLOCK_SIZE                          = "ats.agent.load.queue.invocations.block.size";
 
     @PublicAtsApi
     public static final String AGENT__TEMPLATE_ACTIONS_PROXY_PROPERTY                            = "ats.agent.template.actions.proxy";                             // Key to specify proxy for template action requests
@@ -81,6 +105,21 @@ public class AtsSystemProperties {
     @PublicAtsApi
     public static final String LOG__MAX_CACHE_EVENTS_FLUSH_TIMEOUT                               = "ats.log.db.max.cache.events.flush.timeout";
 
+    /** The MAX number of events the DB logging thread takes from the events queue at once.<br>
+     * All drained events are processed in their original order. When the test execution db logging is in batch mode,
+     * the cacheable events (messages and checkpoints) from one drain are sent to the log DB in one transaction.<br>
+     * Value of 1 disables draining and the events are taken from the queue one by one. Default value is 1000.
+     * */
+    @PublicAtsApi
+    public static final String LOG__MAX_DRAIN_EVENTS                                             = "ats.log.db.max.drain.events";
+
+    /** When the checkpoint log level is AGGREGATED, the checkpoints are summarized in memory and
+     * the accumulated summary of each checkpoint is sent to the log DB once per this time interval.<br>
+     * Note that the interval must be in <strong>seconds</strong>. Default value is 10.
+     * */
+    @PublicAtsApi
+    public static final String LOG__CHECKPOINTS_AGGREGATION_INTERVAL                             = "ats.log.db.checkpoints.aggregation.interval";
+
     // TestHarness properties
     // Run name for JUnit executions
     @PublicAtsApi
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.common.dbaccess.snapshot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class Test_TableRowsComparator {
+
+    @Test
+    public void sameRows() {
+
+        TableRowsComparator comparator = compare(Arrays.asList("a", "b", "c", "b"),
+                                                 Arrays.asList("b", "c", "b", "a"));
+
+        assertEquals(4, comparator.getThisNumberOfRows());
+        assertEquals(4, comparator.getThatNumberOfRows());
+        assertTrue(comparator.getThisOnlyRows().isEmpty());
+        assertTrue(comparator.getThatOnlyRows().isEmpty());
+    }
+
+    @Test
+    public void differentRows() {
+
+        TableRowsComparator comparator = compare(Arrays.asList("a", "b", "x", "c"),
+                                                 Arrays.asList("c", "y", "a", "z", "b"));
+
+        assertEquals(4, comparator.getThisNumberOfRows());
+        assertEquals(5, comparator.getThatNumberOfRows());
+        assertEquals(Arrays.asList("x"), comparator.getThisOnlyRows());
+        assertEquals(Arrays.asList("y", "z"), comparator.getThatOnlyRows());
+    }
+
+    @Test
+    public void duplicatedRows() {
+
+        TableRowsComparator comparator = compare(Arrays.asList("a", "a", "a", "b"),
+                                                 Arrays.asList("a", "b", "b"));
+
+        assertEquals(Arrays.asList("a", "a"), comparator.getThisOnlyRows());
+        assertEquals(Arrays.asList("b"), comparator.getThatOnlyRows());
+    }
+
+    private TableRowsComparator compare( List<String> thisRows, List<String> thatRows ) {
+
+        TableRowsComparator comparator = new TableRowsComparator();
+        comparator.compare(toRowsLoader(thisRows), toRowsLoader(thatRows));
+        return comparator;
+    }
+
+    private TableRowsLoader toRowsLoader( final List<String> rows ) {
+
+        return new TableRowsLoader() {
+            @Override
+            public void loadRows( RowHandler rowHandler ) {
+
+                for (String row : rows) {
+                    rowHandler.handleRow(row);
+                }
+            }
+        };
+    }
+}
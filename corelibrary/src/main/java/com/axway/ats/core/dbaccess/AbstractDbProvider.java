@@ -27,18 +27,22 @@
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NoSuchElementException;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import com.axway.ats.common.dbaccess.DbKeys;
 import com.axway.ats.common.dbaccess.DbQuery;
 import com.axway.ats.common.dbaccess.snapshot.TableDescription;
 import com.axway.ats.core.dbaccess.exceptions.DbException;
@@ -58,14 +62,15 @@
 public abstract class AbstractDbProvider implements DbProvider {
 
     private static Logger                       log;
-    private static final int                    BYTE_BUFFER_SIZE = 1024;
-    protected static final Map<Integer, String> SQL_COLUMN_TYPES = new HashMap<Integer, String>();
+    private static final int                    BYTE_BUFFER_SIZE   = 1024;
+    private static final int                    DEFAULT_FETCH_SIZE = 1000;
+    protected static final Map<Integer, String> SQL_COLUMN_TYPES   = new HashMap<Integer, String>();
 
     protected DbConnection                      dbConnection;
 
     private Connection                          connection;
 
-    protected String[]                          reservedWords    = new String[]{};
+    protected String[]                          reservedWords      = new String[]{};
 
     static {
         // TODO in Java 8 there is a way to get them without additional libraries or reflection
@@ -148,61 +153,12 @@ public DbRecordValuesList[] select( com.axway.ats.common.dbaccess.DbQuery dbQuer
                                                      dbQuery.getArguments());
                 ResultSet res = st.executeQuery()) {
 
-            ResultSetMetaData rsmd = res.getMetaData();
-
-            int numberOfColumns = rsmd.getColumnCount();
+            DbColumn[] dbColumns = getDbColumns(res.getMetaData());
             int currentRow = 0;
             while (res.next()) {
                 currentRow++;
                 DbRecordValuesList recordList = new DbRecordValuesList();
-
-                for (int i = 1; i <= numberOfColumns; i++) {
-                    String tableName = rsmd.getTableName(i);
-                    String columnName = rsmd.getColumnName(i);
-                    DbColumn dbColumn = new DbColumn(tableName, columnName);
-                    dbColumn.setColumnType(rsmd.getColumnTypeName(i));
-
-                    DbRecordValue recordValue = null;
-
-                    //get the columns in the appropriate type
-                    try {
-                        //get the columns in the appropriate type
-                        switch (dbReturnMode) {
-                            case OBJECT:
-                                recordValue = parseDbRecordAsObject(dbColumn, res, i);
-                                break;
-
-                            case INPUT_STREAM:
-                                recordValue = parseDbRecordAsInputStream(dbColumn, res, i);
-                                break;
-
-                            case STRING:
-                            case ESCAPED_STRING:
-                                recordValue = parseDbRecordAsString(dbColumn, res, i);
-                                break;
-
-                            default:
-                                throw new DbException("Getting the values as " + dbReturnMode.name()
-                                                      + " is not supported. Table '"
-                                                      + dbColumn.getTableName() + "', column '"
-                                                      + dbColumn.getColumnName() + "'");
-                        }
-                    } finally {
-                        if (recordValue == null) {
-                            // help locate error case when we have exception from the underlying calls in try block
-                            log.error("Error getting value for table '" + tableName + "', row number "
-                                      + currentRow + ",column " + i + ",named '" + columnName + "'");
-                        } else {
-                            // Trace. This could produce huge data so using lowest possible severity.
-                            if (log.isTraceEnabled()) {
-                                log.trace("Value for column " + i + ",named '" + columnName + "' is '"
-                                          + recordValue.getValue() + "'");
-                            }
-                        }
-                    }
-                    recordList.add(recordValue);
-                }
-
+                readRecord(res, dbColumns, dbReturnMode, currentRow, recordList);
                 dbRecords.add(recordList);
             }
             if (log.isDebugEnabled()) {
@@ -219,6 +175,149 @@ public DbRecordValuesList[] select( com.axway.ats.common.dbaccess.DbQuery dbQuer
         return dbRecords.toArray(new DbRecordValuesList[]{});
     }
 
+    @Override
+    public DbRecordValuesIterator selectIterator( com.axway.ats.common.dbaccess.DbQuery dbQuery,
+                                                  DbReturnModes dbReturnMode ) throws DbException {
+
+        final String errMsg = "Error running or parsing result of sql query '" + dbQuery.getQuery() + "'";
+
+        // the iterator keeps its own connection, as it stays open while the rows are read
+        Connection iteratorConnection = ConnectionPool.getConnection(dbConnection);
+        boolean restoreAutoCommit = false;
+        PreparedStatement st = null;
+        log.debug(dbQuery.getQuery()); // debug current query
+        try {
+            if (this.dbConnection instanceof DbConnPostgreSQL && iteratorConnection.getAutoCommit()) {
+                // PostgreSQL uses a server side cursor only when not in auto commit mode
+                iteratorConnection.setAutoCommit(false);
+                restoreAutoCommit = true;
+            }
+
+            st = prepareStatement(iteratorConnection, dbQuery.getQuery(), dbQuery.getArguments());
+            if (this instanceof MysqlDbProvider) {
+                // MySQL Connector/J ignores the fetch size unless it is told to stream the rows one by one
+                st.setFetchSize(Integer.MIN_VALUE);
+            } else {
+                st.setFetchSize(getFetchSize());
+            }
+
+            ResultSet res = st.executeQuery();
+            return new ResultSetIterator(iteratorConnection, restoreAutoCommit, st, res, dbReturnMode, errMsg);
+        } catch (SQLException | RuntimeException e) {
+            releaseIteratorResources(iteratorConnection, restoreAutoCommit, st);
+            if (e instanceof DbException) {
+                throw (DbException) e;
+            }
+            throw new DbException(errMsg, e);
+        }
+    }
+
+    /**
+     * @return the number of rows to fetch at once when iterating over the result of a query
+     */
+    private int getFetchSize() {
+
+        Map<String, Object> customProperties = dbConnection.getCustomProperties();
+        if (customProperties == null || customProperties.get(DbKeys.FETCH_SIZE) == null) {
+            return DEFAULT_FETCH_SIZE;
+        }
+
+        String fetchSizeString = String.valueOf(customProperties.get(DbKeys.FETCH_SIZE)).trim();
+        int fetchSize;
+        try {
+            fetchSize = Integer.parseInt(fetchSizeString);
+        } catch (NumberFormatException nfe) {
+            throw new DbException("Illegal value '" + fetchSizeString + "' for " + DbKeys.FETCH_SIZE
+                                  + " property. It must be a positive number");
+        }
+        if (fetchSize <= 0) {
+            throw new DbException("Illegal value '" + fetchSizeString + "' for " + DbKeys.FETCH_SIZE
+                                  + " property. It must be a positive number");
+        }
+        return fetchSize;
+    }
+
+    private void releaseIteratorResources( Connection iteratorConnection, boolean restoreAutoCommit,
+                                           PreparedStatement st ) {
+
+        DbUtils.closeStatement(st);
+        if (restoreAutoCommit) {
+            try {
+                // the connection goes back to the pool, so leave it as it was
+                iteratorConnection.setAutoCommit(true);
+            } catch (SQLException e) {
+                log.warn(DbUtils.getFullSqlException("Unable to restore the auto commit mode of a connection", e));
+            }
+        }
+        DbUtils.closeConnection(iteratorConnection);
+    }
+
+    private DbColumn[] getDbColumns( ResultSetMetaData rsmd ) throws SQLException {
+
+        DbColumn[] dbColumns = new DbColumn[rsmd.getColumnCount()];
+        for (int i = 1; i <= dbColumns.length; i++) {
+            DbColumn dbColumn = new DbColumn(rsmd.getTableName(i), rsmd.getColumnName(i));
+            dbColumn.setColumnType(rsmd.getColumnTypeName(i));
+            dbColumns[i - 1] = dbColumn;
+        }
+        return dbColumns;
+    }
+
+    /**
+     * Read the values of the current result set row
+     *
+     * @param res the result set
+     * @param dbColumns the result set columns
+     * @param dbReturnMode the type in which to return the values
+     * @param currentRow the row number, used for logging
+     * @param recordList the list to add the values to
+     */
+    private void readRecord( ResultSet res, DbColumn[] dbColumns, DbReturnModes dbReturnMode, int currentRow,
+                             DbRecordValuesList recordList ) throws SQLException, IOException {
+
+        for (int i = 1; i <= dbColumns.length; i++) {
+            DbColumn dbColumn = dbColumns[i - 1];
+
+            DbRecordValue recordValue = null;
+            try {
+                //get the columns in the appropriate type
+                switch (dbReturnMode) {
+                    case OBJECT:
+                        recordValue = parseDbRecordAsObject(dbColumn, res, i);
+                        break;
+
+                    case INPUT_STREAM:
+                        recordValue = parseDbRecordAsInputStream(dbColumn, res, i);
+                        break;
+
+                    case STRING:
+                    case ESCAPED_STRING:
+                        recordValue = parseDbRecordAsString(dbColumn, res, i);
+                        break;
+
+                    default:
+                        throw new DbException("Getting the values as " + dbReturnMode.name()
+                                              + " is not supported. Table '"
+                                              + dbColumn.getTableName() + "', column '"
+                                              + dbColumn.getColumnName() + "'");
+                }
+            } finally {
+                if (recordValue == null) {
+                    // help locate error case when we have exception from the underlying calls in try block
+                    log.error("Error getting value for table '" + dbColumn.getTableName() + "', row number "
+                              + currentRow + ",column " + i + ",named '" + dbColumn.getColumnName() + "'");
+                } else {
+                    // Trace. This could produce huge data so using lowest possible severity.
+                    if (log.isTraceEnabled()) {
+                        log.trace("Value for column " + i + ",named '" + dbColumn.getColumnName() + "' is '"
+                                  + recordValue.getValue() + "'");
+                    }
+                }
+            }
+            recordList.add(recordValue);
+        }
+    }
+
     protected DbRecordValue parseDbRecordAsObject( DbColumn dbColumn, ResultSet res,
                                                    int columnIndex ) throws IOException, SQLException {
 
@@ -465,6 +564,13 @@ private PreparedStatement prepareStatement( Connection connection, String query,
                     result.setString(possition++, (String) argument);
                 } else if (argument instanceof byte[]) {
                     result.setBytes(possition++, (byte[]) argument);
+                } else if (argument instanceof Number || argument instanceof java.sql.Date
+                           || argument instanceof java.sql.Time || argument instanceof Timestamp) {
+                    // values as returned by the driver, for example the last read value of a key column
+                    result.setObject(possition++, argument);
+                } else if (argument instanceof Date) {
+                    // not all drivers accept java.util.Date, so it is bound as a timestamp
+                    result.setTimestamp(possition++, new Timestamp( ((Date) argument).getTime()));
                 } else {
                     throw new DbException("Unable to build query because of inavalid parameter types");
                 }
@@ -968,4 +1074,98 @@ protected String extractTableAttributeValue( ResultSet resultSet, String attribu
             return "";
         }
     }
+
+    /**
+     * Iterates over an open result set, reusing the same row instance.
+     * Releases the statement and the connection when closed or when all rows are read.
+     */
+    private class ResultSetIterator implements DbRecordValuesIterator {
+
+        private final Connection         iteratorConnection;
+        private final boolean            restoreAutoCommit;
+        private final PreparedStatement  statement;
+        private final ResultSet          resultSet;
+        private final DbColumn[]         dbColumns;
+        private final DbReturnModes      dbReturnMode;
+        private final String             errMsg;
+
+        private final DbRecordValuesList record = new DbRecordValuesList();
+        private int                      currentRow;
+        private boolean                  nextRowFetched;
+        private boolean                  hasNextRow;
+        private boolean                  closed;
+
+        ResultSetIterator( Connection iteratorConnection, boolean restoreAutoCommit, PreparedStatement statement,
+                           ResultSet resultSet, DbReturnModes dbReturnMode,
+                           String errMsg ) throws SQLException {
+
+            this.iteratorConnection = iteratorConnection;
+            this.restoreAutoCommit = restoreAutoCommit;
+            this.statement = statement;
+            this.resultSet = resultSet;
+            this.dbReturnMode = dbReturnMode;
+            this.errMsg = errMsg;
+            this.dbColumns = getDbColumns(resultSet.getMetaData());
+        }
+
+        @Override
+        public boolean hasNext() {
+
+            if (closed) {
+                return false;
+            }
+
+            if (!nextRowFetched) {
+                try {
+                    hasNextRow = resultSet.next();
+                } catch (SQLException e) {
+                    close();
+                    throw new DbException(errMsg, e);
+                }
+                nextRowFetched = true;
+
+                if (!hasNextRow) {
+                    close();
+                }
+            }
+            return hasNextRow;
+        }
+
+        @Override
+        public DbRecordValuesList next() {
+
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            nextRowFetched = false;
+            currentRow++;
+
+            record.clear();
+            try {
+                readRecord(resultSet, dbColumns, dbReturnMode, currentRow, record);
+            } catch (SQLException | IOException e) {
+                close();
+                throw new DbException(errMsg, e);
+            } catch (RuntimeException e) {
+                close();
+                throw e;
+            }
+            return record;
+        }
+
+        @Override
+        public void close() {
+
+            if (closed) {
+                return;
+            }
+            closed = true;
+
+            if (log.isDebugEnabled()) {
+                log.debug("Select statement iterated over " + currentRow + " rows");
+            }
+            DbUtils.closeResultSet(resultSet);
+            releaseIteratorResources(iteratorConnection, restoreAutoCommit, statement);
+        }
+    }
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2017-2019 Axway Software
+ * Copyright 2017-2021 Axway Software
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,7 +17,12 @@
 
 import java.sql.Connection;
 import java.sql.SQLException;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
 
 import javax.sql.DataSource;
 
@@ -27,15 +32,21 @@
 
 import com.axway.ats.core.dbaccess.exceptions.DbException;
 
+/**
+ * Keeps one data source per database connection hash and provides connections from it.
+ * <br>There is no global lock, so threads getting connections to the same or to different databases
+ * do not wait for each other. They can still wait inside the data source, for example when its pool
+ * has reached the max number of active connections.
+ */
 public class ConnectionPool {
 
-    private static Logger                      log;
+    private static Logger                                          log;
 
     /**
      * we keep a static list of connections in order to reuse them when we have multiple calls for creating the same
      * connection
      */
-    private static HashMap<String, DataSource> dataSourceMap = new HashMap<String, DataSource>();
+    private static final ConcurrentHashMap<String, DataSourcePool> dataSourceMap = new ConcurrentHashMap<>();
 
     //prevent instantiation
     private ConnectionPool() {
@@ -53,36 +64,27 @@ private ConnectionPool() {
      * @return a JDBC Connection
      * @throws DbException on error
      */
-    public static synchronized Connection getConnection(
-                                                         DbConnection dbConnection ) throws DbException {
+    public static Connection getConnection(
+                                            final DbConnection dbConnection ) throws DbException {
 
         // create the connection identifier
         String connectionDescription = dbConnection.getConnHash();
-        DataSource dataSource;
-
-        if (dataSourceMap.containsKey(connectionDescription)) {
-            // use the cached connection
-            dataSource = dataSourceMap.get(connectionDescription);
-        } else {
-            dataSource = dbConnection.getDataSource();
-            dataSourceMap.put(connectionDescription, dataSource);
-        }
-
-        try {
-            Connection newConnection;
-            if (dataSource instanceof BasicDataSource) {
-                // DBCP BasicDataSource does not support getConnection(user,pass) method
-                newConnection = dataSource.getConnection();
-            } else {
-                newConnection = dataSource.getConnection(dbConnection.getUser(),
-                                                         dbConnection.getPassword());
-            }
-            return newConnection;
 
-        } catch (SQLException sqle) {
-            throw new DbException("Unable to connect to database using location '" + dbConnection.getURL()
-                                  + "' and user '" + dbConnection.getUser() + "'", sqle);
+        DataSourcePool pool = dataSourceMap.get(connectionDescription);
+        if (pool == null) {
+            // the data source is created just once per connection hash, it does not connect to the database yet
+            pool = dataSourceMap.computeIfAbsent(connectionDescription,
+                                                 new Function<String, DataSourcePool>() {
+                                                     @Override
+                                                     public DataSourcePool apply( String connHash ) {
+
+                                                         return new DataSourcePool(connHash,
+                                                                                   dbConnection.getDataSource());
+                                                     }
+                                                 });
         }
+
+        return pool.getConnection(dbConnection);
     }
 
     /**
@@ -90,12 +92,10 @@ public static synchronized Connection getConnection(
      *
      * @param dbConnection The connection descriptor
      */
-    public static synchronized void removeConnection(
-                                                      DbConnection dbConnection ) throws DbException {
+    public static void removeConnection(
+                                         DbConnection dbConnection ) throws DbException {
 
-        if (dataSourceMap.containsKey(dbConnection.getConnHash())) {
-            dataSourceMap.remove(dbConnection.getConnHash());
-        } else {
+        if (dataSourceMap.remove(dbConnection.getConnHash()) == null) {
             log = LogManager.getLogger(ConnectionPool.class);
 
             log.info("Cannot remove the connection " + dbConnection.hashCode()
@@ -103,4 +103,111 @@ public static synchronized void removeConnection(
 
         }
     }
+
+    /**
+     * Get statistics about the connections provided for some database connection
+     *
+     * @param dbConnection The connection descriptor
+     * @return the statistics or null if no connections were requested for this database connection
+     */
+    public static ConnectionPoolStatistics getStatistics(
+                                                          DbConnection dbConnection ) {
+
+        DataSourcePool pool = dataSourceMap.get(dbConnection.getConnHash());
+        if (pool == null) {
+            return null;
+        }
+        return pool.getStatistics();
+    }
+
+    /**
+     * @return statistics about the connections provided for all currently known database connections
+     */
+    public static List<ConnectionPoolStatistics> getStatistics() {
+
+        List<ConnectionPoolStatistics> statistics = new ArrayList<ConnectionPoolStatistics>();
+        for (DataSourcePool pool : dataSourceMap.values()) {
+            statistics.add(pool.getStatistics());
+        }
+        return statistics;
+    }
+
+    /**
+     * The data source for one connection hash together with its statistics
+     */
+    private static class DataSourcePool {
+
+        private final String     connHash;
+        private final DataSource dataSource;
+
+        private final LongAdder  acquiredConnections = new LongAdder();
+        private final LongAdder  failedConnections   = new LongAdder();
+        private final LongAdder  totalWaitTime       = new LongAdder();
+        private final AtomicLong maxWaitTime         = new AtomicLong();
+        private final LongAdder  createdConnections  = new LongAdder();
+        private final LongAdder  totalCreationTime   = new LongAdder();
+
+        DataSourcePool( String connHash, DataSource dataSource ) {
+
+            this.connHash = connHash;
+            this.dataSource = dataSource;
+        }
+
+        Connection getConnection( DbConnection dbConnection ) throws DbException {
+
+            boolean isPooling = dataSource instanceof BasicDataSource;
+            // when there is no idle connection, the pool most likely has to create a new one
+            boolean isCreating = !isPooling || ((BasicDataSource) dataSource).getNumIdle() == 0;
+
+            long startTime = System.nanoTime();
+            try {
+                Connection newConnection;
+                if (isPooling) {
+                    // DBCP BasicDataSource does not support getConnection(user,pass) method
+                    newConnection = dataSource.getConnection();
+                } else {
+                    newConnection = dataSource.getConnection(dbConnection.getUser(),
+                                                             dbConnection.getPassword());
+                }
+
+                long waitTime = System.nanoTime() - startTime;
+                acquiredConnections.increment();
+                totalWaitTime.add(waitTime);
+                updateMaxWaitTime(waitTime);
+                if (isCreating) {
+                    createdConnections.increment();
+                    totalCreationTime.add(waitTime);
+                }
+                return newConnection;
+
+            } catch (SQLException sqle) {
+                failedConnections.increment();
+                throw new DbException("Unable to connect to database using location '" + dbConnection.getURL()
+                                      + "' and user '" + dbConnection.getUser() + "'", sqle);
+            }
+        }
+
+        private void updateMaxWaitTime( long waitTime ) {
+
+            long currentMax = maxWaitTime.get();
+            while (waitTime > currentMax && !maxWaitTime.compareAndSet(currentMax, waitTime)) {
+                currentMax = maxWaitTime.get();
+            }
+        }
+
+        ConnectionPoolStatistics getStatistics() {
+
+            int activeConnections = -1;
+            int idleConnections = -1;
+            if (dataSource instanceof BasicDataSource) {
+                activeConnections = ((BasicDataSource) dataSource).getNumActive();
+                idleConnections = ((BasicDataSource) dataSource).getNumIdle();
+            }
+
+            return new ConnectionPoolStatistics(connHash, activeConnections, idleConnections,
+                                                acquiredConnections.sum(), failedConnections.sum(),
+                                                totalWaitTime.sum(), maxWaitTime.get(),
+                                                createdConnections.sum(), totalCreationTime.sum());
+        }
+    }
 }
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.core.dbaccess;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Statistics about the connections provided by the {@link ConnectionPool} for one database connection.
+ * <br>This is a snapshot taken at the time of the request, it does not change afterwards.
+ */
+public class ConnectionPoolStatistics {
+
+    private final String connHash;
+    private final int    activeConnections;
+    private final int    idleConnections;
+    private final long   acquiredConnections;
+    private final long   failedConnections;
+    private final long   totalWaitTime;
+    private final long   maxWaitTime;
+    private final long   createdConnections;
+    private final long   totalCreationTime;
+
+    ConnectionPoolStatistics( String connHash, int activeConnections, int idleConnections,
+                              long acquiredConnections, long failedConnections, long totalWaitTime,
+                              long maxWaitTime, long createdConnections, long totalCreationTime ) {
+
+        this.connHash = connHash;
+        this.activeConnections = activeConnections;
+        this.idleConnections = idleConnections;
+        this.acquiredConnections = acquiredConnections;
+        this.failedConnections = failedConnections;
+        this.totalWaitTime = totalWaitTime;
+        this.maxWaitTime = maxWaitTime;
+        this.createdConnections = createdConnections;
+        this.totalCreationTime = totalCreationTime;
+    }
+
+    /**
+     * @return the hash of the database connection these statistics are about
+     */
+    public String getConnHash() {
+
+        return connHash;
+    }
+
+    /**
+     * @return the number of connections currently in use or -1 if the data source does not pool connections
+     */
+    public int getActiveConnections() {
+
+        return activeConnections;
+    }
+
+    /**
+     * @return the number of connections currently waiting in the pool or -1 if the data source
+     * does not pool connections
+     */
+    public int getIdleConnections() {
+
+        return idleConnections;
+    }
+
+    /**
+     * @return the number of successfully provided connections
+     */
+    public long getAcquiredConnections() {
+
+        return acquiredConnections;
+    }
+
+    /**
+     * @return the number of failed attempts to get a connection
+     */
+    public long getFailedConnections() {
+
+        return failedConnections;
+    }
+
+    /**
+     * @return the average time in milliseconds spent waiting for a connection
+     */
+    public double getAverageWaitTime() {
+
+        return average(totalWaitTime, acquiredConnections);
+    }
+
+    /**
+     * @return the longest time in milliseconds spent waiting for a connection
+     */
+    public double getMaxWaitTime() {
+
+        return toMillis(maxWaitTime);
+    }
+
+    /**
+     * @return the number of provided connections which were newly created instead of taken from the pool.
+     * When the data source does not pool connections, this is the number of all provided connections.
+     */
+    public long getCreatedConnections() {
+
+        return createdConnections;
+    }
+
+    /**
+     * @return the average time in milliseconds needed to create a new connection
+     */
+    public double getAverageCreationTime() {
+
+        return average(totalCreationTime, createdConnections);
+    }
+
+    private double average( long totalTime, long count ) {
+
+        if (count == 0) {
+            return 0;
+        }
+        return toMillis(totalTime) / count;
+    }
+
+    private double toMillis( long nanos ) {
+
+        return (double) nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public String toString() {
+
+        return String.format("%s: active=%d, idle=%d, acquired=%d, failed=%d, avg wait=%.3f ms, "
+                             + "max wait=%.3f ms, created=%d, avg creation=%.3f ms",
+                             connHash, activeConnections, idleConnections, acquiredConnections,
+                             failedConnections, getAverageWaitTime(), getMaxWaitTime(),
+                             createdConnections, getAverageCreationTime());
+    }
+}
@@ -109,6 +109,22 @@ public DbRecordValuesList[] select(
                                         com.axway.ats.common.dbaccess.DbQuery dbQuery,
                                         DbReturnModes dbReturnMode ) throws DbException;
 
+    /**
+     * Execute the select query and iterate over the returned rows without loading all of them in memory.
+     * <br>The rows are fetched from the database in portions, their size is set by the
+     * {@link com.axway.ats.common.dbaccess.DbKeys#FETCH_SIZE FETCH_SIZE} connection property.
+     * <br><b>Note:</b> The returned row instance might be reused for the next row, see {@link DbRecordValuesIterator}
+     *
+     * @param dbQuery   the select query to execute
+     * @param dbReturnMode the type in which to return the values - pass OBJECT for getting the values
+     *                  in the default Java object type corresponding to the column's SQL type
+     * @return iterator over the returned rows, it must be closed when no longer needed
+     * @throws DbException
+     */
+    public DbRecordValuesIterator selectIterator(
+                                                  com.axway.ats.common.dbaccess.DbQuery dbQuery,
+                                                  DbReturnModes dbReturnMode ) throws DbException;
+
     //******************************************************************************
 
     /**
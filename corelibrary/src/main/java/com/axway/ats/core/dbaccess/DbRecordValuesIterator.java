@@ -0,0 +1,67 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.core.dbaccess;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+import com.axway.ats.core.dbaccess.exceptions.DbException;
+
+/**
+ * Iterates over the rows returned by a select query without loading all of them in memory.
+ * <br><b>Note:</b> Implementations may return the same {@link DbRecordValuesList} instance on each call
+ * to {@link #next()}, refilled with the values of the current row. Copy the row if it is needed
+ * after moving to the next one.
+ * <br>The iterator must be closed when no longer needed, this releases the underlying database resources.
+ * It is closed automatically once all rows are read.
+ */
+public interface DbRecordValuesIterator extends Iterator<DbRecordValuesList>, AutoCloseable {
+
+    @Override
+    public void close() throws DbException;
+
+    /**
+     * Wrap some already loaded rows
+     *
+     * @param records the rows
+     * @return an iterator over these rows
+     */
+    public static DbRecordValuesIterator fromArray( DbRecordValuesList[] records ) {
+
+        final Iterator<DbRecordValuesList> recordsIterator = Arrays.asList(records)
+                                                                   .iterator();
+        return new DbRecordValuesIterator() {
+
+            @Override
+            public boolean hasNext() {
+
+                return recordsIterator.hasNext();
+            }
+
+            @Override
+            public DbRecordValuesList next() {
+
+                return recordsIterator.next();
+            }
+
+            @Override
+            public void close() {
+
+                // nothing to release
+            }
+        };
+    }
+}
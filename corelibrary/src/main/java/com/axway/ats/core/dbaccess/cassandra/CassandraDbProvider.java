@@ -35,6 +35,7 @@
 import com.axway.ats.core.dbaccess.DbConnection;
 import com.axway.ats.core.dbaccess.DbProvider;
 import com.axway.ats.core.dbaccess.DbRecordValue;
+import com.axway.ats.core.dbaccess.DbRecordValuesIterator;
 import com.axway.ats.core.dbaccess.DbRecordValuesList;
 import com.axway.ats.core.dbaccess.DbReturnModes;
 import com.axway.ats.core.dbaccess.exceptions.DbException;
@@ -227,6 +228,18 @@ public DbRecordValuesList[] select(
         return dbRecords.toArray(new DbRecordValuesList[]{});
     }
 
+    /**
+     * The session is configured to fetch all rows at once, so here the rows are just loaded
+     * and then iterated.
+     */
+    @Override
+    public DbRecordValuesIterator selectIterator(
+                                                  DbQuery dbQuery,
+                                                  DbReturnModes dbReturnMode ) throws DbException {
+
+        return DbRecordValuesIterator.fromArray(select(dbQuery, dbReturnMode));
+    }
+
     /**
      * Returns a map with column name as key and column date type as value.
      *
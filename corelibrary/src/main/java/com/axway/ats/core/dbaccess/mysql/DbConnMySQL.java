@@ -1,5 +1,5 @@
 /*
- * Copyright 2017-2020 Axway Software
+ * Copyright 2017-2021 Axway Software
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -61,8 +61,9 @@ public class DbConnMySQL extends DbConnection {
     /**
      * The connection URL
      */
-    private String url;
-    private String serverTimeZone;
+    private String  url;
+    private String  serverTimeZone;
+    private boolean allowLoadLocalInfile;
 
     private static String  dataSourceClassName         = null;
     private static boolean serverTimeZoneWarningLogged = false;
@@ -140,6 +141,12 @@ protected void initializeCustomProperties( Map<String, Object> customProperties
             if (serverTimeZone != null) {
                 this.serverTimeZone = (String) serverTimeZone;
             }
+
+            // allow LOAD DATA LOCAL INFILE statements
+            Object allowLoadLocalInfile = customProperties.get(DbKeys.ALLOW_LOAD_LOCAL_INFILE);
+            if (allowLoadLocalInfile != null) {
+                this.allowLoadLocalInfile = Boolean.parseBoolean(allowLoadLocalInfile.toString());
+            }
         }
 
         if (this.port < 1) {
@@ -234,6 +241,12 @@ private DataSource createDataSource() {
                 ReflectionUtils.invokeMethod(ReflectionUtils.getMethod(mysqlDataSourceClass, "setAllowMultiQueries",
                                                                        new Class<?>[]{ boolean.class }, true),
                                              dataSourceInstance, new Object[]{ true });
+                if (this.allowLoadLocalInfile) {
+                    ReflectionUtils.invokeMethod(ReflectionUtils.getMethod(mysqlDataSourceClass,
+                                                                           "setAllowLoadLocalInfile",
+                                                                           new Class<?>[]{ boolean.class }, true),
+                                                 dataSourceInstance, new Object[]{ true });
+                }
 
                 if (mysqlDataSourceClass.getName().equals(MYSQL_JDBS_8_DATASOURCE_CLASS_NAME)) {
                     // tell MySQL, that you want connection.getMetaData().getTables() to return tables only from the connection's (table) schema
@@ -48,8 +48,8 @@ public static void readTransfer( String host, int port,
                 @Override
                 public void run() {
 
-                    FileOutputStream fos = null;
                     DataInputStream dis = null;
+                    LocalFileSystemOperations.FileTransferMetrics metrics = new LocalFileSystemOperations.FileTransferMetrics();
                     try {
                         //socket.setReuseAddress(true);
                         socket.setSoTimeout(LocalFileSystemOperations.FILE_TRANSFER_TIMEOUT);
@@ -82,25 +82,9 @@ public void run() {
                                     }
                                 }
 
-                                try {
-                                    fos = new FileOutputStream(file, false);
-                                } catch (IOException e) {
-                                    throw new IOException("Could not create destination file '" + fileName + "'", e);
-                                }
-                                try {
-                                    byte[] buff = new byte[LocalFileSystemOperations.FILE_TRANSFER_BUFFER_SIZE];
-                                    int readBytes = -1;
-                                    while (fileSize > 0 && (readBytes = dis.read(buff,
-                                                                                 0,
-                                                                                 (int) Math.min(buff.length,
-                                                                                                fileSize))) > -1) {
-                                        fos.write(buff, 0, readBytes);
-                                        fos.flush();
-                                        fileSize -= readBytes;
-                                    }
-                                } finally {
-                                    IoUtils.closeStream(fos, "Error closing descriptor for file " + fileName);
-                                }
+                                // the stream is used instead of the socket channel, so the read timeout is applied
+                                LocalFileSystemOperations.receiveFileContent(dis, null, null, file, fileSize);
+                                metrics.addFile(fileSize);
                             } else if (fdType.equals(LocalFileSystemOperations.DIR_CREATE_SOCKET_COMMAND)) {
                                 if (!file.exists()) {
                                     log.debug("Creating directory: " + fileName);
@@ -133,7 +117,9 @@ public void run() {
                         log.error("An I/O error occurred", e);
                         transferStatus.transferException = e;
                     } finally {
-                        IoUtils.closeStream(fos);
+                        if (transferStatus.transferException == null) {
+                            log.info("Received files from " + host + ":" + port + ". " + metrics);
+                        }
                         IoUtils.closeStream(dis);
                         IoUtils.closeStream(socket, "Could not close socket");
 
@@ -34,12 +34,16 @@
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.RandomAccessFile;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 import java.nio.channels.OverlappingFileLockException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.DirectoryStream;
@@ -549,32 +553,34 @@ public void sendDirectoryTo(
         File fromDir = new File(fromDirName);
         checkFileExistence(fromDir);
 
-        Socket socket = null;
-        OutputStream sos = null;
+        SocketChannel socketChannel = null;
+        DataOutputStream dos = null;
         try {
-            socket = new Socket(toHost, toPort);
-            sos = socket.getOutputStream();
+            // all files are sent over one connection, the headers are buffered and sent together with the next file
+            socketChannel = SocketChannel.open(new InetSocketAddress(toHost, toPort));
+            dos = new DataOutputStream(new BufferedOutputStream(socketChannel.socket().getOutputStream(),
+                                                                READ_BUFFER_SIZE));
 
-            sendFileToSocketStream(fromDir, toDirName, sos, failOnError);
+            FileTransferMetrics metrics = new FileTransferMetrics();
+            sendFileToSocketStream(fromDir, toDirName, dos, socketChannel, failOnError, metrics);
             sendFilesToSocketStream(fromDir.listFiles(),
                                     fromDirName,
                                     toDirName,
-                                    sos,
+                                    dos,
+                                    socketChannel,
                                     isRecursive,
-                                    failOnError);
+                                    failOnError,
+                                    metrics);
+            dos.flush();
+
+            log.info("Sent directory '" + fromDirName + "' to " + toHost + ":" + toPort + ". " + metrics);
         } catch (IOException ioe) {
 
             throw new FileSystemOperationException("Unable to send directory '" + fromDirName + "' to '"
                                                    + toDirName + "' on " + toHost + ":" + toPort, ioe);
         } finally {
-            IoUtils.closeStream(sos);
-            if (socket != null) {
-                try {
-                    socket.close();
-                } catch (IOException e) {
-                    log.error("Could not close the socket", e);
-                }
-            }
+            IoUtils.closeStream(dos);
+            IoUtils.closeStream(socketChannel, "Could not close the socket for sending directory " + fromDirName);
         }
     }
 
@@ -599,21 +605,26 @@ public void sendFileTo(
         File file = new File(fromFileName);
         checkFileExistence(file);
 
-        Socket socket = null;
-        OutputStream sos = null;
+        SocketChannel socketChannel = null;
+        DataOutputStream dos = null;
         try {
 
-            socket = new Socket(toHost, toPort);
-            sos = socket.getOutputStream();
+            socketChannel = SocketChannel.open(new InetSocketAddress(toHost, toPort));
+            dos = new DataOutputStream(new BufferedOutputStream(socketChannel.socket().getOutputStream(),
+                                                                READ_BUFFER_SIZE));
+
+            FileTransferMetrics metrics = new FileTransferMetrics();
+            sendFileToSocketStream(file, toFileName, dos, socketChannel, failOnError, metrics);
+            dos.flush();
 
-            sendFileToSocketStream(file, toFileName, sos, failOnError);
+            log.info("Sent file '" + fromFileName + "' to " + toHost + ":" + toPort + ". " + metrics);
         } catch (IOException ioe) {
 
             throw new FileSystemOperationException("Unable to send file '" + fromFileName + "' to '"
                                                    + toFileName + "' on " + toHost + ":" + toPort, ioe);
         } finally {
-            IoUtils.closeStream(sos);
-            IoUtils.closeStream(socket, "Could not close the socket for sending file " + fromFileName);
+            IoUtils.closeStream(dos);
+            IoUtils.closeStream(socketChannel, "Could not close the socket for sending file " + fromFileName);
         }
     }
 
@@ -665,7 +676,7 @@ private ServerSocket getServerSocket() {
         Integer copyFileCurrentPort;
         for (copyFileCurrentPort = copyFileStartPort; copyFileCurrentPort <= copyFileEndPort; copyFileCurrentPort++) {
             try {
-                server = new ServerSocket(copyFileCurrentPort);
+                server = openServerSocket(copyFileCurrentPort);
                 return server;
             } catch (IOException e) {
                 log.debug("Searching free port for remote file copy. Port " + copyFileCurrentPort
@@ -677,6 +688,27 @@ private ServerSocket getServerSocket() {
                                    + copyFileStartPort + " to " + copyFileEndPort + ".");
     }
 
+    /**
+     * Open a server socket backed by a channel, so the accepted sockets can transfer the file content
+     * directly between the file and the socket channels
+     *
+     * @param port the port to listen on, 0 means any free port
+     * @return the server socket
+     * @throws IOException if the port cannot be used
+     */
+    private ServerSocket openServerSocket( int port ) throws IOException {
+
+        ServerSocketChannel serverChannel = ServerSocketChannel.open();
+        try {
+            serverChannel.socket().setReuseAddress(true);
+            serverChannel.socket().bind(new InetSocketAddress(port));
+        } catch (IOException e) {
+            IoUtils.closeStream(serverChannel);
+            throw e;
+        }
+        return serverChannel.socket();
+    }
+
     /**
      * Open file transfer socket
      *
@@ -690,7 +722,7 @@ public int openFileTransferSocket() {
 
             final ServerSocket server;
             if (copyFileStartPort == null && copyFileEndPort == null) {
-                server = new ServerSocket(0);
+                server = openServerSocket(0);
             } else {
                 server = getServerSocket();
             }
@@ -706,15 +738,17 @@ public int openFileTransferSocket() {
                 public void run() {
 
                     Socket socket = null;
-                    FileOutputStream fos = null;
                     DataInputStream dis = null;
                     String fileName = null; // name of current file/dir for transfer
+                    FileTransferMetrics metrics = null;
                     try {
                         server.setReuseAddress(true);
                         server.setSoTimeout(FILE_TRANSFER_TIMEOUT);
                         socket = server.accept();
+                        metrics = new FileTransferMetrics();
 
                         dis = new DataInputStream(socket.getInputStream());
+                        ByteBuffer buffer = ByteBuffer.allocateDirect(FILE_TRANSFER_BUFFER_SIZE);
                         int fdTypeLength = dis.readInt();
                         for (; ; ) {
                             checkParamLengthForSocketTransfer(fdTypeLength, "file type length");
@@ -741,23 +775,8 @@ public void run() {
                                     }
                                 }
 
-                                try {
-                                    fos = new FileOutputStream(file, false);
-                                } catch (IOException e) {
-                                    throw new IOException("Could not create destination file '" + file + "'",
-                                                          e);
-                                }
-                                byte[] buff = new byte[FILE_TRANSFER_BUFFER_SIZE];
-                                int readBytes = -1;
-                                while (fileSize > 0 && (readBytes = dis.read(buff,
-                                                                             0,
-                                                                             (int) Math.min(buff.length,
-                                                                                            fileSize))) > -1) {
-                                    fos.write(buff, 0, readBytes);
-                                    fos.flush();
-                                    fileSize -= readBytes;
-                                }
-                                IoUtils.closeStream(fos);
+                                receiveFileContent(dis, socket.getChannel(), buffer, file, fileSize);
+                                metrics.addFile(fileSize);
                             } else if (fdType.equals(DIR_CREATE_SOCKET_COMMAND)) {
 
                                 if (!file.exists()) {
@@ -791,7 +810,9 @@ public void run() {
                         transferStatus.transferException = e;
                     } finally {
 
-                        IoUtils.closeStream(fos);
+                        if (metrics != null && transferStatus.transferException == null) {
+                            log.info("Received files on port " + server.getLocalPort() + ". " + metrics);
+                        }
                         IoUtils.closeStream(dis);
                         IoUtils.closeStream(socket,
                                             "Could not close the Socket while trying to transfer file "
@@ -865,7 +886,7 @@ public int openFileTransferSocketForSending( String nameOfFileToSend, String tar
 
             final ServerSocket server;
             if (copyFileStartPort == null && copyFileEndPort == null) {
-                server = new ServerSocket(0);
+                server = openServerSocket(0);
             } else {
                 server = getServerSocket();
             }
@@ -889,8 +910,14 @@ public void run() {
                         server.setSoTimeout(FILE_TRANSFER_TIMEOUT);
                         socket = server.accept();
 
-                        dos = new DataOutputStream(socket.getOutputStream());
-                        sendFileToSocketStream(new File(nameOfFileToSend), targetFileName, dos, failOnError);
+                        dos = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(),
+                                                                            READ_BUFFER_SIZE));
+                        FileTransferMetrics metrics = new FileTransferMetrics();
+                        sendFileToSocketStream(new File(nameOfFileToSend), targetFileName, dos,
+                                               socket.getChannel(), failOnError, metrics);
+                        dos.flush();
+                        log.info("Sent file '" + nameOfFileToSend + "' on port " + server.getLocalPort() + ". "
+                                 + metrics);
 
                     } catch (SocketTimeoutException ste) {
                         // timeout usually will be when waiting for client connection but theoretically could be also
@@ -2310,10 +2337,12 @@ private void checkAttributeOsSupport(
      * @param files        file list
      * @param fromDirName  the source directory name
      * @param toDirName    the destination directory name
-     * @param outputStream the output stream
+     * @param dos          the output stream
+     * @param socketChannel the channel of the socket, used to send the file content directly from the file
      * @param isRecursive  whether to send files/folders recursively or not
      * @param failOnError  set to true if you want to be thrown an exception,
      *                     if there is still a process writing in the file that is being copied
+     * @param metrics      the transfer metrics to update
      * @throws FileDoesNotExistException
      * @throws IOException
      */
@@ -2321,10 +2350,12 @@ private void sendFilesToSocketStream(
             File[] files,
             String fromDirName,
             String toDirName,
-            OutputStream outputStream,
+            DataOutputStream dos,
+            SocketChannel socketChannel,
             boolean isRecursive,
-            boolean failOnError ) throws FileDoesNotExistException,
-                                         IOException {
+            boolean failOnError,
+            FileTransferMetrics metrics ) throws FileDoesNotExistException,
+                                                 IOException {
 
         if (files != null) {
             // fix possible path on Windows: d:/work/path -> D:\work\path
@@ -2346,7 +2377,7 @@ private void sendFilesToSocketStream(
                 String fileName = file.getCanonicalPath();
                 String toFileName = fileName.replace(fromDirName, toDirName);
 
-                sendFileToSocketStream(file, toFileName, outputStream, failOnError);
+                sendFileToSocketStream(file, toFileName, dos, socketChannel, failOnError, metrics);
                 if (file.isDirectory() && isRecursive) {
                     /* Append slash, so we can concatenate files properly.
                      * Even though, on Windows, we well concatenate slash as well,
@@ -2359,33 +2390,38 @@ private void sendFilesToSocketStream(
                     sendFilesToSocketStream(file.listFiles(),
                                             file.getCanonicalPath(),
                                             toFileName,
-                                            outputStream,
+                                            dos,
+                                            socketChannel,
                                             isRecursive,
-                                            failOnError);
+                                            failOnError,
+                                            metrics);
                 }
             }
         }
     }
 
     /**
-     * @param file         the file to send
-     * @param toFileName   the destination file name
-     * @param outputStream the output stream
-     * @param failOnError  set to true if you want to be thrown an exception,
-     *                     if there is still a process writing in the file that is being copied
+     * @param file          the file to send
+     * @param toFileName    the destination file name
+     * @param dos           the output stream
+     * @param socketChannel the channel of the socket, used to send the file content directly from the file.
+     *                      If null, the file content is copied through the output stream
+     * @param failOnError   set to true if you want to be thrown an exception,
+     *                      if there is still a process writing in the file that is being copied
+     * @param metrics       the transfer metrics to update
      * @throws IOException
      */
     private void sendFileToSocketStream(
             File file,
             String toFileName,
-            OutputStream outputStream,
-            boolean failOnError ) throws IOException {
+            DataOutputStream dos,
+            SocketChannel socketChannel,
+            boolean failOnError,
+            FileTransferMetrics metrics ) throws IOException {
 
         FileInputStream fis = null;
         try {
 
-            DataOutputStream dos = new DataOutputStream(outputStream);
-
             if (file.isDirectory()) {
 
                 byte[] dirCreateCommandBytes = DIR_CREATE_SOCKET_COMMAND.getBytes(DEFAULT_CHARSET);
@@ -2395,7 +2431,6 @@ private void sendFileToSocketStream(
                 byte[] fileNameBytes = toFileName.getBytes(DEFAULT_CHARSET);
                 dos.writeInt(fileNameBytes.length);
                 dos.write(fileNameBytes);
-                dos.flush();
             } else {
 
                 long initialFileSize = file.length();
@@ -2411,30 +2446,57 @@ private void sendFileToSocketStream(
                 dos.writeLong(initialFileSize);
 
                 fis = new FileInputStream(file);
-                byte[] buff = new byte[FILE_TRANSFER_BUFFER_SIZE];
-                int bytesCount = -1;
-                while ((bytesCount = fis.read(buff)) > -1) {
-                    if (bytesCount <= bytesLeftToWrite) {
-                        dos.write(buff, 0, bytesCount);
-                        dos.flush();
-                        bytesLeftToWrite -= bytesCount;
-                    } else {
-                        if (failOnError) {
-                            throw new FileSystemOperationException("The size of file \"" + file.getName()
-                                                                   + "\" was increased with "
-                                                                   + (bytesCount - bytesLeftToWrite)
-                                                                   + " bytes! The initial file size was "
-                                                                   + initialFileSize
-                                                                   + ". ATS will ignore this error if you set the failOnError flag to false.");
+                if (socketChannel != null) {
+                    // the pending headers must go before the file content
+                    dos.flush();
+
+                    // the file content goes from the file to the socket without copying it to the java heap
+                    FileChannel fileChannel = fis.getChannel();
+                    while (bytesLeftToWrite > 0) {
+                        long position = initialFileSize - bytesLeftToWrite;
+                        long bytesCount = fileChannel.transferTo(position, bytesLeftToWrite, socketChannel);
+                        if (bytesCount > 0) {
+                            bytesLeftToWrite -= bytesCount;
+                        } else if (fileChannel.size() <= position) {
+                            // end of file is reached, the file was made shorter while sending it
+                            break;
                         }
-                        // The file is growing while we are sending it.
-                        // We will send only the initial number of bytes, because we already told the recipient side how many bytes to expect.
-                        dos.write(buff, 0, (int) bytesLeftToWrite);
-                        bytesLeftToWrite = 0;
-                        dos.flush();
+                        // else nothing was sent this time, but the file still has the expected bytes,
+                        // so we keep sending them
+                    }
 
-                        // we have sent as many bytes as we told the recipient, we will not send the remaining bytes
-                        break;
+                    if (bytesLeftToWrite == 0 && failOnError && fileChannel.size() > initialFileSize) {
+                        throw new FileSystemOperationException("The size of file \"" + file.getName()
+                                                               + "\" was increased with "
+                                                               + (fileChannel.size() - initialFileSize)
+                                                               + " bytes! The initial file size was "
+                                                               + initialFileSize
+                                                               + ". ATS will ignore this error if you set the failOnError flag to false.");
+                    }
+                } else {
+                    byte[] buff = new byte[FILE_TRANSFER_BUFFER_SIZE];
+                    int bytesCount = -1;
+                    while ((bytesCount = fis.read(buff)) > -1) {
+                        if (bytesCount <= bytesLeftToWrite) {
+                            dos.write(buff, 0, bytesCount);
+                            bytesLeftToWrite -= bytesCount;
+                        } else {
+                            if (failOnError) {
+                                throw new FileSystemOperationException("The size of file \"" + file.getName()
+                                                                       + "\" was increased with "
+                                                                       + (bytesCount - bytesLeftToWrite)
+                                                                       + " bytes! The initial file size was "
+                                                                       + initialFileSize
+                                                                       + ". ATS will ignore this error if you set the failOnError flag to false.");
+                            }
+                            // The file is growing while we are sending it.
+                            // We will send only the initial number of bytes, because we already told the recipient side how many bytes to expect.
+                            dos.write(buff, 0, (int) bytesLeftToWrite);
+                            bytesLeftToWrite = 0;
+
+                            // we have sent as many bytes as we told the recipient, we will not send the remaining bytes
+                            break;
+                        }
                     }
                 }
 
@@ -2454,8 +2516,8 @@ private void sendFileToSocketStream(
                     while (bytesLeftToWrite-- > 0) {
                         dos.write(0);
                     }
-                    dos.flush();
                 }
+                metrics.addFile(initialFileSize);
             }
         } finally {
 
@@ -2463,6 +2525,63 @@ private void sendFileToSocketStream(
         }
     }
 
+    /**
+     * Receive the content of one file
+     *
+     * @param dis           the input stream
+     * @param socketChannel the channel of the socket, used to write the file content without copying it to
+     *                      the java heap. If null, the file content is copied through the input stream
+     * @param buffer        a direct buffer used when the socket channel is provided
+     * @param file          the destination file
+     * @param fileSize      the number of bytes to read
+     * @throws IOException
+     */
+    static void receiveFileContent(
+            DataInputStream dis,
+            SocketChannel socketChannel,
+            ByteBuffer buffer,
+            File file,
+            long fileSize ) throws IOException {
+
+        FileOutputStream fos;
+        try {
+            fos = new FileOutputStream(file, false);
+        } catch (IOException e) {
+            throw new IOException("Could not create destination file '" + file + "'", e);
+        }
+        try {
+            if (socketChannel != null) {
+                FileChannel fileChannel = fos.getChannel();
+                while (fileSize > 0) {
+                    buffer.clear();
+                    buffer.limit((int) Math.min(buffer.capacity(), fileSize));
+                    int readBytes = socketChannel.read(buffer);
+                    if (readBytes < 0) {
+                        throw new EOFException("The connection is closed while " + fileSize
+                                               + " more bytes are expected for file '" + file + "'");
+                    }
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        fileChannel.write(buffer);
+                    }
+                    fileSize -= readBytes;
+                }
+            } else {
+                byte[] buff = new byte[FILE_TRANSFER_BUFFER_SIZE];
+                int readBytes = -1;
+                while (fileSize > 0 && (readBytes = dis.read(buff,
+                                                             0,
+                                                             (int) Math.min(buff.length,
+                                                                            fileSize))) > -1) {
+                    fos.write(buff, 0, readBytes);
+                    fileSize -= readBytes;
+                }
+            }
+        } finally {
+            IoUtils.closeStream(fos, "Error closing descriptor for file " + file);
+        }
+    }
+
     /**
      * Get the files in a folder which match the given {@link FileFilter}
      *
@@ -2983,4 +3102,30 @@ class FileTransferStatus {
          */
         Exception transferException;
     }
+
+    /**
+     * Counts the transferred files and bytes, so the throughput of a transfer can be logged
+     */
+    static class FileTransferMetrics {
+
+        private final long startTime = System.currentTimeMillis();
+        private int        numberFiles;
+        private long       numberBytes;
+
+        void addFile(
+                long fileSize ) {
+
+            numberFiles++;
+            numberBytes += fileSize;
+        }
+
+        @Override
+        public String toString() {
+
+            long duration = Math.max(System.currentTimeMillis() - startTime, 1);
+            return "Transferred " + numberFiles + " files with " + numberBytes + " bytes in " + duration
+                   + " ms (" + String.format("%.2f", numberBytes * 1000.0 / duration / (1024 * 1024))
+                   + " MB/s)";
+        }
+    }
 }
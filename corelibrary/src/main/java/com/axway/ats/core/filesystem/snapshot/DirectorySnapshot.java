@@ -17,6 +17,7 @@
 
 import java.io.File;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -24,6 +25,8 @@
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -55,6 +58,9 @@ public class DirectorySnapshot implements Serializable {
 
     private static final Logger            log               = LogManager.getLogger(DirectorySnapshot.class);
 
+    // the max number of files processed by one task
+    private static final int               FILES_PER_TASK    = 32;
+
     // absolute path to this directory
     private String                         path;
 
@@ -298,7 +304,25 @@ void addSkipTextLineMatcher( String directoryAlias, String filePathInThisDirecto
         }
     }
 
-    void takeSnapshot( SnapshotConfiguration configuration ) {
+    /**
+     * Create a task which takes the snapshot of this directory.
+     * The task must be run in a fork-join pool, the sub-directories and the files are processed in parallel.
+     */
+    RecursiveAction newSnapshotTask( final SnapshotConfiguration configuration ) {
+
+        return new RecursiveAction() {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected void compute() {
+
+                takeSnapshot(configuration);
+            }
+        };
+    }
+
+    private void takeSnapshot( SnapshotConfiguration configuration ) {
 
         log.debug("Add directory " + this.path);
 
@@ -311,6 +335,8 @@ void takeSnapshot( SnapshotConfiguration configuration ) {
         }
 
         // take the snapshot now by traversing all files and sub-directories
+        List<RecursiveAction> tasks = new ArrayList<>();
+        List<File> files = new ArrayList<>();
         for (File fsEntity : new File(this.path).listFiles()) {
             if (!fsEntity.isHidden() || configuration.isSupportHidden()) {
                 if (fsEntity.isDirectory()) {
@@ -339,16 +365,11 @@ void takeSnapshot( SnapshotConfiguration configuration ) {
                     }
                     if (!skipSubDir) {
                         DirectorySnapshot subdirSnapshot = generateSubDirectorySnapshot(unixDirName, fsEntity);
-                        subdirSnapshot.takeSnapshot(configuration);
                         subdirSnapshots.put(fsEntity.getName(), subdirSnapshot);
+                        tasks.add(subdirSnapshot.newSnapshotTask(configuration));
                     }
                 } else {
-                    // make a file snapshot
-                    FileSnapshot fileSnapshot = generateFileSnapshot(configuration, fsEntity);
-                    if (fileSnapshot != null) { // if the file is not skipped
-                        log.debug("Add " + fileSnapshot.toString());
-                        fileSnapshots.put(fsEntity.getName(), fileSnapshot);
-                    }
+                    files.add(fsEntity);
                 }
             } else {
                 log.debug("The hidden " + (fsEntity.isDirectory()
@@ -357,6 +378,26 @@ void takeSnapshot( SnapshotConfiguration configuration ) {
                           + " '" + fsEntity.getAbsolutePath() + "' will not be processed");
             }
         }
+
+        // make the file snapshots, a directory with many files is split between many tasks
+        List<FileSnapshotsTask> fileTasks = new ArrayList<>();
+        for (int i = 0; i < files.size(); i += FILES_PER_TASK) {
+            fileTasks.add(new FileSnapshotsTask(configuration,
+                                                files.subList(i, Math.min(i + FILES_PER_TASK, files.size()))));
+        }
+        tasks.addAll(fileTasks);
+
+        ForkJoinTask.invokeAll(tasks);
+
+        for (FileSnapshotsTask fileTask : fileTasks) {
+            for (int i = 0; i < fileTask.files.size(); i++) {
+                FileSnapshot fileSnapshot = fileTask.fileSnapshots[i];
+                if (fileSnapshot != null) { // if the file is not skipped
+                    log.debug("Add " + fileSnapshot.toString());
+                    fileSnapshots.put(fileTask.files.get(i).getName(), fileSnapshot);
+                }
+            }
+        }
     }
 
     private DirectorySnapshot generateSubDirectorySnapshot( String unixDirName, File file ) {
@@ -557,4 +598,33 @@ public String toString() {
         }
         return sb.toString();
     }
+
+    /**
+     * Makes the snapshots of some of the files in this directory
+     */
+    private class FileSnapshotsTask extends RecursiveAction {
+
+        private static final long           serialVersionUID = 1L;
+
+        private final SnapshotConfiguration configuration;
+        private final List<File>            files;
+
+        // null for the skipped files
+        private final FileSnapshot[]        fileSnapshots;
+
+        FileSnapshotsTask( SnapshotConfiguration configuration, List<File> files ) {
+
+            this.configuration = configuration;
+            this.files = files;
+            this.fileSnapshots = new FileSnapshot[files.size()];
+        }
+
+        @Override
+        protected void compute() {
+
+            for (int i = 0; i < files.size(); i++) {
+                fileSnapshots[i] = generateFileSnapshot(configuration, files.get(i));
+            }
+        }
+    }
 }
@@ -0,0 +1,281 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.core.filesystem.snapshot;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.axway.ats.common.filesystem.FileSystemOperationException;
+import com.axway.ats.common.filesystem.Md5SumMode;
+import com.axway.ats.core.filesystem.LocalFileSystemOperations;
+import com.axway.ats.core.filesystem.exceptions.FileDoesNotExistException;
+import com.axway.ats.core.utils.IoUtils;
+
+/**
+ * Computes the checksums of files while taking a snapshot.
+ * <br>The checksums are remembered together with the file size, modification time and file key (the inode on UNIX).
+ * When all of them are not changed, the file content is not read again.
+ * <br>The remembered checksums can be saved to a file, so they are reused by the next snapshots as well.
+ * <br>It is safe to use this class from many threads.
+ */
+public class FileChecksumCache {
+
+    private static final Logger             log                   = LogManager.getLogger(FileChecksumCache.class);
+
+    private static final String             CACHE_FILE_HEADER     = "ATS_FILE_CHECKSUM_CACHE";
+    private static final int                CACHE_FILE_VERSION    = 1;
+
+    /**
+     * The prefix of the checksums calculated with the fast checksum algorithm.
+     * This way such checksums are never equal to the MD5 sums of the same files.
+     */
+    public static final String              FAST_CHECKSUM_PREFIX  = "crc32:";
+
+    /*
+     * Files modified just before their checksum is calculated might be modified again
+     * without changing their modification time, so we do not remember the checksums of such files.
+     */
+    private static final long               MIN_FILE_AGE          = 2000;
+
+    private static final int                FAST_CHECKSUM_BUFFER  = 64 * 1024;
+
+    private final boolean                   fastChecksum;
+    private final String                    cacheFile;
+
+    // <file path, checksum info>
+    private final Map<String, ChecksumInfo> checksums             = new ConcurrentHashMap<>();
+
+    private volatile boolean                isChanged;
+
+    /**
+     * @param fastChecksum whether to calculate CRC32 checksums instead of MD5 sums
+     * @param cacheFile the file to load the remembered checksums from and save them to, can be null
+     */
+    public FileChecksumCache( boolean fastChecksum, String cacheFile ) {
+
+        this.fastChecksum = fastChecksum;
+        this.cacheFile = cacheFile;
+
+        if (cacheFile != null && new File(cacheFile).exists()) {
+            load();
+        }
+    }
+
+    /**
+     * Get the checksum of a file. It is calculated only if the file is changed
+     * since the last time its checksum was calculated.
+     *
+     * @param filePath the file path
+     * @return the checksum as a hex string
+     */
+    public String getChecksum( String filePath ) {
+
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(Paths.get(filePath), BasicFileAttributes.class);
+        } catch (IOException e) {
+            evict(filePath);
+            throw new FileDoesNotExistException(filePath);
+        }
+        long size = attributes.size();
+        long timeModified = attributes.lastModifiedTime().toMillis();
+        String fileKey = attributes.fileKey() != null
+                                                      ? attributes.fileKey().toString()
+                                                      : "";
+
+        ChecksumInfo checksumInfo = checksums.get(filePath);
+        if (checksumInfo != null && checksumInfo.size == size && checksumInfo.timeModified == timeModified
+            && checksumInfo.fileKey.equals(fileKey)) {
+            return checksumInfo.checksum;
+        }
+
+        long startTime = System.currentTimeMillis();
+        String checksum;
+        try {
+            checksum = fastChecksum
+                                    ? computeFastChecksum(filePath)
+                                    : new LocalFileSystemOperations().computeMd5Sum(filePath, Md5SumMode.BINARY);
+        } catch (FileDoesNotExistException e) {
+            // deleted meanwhile
+            evict(filePath);
+            throw e;
+        }
+
+        if (startTime - timeModified > MIN_FILE_AGE) {
+            checksums.put(filePath, new ChecksumInfo(size, timeModified, fileKey, checksum));
+            isChanged = true;
+        }
+        return checksum;
+    }
+
+    /**
+     * Save the remembered checksums to the cache file, if such is provided
+     */
+    public void save() {
+
+        if (cacheFile == null) {
+            return;
+        }
+
+        // do not keep the checksums of files deleted since they were calculated
+        for (String filePath : checksums.keySet()) {
+            if (!Files.exists(Paths.get(filePath))) {
+                evict(filePath);
+            }
+        }
+        if (!isChanged) {
+            return;
+        }
+
+        File file = new File(cacheFile);
+        File parentDir = file.getAbsoluteFile().getParentFile();
+        if (parentDir != null && !parentDir.exists()) {
+            parentDir.mkdirs();
+        }
+
+        // write to a temporary file first, so a failure does not corrupt the existing cache file
+        File tempFile = new File(cacheFile + ".tmp");
+        DataOutputStream output = null;
+        try {
+            output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+            output.writeUTF(CACHE_FILE_HEADER);
+            output.writeInt(CACHE_FILE_VERSION);
+            output.writeBoolean(fastChecksum);
+            output.writeInt(checksums.size());
+            for (Map.Entry<String, ChecksumInfo> entry : checksums.entrySet()) {
+                ChecksumInfo checksumInfo = entry.getValue();
+                output.writeUTF(entry.getKey());
+                output.writeLong(checksumInfo.size);
+                output.writeLong(checksumInfo.timeModified);
+                output.writeUTF(checksumInfo.fileKey);
+                output.writeUTF(checksumInfo.checksum);
+            }
+        } catch (IOException e) {
+            log.warn("Could not save the file checksums to '" + cacheFile + "'", e);
+            IoUtils.closeStream(output);
+            tempFile.delete();
+            return;
+        } finally {
+            IoUtils.closeStream(output);
+        }
+
+        file.delete();
+        if (!tempFile.renameTo(file)) {
+            log.warn("Could not save the file checksums to '" + cacheFile + "'");
+            tempFile.delete();
+            return;
+        }
+        isChanged = false;
+        log.debug("Saved " + checksums.size() + " file checksums to '" + cacheFile + "'");
+    }
+
+    private void evict( String filePath ) {
+
+        if (checksums.remove(filePath) != null) {
+            isChanged = true;
+        }
+    }
+
+    private void load() {
+
+        DataInputStream input = null;
+        try {
+            input = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)));
+            if (!CACHE_FILE_HEADER.equals(input.readUTF()) || input.readInt() != CACHE_FILE_VERSION) {
+                log.warn("'" + cacheFile + "' is not a file checksums cache. It will be overwritten");
+                return;
+            }
+            if (input.readBoolean() != fastChecksum) {
+                log.info("The checksums in '" + cacheFile
+                         + "' are calculated with another algorithm. They will be calculated again");
+                return;
+            }
+
+            int numberChecksums = input.readInt();
+            for (int i = 0; i < numberChecksums; i++) {
+                String filePath = input.readUTF();
+                long size = input.readLong();
+                long timeModified = input.readLong();
+                String fileKey = input.readUTF();
+                String checksum = input.readUTF();
+                checksums.put(filePath, new ChecksumInfo(size, timeModified, fileKey, checksum));
+            }
+            log.debug("Loaded " + numberChecksums + " file checksums from '" + cacheFile + "'");
+        } catch (IOException e) {
+            log.warn("Could not load the file checksums from '" + cacheFile
+                     + "'. They will be calculated again", e);
+            checksums.clear();
+        } finally {
+            IoUtils.closeStream(input);
+        }
+    }
+
+    private String computeFastChecksum( String filePath ) {
+
+        Path path = Paths.get(filePath);
+        CRC32 crc = new CRC32();
+        ByteBuffer buffer = ByteBuffer.allocate(FAST_CHECKSUM_BUFFER);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (channel.read(buffer) > -1) {
+                buffer.flip();
+                crc.update(buffer);
+                buffer.clear();
+            }
+        } catch (IOException e) {
+            if (!Files.exists(path)) {
+                throw new FileDoesNotExistException(filePath);
+            }
+            throw new FileSystemOperationException("Could not read content of file '" + filePath + "'", e);
+        }
+
+        return FAST_CHECKSUM_PREFIX + String.format("%08x", crc.getValue());
+    }
+
+    private static class ChecksumInfo {
+
+        private final long   size;
+        private final long   timeModified;
+        private final String fileKey;
+        private final String checksum;
+
+        ChecksumInfo( long size, long timeModified, String fileKey, String checksum ) {
+
+            this.size = size;
+            this.timeModified = timeModified;
+            this.fileKey = fileKey;
+            this.checksum = checksum;
+        }
+    }
+}
@@ -25,6 +25,7 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import javax.xml.parsers.DocumentBuilderFactory;
 
@@ -547,8 +548,32 @@ public void takeSnapshot() {
 
         log.debug("Start taking file system snapshot, snapshot name is " + name);
 
-        for (String dirAlias : dirSnapshots.keySet()) {
-            dirSnapshots.get(dirAlias).takeSnapshot(configuration);
+        int snapshotThreads = configuration.getSnapshotThreads();
+        if (snapshotThreads <= 0) {
+            snapshotThreads = Runtime.getRuntime().availableProcessors();
+        }
+
+        // the configuration may be shared with other snapshots, so the checksums cache is set to a copy of it
+        SnapshotConfiguration snapshotConfiguration = configuration.newCopy();
+        FileChecksumCache checksumCache = new FileChecksumCache(configuration.isFastChecksum(),
+                                                                configuration.getChecksumCacheFile());
+        snapshotConfiguration.setChecksumCache(checksumCache);
+        ForkJoinPool pool = new ForkJoinPool(snapshotThreads);
+        try {
+            for (String dirAlias : dirSnapshots.keySet()) {
+                pool.invoke(dirSnapshots.get(dirAlias).newSnapshotTask(snapshotConfiguration));
+            }
+        } catch (RuntimeException e) {
+            // an exception thrown by a pool thread is wrapped in a new one of same type, throw the original one
+            if (e.getCause() != null && e.getCause().getClass() == e.getClass()) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        } finally {
+            pool.shutdown();
+            // the file snapshots keep the configuration, but they do not need the cache anymore
+            snapshotConfiguration.setChecksumCache(null);
+            checksumCache.save();
         }
 
         log.debug("End taking file system snapshot, snapshot name is " + name);
@@ -33,6 +33,14 @@ public class SnapshotConfiguration implements Serializable {
     private boolean           checkPermissions;
     private boolean           supportHidden;
 
+    // settings for taking the snapshot faster
+    private int               snapshotThreads;
+    private boolean           fastChecksum;
+    private String            checksumCacheFile;
+
+    // not sent to remote instances, it is created when the snapshot is taken
+    private transient FileChecksumCache checksumCache;
+
     // settings for working with file content
     // Property files
     private boolean           checkPropertiesFilesContent;
@@ -71,6 +79,8 @@ public SnapshotConfiguration() {
         iniFilesStartComment = '#';
         iniFilesStartSection = '[';
         iniFilesDelimiter = '=';
+
+        snapshotThreads = Runtime.getRuntime().availableProcessors();
     }
 
     public SnapshotConfiguration newCopy() {
@@ -83,6 +93,11 @@ public SnapshotConfiguration newCopy() {
         copy.checkPermissions = checkPermissions;
         copy.supportHidden = supportHidden;
 
+        copy.snapshotThreads = snapshotThreads;
+        copy.fastChecksum = fastChecksum;
+        copy.checksumCacheFile = checksumCacheFile;
+        copy.checksumCache = checksumCache;
+
         copy.checkPropertiesFilesContent = checkPropertiesFilesContent;
         copy.propertiesFileExtensions = propertiesFileExtensions;
 
@@ -158,6 +173,64 @@ public void setSupportHidden( boolean supportHidden ) {
         this.supportHidden = supportHidden;
     }
 
+    public int getSnapshotThreads() {
+
+        return snapshotThreads;
+    }
+
+    /**
+     * Set the number of threads which read the files when taking a snapshot.
+     * Default value is the number of available processors
+     * @param snapshotThreads number of threads
+     */
+    public void setSnapshotThreads( int snapshotThreads ) {
+
+        this.snapshotThreads = snapshotThreads;
+    }
+
+    public boolean isFastChecksum() {
+
+        return fastChecksum;
+    }
+
+    /**
+     * Whether to calculate CRC32 checksums instead of MD5 sums of the files.
+     * It is much faster, but both compared snapshots must be taken the same way.
+     * @param fastChecksum true to use CRC32 checksums
+     */
+    public void setFastChecksum( boolean fastChecksum ) {
+
+        this.fastChecksum = fastChecksum;
+    }
+
+    public String getChecksumCacheFile() {
+
+        return checksumCacheFile;
+    }
+
+    /**
+     * Set a file to keep the calculated checksums of the files between snapshots.
+     * The checksum of a file is calculated again only if its size, modification time or inode is changed.
+     * @param checksumCacheFile the cache file path, null means no cache file is used
+     */
+    public void setChecksumCacheFile( String checksumCacheFile ) {
+
+        this.checksumCacheFile = checksumCacheFile;
+    }
+
+    /**
+     * @return the checksums cache used while taking a snapshot, null if no snapshot is being taken
+     */
+    public FileChecksumCache getChecksumCache() {
+
+        return checksumCache;
+    }
+
+    void setChecksumCache( FileChecksumCache checksumCache ) {
+
+        this.checksumCache = checksumCache;
+    }
+
     public boolean isCheckPropertiesFilesContent() {
 
         return checkPropertiesFilesContent;
@@ -71,7 +71,11 @@ public FileSnapshot( SnapshotConfiguration configuration, String path, FindRules
             this.timeModified = fileOps.getFileModificationTime(path);
         }
         if (doWeCheckFileMD5(fileRule)) {
-            this.md5 = fileOps.computeMd5Sum(path, Md5SumMode.BINARY);
+            if (configuration.getChecksumCache() != null) {
+                this.md5 = configuration.getChecksumCache().getChecksum(path);
+            } else {
+                this.md5 = fileOps.computeMd5Sum(path, Md5SumMode.BINARY);
+            }
         }
         if (doWeCheckFilePermissions(fileRule)) {
             try {
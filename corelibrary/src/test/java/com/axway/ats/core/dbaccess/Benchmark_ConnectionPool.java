@@ -0,0 +1,118 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.core.dbaccess;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the throughput of getting connections from the {@link ConnectionPool} when 200 threads are
+ * doing it at the same time. The threads are spread over a few databases, as it happens when
+ * DB actions, DB logging and RBV run in parallel.
+ * <br>The connections come from a mock data source which needs some time to connect.
+ * <br>
+ * <br>This is not a unit test. Run it from the IDE or with the test classpath:
+ * <pre>java -cp ... com.axway.ats.core.dbaccess.Benchmark_ConnectionPool</pre>
+ */
+@BenchmarkMode( Mode.Throughput)
+@OutputTimeUnit( TimeUnit.MILLISECONDS)
+@Warmup( iterations = 3, time = 2)
+@Measurement( iterations = 5, time = 2)
+@Threads( 200)
+@Fork( 1)
+public class Benchmark_ConnectionPool {
+
+    private static final int DATABASES = 4;
+
+    @State( Scope.Benchmark)
+    public static class SharedState {
+
+        /**
+         * Time in milliseconds needed to create a connection
+         */
+        @Param( { "0", "1" })
+        long                   connectTime;
+
+        MockDbConnection[]     dbConnections;
+        final AtomicInteger    threadsCounter = new AtomicInteger();
+
+        @Setup( Level.Trial)
+        public void setUp() {
+
+            dbConnections = new MockDbConnection[DATABASES];
+            for (int i = 0; i < DATABASES; i++) {
+                dbConnections[i] = new MockDbConnection("benchmark_db_" + i, connectTime, false);
+            }
+        }
+
+        @TearDown( Level.Trial)
+        public void tearDown() {
+
+            for (MockDbConnection dbConnection : dbConnections) {
+                System.out.println(ConnectionPool.getStatistics(dbConnection));
+                ConnectionPool.removeConnection(dbConnection);
+            }
+        }
+    }
+
+    @State( Scope.Thread)
+    public static class ThreadState {
+
+        MockDbConnection dbConnection;
+
+        @Setup( Level.Trial)
+        public void setUp( SharedState sharedState ) {
+
+            int threadIndex = sharedState.threadsCounter.getAndIncrement();
+            dbConnection = sharedState.dbConnections[threadIndex % DATABASES];
+        }
+    }
+
+    @Benchmark
+    public Connection getConnection( ThreadState threadState ) throws SQLException {
+
+        Connection connection = ConnectionPool.getConnection(threadState.dbConnection);
+        connection.close();
+        return connection;
+    }
+
+    public static void main( String[] args ) throws Exception {
+
+        Options options = new OptionsBuilder().include(Benchmark_ConnectionPool.class.getSimpleName())
+                                              .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.core.dbaccess;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+/**
+ * Database connection which does not need a real database.
+ * Its data source needs some time to connect, like a real one would need.
+ */
+public class MockDbConnection extends DbConnection {
+
+    private final long          connectTime;
+    private final boolean       failToConnect;
+
+    private final AtomicInteger createdDataSources = new AtomicInteger();
+
+    /**
+     * @param db database name, it makes the connection hash different
+     * @param connectTime time in milliseconds needed to connect
+     * @param failToConnect whether each attempt to connect fails
+     */
+    public MockDbConnection( String db, long connectTime, boolean failToConnect ) {
+
+        super("MOCK", "localhost", db, "user", "password", null);
+        this.connectTime = connectTime;
+        this.failToConnect = failToConnect;
+    }
+
+    /**
+     * @return how many times a data source was requested for this connection
+     */
+    public int getCreatedDataSources() {
+
+        return createdDataSources.get();
+    }
+
+    @Override
+    protected void initializeCustomProperties( Map<String, Object> customProperties ) {
+
+    }
+
+    @Override
+    public String getDescription() {
+
+        return "mock database " + db;
+    }
+
+    @Override
+    public DataSource getDataSource() {
+
+        createdDataSources.incrementAndGet();
+        return new MockDataSource();
+    }
+
+    @Override
+    public Class<? extends Driver> getDriverClass() {
+
+        return null;
+    }
+
+    @Override
+    public String getURL() {
+
+        return "mock://localhost/" + db;
+    }
+
+    @Override
+    public void disconnect() {
+
+    }
+
+    private class MockDataSource implements DataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+
+            return getConnection(user, password);
+        }
+
+        @Override
+        public Connection getConnection( String username, String password ) throws SQLException {
+
+            try {
+                Thread.sleep(connectTime);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (failToConnect) {
+                throw new SQLException("Unable to connect to " + getURL());
+            }
+
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                                                       new Class<?>[]{ Connection.class },
+                                                       new InvocationHandler() {
+                                                           @Override
+                                                           public Object invoke( Object proxy, Method method,
+                                                                                 Object[] args ) {
+
+                                                               // the connection does nothing
+                                                               if (method.getReturnType() == boolean.class) {
+                                                                   return false;
+                                                               }
+                                                               return null;
+                                                           }
+                                                       });
+        }
+
+        @Override
+        public PrintWriter getLogWriter() {
+
+            return null;
+        }
+
+        @Override
+        public void setLogWriter( PrintWriter out ) {
+
+        }
+
+        @Override
+        public void setLoginTimeout( int seconds ) {
+
+        }
+
+        @Override
+        public int getLoginTimeout() {
+
+            return 0;
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+
+            throw new SQLFeatureNotSupportedException();
+        }
+
+        @Override
+        public <T> T unwrap( Class<T> iface ) throws SQLException {
+
+            throw new SQLException("Not a wrapper");
+        }
+
+        @Override
+        public boolean isWrapperFor( Class<?> iface ) {
+
+            return false;
+        }
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.core.dbaccess;
+
+import static org.easymock.EasyMock.anyInt;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.axway.ats.common.dbaccess.DbQuery;
+import com.axway.ats.core.BaseTest;
+import com.axway.ats.core.dbaccess.exceptions.DbException;
+
+/**
+ * Iterates over the rows of a mocked result set. The iterator must release the result set,
+ * the statement and the connection however the iteration ends.
+ */
+public class Test_AbstractDbProvider extends BaseTest {
+
+    private static final String QUERY = "SELECT id, name FROM people";
+
+    private static int          numberOfDatabases;
+
+    private Connection          connection;
+    private PreparedStatement   statement;
+    private ResultSet           resultSet;
+
+    private DbConnection        dbConnection;
+    private AbstractDbProvider  dbProvider;
+
+    @Before
+    public void setUp() throws SQLException {
+
+        connection = createMock(Connection.class);
+        statement = createMock(PreparedStatement.class);
+        resultSet = createMock(ResultSet.class);
+
+        final DataSource dataSource = createNiceMock(DataSource.class);
+        expect(dataSource.getConnection("user", "password")).andReturn(connection).anyTimes();
+        replay(dataSource);
+
+        // a new database each time, so the connection pool does not keep the data source of another test
+        dbConnection = new MockDbConnection("iterator_db_" + (++numberOfDatabases), 0, false) {
+
+            @Override
+            public DataSource getDataSource() {
+
+                return dataSource;
+            }
+        };
+        dbProvider = new AbstractDbProvider(dbConnection) {
+
+            @Override
+            protected String getResultAsEscapedString( ResultSet resultSet, int index, String columnTypeName ) {
+
+                return null;
+            }
+
+            @Override
+            protected Map<String, String> extractTableIndexes( String tableName, DatabaseMetaData databaseMetaData,
+                                                               String catalog ) {
+
+                return null;
+            }
+        };
+
+        ResultSetMetaData metaData = createNiceMock(ResultSetMetaData.class);
+        expect(metaData.getColumnCount()).andReturn(2).anyTimes();
+        expect(metaData.getTableName(1)).andReturn("people").anyTimes();
+        expect(metaData.getTableName(2)).andReturn("people").anyTimes();
+        expect(metaData.getColumnName(1)).andReturn("id").anyTimes();
+        expect(metaData.getColumnName(2)).andReturn("name").anyTimes();
+        expect(metaData.getColumnTypeName(1)).andReturn("int").anyTimes();
+        expect(metaData.getColumnTypeName(2)).andReturn("varchar").anyTimes();
+        replay(metaData);
+
+        expect(connection.prepareStatement(QUERY)).andReturn(statement);
+        statement.setFetchSize(anyInt());
+        expect(resultSet.getMetaData()).andReturn(metaData);
+    }
+
+    @After
+    public void tearDown() {
+
+        ConnectionPool.removeConnection(dbConnection);
+    }
+
+    @Test
+    public void resourcesAreReleasedWhenAllRowsAreRead() throws SQLException {
+
+        expect(statement.executeQuery()).andReturn(resultSet);
+        expect(resultSet.next()).andReturn(true).times(2);
+        expect(resultSet.getObject(1)).andReturn(1);
+        expect(resultSet.getObject(2)).andReturn("John");
+        expect(resultSet.getObject(1)).andReturn(2);
+        expect(resultSet.getObject(2)).andReturn("Jane");
+        expect(resultSet.next()).andReturn(false);
+        expectResourcesReleased();
+        replay(connection, statement, resultSet);
+
+        DbRecordValuesIterator iterator = dbProvider.selectIterator(newQuery(), DbReturnModes.OBJECT);
+        assertTrue(iterator.hasNext());
+        DbRecordValuesList row = iterator.next();
+        assertEquals(1, row.get("id"));
+        assertEquals("John", row.get("name"));
+        assertTrue(iterator.hasNext());
+        row = iterator.next();
+        assertEquals(2, row.get("id"));
+        assertEquals("Jane", row.get("name"));
+
+        // the resources are released once there are no more rows
+        assertFalse(iterator.hasNext());
+        verify(connection, statement, resultSet);
+
+        // closing again does nothing
+        iterator.close();
+        assertFalse(iterator.hasNext());
+        verify(connection, statement, resultSet);
+    }
+
+    @Test
+    public void resourcesAreReleasedWhenClosedBeforeTheEnd() throws SQLException {
+
+        expect(statement.executeQuery()).andReturn(resultSet);
+        expect(resultSet.next()).andReturn(true);
+        expect(resultSet.getObject(1)).andReturn(1);
+        expect(resultSet.getObject(2)).andReturn("John");
+        expectResourcesReleased();
+        replay(connection, statement, resultSet);
+
+        try (DbRecordValuesIterator iterator = dbProvider.selectIterator(newQuery(), DbReturnModes.OBJECT)) {
+            assertEquals("John", iterator.next().get("name"));
+        }
+
+        verify(connection, statement, resultSet);
+    }
+
+    @Test
+    public void resourcesAreReleasedWhenMovingToNextRowFails() throws SQLException {
+
+        expect(statement.executeQuery()).andReturn(resultSet);
+        expect(resultSet.next()).andReturn(true);
+        expect(resultSet.getObject(1)).andReturn(1);
+        expect(resultSet.getObject(2)).andReturn("John");
+        expect(resultSet.next()).andThrow(new SQLException("Connection reset"));
+        expectResourcesReleased();
+        replay(connection, statement, resultSet);
+
+        DbRecordValuesIterator iterator = dbProvider.selectIterator(newQuery(), DbReturnModes.OBJECT);
+        iterator.next();
+        try {
+            iterator.hasNext();
+            fail("Moving to the next row must fail");
+        } catch (DbException e) {
+            assertEquals("Connection reset", e.getCause().getMessage());
+        }
+
+        verify(connection, statement, resultSet);
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void resourcesAreReleasedWhenReadingRowFails() throws SQLException {
+
+        expect(statement.executeQuery()).andReturn(resultSet);
+        expect(resultSet.next()).andReturn(true);
+        expect(resultSet.getObject(1)).andReturn(1);
+        expect(resultSet.getObject(2)).andThrow(new SQLException("Invalid column value"));
+        expectResourcesReleased();
+        replay(connection, statement, resultSet);
+
+        DbRecordValuesIterator iterator = dbProvider.selectIterator(newQuery(), DbReturnModes.OBJECT);
+        try {
+            iterator.next();
+            fail("Reading the row must fail");
+        } catch (DbException e) {
+            assertEquals("Invalid column value", e.getCause().getMessage());
+        }
+
+        verify(connection, statement, resultSet);
+    }
+
+    @Test
+    public void resourcesAreReleasedWhenQueryFails() throws SQLException {
+
+        expect(statement.executeQuery()).andThrow(new SQLException("Invalid object name 'people'"));
+        expect(statement.isClosed()).andReturn(false);
+        statement.close();
+        expect(connection.isClosed()).andReturn(false);
+        connection.close();
+        replay(connection, statement, resultSet);
+
+        try {
+            dbProvider.selectIterator(newQuery(), DbReturnModes.OBJECT);
+            fail("The query must fail");
+        } catch (DbException e) {
+            assertEquals("Invalid object name 'people'", e.getCause().getMessage());
+        }
+
+        // there is no result set to release
+        verify(connection, statement);
+    }
+
+    private DbQuery newQuery() {
+
+        return new DbQuery(QUERY, new ArrayList<Object>());
+    }
+
+    private void expectResourcesReleased() throws SQLException {
+
+        resultSet.close();
+        expect(statement.isClosed()).andReturn(false);
+        statement.close();
+        expect(connection.isClosed()).andReturn(false);
+        connection.close();
+    }
+}
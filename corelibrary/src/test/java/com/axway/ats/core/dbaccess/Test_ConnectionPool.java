@@ -16,8 +16,15 @@
 package com.axway.ats.core.dbaccess;
 
 import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.After;
 import org.junit.Assert;
@@ -25,6 +32,7 @@
 
 import com.axway.ats.common.dbaccess.DbKeys;
 import com.axway.ats.core.BaseTest;
+import com.axway.ats.core.dbaccess.exceptions.DbException;
 import com.axway.ats.core.dbaccess.mssql.DbConnSQLServer;
 
 public class Test_ConnectionPool extends BaseTest {
@@ -66,6 +74,75 @@ public void checkDbConnSQLServerWithDifferentDrivers() throws NoSuchFieldExcepti
 
     }
 
+    @Test
+    public void statistics() {
+
+        MockDbConnection dbConnection = new MockDbConnection("statistics", 0, false);
+        MockDbConnection failingDbConnection = new MockDbConnection("statistics_failing", 0, true);
+        try {
+            Assert.assertNull(ConnectionPool.getStatistics(dbConnection));
+
+            for (int i = 0; i < 3; i++) {
+                Assert.assertNotNull(ConnectionPool.getConnection(dbConnection));
+            }
+            try {
+                ConnectionPool.getConnection(failingDbConnection);
+                Assert.fail("Getting a connection was expected to fail");
+            } catch (DbException e) {
+                // expected
+            }
+
+            ConnectionPoolStatistics statistics = ConnectionPool.getStatistics(dbConnection);
+            Assert.assertEquals(dbConnection.getConnHash(), statistics.getConnHash());
+            Assert.assertEquals(3, statistics.getAcquiredConnections());
+            Assert.assertEquals(0, statistics.getFailedConnections());
+            // the mock data source does not pool connections, so each connection is a new one
+            Assert.assertEquals(3, statistics.getCreatedConnections());
+            Assert.assertEquals(-1, statistics.getActiveConnections());
+            Assert.assertEquals(-1, statistics.getIdleConnections());
+
+            statistics = ConnectionPool.getStatistics(failingDbConnection);
+            Assert.assertEquals(0, statistics.getAcquiredConnections());
+            Assert.assertEquals(1, statistics.getFailedConnections());
+        } finally {
+            ConnectionPool.removeConnection(dbConnection);
+            ConnectionPool.removeConnection(failingDbConnection);
+        }
+    }
+
+    @Test
+    public void concurrentCallersShareOneDataSource() throws Exception {
+
+        final int callers = 50;
+        final MockDbConnection dbConnection = new MockDbConnection("concurrent", 10, false);
+        final CountDownLatch startLatch = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(new Callable<Object>() {
+                    @Override
+                    public Object call() throws Exception {
+
+                        startLatch.await();
+                        return ConnectionPool.getConnection(dbConnection);
+                    }
+                }));
+            }
+            startLatch.countDown();
+            for (Future<Object> result : results) {
+                Assert.assertNotNull(result.get());
+            }
+
+            Assert.assertEquals(1, dbConnection.getCreatedDataSources());
+            Assert.assertEquals(callers, ConnectionPool.getStatistics(dbConnection).getAcquiredConnections());
+        } finally {
+            executor.shutdownNow();
+            ConnectionPool.removeConnection(dbConnection);
+        }
+    }
+
     private void obtainConnection( DbConnSQLServer dbConnection ) {
 
         try {
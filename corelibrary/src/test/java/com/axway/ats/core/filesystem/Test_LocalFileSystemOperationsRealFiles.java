@@ -18,8 +18,10 @@
 import static org.junit.Assert.assertEquals;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Random;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -32,6 +34,7 @@
 import org.junit.Test;
 
 import com.axway.ats.common.filesystem.FileSystemOperationException;
+import com.axway.ats.common.filesystem.Md5SumMode;
 import com.axway.ats.common.system.OperatingSystemType;
 import com.axway.ats.common.systemproperties.AtsSystemProperties;
 import com.axway.ats.core.BaseTest;
@@ -189,6 +192,65 @@ public void getFileGidPositive() throws Exception {
         }
     }
 
+    @Test
+    public void sendFileToSocket() throws Exception {
+
+        // a file bigger than the transfer buffers, so it is sent with many transfers
+        writeRandomContent(file, 5 * 1024 * 1024 + 123);
+        File receivedFile = new File(file.getPath() + ".received");
+        try {
+            LocalFileSystemOperations localFileSystemOperations = new LocalFileSystemOperations();
+            int port = localFileSystemOperations.openFileTransferSocket();
+            localFileSystemOperations.sendFileTo(file.getPath(), receivedFile.getPath(), "localhost", port,
+                                                 true);
+            localFileSystemOperations.waitForFileTransferCompletion(port);
+
+            assertEquals(file.length(), receivedFile.length());
+            assertEquals(localFileSystemOperations.computeMd5Sum(file.getPath(), Md5SumMode.BINARY),
+                         localFileSystemOperations.computeMd5Sum(receivedFile.getPath(), Md5SumMode.BINARY));
+        } finally {
+            receivedFile.delete();
+        }
+    }
+
+    @Test
+    public void sendDirectoryToSocket() throws Exception {
+
+        LocalFileSystemOperations localFileSystemOperations = new LocalFileSystemOperations();
+        File sentDir = new File(file.getPath() + ".sent");
+        File receivedDir = new File(file.getPath() + ".received");
+        try {
+            // files with different sizes, including an empty one, all sent over one connection
+            File subDir = new File(sentDir, "sub_dir");
+            subDir.mkdirs();
+            String[] fileNames = new String[]{ "empty.txt", "small.txt", "sub_dir/big.txt" };
+            writeRandomContent(new File(sentDir, fileNames[0]), 0);
+            writeRandomContent(new File(sentDir, fileNames[1]), 17);
+            writeRandomContent(new File(sentDir, fileNames[2]), 3 * 1024 * 1024 + 1);
+
+            int port = localFileSystemOperations.openFileTransferSocket();
+            localFileSystemOperations.sendDirectoryTo(sentDir.getPath(), receivedDir.getPath(), "localhost", port,
+                                                      true, true);
+            localFileSystemOperations.waitForFileTransferCompletion(port);
+
+            for (String fileName : fileNames) {
+                File sentFile = new File(sentDir, fileName);
+                File receivedFile = new File(receivedDir, fileName);
+                assertEquals(sentFile.length(), receivedFile.length());
+                assertEquals(localFileSystemOperations.computeMd5Sum(sentFile.getPath(), Md5SumMode.BINARY),
+                             localFileSystemOperations.computeMd5Sum(receivedFile.getPath(),
+                                                                     Md5SumMode.BINARY));
+            }
+        } finally {
+            if (sentDir.exists()) {
+                localFileSystemOperations.deleteDirectory(sentDir.getPath(), true);
+            }
+            if (receivedDir.exists()) {
+                localFileSystemOperations.deleteDirectory(receivedDir.getPath(), true);
+            }
+        }
+    }
+
     //@Test
     public void findFiles_byExtension_RegEx() throws IOException {
 
@@ -220,6 +282,18 @@ public void findFiles_byExtension_RegEx() throws IOException {
         }
     }
 
+    private void writeRandomContent( File file, int size ) throws IOException {
+
+        byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        FileOutputStream fos = new FileOutputStream(file);
+        try {
+            fos.write(content);
+        } finally {
+            fos.close();
+        }
+    }
+
     private String[] getFileStats( String filename,
                                    boolean numericUidAndGid ) throws FileSystemOperationException,
                                                               IOException {
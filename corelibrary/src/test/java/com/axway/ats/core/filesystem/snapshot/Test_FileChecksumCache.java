@@ -0,0 +1,157 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.core.filesystem.snapshot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.axway.ats.common.filesystem.Md5SumMode;
+import com.axway.ats.core.BaseTest;
+import com.axway.ats.core.filesystem.LocalFileSystemOperations;
+import com.axway.ats.core.filesystem.exceptions.FileDoesNotExistException;
+
+public class Test_FileChecksumCache extends BaseTest {
+
+    private File file;
+    private File cacheFile;
+    private long timeModified;
+
+    @Before
+    public void setUp() throws IOException {
+
+        file = File.createTempFile("ats_checksum", ".txt");
+        cacheFile = File.createTempFile("ats_checksum", ".cache");
+        cacheFile.delete();
+
+        // the checksums of just modified files are not cached
+        timeModified = (System.currentTimeMillis() - 60000) / 1000 * 1000;
+        writeFile("some content");
+    }
+
+    @After
+    public void tearDown() {
+
+        file.delete();
+        cacheFile.delete();
+    }
+
+    @Test
+    public void md5SumByDefault() {
+
+        FileChecksumCache cache = new FileChecksumCache(false, null);
+
+        assertEquals(new LocalFileSystemOperations().computeMd5Sum(file.getPath(), Md5SumMode.BINARY),
+                     cache.getChecksum(file.getPath()));
+    }
+
+    @Test
+    public void fastChecksum() throws IOException {
+
+        FileChecksumCache cache = new FileChecksumCache(true, null);
+        String checksum = cache.getChecksum(file.getPath());
+        assertTrue(checksum.startsWith(FileChecksumCache.FAST_CHECKSUM_PREFIX));
+
+        writeFile("other content");
+        assertFalse(checksum.equals(new FileChecksumCache(true, null).getChecksum(file.getPath())));
+    }
+
+    @Test
+    public void checksumIsCalculatedOnlyForChangedFiles() throws IOException {
+
+        FileChecksumCache cache = new FileChecksumCache(false, cacheFile.getPath());
+        String checksum = cache.getChecksum(file.getPath());
+        cache.save();
+        assertTrue(cacheFile.exists());
+
+        // same size and modification time, so the file is not read again
+        writeFile("SOME CONTENT");
+        assertEquals(checksum, cache.getChecksum(file.getPath()));
+        assertEquals(checksum, new FileChecksumCache(false, cacheFile.getPath()).getChecksum(file.getPath()));
+
+        // the modification time is changed
+        timeModified -= 1000;
+        writeFile("SOME CONTENT");
+        assertFalse(checksum.equals(cache.getChecksum(file.getPath())));
+    }
+
+    @Test
+    public void checksumsFromAnotherAlgorithmAreNotUsed() {
+
+        FileChecksumCache cache = new FileChecksumCache(false, cacheFile.getPath());
+        String md5 = cache.getChecksum(file.getPath());
+        cache.save();
+
+        String crc = new FileChecksumCache(true, cacheFile.getPath()).getChecksum(file.getPath());
+        assertTrue(crc.startsWith(FileChecksumCache.FAST_CHECKSUM_PREFIX));
+        assertFalse(md5.equals(crc));
+    }
+
+    @Test
+    public void checksumsOfDeletedFilesAreEvicted() throws IOException {
+
+        FileChecksumCache cache = new FileChecksumCache(false, cacheFile.getPath());
+        cache.getChecksum(file.getPath());
+        cache.save();
+        long cacheFileSize = cacheFile.length();
+
+        // the file is deleted, so its checksum is not saved anymore
+        file.delete();
+        cache.save();
+        assertTrue(cacheFile.length() < cacheFileSize);
+
+        // the file is created again with other content, but same size and modification time
+        writeFile("SOME CONTENT");
+        FileChecksumCache newCache = new FileChecksumCache(false, cacheFile.getPath());
+        assertEquals(new LocalFileSystemOperations().computeMd5Sum(file.getPath(), Md5SumMode.BINARY),
+                     newCache.getChecksum(file.getPath()));
+    }
+
+    @Test
+    public void checksumIsEvictedWhenFileIsNotFound() throws IOException {
+
+        FileChecksumCache cache = new FileChecksumCache(false, cacheFile.getPath());
+        String checksum = cache.getChecksum(file.getPath());
+
+        file.delete();
+        try {
+            cache.getChecksum(file.getPath());
+            fail("The file does not exist");
+        } catch (FileDoesNotExistException e) {
+            // expected
+        }
+
+        writeFile("SOME CONTENT");
+        assertFalse(checksum.equals(cache.getChecksum(file.getPath())));
+    }
+
+    private void writeFile( String content ) throws IOException {
+
+        try (FileOutputStream output = new FileOutputStream(file)) {
+            output.write(content.getBytes("UTF-8"));
+        }
+        file.setLastModified(timeModified);
+    }
+}
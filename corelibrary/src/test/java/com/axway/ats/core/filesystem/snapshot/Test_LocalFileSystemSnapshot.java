@@ -0,0 +1,141 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.core.filesystem.snapshot;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.axway.ats.common.filesystem.snapshot.FileSystemSnapshotException;
+import com.axway.ats.core.BaseTest;
+
+/**
+ * Takes snapshots of a directory tree, which has more files in one directory than a single snapshot task handles,
+ * with many threads and compares them with ones taken with a single thread
+ */
+public class Test_LocalFileSystemSnapshot extends BaseTest {
+
+    private static final int FILES_IN_ROOT_DIR = 100;
+
+    private File             rootDir;
+    private File             cacheFile;
+
+    @Before
+    public void setUp() throws IOException {
+
+        rootDir = Files.createTempDirectory("ats_snapshot").toFile();
+        cacheFile = new File(rootDir.getParentFile(), rootDir.getName() + ".cache");
+
+        for (int i = 0; i < FILES_IN_ROOT_DIR; i++) {
+            writeFile("file" + i + ".bin", "content " + i);
+        }
+        for (int i = 0; i < 40; i++) {
+            writeFile("sub1/file" + i + ".bin", "sub content " + i);
+        }
+        writeFile("sub1/sub2/deep.bin", "deep content");
+        writeFile("sub1/sub2/sub3/deeper.bin", "deeper content");
+        writeFile("skipped/file.bin", "skipped content");
+    }
+
+    @After
+    public void tearDown() {
+
+        deleteDir(rootDir);
+        cacheFile.delete();
+    }
+
+    @Test
+    public void parallelSnapshotIsSameAsSingleThreadedOne() {
+
+        LocalFileSystemSnapshot parallelSnapshot = takeSnapshot("parallel", 4);
+        LocalFileSystemSnapshot singleThreadSnapshot = takeSnapshot("single", 1);
+
+        // no differences, so no exception is thrown
+        parallelSnapshot.compare(singleThreadSnapshot);
+        singleThreadSnapshot.compare(parallelSnapshot);
+
+        // the checksums calculated by the pool threads are saved
+        assertTrue(cacheFile.exists());
+    }
+
+    @Test
+    public void parallelSnapshotFindsChangesInAllTasks() throws IOException {
+
+        LocalFileSystemSnapshot before = takeSnapshot("before", 4);
+
+        // a file from the last task of the root directory and one from a deep directory
+        new File(rootDir, "file" + (FILES_IN_ROOT_DIR - 1) + ".bin").delete();
+        writeFile("sub1/sub2/sub3/deeper.bin", "changed deeper content");
+        // not in the snapshot
+        writeFile("skipped/new.bin", "new content");
+
+        LocalFileSystemSnapshot after = takeSnapshot("after", 4);
+        try {
+            before.compare(after);
+            fail("The snapshots must differ");
+        } catch (FileSystemSnapshotException e) {
+            String differences = e.getMessage();
+            assertTrue(differences, differences.contains("file" + (FILES_IN_ROOT_DIR - 1) + ".bin"));
+            assertTrue(differences, differences.contains("deeper.bin"));
+            assertTrue(differences, !differences.contains("new.bin"));
+        }
+    }
+
+    private LocalFileSystemSnapshot takeSnapshot( String name, int threads ) {
+
+        SnapshotConfiguration configuration = new SnapshotConfiguration();
+        configuration.setCheckSize(true);
+        configuration.setCheckMD5(true);
+        configuration.setSnapshotThreads(threads);
+        configuration.setChecksumCacheFile(cacheFile.getPath());
+
+        LocalFileSystemSnapshot snapshot = new LocalFileSystemSnapshot(name, configuration);
+        snapshot.addDirectory("root", rootDir.getPath());
+        snapshot.skipDirectory("root", "skipped");
+        snapshot.takeSnapshot();
+        return snapshot;
+    }
+
+    private void writeFile( String relativePath, String content ) throws IOException {
+
+        File file = new File(rootDir, relativePath);
+        file.getParentFile().mkdirs();
+        try (FileOutputStream output = new FileOutputStream(file)) {
+            output.write(content.getBytes("UTF-8"));
+        }
+        // the checksums of just modified files are not cached
+        file.setLastModified(System.currentTimeMillis() - 60000);
+    }
+
+    private void deleteDir( File dir ) {
+
+        File[] children = dir.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteDir(child);
+            }
+        }
+        dir.delete();
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2017 Axway Software
+ * Copyright 2017-2021 Axway Software
  * 
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,27 +15,51 @@
  */
 package com.axway.ats.environment.database;
 
-import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Writer;
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import com.axway.ats.common.dbaccess.DbQuery;
+import com.axway.ats.common.systemproperties.AtsSystemProperties;
 import com.axway.ats.core.dbaccess.ColumnDescription;
+import com.axway.ats.core.dbaccess.ConnectionPool;
 import com.axway.ats.core.dbaccess.DbConnection;
 import com.axway.ats.core.dbaccess.DbProvider;
 import com.axway.ats.core.dbaccess.DbRecordValuesList;
 import com.axway.ats.core.dbaccess.DbReturnModes;
+import com.axway.ats.core.dbaccess.DbUtils;
 import com.axway.ats.core.dbaccess.exceptions.DbException;
 import com.axway.ats.core.utils.IoUtils;
 import com.axway.ats.environment.database.exceptions.ColumnHasNoDefaultValueException;
@@ -57,6 +81,10 @@ abstract class AbstractEnvironmentHandler implements BackupHandler, RestoreHandl
     private static final String    DAMAGED_BACKUP_FILE_SUFFIX = "_damaged";
     protected static final String  DROP_TABLE_MARKER          = " -- ATS DROP TABLE ";
     protected static final String  EOL_MARKER                 = " -- ATS EOL;";
+    // follows a statement which loads the table content from a bulk data file
+    protected static final String  BULK_DATA_MARKER           = " -- ATS BULK DATA ";
+    private static final String    BULK_DATA_FILE_SUFFIX      = ".data.gz";
+    private static final int       BULK_DATA_BUFFER_SIZE      = 64 * 1024;
 
     protected boolean              addLocks;
     protected boolean              disableForeignKeys;
@@ -69,6 +97,17 @@ abstract class AbstractEnvironmentHandler implements BackupHandler, RestoreHandl
     protected boolean              dropEntireTable;
     protected boolean              skipTableContent;
     protected boolean              writeGenerateForeignKeyProcedure;
+    // whether the table content is backed up in the native bulk format of the database
+    protected boolean              useBulkFormat;
+    // the number of connections used to restore independent tables
+    protected int                  parallelRestoreConnections;
+    // the index of the backup which is currently created
+    private BackupIndex            backupIndex;
+    // the name of the backup file which is currently created and the number of its bulk data files
+    private String                 backupFileName;
+    private int                    bulkDataFiles;
+    // the lines of the backup file to skip while restoring
+    private List<int[]>            skippedSections;
 
     /**
      * Constructor
@@ -82,6 +121,7 @@ public AbstractEnvironmentHandler( DbConnection dbConnection,
         this.disableForeignKeys = true;
         this.includeDeleteStatements = true;
         this.writeGenerateForeignKeyProcedure = true;
+        this.parallelRestoreConnections = 1;
         this.dbTables = new LinkedHashMap<>(); // keep the order of the tables as they will be added
     }
 
@@ -97,22 +137,752 @@ public void createBackup( String backupFileName ) throws DatabaseEnvironmentClea
         // reset flag, so delete statements will be inserted
         this.deleteStatementsInserted = false;
 
-        BufferedWriter fileWriter = null;
+        // an index or data files left from a previous backup do not describe the new one
+        BackupIndex.delete(backupFileName);
+        deleteBulkDataFiles(backupFileName);
+        backupIndex = new BackupIndex();
+        this.backupFileName = backupFileName;
+        this.bulkDataFiles = 0;
+
+        if (useBulkFormat && !supportsBulkFormat()) {
+            log.warn("The database does not support backup in bulk format, INSERT statements will be used instead");
+        }
+
+        BackupFileWriter fileWriter = null;
         try {
-            fileWriter = new BufferedWriter(new FileWriter(new File(backupFileName)));
+            fileWriter = new BackupFileWriter(new FileWriter(new File(backupFileName)), backupIndex);
             log.info("Started creation of database backup in file '" + backupFileName + "'");
 
             writeBackupToFile(fileWriter);
+            backupIndex.setIndependentTables(disableForeignKeys && !isAnyTableDropped());
+            backupIndex.save(backupFileName);
 
             log.info("Completed creation of database backup in file '" + backupFileName + "'");
         } catch (Exception pe) {
             markBackupFileAsDamaged(fileWriter, backupFileName);
             throw new DatabaseEnvironmentCleanupException(ERROR_CREATING_BACKUP + backupFileName, pe);
         } finally {
+            backupIndex = null;
+            this.backupFileName = null;
             IoUtils.closeStream(fileWriter, ERROR_CREATING_BACKUP + backupFileName);
         }
     }
 
+    /**
+     * Restore the database from a backup file.
+     * <br>All statements are executed in one transaction, the INSERT statements are sent in batches.
+     * When more than one restore connection is allowed and the tables in the backup do not depend on
+     * each other, each table is restored in its own transaction and the tables are restored in parallel.
+     *
+     * @param backupFileName                        the name of the backup file
+     * @throws DatabaseEnvironmentCleanupException  if the backup file cannot be restored
+     * @see com.axway.ats.environment.database.model.RestoreHandler#restore(java.lang.String)
+     */
+    public void restore( String backupFileName ) throws DatabaseEnvironmentCleanupException {
+
+        log.info("Started restore of database backup from file '" + backupFileName + "'");
+
+        BackupIndex backupIndex = null;
+        try {
+            backupIndex = BackupIndex.load(backupFileName);
+        } catch (IOException ioe) {
+            log.warn("Could not read the index of backup file '" + backupFileName + "'", ioe);
+        }
+
+        // the time spent for each table
+        Map<String, long[]> restoreTimes = new LinkedHashMap<>();
+        if (parallelRestoreConnections > 1 && backupIndex != null && backupIndex.areIndependentTables()
+            && supportsParallelRestore()) {
+            restoreInParallel(backupFileName, backupIndex, restoreTimes);
+        } else {
+            restoreInOneTransaction(backupFileName, backupIndex, restoreTimes);
+        }
+
+        log.info("Completed restore of database backup from file '" + backupFileName + "'. "
+                 + getRestoreTimesDescription(restoreTimes));
+    }
+
+    private void restoreInOneTransaction( String backupFileName, BackupIndex backupIndex,
+                                          Map<String, long[]> restoreTimes ) throws DatabaseEnvironmentCleanupException {
+
+        BackupFileReader backupReader = null;
+        Connection connection = null;
+        RestoreStatementExecutor executor = null;
+
+        // used to preserve the initial auto commit option, as the connections are pooled
+        boolean isAutoCommit = true;
+
+        try {
+            backupReader = openBackupFile(backupFileName);
+            connection = ConnectionPool.getConnection(dbConnection);
+
+            isAutoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+
+            executor = new RestoreStatementExecutor(connection, restoreTimes, this, backupFileName);
+            try {
+                String sql = readRestoreStatement(backupReader, connection);
+                while (sql != null) {
+                    executor.execute(sql, getTable(backupIndex, backupReader));
+                    sql = readRestoreStatement(backupReader, connection);
+                }
+                executor.flush();
+
+                connection.commit();
+            } catch (SQLException sqle) {
+                // we have to roll back the transaction and re-throw the exception, otherwise we are locked
+                connection.rollback();
+                throw sqle;
+            }
+        } catch (IOException | DbException ex) {
+            throw new DatabaseEnvironmentCleanupException(ERROR_RESTORING_BACKUP + backupFileName, ex);
+        } catch (SQLException sqle) {
+            throw new DatabaseEnvironmentCleanupException(ERROR_RESTORING_BACKUP + backupFileName
+                                                          + ".\n Details of full SQL exception follow: "
+                                                          + DbUtils.getFullSqlException("SQLException", sqle),
+                                                          sqle);
+        } finally {
+            if (executor != null) {
+                executor.close();
+            }
+            IoUtils.closeStream(backupReader, "Could not close reader for backup file " + backupFileName);
+            releaseConnection(connection, isAutoCommit);
+        }
+    }
+
+    private void restoreInParallel( String backupFileName, BackupIndex backupIndex,
+                                    Map<String, long[]> restoreTimes ) throws DatabaseEnvironmentCleanupException {
+
+        // the statements before the first table and after the last table are executed over the main connection
+        List<String> firstStatements = new ArrayList<>();
+        Map<String, List<String>> tablesStatements = new LinkedHashMap<>();
+        List<String> lastStatements = new ArrayList<>();
+
+        BackupFileReader backupReader = null;
+        Connection connection = null;
+        RestoreStatementExecutor executor = null;
+        boolean isAutoCommit = true;
+        boolean canRestoreInParallel = true;
+
+        try {
+            backupReader = openBackupFile(backupFileName);
+            connection = ConnectionPool.getConnection(dbConnection);
+
+            isAutoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+
+            String sql = readRestoreStatement(backupReader, connection);
+            while (sql != null && canRestoreInParallel) {
+                String table = getTable(backupIndex, backupReader);
+                if (table == null) {
+                    if (tablesStatements.isEmpty()) {
+                        firstStatements.add(sql);
+                    } else {
+                        lastStatements.add(sql);
+                    }
+                } else if (!lastStatements.isEmpty()) {
+                    // some statement between the tables must be executed in order with them
+                    canRestoreInParallel = false;
+                } else {
+                    List<String> tableStatements = tablesStatements.get(table);
+                    if (tableStatements == null) {
+                        tableStatements = new ArrayList<>();
+                        tablesStatements.put(table, tableStatements);
+                    }
+                    tableStatements.add(sql);
+                }
+                sql = readRestoreStatement(backupReader, connection);
+            }
+            IoUtils.closeStream(backupReader, "Could not close reader for backup file " + backupFileName);
+            backupReader = null;
+
+            if (canRestoreInParallel) {
+                log.info("Restoring " + tablesStatements.size() + " tables over "
+                         + Math.min(parallelRestoreConnections, tablesStatements.size()) + " connections");
+
+                executor = new RestoreStatementExecutor(connection, restoreTimes, this, backupFileName);
+                executeInTransaction(executor, connection, firstStatements);
+                try {
+                    restoreTables(tablesStatements, restoreTimes, backupFileName);
+                } catch (SQLException | RuntimeException e) {
+                    // for example enable the foreign key checks, even if some table could not be restored
+                    try {
+                        executeInTransaction(executor, connection, lastStatements);
+                    } catch (SQLException sqle) {
+                        log.error("Could not execute the last statements of backup file '" + backupFileName
+                                  + "'", sqle);
+                    }
+                    throw e;
+                }
+                executeInTransaction(executor, connection, lastStatements);
+            }
+        } catch (IOException | DbException ex) {
+            throw new DatabaseEnvironmentCleanupException(ERROR_RESTORING_BACKUP + backupFileName, ex);
+        } catch (SQLException sqle) {
+            throw new DatabaseEnvironmentCleanupException(ERROR_RESTORING_BACKUP + backupFileName
+                                                          + ".\n Details of full SQL exception follow: "
+                                                          + DbUtils.getFullSqlException("SQLException", sqle),
+                                                          sqle);
+        } finally {
+            if (executor != null) {
+                executor.close();
+            }
+            IoUtils.closeStream(backupReader, "Could not close reader for backup file " + backupFileName);
+            releaseConnection(connection, isAutoCommit);
+        }
+
+        if (!canRestoreInParallel) {
+            log.info("The tables in backup file '" + backupFileName
+                     + "' can not be restored in parallel, they will be restored in one transaction");
+            restoreInOneTransaction(backupFileName, backupIndex, restoreTimes);
+        }
+    }
+
+    /**
+     * Restore each table in its own transaction. The tables are restored in parallel, each thread
+     * uses its own database connection.
+     */
+    private void restoreTables( Map<String, List<String>> tablesStatements,
+                                final Map<String, long[]> restoreTimes,
+                                final String backupFileName ) throws SQLException {
+
+        final Queue<Entry<String, List<String>>> tables = new ConcurrentLinkedQueue<>(tablesStatements.entrySet());
+
+        int threads = Math.min(parallelRestoreConnections, tablesStatements.size());
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Void>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executorService.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws SQLException {
+
+                        restoreTables(tables, restoreTimes, backupFileName);
+                        return null;
+                    }
+                }));
+            }
+
+            for (Future<Void> result : results) {
+                try {
+                    result.get();
+                } catch (ExecutionException ee) {
+                    if (ee.getCause() instanceof SQLException) {
+                        throw (SQLException) ee.getCause();
+                    }
+                    throw new DbException("Error restoring tables in parallel", ee.getCause());
+                }
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new DbException("Interrupted while restoring tables in parallel", ie);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private void restoreTables( Queue<Entry<String, List<String>>> tables,
+                                Map<String, long[]> restoreTimes,
+                                String backupFileName ) throws SQLException {
+
+        Connection connection = null;
+        RestoreStatementExecutor executor = null;
+        boolean isAutoCommit = true;
+        boolean isPrepared = false;
+        try {
+            connection = ConnectionPool.getConnection(dbConnection);
+
+            isAutoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            isPrepared = true;
+            prepareParallelRestoreConnection(connection);
+
+            executor = new RestoreStatementExecutor(connection, restoreTimes, this, backupFileName);
+            Entry<String, List<String>> table = tables.poll();
+            while (table != null) {
+                try {
+                    executeInTransaction(executor, connection, table.getValue(), table.getKey());
+                } catch (SQLException sqle) {
+                    throw new SQLException("Could not restore table " + table.getKey(), sqle);
+                }
+                table = tables.poll();
+            }
+        } catch (SQLException | RuntimeException e) {
+            // the other threads do not start restoring more tables
+            tables.clear();
+            throw e;
+        } finally {
+            if (executor != null) {
+                executor.close();
+            }
+            if (isPrepared) {
+                // the connection goes back to the pool, so it must not keep the restore settings
+                try {
+                    resetParallelRestoreConnection(connection);
+                } catch (SQLException | RuntimeException e) {
+                    log.error("Could not reset the settings of a DB connection used for restoring tables", e);
+                }
+            }
+            releaseConnection(connection, isAutoCommit);
+        }
+    }
+
+    private void executeInTransaction( RestoreStatementExecutor executor, Connection connection,
+                                       List<String> statements ) throws SQLException {
+
+        executeInTransaction(executor, connection, statements, null);
+    }
+
+    private void executeInTransaction( RestoreStatementExecutor executor, Connection connection,
+                                       List<String> statements, String table ) throws SQLException {
+
+        try {
+            for (String sql : statements) {
+                executor.execute(sql, table);
+            }
+            executor.flush();
+
+            connection.commit();
+        } catch (SQLException sqle) {
+            connection.rollback();
+            throw sqle;
+        }
+    }
+
+    /**
+     * Read the next statement from the backup file
+     *
+     * @param backupReader the backup file reader
+     * @param connection the connection used for restoring, needed for recreating dropped tables
+     * @return the statement, ready for execution, or null if there are no more statements
+     * @throws IOException on error reading the backup file
+     */
+    private String readRestoreStatement( BackupFileReader backupReader,
+                                         Connection connection ) throws IOException {
+
+        StringBuilder sql = new StringBuilder();
+        String line = backupReader.readLine();
+        while (line != null) {
+
+            if (!skipRestoreLine(line)) {
+                sql.append(line);
+
+                if (line.startsWith(DROP_TABLE_MARKER)) {
+
+                    restoreDroppedTable(connection, line.substring(DROP_TABLE_MARKER.length()).trim());
+                    sql.setLength(0);
+                } else if (line.endsWith(EOL_MARKER)) {
+
+                    // remove the EOL marker
+                    sql.setLength(sql.length() - EOL_MARKER.length());
+                    return prepareRestoreStatement(sql.toString());
+                } else {
+                    //add a new line
+                    //FIXME: this code will add the system line ending - it
+                    //is not guaranteed that this was the actual line ending
+                    sql.append(AtsSystemProperties.SYSTEM_LINE_SEPARATOR);
+                }
+            }
+
+            line = backupReader.readLine();
+        }
+        return null;
+    }
+
+    private String getTable( BackupIndex backupIndex, BackupFileReader backupReader ) {
+
+        if (backupIndex == null) {
+            return null;
+        }
+        // the last line of a statement is always in the section of its table
+        return backupIndex.getTableAt(backupReader.getLineNumber());
+    }
+
+    private String getRestoreTimesDescription( Map<String, long[]> restoreTimes ) {
+
+        // the slowest tables first
+        List<Entry<String, long[]>> tables = new ArrayList<>(restoreTimes.entrySet());
+        Collections.sort(tables, new Comparator<Entry<String, long[]>>() {
+            @Override
+            public int compare( Entry<String, long[]> table1, Entry<String, long[]> table2 ) {
+
+                return Long.compare(table2.getValue()[0], table1.getValue()[0]);
+            }
+        });
+
+        StringBuilder description = new StringBuilder("Restore time per table:");
+        for (Entry<String, long[]> table : tables) {
+            description.append(" ")
+                       .append(table.getKey() != null
+                                                      ? table.getKey()
+                                                      : "<other statements>")
+                       .append(" ")
+                       .append(TimeUnit.NANOSECONDS.toMillis(table.getValue()[0]))
+                       .append(" ms (")
+                       .append(table.getValue()[1])
+                       .append(" statements);");
+        }
+        return description.toString();
+    }
+
+    private void releaseConnection( Connection connection, boolean isAutoCommit ) {
+
+        if (connection != null) {
+            try {
+                connection.setAutoCommit(isAutoCommit);
+                connection.close();
+            } catch (SQLException sqle) {
+                log.error("Could not reset autocommit state and close DB connection", sqle);
+            }
+        }
+    }
+
+    private boolean isAnyTableDropped() {
+
+        for (DbTable dbTable : dbTables.values()) {
+            if (shouldDropTable(dbTable)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether the tables can be restored over different connections, when the foreign key checks
+     * are disabled in the backup. This is not possible if the foreign key checks are
+     * deferred until the end of each transaction instead.
+     */
+    protected boolean supportsParallelRestore() {
+
+        return false;
+    }
+
+    /**
+     * Prepare a connection used to restore some of the tables in parallel. It is called before
+     * the first table statement is executed.
+     *
+     * @param connection the connection
+     * @throws SQLException on error
+     */
+    protected void prepareParallelRestoreConnection( Connection connection ) throws SQLException {
+
+    }
+
+    /**
+     * Undo the changes made by {@link #prepareParallelRestoreConnection(Connection)}. It is called
+     * before the connection is released, also when the restore failed.
+     *
+     * @param connection the connection
+     * @throws SQLException on error
+     */
+    protected void resetParallelRestoreConnection( Connection connection ) throws SQLException {
+
+    }
+
+    /**
+     * @param line a line of the backup file
+     * @return true if the line is not part of any statement
+     */
+    protected boolean skipRestoreLine( String line ) {
+
+        return false;
+    }
+
+    /**
+     * Drop and create again a table, as requested by a marker in the backup file.
+     * The backups made by the current version do not contain such markers.
+     *
+     * @param connection the connection used for restoring
+     * @param table the full table name
+     */
+    protected void restoreDroppedTable( Connection connection, String table ) {
+
+    }
+
+    /**
+     * Make some database specific changes to a statement read from the backup file
+     *
+     * @param sql the statement without the end of statement marker
+     * @return the statement to execute
+     */
+    protected String prepareRestoreStatement( String sql ) {
+
+        return sql;
+    }
+
+    /**
+     * Whether the table content can be backed up in the native bulk format of the database.
+     * The handlers which support it implement {@link #writeBulkData(Connection, List, DbTable, OutputStream)},
+     * {@link #getBulkLoadStatement(List, DbTable)} and {@link #loadBulkData(Connection, String, InputStream)}.
+     */
+    protected boolean supportsBulkFormat() {
+
+        return false;
+    }
+
+    /**
+     * @return whether the table content is written to bulk data files instead of INSERT statements
+     */
+    protected boolean isBulkFormatUsed() {
+
+        return useBulkFormat && !skipTableContent && supportsBulkFormat();
+    }
+
+    /**
+     * Write the content of a table in the bulk format of the database
+     *
+     * @param connection the database connection
+     * @param columns the columns to back up
+     * @param dbTable the table
+     * @param output where to write the content, it must not be closed
+     * @throws SQLException on error reading the table
+     * @throws IOException on error writing the content
+     */
+    protected void writeBulkData( Connection connection, List<ColumnDescription> columns, DbTable dbTable,
+                                  OutputStream output ) throws SQLException, IOException {
+
+        throw new DbException("Backup in bulk format is not supported for " + dbConnection.getDbType());
+    }
+
+    /**
+     * @param columns the backed up columns
+     * @param dbTable the table
+     * @return the statement which loads the content written by
+     * {@link #writeBulkData(Connection, List, DbTable, OutputStream)}
+     */
+    protected String getBulkLoadStatement( List<ColumnDescription> columns, DbTable dbTable ) {
+
+        throw new DbException("Backup in bulk format is not supported for " + dbConnection.getDbType());
+    }
+
+    /**
+     * Load the content of a table from a bulk data file
+     *
+     * @param connection the connection used for restoring
+     * @param sql the statement returned by {@link #getBulkLoadStatement(List, DbTable)}
+     * @param data the content of the bulk data file
+     * @throws SQLException on error loading the content
+     * @throws IOException on error reading the content
+     */
+    protected void loadBulkData( Connection connection, String sql,
+                                 InputStream data ) throws SQLException, IOException {
+
+        throw new DbException("Restore of backup in bulk format is not supported for "
+                              + dbConnection.getDbType());
+    }
+
+    /**
+     * Write the content of a table to a new bulk data file next to the backup file and
+     * write to the backup the statement which loads it
+     *
+     * @param columns the columns to back up
+     * @param dbTable the table
+     * @param fileWriter the backup file writer
+     * @throws IOException on error writing the files
+     */
+    protected void writeBulkTableData( List<ColumnDescription> columns, DbTable dbTable,
+                                       Writer fileWriter ) throws IOException {
+
+        File dataFile = new File(backupFileName + "." + (bulkDataFiles++) + BULK_DATA_FILE_SUFFIX);
+        if (log.isDebugEnabled()) {
+            log.debug("Writing the content of table " + dbTable.getFullTableName() + " to file '" + dataFile + "'");
+        }
+
+        Connection connection = null;
+        GZIPOutputStream dataOutput = null;
+        try {
+            connection = ConnectionPool.getConnection(dbConnection);
+            dataOutput = new GZIPOutputStream(new FileOutputStream(dataFile), BULK_DATA_BUFFER_SIZE);
+            writeBulkData(connection, columns, dbTable, dataOutput);
+            dataOutput.finish();
+        } catch (SQLException sqle) {
+            throw new DbException("Could not back up the content of table " + dbTable.getFullTableName()
+                                  + ".\n Details of full SQL exception follow: "
+                                  + DbUtils.getFullSqlException("SQLException", sqle), sqle);
+        } finally {
+            IoUtils.closeStream(dataOutput, "Could not close bulk data file " + dataFile);
+            DbUtils.closeConnection(connection);
+        }
+
+        // the data file is searched next to the backup file, so the backup can be moved
+        fileWriter.write(getBulkLoadStatement(columns, dbTable) + BULK_DATA_MARKER + dataFile.getName()
+                         + EOL_MARKER + AtsSystemProperties.SYSTEM_LINE_SEPARATOR);
+    }
+
+    /**
+     * Load the content of a table from a bulk data file written by
+     * {@link #writeBulkTableData(List, DbTable, Writer)}
+     *
+     * @param connection the connection used for restoring
+     * @param sql the load statement
+     * @param dataFile the bulk data file
+     * @throws SQLException on error loading the content
+     * @throws IOException on error reading the file
+     */
+    void loadBulkTableData( Connection connection, String sql, File dataFile ) throws SQLException, IOException {
+
+        InputStream data = new GZIPInputStream(new FileInputStream(dataFile), BULK_DATA_BUFFER_SIZE);
+        try {
+            loadBulkData(connection, sql, data);
+        } finally {
+            IoUtils.closeStream(data, "Could not close bulk data file " + dataFile);
+        }
+    }
+
+    private void deleteBulkDataFiles( String backupFileName ) {
+
+        File backupFile = new File(backupFileName).getAbsoluteFile();
+        File[] dataFiles = backupFile.getParentFile().listFiles();
+        if (dataFiles == null) {
+            return;
+        }
+        String dataFilePattern = Pattern.quote(backupFile.getName()) + "\\.\\d+"
+                                 + Pattern.quote(BULK_DATA_FILE_SUFFIX);
+        for (File dataFile : dataFiles) {
+            if (dataFile.getName().matches(dataFilePattern) && !dataFile.delete()) {
+                log.warn("Could not delete bulk data file '" + dataFile + "' of a previous backup");
+            }
+        }
+    }
+
+    /**
+     * Restore only the tables which were changed since the backup was created
+     *
+     * @param backupFileName                        the name of the backup file
+     * @return                                      false if no table had to be restored
+     * @throws DatabaseEnvironmentCleanupException  if the backup file cannot be restored
+     * @see com.axway.ats.environment.database.model.RestoreHandler#restoreChangedTables(java.lang.String)
+     */
+    public boolean restoreChangedTables( String backupFileName ) throws DatabaseEnvironmentCleanupException {
+
+        BackupIndex backupIndex = null;
+        try {
+            backupIndex = BackupIndex.load(backupFileName);
+        } catch (IOException ioe) {
+            log.warn("Could not read the index of backup file '" + backupFileName
+                     + "'. All tables will be restored", ioe);
+        }
+        if (backupIndex == null) {
+            restore(backupFileName);
+            return true;
+        }
+
+        Set<String> unchangedTables = getUnchangedTables(backupIndex, backupIndex.getTables());
+        if (unchangedTables.size() == backupIndex.getTables().size()) {
+            log.info("No table is changed since the creation of database backup in file '" + backupFileName
+                     + "'");
+            return false;
+        }
+
+        if (unchangedTables.isEmpty()) {
+            restore(backupFileName);
+        } else {
+            log.info("Tables " + unchangedTables + " are not changed since the creation of database backup in file '"
+                     + backupFileName + "', they will not be restored");
+            skippedSections = backupIndex.getSections(unchangedTables);
+            try {
+                restore(backupFileName);
+            } finally {
+                skippedSections = null;
+            }
+
+            // restoring some tables could have changed others, for example by triggers
+            if (getUnchangedTables(backupIndex, unchangedTables).size() < unchangedTables.size()) {
+                log.info("Some of the tables which were not restored got changed while restoring the other tables. "
+                         + "All tables will be restored");
+                restore(backupFileName);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param backupIndex the index of the backup
+     * @param tables the tables to check
+     * @return the tables which have the same content as when the backup was created
+     */
+    private Set<String> getUnchangedTables( BackupIndex backupIndex, Iterable<String> tables ) {
+
+        Set<String> unchangedTables = new HashSet<>();
+        for (String table : tables) {
+            String query = backupIndex.getQuery(table);
+            if (query == null) {
+                // this table is always restored
+                continue;
+            }
+            try {
+                DbRecordValuesList[] records = dbProvider.select(new DbQuery(query),
+                                                                 DbReturnModes.ESCAPED_STRING);
+                if (BackupIndex.getFingerprint(records).equals(backupIndex.getFingerprint(table))) {
+                    unchangedTables.add(table);
+                }
+            } catch (DbException e) {
+                log.debug("Could not check whether table " + table + " is changed, it will be restored", e);
+            }
+        }
+        return unchangedTables;
+    }
+
+    /**
+     * Open the backup file for reading. When only the changed tables are restored,
+     * the reader skips the lines for the other tables.
+     *
+     * @param backupFileName the name of the backup file
+     * @return the reader
+     * @throws IOException if the file cannot be opened
+     */
+    protected BackupFileReader openBackupFile( String backupFileName ) throws IOException {
+
+        List<int[]> skippedSections = this.skippedSections;
+        if (skippedSections == null) {
+            skippedSections = Collections.emptyList();
+        }
+        return new BackupFileReader(new FileReader(new File(backupFileName)), skippedSections);
+    }
+
+    /**
+     * Mark that the next statements written to the backup are for this table.
+     * Calls for different tables can be nested, each must be followed by a call to {@link #endTableStatements(Writer)}.
+     *
+     * @param fileWriter the backup file writer
+     * @param dbTable the table
+     */
+    protected void startTableStatements( Writer fileWriter, DbTable dbTable ) {
+
+        if (fileWriter instanceof BackupFileWriter) {
+            ((BackupFileWriter) fileWriter).startTable(dbTable.getFullTableName());
+        }
+    }
+
+    /**
+     * Mark the end of the statements for the table given to the last call of
+     * {@link #startTableStatements(Writer, DbTable)}
+     *
+     * @param fileWriter the backup file writer
+     */
+    protected void endTableStatements( Writer fileWriter ) {
+
+        if (fileWriter instanceof BackupFileWriter) {
+            ((BackupFileWriter) fileWriter).endTable();
+        }
+    }
+
+    /**
+     * Remember the content of a table at the time of the backup, so later it can be told whether
+     * the table is changed. Tables which are dropped or have their auto increment reset are always restored.
+     *
+     * @param dbTable the table
+     * @param query the query which selected the backed up content
+     * @param records the backed up content
+     */
+    protected void addTableFingerprint( DbTable dbTable, DbQuery query, DbRecordValuesList[] records ) {
+
+        if (backupIndex != null && !shouldDropTable(dbTable) && dbTable.getAutoIncrementResetValue() == null) {
+            backupIndex.setFingerprint(dbTable.getFullTableName(), query.getQuery(),
+                                       BackupIndex.getFingerprint(records));
+        }
+    }
+
     /**
      * Marks faulty backup file as damaged
      * @param fileWriter backup file writer
@@ -188,7 +958,8 @@ protected void writeBackupToFile( Writer fileWriter ) throws IOException,
             }
 
             DbRecordValuesList[] records = new DbRecordValuesList[0];
-            if (!skipTableContent) {
+            // the bulk data is read when writing the table
+            if (!skipTableContent && !isBulkFormatUsed()) {
                 StringBuilder selectQuery = new StringBuilder();
                 selectQuery.append("SELECT ");
                 selectQuery.append(getColumnsString(columnsToSelect));
@@ -198,10 +969,12 @@ protected void writeBackupToFile( Writer fileWriter ) throws IOException,
                 DbQuery query = new DbQuery(selectQuery.toString());
                 // assuming not very large tables
                 records = dbProvider.select(query, DbReturnModes.ESCAPED_STRING);
-
+                addTableFingerprint(dbTable, query, records);
             }
 
+            startTableStatements(fileWriter, dbTable);
             writeTableToFile(columnsToSelect, dbTable, records, fileWriter);
+            endTableStatements(fileWriter);
         }
 
         if (disableForeignKeys) {
@@ -310,6 +1083,31 @@ public void setIncludeDeleteStatements( boolean includeDeleteStatements ) {
 
     }
 
+    /**
+     * Set the number of database connections used to restore the tables in parallel - default value is 1.
+     * The tables are restored in parallel only if they do not depend on each other, each table
+     * is restored in its own transaction then.
+     *
+     * @param connections   the number of connections
+     * @see com.axway.ats.environment.database.model.RestoreHandler#setParallelRestoreConnections(int)
+     */
+    public void setParallelRestoreConnections( int connections ) {
+
+        this.parallelRestoreConnections = connections;
+    }
+
+    /**
+     * Choose whether to back up the tables' content in the native bulk format of the database,
+     * instead of INSERT statements - default value is false
+     *
+     * @param useBulkFormat    enable or disable
+     * @see com.axway.ats.environment.database.model.BackupHandler#setUseBulkFormat(boolean)
+     */
+    public void setUseBulkFormat( boolean useBulkFormat ) {
+
+        this.useBulkFormat = useBulkFormat;
+    }
+
     /**
      * Choose whether to lock the tables during restore - default
      * value should be true, as other processes might modify the tables
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2021 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.environment.database;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Reader of a backup file which skips the lines restoring some of the tables.
+ * It keeps the numbers of the lines in the whole file, so they can be matched with the {@link BackupIndex}.
+ */
+class BackupFileReader extends BufferedReader {
+
+    // the line ranges to skip, ordered by their start
+    private final int[][] skippedSections;
+    private int           nextSkippedSection;
+
+    // the number of the next line, starting from 0
+    private int           line;
+
+    /**
+     * @param reader the reader of the backup file
+     * @param skippedSections the line ranges to skip, as returned by {@link BackupIndex#getSections(java.util.Collection)}
+     */
+    BackupFileReader( Reader reader, List<int[]> skippedSections ) {
+
+        super(reader);
+
+        this.skippedSections = skippedSections.toArray(new int[skippedSections.size()][]);
+        Arrays.sort(this.skippedSections, new Comparator<int[]>() {
+            @Override
+            public int compare( int[] section1, int[] section2 ) {
+
+                return Integer.compare(section1[0], section2[0]);
+            }
+        });
+    }
+
+    @Override
+    public String readLine() throws IOException {
+
+        String nextLine = super.readLine();
+        while (nextLine != null && isSkipped(line)) {
+            line++;
+            nextLine = super.readLine();
+        }
+        line++;
+        return nextLine;
+    }
+
+    /**
+     * @return the number of the last returned line in the whole backup file, starting from 0
+     */
+    int getLineNumber() {
+
+        return line - 1;
+    }
+
+    private boolean isSkipped( int line ) {
+
+        while (nextSkippedSection < skippedSections.length && skippedSections[nextSkippedSection][1] <= line) {
+            nextSkippedSection++;
+        }
+        return nextSkippedSection < skippedSections.length && skippedSections[nextSkippedSection][0] <= line;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2021 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.environment.database;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Writer of a backup file which remembers which lines restore each table.
+ * <br>The environment handlers mark the start and the end of the statements for a table.
+ * The marks can be nested, for example when the DELETE statements for all tables are
+ * written together with the statements of the first table.
+ */
+class BackupFileWriter extends BufferedWriter {
+
+    private final BackupIndex   backupIndex;
+
+    // the tables whose statements are currently written, the innermost one is on top
+    private final Deque<String> tables;
+    private int                 sectionStartLine;
+
+    // the number of lines written so far, counted the way BufferedReader.readLine() splits them
+    private int                 lines;
+    private boolean             lastCharIsCarriageReturn;
+
+    BackupFileWriter( Writer writer, BackupIndex backupIndex ) {
+
+        super(writer);
+
+        this.backupIndex = backupIndex;
+        this.tables = new ArrayDeque<>();
+    }
+
+    /**
+     * The next lines restore this table
+     *
+     * @param table the full table name
+     */
+    void startTable( String table ) {
+
+        endSection();
+        tables.push(table);
+        sectionStartLine = lines;
+    }
+
+    /**
+     * The lines for the last started table are over
+     */
+    void endTable() {
+
+        endSection();
+        tables.pop();
+        sectionStartLine = lines;
+    }
+
+    private void endSection() {
+
+        if (!tables.isEmpty() && lines > sectionStartLine) {
+            backupIndex.addSection(tables.peek(), sectionStartLine, lines);
+        }
+    }
+
+    @Override
+    public void write( int c ) throws IOException {
+
+        countLines((char) c);
+        super.write(c);
+    }
+
+    @Override
+    public void write( char[] cbuf, int off, int len ) throws IOException {
+
+        for (int i = off; i < off + len; i++) {
+            countLines(cbuf[i]);
+        }
+        super.write(cbuf, off, len);
+    }
+
+    @Override
+    public void write( String s, int off, int len ) throws IOException {
+
+        for (int i = off; i < off + len; i++) {
+            countLines(s.charAt(i));
+        }
+        super.write(s, off, len);
+    }
+
+    private void countLines( char c ) {
+
+        // a line ends with '\n', '\r' or "\r\n"
+        if (c == '\r' || (c == '\n' && !lastCharIsCarriageReturn)) {
+            lines++;
+        }
+        lastCharIsCarriageReturn = c == '\r';
+    }
+}
@@ -0,0 +1,340 @@
+/*
+ * Copyright 2021 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.environment.database;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import com.axway.ats.core.dbaccess.DbRecordValue;
+import com.axway.ats.core.dbaccess.DbRecordValuesList;
+
+/**
+ * Describes the tables in a database backup file:
+ * <ul>
+ * <li>which lines of the backup file restore each table</li>
+ * <li>the fingerprint of the table content at the time of the backup, it tells whether the table
+ * was changed since then</li>
+ * <li>whether the tables can be restored independently from each other</li>
+ * </ul>
+ * The index is kept in a file next to the backup file. Backup files created before this
+ * index was introduced do not have such file, they are always restored as a whole.
+ */
+class BackupIndex {
+
+    private static final String                 INDEX_FILE_SUFFIX = ".index";
+
+    // the separator of the values in a table row when calculating a fingerprint
+    private static final char                   VALUE_SEPARATOR   = '\u0001';
+
+    private final Map<String, TableEntry>       tables            = new LinkedHashMap<>();
+
+    // whether the foreign key checks are disabled while restoring and no table is dropped
+    private boolean                             independentTables;
+
+    // the table sections ordered by their first line, created when first needed
+    private NavigableMap<Integer, TableSection> sectionsByLine;
+
+    /**
+     * Record that some lines of the backup file restore a table
+     *
+     * @param table the full table name
+     * @param startLine the first line, starting from 0
+     * @param endLine the line after the last one
+     */
+    void addSection( String table, int startLine, int endLine ) {
+
+        getTableEntry(table).sections.add(new int[]{ startLine, endLine });
+    }
+
+    /**
+     * Remember the fingerprint of a table
+     *
+     * @param table the full table name
+     * @param query the query which selects the backed up content of the table
+     * @param fingerprint the fingerprint of the selected content
+     */
+    void setFingerprint( String table, String query, String fingerprint ) {
+
+        TableEntry tableEntry = getTableEntry(table);
+        tableEntry.query = query;
+        tableEntry.fingerprint = fingerprint;
+    }
+
+    /**
+     * @param independentTables whether the tables can be restored in any order and over different
+     * database connections
+     */
+    void setIndependentTables( boolean independentTables ) {
+
+        this.independentTables = independentTables;
+    }
+
+    /**
+     * @return whether the tables can be restored in any order and over different database connections
+     */
+    boolean areIndependentTables() {
+
+        return independentTables;
+    }
+
+    /**
+     * @param line a line of the backup file, starting from 0
+     * @return the full name of the table restored by this line or null if the line is not about a single table
+     */
+    String getTableAt( int line ) {
+
+        if (sectionsByLine == null) {
+            sectionsByLine = new TreeMap<>();
+            for (Map.Entry<String, TableEntry> table : tables.entrySet()) {
+                for (int[] section : table.getValue().sections) {
+                    sectionsByLine.put(section[0], new TableSection(table.getKey(), section[1]));
+                }
+            }
+        }
+
+        Map.Entry<Integer, TableSection> section = sectionsByLine.floorEntry(line);
+        if (section != null && line < section.getValue().endLine) {
+            return section.getValue().table;
+        }
+        return null;
+    }
+
+    /**
+     * @return the full names of all tables in the backup
+     */
+    Collection<String> getTables() {
+
+        return Collections.unmodifiableSet(tables.keySet());
+    }
+
+    /**
+     * @param table the full table name
+     * @return the query which selects the backed up content of the table or null if the table
+     * has no fingerprint and must always be restored
+     */
+    String getQuery( String table ) {
+
+        TableEntry tableEntry = tables.get(table);
+        return tableEntry != null
+                                  ? tableEntry.query
+                                  : null;
+    }
+
+    /**
+     * @param table the full table name
+     * @return the fingerprint of the table content at the time of the backup or null
+     */
+    String getFingerprint( String table ) {
+
+        TableEntry tableEntry = tables.get(table);
+        return tableEntry != null
+                                  ? tableEntry.fingerprint
+                                  : null;
+    }
+
+    /**
+     * @param tables the full names of some tables
+     * @return the lines of the backup file which restore these tables
+     */
+    List<int[]> getSections( Collection<String> tables ) {
+
+        List<int[]> sections = new ArrayList<>();
+        for (String table : tables) {
+            TableEntry tableEntry = this.tables.get(table);
+            if (tableEntry != null) {
+                sections.addAll(tableEntry.sections);
+            }
+        }
+        return sections;
+    }
+
+    /**
+     * Calculate the fingerprint of some table content. It does not depend on the order of the rows,
+     * as the databases do not guarantee any order when no order is requested.
+     *
+     * @param records the table rows
+     * @return the fingerprint
+     */
+    static String getFingerprint( DbRecordValuesList[] records ) {
+
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        long rowsHash = 0;
+        StringBuilder row = new StringBuilder();
+        for (DbRecordValuesList record : records) {
+            row.setLength(0);
+            for (DbRecordValue value : record) {
+                row.append(value.getValue()).append(VALUE_SEPARATOR);
+            }
+            byte[] rowDigest = digest.digest(row.toString().getBytes(StandardCharsets.UTF_8));
+            long rowHash = 0;
+            for (int i = 0; i < 8; i++) {
+                rowHash = (rowHash << 8) | (rowDigest[i] & 0xFF);
+            }
+            // the sum does not depend on the order
+            rowsHash += rowHash;
+        }
+
+        return records.length + ":" + Long.toHexString(rowsHash);
+    }
+
+    /**
+     * Save the index next to the backup file
+     *
+     * @param backupFileName the backup file
+     * @throws IOException on error writing the index
+     */
+    void save( String backupFileName ) throws IOException {
+
+        Properties properties = new Properties();
+        properties.setProperty("tables", String.valueOf(tables.size()));
+        properties.setProperty("independent.tables", String.valueOf(independentTables));
+        int tableIndex = 0;
+        for (Map.Entry<String, TableEntry> table : tables.entrySet()) {
+            String prefix = "table." + tableIndex++ + ".";
+            TableEntry tableEntry = table.getValue();
+
+            StringBuilder sections = new StringBuilder();
+            for (int[] section : tableEntry.sections) {
+                if (sections.length() > 0) {
+                    sections.append(",");
+                }
+                sections.append(section[0]).append("-").append(section[1]);
+            }
+
+            properties.setProperty(prefix + "name", table.getKey());
+            properties.setProperty(prefix + "sections", sections.toString());
+            if (tableEntry.fingerprint != null) {
+                properties.setProperty(prefix + "query", tableEntry.query);
+                properties.setProperty(prefix + "fingerprint", tableEntry.fingerprint);
+            }
+        }
+
+        try (OutputStream output = new FileOutputStream(getIndexFile(backupFileName))) {
+            properties.store(output, "Index of backup file " + backupFileName);
+        }
+    }
+
+    /**
+     * Load the index of a backup file
+     *
+     * @param backupFileName the backup file
+     * @return the index or null if the backup file has no index
+     * @throws IOException on error reading the index
+     */
+    static BackupIndex load( String backupFileName ) throws IOException {
+
+        File indexFile = getIndexFile(backupFileName);
+        if (!indexFile.exists()) {
+            return null;
+        }
+
+        Properties properties = new Properties();
+        try (InputStream input = new FileInputStream(indexFile)) {
+            properties.load(input);
+        }
+
+        BackupIndex backupIndex = new BackupIndex();
+        backupIndex.independentTables = Boolean.parseBoolean(properties.getProperty("independent.tables"));
+        try {
+            int tablesCount = Integer.parseInt(properties.getProperty("tables"));
+            for (int tableIndex = 0; tableIndex < tablesCount; tableIndex++) {
+                String prefix = "table." + tableIndex + ".";
+                String table = properties.getProperty(prefix + "name");
+
+                TableEntry tableEntry = backupIndex.getTableEntry(table);
+                String sections = properties.getProperty(prefix + "sections");
+                if (!sections.isEmpty()) {
+                    for (String section : sections.split(",")) {
+                        String[] lines = section.split("-");
+                        tableEntry.sections.add(new int[]{ Integer.parseInt(lines[0]),
+                                                           Integer.parseInt(lines[1]) });
+                    }
+                }
+                tableEntry.query = properties.getProperty(prefix + "query");
+                tableEntry.fingerprint = properties.getProperty(prefix + "fingerprint");
+            }
+        } catch (RuntimeException e) {
+            throw new IOException("Invalid index file " + indexFile, e);
+        }
+        return backupIndex;
+    }
+
+    /**
+     * Delete the index of a backup file, if there is one
+     *
+     * @param backupFileName the backup file
+     */
+    static void delete( String backupFileName ) {
+
+        getIndexFile(backupFileName).delete();
+    }
+
+    private static File getIndexFile( String backupFileName ) {
+
+        return new File(backupFileName + INDEX_FILE_SUFFIX);
+    }
+
+    private TableEntry getTableEntry( String table ) {
+
+        TableEntry tableEntry = tables.get(table);
+        if (tableEntry == null) {
+            tableEntry = new TableEntry();
+            tables.put(table, tableEntry);
+        }
+        return tableEntry;
+    }
+
+    private static class TableEntry {
+
+        private final List<int[]> sections = new ArrayList<>();
+        private String            query;
+        private String            fingerprint;
+    }
+
+    private static class TableSection {
+
+        private final String table;
+        private final int    endLine;
+
+        TableSection( String table, int endLine ) {
+
+            this.table = table;
+            this.endLine = endLine;
+        }
+    }
+}
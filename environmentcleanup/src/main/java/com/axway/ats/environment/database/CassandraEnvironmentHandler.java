@@ -1,5 +1,5 @@
 /*
- * Copyright 2017 Axway Software
+ * Copyright 2017-2021 Axway Software
  * 
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,8 +16,6 @@
 package com.axway.ats.environment.database;
 
 import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.io.Writer;
 import java.nio.ByteBuffer;
@@ -193,8 +191,10 @@ protected void writeDeleteStatements( Writer fileWriter ) throws IOException {
         if (this.includeDeleteStatements) {
             for (Entry<String, DbTable> entry : dbTables.entrySet()) {
                 DbTable dbTable = entry.getValue();
+                startTableStatements(fileWriter, dbTable);
                 fileWriter.write("TRUNCATE " + dbTable.getTableName() + ";" + EOL_MARKER
                                  + AtsSystemProperties.SYSTEM_LINE_SEPARATOR);
+                endTableStatements(fileWriter);
             }
             this.deleteStatementsInserted = true;
         }
@@ -362,7 +362,7 @@ public void restore(
         try {
             log.info("Started restore of database backup from file '" + backupFileName + "'");
 
-            backupReader = new BufferedReader(new FileReader(new File(backupFileName)));
+            backupReader = openBackupFile(backupFileName);
 
             StringBuilder sql = new StringBuilder();
             String line = backupReader.readLine();
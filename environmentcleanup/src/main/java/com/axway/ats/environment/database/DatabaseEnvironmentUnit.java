@@ -1,5 +1,5 @@
 /*
- * Copyright 2017 Axway Software
+ * Copyright 2017-2021 Axway Software
  * 
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -51,10 +51,14 @@ public class DatabaseEnvironmentUnit extends EnvironmentUnit {
     private boolean                   addSeparateLocks;
     private boolean                   dropTables;
     private boolean                   skipTablesContent;
+    private boolean                   useBulkFormat;
 
     private boolean                   disableForeignKeys;
     private boolean                   includeDeleteStatements;
 
+    private boolean                   restoreOnlyChangedTables = true;
+    private int                       parallelRestoreConnections = 1;
+
     private String                    backupDirPath;
     private String                    backupFileName;
 
@@ -141,6 +145,7 @@ public void backup() throws EnvironmentCleanupException {
             dbBackup.setLockTables(addSeparateLocks);
             dbBackup.setDropTables(dropTables);
             dbBackup.setSkipTablesContent(skipTablesContent);
+            dbBackup.setUseBulkFormat(useBulkFormat);
             dbBackup.setForeignKeyCheck(disableForeignKeys);
             dbBackup.setIncludeDeleteStatements(includeDeleteStatements);
             for (DbTable dbTable : dbTables) {
@@ -169,16 +174,19 @@ public boolean executeRestoreIfNecessary() throws DatabaseEnvironmentCleanupExce
         RestoreHandler dbRestore = null;
         try {
             dbRestore = environmentHandlerFactory.createDbRestoreHandler(dbConnection);
+            dbRestore.setParallelRestoreConnections(parallelRestoreConnections);
+
+            if (restoreOnlyChangedTables) {
+                return dbRestore.restoreChangedTables(getBackupFile());
+            }
 
             dbRestore.restore(getBackupFile());
+            return true;
         } finally {
             if (dbRestore != null) {
                 dbRestore.disconnect();
             }
         }
-
-        // we always restore the database data
-        return true;
     }
 
     @Override
@@ -216,6 +224,47 @@ public void setSkipTablesContent( boolean skipTablesContent ) {
         this.skipTablesContent = skipTablesContent;
     }
 
+    /**
+     * Toggle whether to back up the tables' content in the native bulk format of the database.
+     * Default is <strong>false</strong>.
+     * <br>The content of each table is kept in a compressed file next to the backup file, which is faster to
+     * write and restore than INSERT statements. It is supported for PostgreSQL (binary COPY) and MySQL (LOAD DATA
+     * LOCAL INFILE, the connection needs the {@link com.axway.ats.common.dbaccess.DbKeys#ALLOW_LOAD_LOCAL_INFILE}
+     * custom property). The tables backed up this way are always restored, even if they are not changed.
+     * @param useBulkFormat true to use the bulk format, false to use INSERT statements
+     * */
+    @PublicAtsApi
+    public void setUseBulkFormat( boolean useBulkFormat ) {
+
+        this.useBulkFormat = useBulkFormat;
+    }
+
+    /**
+     * Toggle whether to restore only the tables which were changed since the backup was made.
+     * Default is <strong>true</strong>.
+     * <br>The tables are compared with the content they had at backup time. When some table can not be
+     * compared, or the backup was made by an older version, the whole backup is restored.
+     * @param restoreOnlyChangedTables false will always restore all tables
+     * */
+    @PublicAtsApi
+    public void setRestoreOnlyChangedTables( boolean restoreOnlyChangedTables ) {
+
+        this.restoreOnlyChangedTables = restoreOnlyChangedTables;
+    }
+
+    /**
+     * Set the number of database connections used to restore the tables in parallel. Default is <strong>1</strong>.
+     * <br>The tables are restored in parallel only when the foreign key checks are disabled, no table is dropped
+     * and the database allows it (MySQL, MariaDB and MSSQL). Each table is restored in its own transaction then,
+     * so a failed restore is not rolled back as a whole.
+     * @param parallelRestoreConnections the number of connections
+     * */
+    @PublicAtsApi
+    public void setParallelRestoreConnections( int parallelRestoreConnections ) {
+
+        this.parallelRestoreConnections = parallelRestoreConnections;
+    }
+
     public EnvironmentUnit getNewCopy() {
 
         DatabaseEnvironmentUnit newDatabaseEnvironmentUnit = new DatabaseEnvironmentUnit(this.backupDirPath,
@@ -230,6 +279,9 @@ public EnvironmentUnit getNewCopy() {
         newDatabaseEnvironmentUnit.dbTables = newDbTables;
         newDatabaseEnvironmentUnit.dropTables = this.dropTables;
         newDatabaseEnvironmentUnit.skipTablesContent = this.skipTablesContent;
+        newDatabaseEnvironmentUnit.useBulkFormat = this.useBulkFormat;
+        newDatabaseEnvironmentUnit.restoreOnlyChangedTables = this.restoreOnlyChangedTables;
+        newDatabaseEnvironmentUnit.parallelRestoreConnections = this.parallelRestoreConnections;
 
         return newDatabaseEnvironmentUnit;
     }
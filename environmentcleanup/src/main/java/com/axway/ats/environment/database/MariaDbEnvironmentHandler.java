@@ -15,9 +15,6 @@
  */
 package com.axway.ats.environment.database;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.io.Writer;
 import java.sql.Connection;
@@ -40,10 +37,8 @@
 import com.axway.ats.core.dbaccess.mariadb.DbConnMariaDB;
 import com.axway.ats.core.dbaccess.mariadb.MariaDbColumnDescription;
 import com.axway.ats.core.dbaccess.mariadb.MariaDbDbProvider;
-import com.axway.ats.core.utils.IoUtils;
 import com.axway.ats.core.utils.StringUtils;
 import com.axway.ats.environment.database.exceptions.ColumnHasNoDefaultValueException;
-import com.axway.ats.environment.database.exceptions.DatabaseEnvironmentCleanupException;
 import com.axway.ats.environment.database.model.DbTable;
 
 /**
@@ -65,111 +60,42 @@ class MariaDbEnvironmentHandler extends AbstractEnvironmentHandler {
         super(dbConnection, dbProvider);
     }
 
-    public void restore( String backupFileName ) throws DatabaseEnvironmentCleanupException {
-
-        BufferedReader backupReader = null;
-        Connection connection = null;
-
-        //we need to preserve the auto commit option, as
-        //the connections are pooled
-        boolean isAutoCommit = true;
-
-        try {
-            log.info("Started restore of database backup from file '" + backupFileName + "'");
-
-            backupReader = new BufferedReader(new FileReader(new File(backupFileName)));
-
-            connection = ConnectionPool.getConnection(dbConnection);
-
-            isAutoCommit = connection.getAutoCommit();
-            connection.setAutoCommit(false);
+    @Override
+    protected String prepareRestoreStatement( String sql ) {
 
-            StringBuilder sql = new StringBuilder();
-            String line = backupReader.readLine();
-            while (line != null) {
+        if (sql.trim().startsWith("INSERT INTO")) {
+            // This line escapes non-printable string chars. Hex data is already escaped as 0xABC without backslash(\)
+            return sql.replace("\\0x", "\\");
+        }
+        return sql;
+    }
 
-                sql.append(line);
-                if (line.startsWith(DROP_TABLE_MARKER)) {
+    @Override
+    protected void restoreDroppedTable( Connection connection, String table ) {
 
-                    String table = line.substring(DROP_TABLE_MARKER.length()).trim();
-                    String owner = table.substring(0, table.indexOf("."));
-                    String simpleTableName = table.substring(table.indexOf(".") + 1);
-                    dropAndRecreateTable(connection, simpleTableName, owner);
+        String owner = table.substring(0, table.indexOf("."));
+        String simpleTableName = table.substring(table.indexOf(".") + 1);
+        dropAndRecreateTable(connection, simpleTableName, owner);
+    }
 
-                }
-                if (line.endsWith(EOL_MARKER)) {
-
-                    PreparedStatement updateStatement = null;
-
-                    // remove the OEL marker
-                    sql.delete(sql.length() - EOL_MARKER.length(), sql.length());
-                    if (sql.toString().trim().startsWith("INSERT INTO")) {
-                        // This line escapes non-printable string chars. Hex data is already escaped as 0xABC without backslash(\)
-                        String insertQuery = sql.toString().replace("\\0x", "\\");
-                        updateStatement = connection.prepareStatement(insertQuery);
-                    } else {
-                        updateStatement = connection.prepareStatement(sql.toString());
-                    }
+    @Override
+    protected boolean supportsParallelRestore() {
 
-                    //catch the exception and roll back, otherwise we are locked
-                    try {
-                        updateStatement.execute();
-
-                    } catch (SQLException sqle) {
-                        //we have to roll back the transaction and re throw the exception
-                        connection.rollback();
-                        throw new SQLException("Error invoking restore satement: " + sql.toString(), sqle);
-                    } finally {
-                        try {
-                            updateStatement.close();
-                        } catch (SQLException sqle) {
-                            log.error("Unable to close prepared statement", sqle);
-                        }
-                    }
-                    sql.delete(0, sql.length());
-                } else {
-                    //add a new line
-                    //FIXME: this code will add the system line ending - it
-                    //is not guaranteed that this was the actual line ending
-                    sql.append(AtsSystemProperties.SYSTEM_LINE_SEPARATOR);
-                }
+        return true;
+    }
 
-                line = backupReader.readLine();
-            }
+    @Override
+    protected void prepareParallelRestoreConnection( Connection connection ) {
 
-            try {
-                //commit the transaction
-                connection.commit();
+        // the foreign key checks are disabled per session
+        executeUpdate("SET FOREIGN_KEY_CHECKS = 0", connection);
+    }
 
-            } catch (SQLException sqle) {
-                //we have to roll back the transaction and re throw the exception
-                connection.rollback();
-                throw sqle;
-            }
+    @Override
+    protected void resetParallelRestoreConnection( Connection connection ) {
 
-            log.info("Completed restore of database backup from file '" + backupFileName + "'");
-
-        } catch (IOException ioe) {
-            throw new DatabaseEnvironmentCleanupException("Could not restore backup from file "
-                                                          + backupFileName, ioe);
-        } catch (SQLException sqle) {
-            throw new DatabaseEnvironmentCleanupException("Could not restore backup from file "
-                                                          + backupFileName, sqle);
-        } catch (DbException dbe) {
-            throw new DatabaseEnvironmentCleanupException("Could not restore backup from file "
-                                                          + backupFileName, dbe);
-        } finally {
-            try {
-                IoUtils.closeStream(backupReader, "Could not close reader for backup file "
-                                                  + backupFileName);
-                if (connection != null) {
-                    connection.setAutoCommit(isAutoCommit);
-                    connection.close();
-                }
-            } catch (SQLException sqle) {
-                log.error("Could close DB connection");
-            }
-        }
+        // the connection is pooled, so the next user must get it with the foreign key checks enabled
+        executeUpdate("SET FOREIGN_KEY_CHECKS = 1", connection);
     }
 
     @Override
@@ -1,5 +1,5 @@
 /*
- * Copyright 2017-2020 Axway Software
+ * Copyright 2017-2021 Axway Software
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,9 +15,6 @@
  */
 package com.axway.ats.environment.database;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.io.Writer;
 import java.sql.CallableStatement;
@@ -49,10 +46,8 @@
 import com.axway.ats.core.dbaccess.exceptions.DbException;
 import com.axway.ats.core.dbaccess.mssql.DbConnSQLServer;
 import com.axway.ats.core.dbaccess.mssql.MssqlDbProvider;
-import com.axway.ats.core.utils.IoUtils;
 import com.axway.ats.core.utils.StringUtils;
 import com.axway.ats.environment.database.exceptions.ColumnHasNoDefaultValueException;
-import com.axway.ats.environment.database.exceptions.DatabaseEnvironmentCleanupException;
 import com.axway.ats.environment.database.model.DbTable;
 
 class MssqlEnvironmentHandler extends AbstractEnvironmentHandler {
@@ -553,8 +548,10 @@ protected void writeDeleteStatements( Writer fileWriter ) throws IOException {
                     fullTableName = dbTable.getFullTableName();
                 }
                 String deleteQuery = "DELETE FROM " + fullTableName;
+                startTableStatements(fileWriter, dbTable);
                 fileWriter.write(deleteQuery + ";" + EOL_MARKER
                                  + AtsSystemProperties.SYSTEM_LINE_SEPARATOR);
+                endTableStatements(fileWriter);
             }
             this.deleteStatementsInserted = true;
         }
@@ -622,100 +619,17 @@ public void addTable( DbTable table ) {
         super.addTable(table);
     }
 
-    /**
-     * @see com.axway.ats.environment.database.model.RestoreHandler#restore(java.lang.String)
-     */
-    public void restore(
-                         String backupFileName ) throws DatabaseEnvironmentCleanupException {
-
-        BufferedReader backupReader = null;
-        Connection connection = null;
-
-        //we need to preserve the auto commit option, as the connections are pooled
-        boolean isAutoCommit = true;
-
-        try {
-            LOG.info("Started restore of database backup from file '" + backupFileName + "'");
-
-            backupReader = new BufferedReader(new FileReader(new File(backupFileName)));
-
-            connection = ConnectionPool.getConnection(dbConnection);
-
-            isAutoCommit = connection.getAutoCommit();
-            connection.setAutoCommit(false);
-
-            StringBuilder sql = new StringBuilder();
-            String line = backupReader.readLine();
-            while (line != null) {
-
-                sql.append(line);
-
-                if (line.startsWith(DROP_TABLE_MARKER)) {
-
-                    String tableName = line.substring(DROP_TABLE_MARKER.length()).trim();
-                    dropAndRecreateTable(connection, tableName);
-
-                    sql = new StringBuilder(); // clear the sql query buffer
-                } else if (line.endsWith(EOL_MARKER)) {
-
-                    // remove the EOL marker
-                    sql.delete(sql.length() - EOL_MARKER.length(), sql.length());
-                    PreparedStatement updateStatement = connection.prepareStatement(sql.toString());
-
-                    if (LOG.isTraceEnabled()) {
-                        LOG.trace("Executing SQL query: " + sql);
-                    }
-
-                    // catch the exception and rollback, otherwise we are locked
-                    try {
-                        updateStatement.execute();
-                    } catch (SQLException sqle) {
-                        //we have to roll back the transaction and re-throw the exception
-                        connection.rollback();
-                        throw new SQLException("Error executing restore satement: " + sql.toString(), sqle);
-                    } finally {
-                        DbUtils.closeStatement(updateStatement);
-                    }
-                    sql = new StringBuilder();
-                } else {
-                    //add a new line
-                    //FIXME: this code will add the system line ending - it
-                    //is not guaranteed that this was the actual line ending
-                    sql.append(AtsSystemProperties.SYSTEM_LINE_SEPARATOR);
-                }
-
-                line = backupReader.readLine();
-            }
+    @Override
+    protected void restoreDroppedTable( Connection connection, String table ) {
 
-            try {
-                //commit the transaction
-                connection.commit();
+        dropAndRecreateTable(connection, table);
+    }
 
-            } catch (SQLException sqle) {
-                //we have to roll back the transaction and re-throw the exception
-                connection.rollback();
-                throw sqle;
-            }
+    @Override
+    protected boolean supportsParallelRestore() {
 
-            LOG.info("Completed restore of database backup from file '" + backupFileName + "'");
-        } catch (IOException ioe) {
-            throw new DatabaseEnvironmentCleanupException(ERROR_RESTORING_BACKUP + backupFileName, ioe);
-        } catch (SQLException sqle) {
-            throw new DatabaseEnvironmentCleanupException(ERROR_RESTORING_BACKUP + backupFileName, sqle);
-        } catch (DbException dbe) {
-            throw new DatabaseEnvironmentCleanupException(ERROR_RESTORING_BACKUP + backupFileName, dbe);
-        } finally {
-            try {
-                IoUtils.closeStream(backupReader, "Could not close reader for backup file "
-                                                  + backupFileName);
-                if (connection != null) {
-                    connection.setAutoCommit(isAutoCommit);
-                    connection.close();
-                }
-            } catch (SQLException sqle) {
-                LOG.error(ERROR_RESTORING_BACKUP + backupFileName, sqle);
-            }
-        }
+        // the constraints are disabled for all connections
+        return true;
     }
 
     /**
@@ -1,5 +1,5 @@
 /*
- * Copyright 2017 Axway Software
+ * Copyright 2017-2021 Axway Software
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,23 +15,27 @@
  */
 package com.axway.ats.environment.database;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.sql.CallableStatement;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import com.axway.ats.common.dbaccess.DbKeys;
 import com.axway.ats.common.systemproperties.AtsSystemProperties;
 import com.axway.ats.core.dbaccess.ColumnDescription;
 import com.axway.ats.core.dbaccess.ConnectionPool;
@@ -42,10 +46,8 @@
 import com.axway.ats.core.dbaccess.exceptions.DbException;
 import com.axway.ats.core.dbaccess.mysql.DbConnMySQL;
 import com.axway.ats.core.dbaccess.mysql.MysqlDbProvider;
-import com.axway.ats.core.utils.IoUtils;
 import com.axway.ats.core.utils.StringUtils;
 import com.axway.ats.environment.database.exceptions.ColumnHasNoDefaultValueException;
-import com.axway.ats.environment.database.exceptions.DatabaseEnvironmentCleanupException;
 import com.axway.ats.environment.database.model.DbTable;
 import com.axway.ats.environment.database.mysql.MysqlColumnNames;
 
@@ -54,9 +56,16 @@
  */
 class MysqlEnvironmentHandler extends AbstractEnvironmentHandler {
 
-    private static final Logger log            = LogManager.getLogger(MysqlEnvironmentHandler.class);
-    private static final String HEX_PREFIX_STR = "0x";
-    private boolean             isJDBC4;
+    private static final Logger   log                            = LogManager.getLogger(MysqlEnvironmentHandler.class);
+    private static final String   HEX_PREFIX_STR                 = "0x";
+
+    // the bulk data is sent as a stream, so the file name in the LOAD DATA statement is not used
+    private static final String   BULK_DATA_STREAM_NAME          = "ats_bulk_data";
+    private static final String   BULK_DATA_NULL                 = "\\N";
+    // the statement interfaces of MySQL Connector/J 8.x and 5.x which accept the LOAD DATA stream
+    private static final String[] LOCAL_INFILE_STATEMENT_CLASSES = { "com.mysql.cj.jdbc.JdbcStatement",
+                                                                     "com.mysql.jdbc.Statement" };
+    private boolean               isJDBC4;
 
     /**
      * Constructor
@@ -70,111 +79,192 @@ class MysqlEnvironmentHandler extends AbstractEnvironmentHandler {
         isJDBC4 = checkDriverVersion(dbProvider);
     }
 
-    public void restore( String backupFileName ) throws DatabaseEnvironmentCleanupException {
+    @Override
+    protected String prepareRestoreStatement( String sql ) {
 
-        BufferedReader backupReader = null;
-        Connection connection = null;
+        if (sql.trim().startsWith("INSERT INTO")) {
+            // This line escapes non-printable string chars. Hex data is already escaped as 0xABC without backslash(\)
+            return sql.replace("\\0x", "\\");
+        }
+        return sql;
+    }
 
-        //we need to preserve the auto commit option, as
-        //the connections are pooled
-        boolean isAutoCommit = true;
+    @Override
+    protected void restoreDroppedTable( Connection connection, String table ) {
 
-        try {
-            log.info("Started restore of database backup from file '" + backupFileName + "'");
+        String owner = table.substring(0, table.indexOf("."));
+        String simpleTableName = table.substring(table.indexOf(".") + 1);
+        dropAndRecreateTable(connection, simpleTableName, owner);
+    }
 
-            backupReader = new BufferedReader(new FileReader(new File(backupFileName)));
+    @Override
+    protected boolean supportsParallelRestore() {
+
+        return true;
+    }
 
-            connection = ConnectionPool.getConnection(dbConnection);
+    @Override
+    protected void prepareParallelRestoreConnection( Connection connection ) {
+
+        // the foreign key checks are disabled per session
+        executeUpdate("SET FOREIGN_KEY_CHECKS = 0", connection);
+    }
 
-            isAutoCommit = connection.getAutoCommit();
-            connection.setAutoCommit(false);
+    @Override
+    protected void resetParallelRestoreConnection( Connection connection ) {
 
-            StringBuilder sql = new StringBuilder();
-            String line = backupReader.readLine();
-            while (line != null) {
+        // the connection is pooled, so the next user must get it with the foreign key checks enabled
+        executeUpdate("SET FOREIGN_KEY_CHECKS = 1", connection);
+    }
 
-                sql.append(line);
-                if (line.startsWith(DROP_TABLE_MARKER)) {
+    @Override
+    protected boolean supportsBulkFormat() {
 
-                    String table = line.substring(DROP_TABLE_MARKER.length()).trim();
-                    String owner = table.substring(0, table.indexOf("."));
-                    String simpleTableName = table.substring(table.indexOf(".") + 1);
-                    dropAndRecreateTable(connection, simpleTableName, owner);
+        return true;
+    }
 
-                }
-                if (line.endsWith(EOL_MARKER)) {
-
-                    PreparedStatement updateStatement = null;
-
-                    // remove the OEL marker
-                    sql.delete(sql.length() - EOL_MARKER.length(), sql.length());
-                    if (sql.toString().trim().startsWith("INSERT INTO")) {
-                        // This line escapes non-printable string chars. Hex data is already escaped as 0xABC without backslash(\)
-                        String insertQuery = sql.toString().replace("\\0x", "\\");
-                        updateStatement = connection.prepareStatement(insertQuery);
-                    } else {
-                        updateStatement = connection.prepareStatement(sql.toString());
-                    }
+    @Override
+    protected void writeBulkData( Connection connection, List<ColumnDescription> columns, DbTable dbTable,
+                                  OutputStream output ) throws SQLException, IOException {
 
-                    //catch the exception and roll back, otherwise we are locked
-                    try {
-                        updateStatement.execute();
-
-                    } catch (SQLException sqle) {
-                        //we have to roll back the transaction and re throw the exception
-                        connection.rollback();
-                        throw new SQLException("Error invoking restore satement: " + sql.toString(), sqle);
-                    } finally {
-                        try {
-                            updateStatement.close();
-                        } catch (SQLException sqle) {
-                            log.error("Unable to close prepared statement", sqle);
-                        }
+        // the rows are written as tab separated values, in the default format of LOAD DATA
+        Statement statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY,
+                                                         ResultSet.CONCUR_READ_ONLY);
+        ResultSet resultSet = null;
+        try {
+            // stream the rows instead of loading the whole table in memory
+            statement.setFetchSize(Integer.MIN_VALUE);
+            resultSet = statement.executeQuery("SELECT " + getColumnsString(columns) + " FROM "
+                                               + dbTable.getFullTableName());
+
+            Writer dataWriter = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+            while (resultSet.next()) {
+                for (int i = 0; i < columns.size(); i++) {
+                    if (i > 0) {
+                        dataWriter.write('\t');
                     }
-                    sql.delete(0, sql.length());
-                } else {
-                    //add a new line
-                    //FIXME: this code will add the system line ending - it
-                    //is not guaranteed that this was the actual line ending
-                    sql.append(AtsSystemProperties.SYSTEM_LINE_SEPARATOR);
+                    dataWriter.write(getBulkValue(columns.get(i), resultSet, i + 1));
                 }
-
-                line = backupReader.readLine();
+                dataWriter.write('\n');
             }
+            dataWriter.flush();
+        } finally {
+            DbUtils.closeResultSet(resultSet);
+            DbUtils.closeStatement(statement);
+        }
+    }
 
-            try {
-                //commit the transaction
-                connection.commit();
-
-            } catch (SQLException sqle) {
-                //we have to roll back the transaction and re throw the exception
-                connection.rollback();
-                throw sqle;
+    @Override
+    protected String getBulkLoadStatement( List<ColumnDescription> columns, DbTable dbTable ) {
+
+        // the binary values are kept in hex, they are converted back while loading
+        StringBuilder loadedColumns = new StringBuilder();
+        StringBuilder binaryColumns = new StringBuilder();
+        for (int i = 0; i < columns.size(); i++) {
+            ColumnDescription column = columns.get(i);
+            if (i > 0) {
+                loadedColumns.append(",");
+            }
+            if (isBulkHexValue(column)) {
+                loadedColumns.append("@hex").append(i);
+                binaryColumns.append(binaryColumns.length() == 0
+                                                                 ? " SET "
+                                                                 : ",")
+                             .append(column.getName())
+                             .append(" = UNHEX(@hex")
+                             .append(i)
+                             .append(")");
+            } else {
+                loadedColumns.append(column.getName());
             }
+        }
+
+        return "LOAD DATA LOCAL INFILE '" + BULK_DATA_STREAM_NAME + "' INTO TABLE `" + dbTable.getTableName()
+               + "` CHARACTER SET utf8mb4 (" + loadedColumns + ")" + binaryColumns;
+    }
 
-            log.info("Completed restore of database backup from file '" + backupFileName + "'");
+    @Override
+    protected void loadBulkData( Connection connection, String sql,
+                                 InputStream data ) throws SQLException, IOException {
 
-        } catch (IOException ioe) {
-            throw new DatabaseEnvironmentCleanupException("Could not restore backup from file "
-                                                          + backupFileName, ioe);
+        Statement statement = connection.createStatement();
+        try {
+            setLocalInfileInputStream(statement, data);
+            statement.execute(sql);
         } catch (SQLException sqle) {
-            throw new DatabaseEnvironmentCleanupException("Could not restore backup from file "
-                                                          + backupFileName, sqle);
-        } catch (DbException dbe) {
-            throw new DatabaseEnvironmentCleanupException("Could not restore backup from file "
-                                                          + backupFileName, dbe);
+            throw new SQLException("Could not load the table data. Loading local data must be enabled for the server "
+                                   + "by its 'local_infile' variable and for the connection by the "
+                                   + DbKeys.ALLOW_LOAD_LOCAL_INFILE + " custom property", sqle);
         } finally {
+            DbUtils.closeStatement(statement);
+        }
+    }
+
+    private void setLocalInfileInputStream( Statement statement, InputStream data ) throws SQLException {
+
+        for (String statementClassName : LOCAL_INFILE_STATEMENT_CLASSES) {
+            Class<?> statementClass;
             try {
-                IoUtils.closeStream(backupReader, "Could not close reader for backup file "
-                                                  + backupFileName);
-                if (connection != null) {
-                    connection.setAutoCommit(isAutoCommit);
-                    connection.close();
+                statementClass = Class.forName(statementClassName);
+            } catch (ClassNotFoundException e) {
+                continue;
+            }
+            if (statement.isWrapperFor(statementClass)) {
+                try {
+                    statementClass.getMethod("setLocalInfileInputStream", InputStream.class)
+                                  .invoke(statement.unwrap(statementClass), data);
+                    return;
+                } catch (ReflectiveOperationException e) {
+                    throw new DbException("Could not pass the table data to the MySQL JDBC driver", e);
                 }
-            } catch (SQLException sqle) {
-                log.error("Could close DB connection");
             }
         }
+        throw new DbException("The MySQL JDBC driver does not support loading table data from a stream");
+    }
+
+    private boolean isBulkHexValue( ColumnDescription column ) {
+
+        return column.isTypeBinary() || column.isTypeBit();
+    }
+
+    private String getBulkValue( ColumnDescription column, ResultSet resultSet,
+                                 int columnIndex ) throws SQLException {
+
+        if (isBulkHexValue(column)) {
+            byte[] value = resultSet.getBytes(columnIndex);
+            return value == null
+                                 ? BULK_DATA_NULL
+                                 : StringUtils.byteArray2Hex(value);
+        }
+
+        String value = resultSet.getString(columnIndex);
+        if (value == null) {
+            return BULK_DATA_NULL;
+        }
+        // escape the characters which LOAD DATA treats as separators or escapes by default
+        StringBuilder escapedValue = new StringBuilder(value.length());
+        for (char currentCharacter : value.toCharArray()) {
+            switch (currentCharacter) {
+                case '\\':
+                    escapedValue.append("\\\\");
+                    break;
+                case '\t':
+                    escapedValue.append("\\t");
+                    break;
+                case '\n':
+                    escapedValue.append("\\n");
+                    break;
+                case '\r':
+                    escapedValue.append("\\r");
+                    break;
+                case '\0':
+                    escapedValue.append("\\0");
+                    break;
+                default:
+                    escapedValue.append(currentCharacter);
+            }
+        }
+        return escapedValue.toString();
     }
 
     @Override
@@ -269,7 +359,9 @@ protected void writeTableToFile(
             }
         }
 
-        if (records.length > 0) {
+        if (isBulkFormatUsed()) {
+            writeBulkTableData(columns, table, fileWriter);
+        } else if (records.length > 0) {
 
             StringBuilder insertStatement = new StringBuilder();
 
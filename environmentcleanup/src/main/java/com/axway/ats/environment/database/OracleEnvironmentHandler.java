@@ -1,5 +1,5 @@
 /*
- * Copyright 2017 Axway Software
+ * Copyright 2017-2021 Axway Software
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,10 +15,8 @@
  */
 package com.axway.ats.environment.database;
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.Writer;
@@ -387,8 +385,10 @@ protected void writeDeleteStatements( Writer fileWriter ) throws IOException {
                 if (shouldDropTable(dbTable)) {
                     continue;
                 }
+                startTableStatements(fileWriter, dbTable);
                 fileWriter.write("LOCK TABLE " + dbTable.getTableName() + " IN EXCLUSIVE MODE NOWAIT;"
                                  + EOL_MARKER + AtsSystemProperties.SYSTEM_LINE_SEPARATOR);
+                endTableStatements(fileWriter);
             }
         }
 
@@ -398,8 +398,10 @@ protected void writeDeleteStatements( Writer fileWriter ) throws IOException {
                 if (shouldDropTable(dbTable)) {
                     continue;
                 }
+                startTableStatements(fileWriter, dbTable);
                 fileWriter.write("DELETE FROM " + dbTable.getTableName() + ";" + EOL_MARKER
                                  + AtsSystemProperties.SYSTEM_LINE_SEPARATOR);
+                endTableStatements(fileWriter);
             }
             this.deleteStatementsInserted = true;
         }
@@ -538,135 +540,28 @@ public void createBackup( String backupFileName ) throws DatabaseEnvironmentClea
 
     }
 
-    /**
-     * @see com.axway.ats.environment.database.model.RestoreHandler#restore(java.lang.String)
-     */
-    public void restore( String backupFileName ) throws DatabaseEnvironmentCleanupException {
-
-        BufferedReader backupReader = null;
-        Connection connection = null;
-
-        //we need to preserve the auto commit option, as
-        //the connections are pooled
-        boolean isAutoCommit = true;
-
-        try {
-            log.info("Started restore of database backup from file '" + backupFileName + "'");
-
-            backupReader = new BufferedReader(new FileReader(new File(backupFileName)));
-
-            connection = ConnectionPool.getConnection(dbConnection);
-
-            isAutoCommit = connection.getAutoCommit();
-            connection.setAutoCommit(false);
-
-            StringBuilder sql = new StringBuilder();
-            String line = backupReader.readLine();
-            List<TableConstraints> tablesConstraints = new ArrayList<>();
-            while (line != null) {
-
-                sql.append(line);
-                if (line.startsWith(DROP_TABLE_MARKER)) {
-
-                    String table = line.substring(DROP_TABLE_MARKER.length()).trim();
-                    String owner = table.substring(0, table.indexOf("."));
-                    String simpleTableName = table.substring(table.indexOf(".") + 1);
-                    TableConstraints tbConst = dropAndRecreateTable(connection, simpleTableName, owner);
-                    if (tbConst != null) {
-                        tablesConstraints.add(tbConst);
-                    }
-
-                    sql = new StringBuilder();
-
-                }
-                if (line.endsWith(EOL_MARKER)) {
-
-                    // remove the EOL marker and the trailing semicolon because, strangely, Oracle JDBC driver
-                    // does not require it, as opposing to any other, excluding blocks ([DECLARE]BEGIN-END;)
-                    if (line.contains("END;")) { // in this case semicolon is mandatory
-                        sql.delete(sql.length() - EOL_MARKER.length(), sql.length());
-                    } else {
-                        sql.setLength(sql.length() - EOL_MARKER.length());
-                        if (sql.toString().endsWith(";")) {
-                            sql.setLength(sql.length() - 1);
-                        }
-                        //sql.delete(sql.length() - EOL_MARKER.length() - 1, sql.length());
-                    }
-
-                    PreparedStatement updateStatement = connection.prepareStatement(sql.toString());
-
-                    if (log.isTraceEnabled()) {
-                        log.trace("Executing SQL query: " + sql.toString());
-                    }
-                    //catch the exception and rollback, otherwise we are locked
-                    try {
-                        updateStatement.execute();
-                    } catch (SQLException sqle) {
-                        //we have to roll back the transaction and re throw the exception
-                        connection.rollback();
-                        throw new SQLException("Error invoking restore satement: " + sql.toString(), sqle);
-                    } finally {
-                        try {
-                            updateStatement.close();
-                        } catch (SQLException sqle) {
-                            log.error("Unable to close prepared statement", sqle);
-                        }
-                    }
-                    sql = new StringBuilder();
-                } else {
-                    //add a new line
-                    //FIXME: this code will add the system line ending - it
-                    //is not guaranteed that this was the actual line ending
-                    sql.append(AtsSystemProperties.SYSTEM_LINE_SEPARATOR);
-                }
-
-                line = backupReader.readLine();
-            }
-
-            /*// create all of the foreign keys
-            for (TableConstraints tbConst : tablesConstraints) {
-                for (String fkQuery : tbConst.foreignKeyStatements) {
-                    executeUpdate(fkQuery, connection);
-                }
-            }
-            // enable the foreign keys
-            for (TableConstraints tbConst : tablesConstraints) {
-                for (String fkEnableQuery : tbConst.enableForeignKeyConstraintStatements) {
-                    executeUpdate(fkEnableQuery, connection);
-                }
-            }*/
-
-            try {
-                //commit the transaction
-                connection.commit();
-
-            } catch (SQLException sqle) {
-                //we have to roll back the transaction and re throw the exception
-                connection.rollback();
-                throw sqle;
-            }
-
-            log.info("Completed restore of database backup from file '" + backupFileName + "'");
+    @Override
+    protected String prepareRestoreStatement( String sql ) {
+
+        // remove the trailing semicolon because, strangely, Oracle JDBC driver does not require it,
+        // as opposing to any other, excluding blocks ([DECLARE]BEGIN-END;)
+        String lastLine = sql;
+        int lastLineStart = sql.lastIndexOf(AtsSystemProperties.SYSTEM_LINE_SEPARATOR);
+        if (lastLineStart >= 0) {
+            lastLine = sql.substring(lastLineStart + AtsSystemProperties.SYSTEM_LINE_SEPARATOR.length());
+        }
+        if (!lastLine.contains("END;") && sql.endsWith(";")) { // for blocks the semicolon is mandatory
+            return sql.substring(0, sql.length() - 1);
+        }
+        return sql;
+    }
 
-        } catch (IOException ioe) {
-            throw new DatabaseEnvironmentCleanupException(ERROR_RESTORING_BACKUP + backupFileName, ioe);
-        } catch (SQLException sqle) {
-            throw new DatabaseEnvironmentCleanupException(ERROR_RESTORING_BACKUP + backupFileName, sqle);
-        } catch (DbException dbe) {
-            throw new DatabaseEnvironmentCleanupException(ERROR_RESTORING_BACKUP + backupFileName, dbe);
-        } finally {
-            try {
-                IoUtils.closeStream(backupReader, "Could not close reader for backup file "
-                                                  + backupFileName);
+    @Override
+    protected void restoreDroppedTable( Connection connection, String table ) {
 
-                if (connection != null) {
-                    connection.setAutoCommit(isAutoCommit);
-                    connection.close();
-                }
-            } catch (SQLException sqle) {
-                log.error(ERROR_RESTORING_BACKUP + backupFileName, sqle);
-            }
-        }
+        String owner = table.substring(0, table.indexOf("."));
+        String simpleTableName = table.substring(table.indexOf(".") + 1);
+        dropAndRecreateTable(connection, simpleTableName, owner);
     }
 
     public TableConstraints dropAndRecreateTable( Connection connection, String tableName, String owner ) {
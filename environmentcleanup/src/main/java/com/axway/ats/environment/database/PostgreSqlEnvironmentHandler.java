@@ -15,10 +15,9 @@
  */
 package com.axway.ats.environment.database;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Writer;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -38,6 +37,8 @@
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
 
 import com.axway.ats.common.dbaccess.DbQuery;
 import com.axway.ats.common.systemproperties.AtsSystemProperties;
@@ -52,7 +53,6 @@
 import com.axway.ats.core.dbaccess.postgresql.PostgreSqlColumnDescription;
 import com.axway.ats.core.dbaccess.postgresql.PostgreSqlDbProvider;
 import com.axway.ats.core.utils.ExceptionUtils;
-import com.axway.ats.core.utils.IoUtils;
 import com.axway.ats.core.utils.StringUtils;
 import com.axway.ats.environment.database.exceptions.ColumnHasNoDefaultValueException;
 import com.axway.ats.environment.database.exceptions.DatabaseEnvironmentCleanupException;
@@ -93,105 +93,47 @@ class PostgreSqlEnvironmentHandler extends AbstractEnvironmentHandler {
         super(dbConnection, dbProvider);
     }
 
-    public void restore( String backupFileName ) throws DatabaseEnvironmentCleanupException {
-
-        BufferedReader backupReader = null;
-        Connection connection = null;
-
-        // used to preserve the initial auto commit option, as the connections are pooled
-        boolean isAutoCommit = true;
-
-        try {
-            LOG.info("Started restore of database backup from file '" + backupFileName + "'");
-
-            backupReader = new BufferedReader(new FileReader(new File(backupFileName)));
-            connection = ConnectionPool.getConnection(dbConnection);
+    @Override
+    protected boolean skipRestoreLine( String line ) {
 
-            isAutoCommit = connection.getAutoCommit();
-            connection.setAutoCommit(false);
+        if (line.startsWith("--")) {
+            LOG.debug("Skipping commented line: " + line);
+            return true;
+        }
+        return false;
+    }
 
-            StringBuilder sql = new StringBuilder();
-            String line = backupReader.readLine();
-            while (line != null) {
+    @Override
+    protected boolean supportsBulkFormat() {
 
-                if (line.startsWith("--")) {
-                    LOG.debug("Skipping commented line: " + line);
-                } else {
-                    sql.append(line);
-
-                    /*if (line.startsWith(DROP_TABLE_MARKER)) {
-                    
-                        String table = line.substring(DROP_TABLE_MARKER.length()).trim();
-                        String owner = table.substring(0, table.indexOf("."));
-                        String simpleTableName = table.substring(table.indexOf(".") + 1);
-                        dropAndRecreateTable(connection, simpleTableName, owner);
-                    
-                    }*/
-                    if (line.endsWith(EOL_MARKER)) {
-
-                        // remove the EOL marker
-                        sql.delete(sql.length() - EOL_MARKER.length(), sql.length());
-                        PreparedStatement updateStatement = connection.prepareStatement(sql.toString());
-                        if (LOG.isDebugEnabled()) {
-                            LOG.debug("About to execute restore SQL statement: " + sql.toString());
-                        }
+        return true;
+    }
 
-                        //catch the exception and roll back, otherwise we are locked
-                        try {
-                            updateStatement.execute();
-
-                        } catch (SQLException sqle) {
-                            //we have to roll back the transaction and re throw the exception
-                            connection.rollback();
-                            throw new SQLException("Error invoking restore statement: " + sql.toString(), sqle);
-                        } finally {
-                            try {
-                                updateStatement.close();
-                            } catch (SQLException sqle) {
-                                LOG.error("Unable to close prepared statement", sqle);
-                            }
-                        }
-                        sql.delete(0, sql.length());
-                    } else {
-                        // Add a new line.  Note: this code will add the current system line ending
-                        sql.append(AtsSystemProperties.SYSTEM_LINE_SEPARATOR);
-                    }
-                }
+    @Override
+    protected void writeBulkData( Connection connection, List<ColumnDescription> columns, DbTable dbTable,
+                                  OutputStream output ) throws SQLException, IOException {
 
-                line = backupReader.readLine();
-            }
+        // the binary format keeps the values exactly as they are stored, no conversion to text is needed
+        CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+        copyManager.copyOut("COPY (SELECT " + getColumnsString(columns) + " FROM " + getFullTableName(dbTable)
+                            + ") TO STDOUT (FORMAT binary)", output);
+    }
 
-            try {
-                //commit the transaction
-                connection.commit();
+    @Override
+    protected String getBulkLoadStatement( List<ColumnDescription> columns, DbTable dbTable ) {
 
-            } catch (SQLException sqle) {
-                //we have to roll back the transaction and re throw the exception
-                connection.rollback();
-                throw sqle;
-            }
+        return "COPY " + getFullTableName(dbTable) + " (" + getColumnsString(columns)
+               + ") FROM STDIN (FORMAT binary)";
+    }
 
-            LOG.info("Completed restore of database backup from file '" + backupFileName + "'");
+    @Override
+    protected void loadBulkData( Connection connection, String sql,
+                                 InputStream data ) throws SQLException, IOException {
 
-        } catch (IOException | DbException ex) {
-            throw new DatabaseEnvironmentCleanupException("Could not restore backup from file "
-                                                          + backupFileName, ex);
-        } catch (SQLException ex) {
-            throw new DatabaseEnvironmentCleanupException("Could not restore backup from file "
-                                                          + backupFileName
-                                                          + ".\n Details of full SQL exception follow: "
-                                                          + DbUtils.getFullSqlException("SQLException", ex));
-        } finally {
-            try {
-                IoUtils.closeStream(backupReader, "Could not close reader for backup file "
-                                                  + backupFileName);
-                if (connection != null) {
-                    connection.setAutoCommit(isAutoCommit);
-                    connection.close();
-                }
-            } catch (SQLException sqle) {
-                LOG.error("Could not reset autocommit state and close DB connection", sqle);
-            }
+        CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+        long rows = copyManager.copyIn(sql, data);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Loaded " + rows + " rows with: " + sql);
         }
     }
 
@@ -328,8 +270,10 @@ protected void writeBackupToFile( Writer fileWriter ) throws IOException,
             if (this.includeDeleteStatements) {
                 for (Entry<String, DbTable> entry : dbTables.entrySet()) {
                     if (!shouldDropTable(entry.getValue())) {
+                        startTableStatements(fileWriter, entry.getValue());
                         fileWriter.write("DELETE FROM " + getFullTableName(entry.getValue()) + ";" + EOL_MARKER
                                          + AtsSystemProperties.SYSTEM_LINE_SEPARATOR);
+                        endTableStatements(fileWriter);
                     }
                 }
 
@@ -381,18 +325,24 @@ protected void writeBackupToFile( Writer fileWriter ) throws IOException,
                 }
                 DbRecordValuesList[] records = new DbRecordValuesList[0];
                 if (!skipTableContent) {
-                    StringBuilder selectQuery = new StringBuilder();
-                    selectQuery.append("SELECT ");
-                    selectQuery.append(getColumnsString(columnsToSelect));
-                    selectQuery.append(" FROM ");
-                    selectQuery.append(getFullTableName(entry.getValue()));
-
-                    DbQuery query = new DbQuery(selectQuery.toString());
-                    // assuming not very large tables
-                    records = dbProvider.select(query, DbReturnModes.ESCAPED_STRING);
+                    // the bulk data is read when writing the table
+                    if (!isBulkFormatUsed()) {
+                        StringBuilder selectQuery = new StringBuilder();
+                        selectQuery.append("SELECT ");
+                        selectQuery.append(getColumnsString(columnsToSelect));
+                        selectQuery.append(" FROM ");
+                        selectQuery.append(getFullTableName(entry.getValue()));
+
+                        DbQuery query = new DbQuery(selectQuery.toString());
+                        // assuming not very large tables
+                        records = dbProvider.select(query, DbReturnModes.ESCAPED_STRING);
+                        addTableFingerprint(entry.getValue(), query, records);
+                    }
 
                     // lock table and write INSERT statements
+                    startTableStatements(fileWriter, entry.getValue());
                     writeTableToFile(columnsToSelect, entry.getValue(), records, fileWriter);
+                    endTableStatements(fileWriter);
 
                 }
             }
@@ -749,7 +699,9 @@ protected void writeTableToFile(
                              + AtsSystemProperties.SYSTEM_LINE_SEPARATOR);
         }
 
-        if (records.length > 0) {
+        if (isBulkFormatUsed()) {
+            writeBulkTableData(columns, table, fileWriter);
+        } else if (records.length > 0) {
 
             StringBuilder insertStatement = new StringBuilder();
 
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.environment.database;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Executes the statements of a backup file over one database connection.
+ * <br>The consecutive INSERT statements for the same table are sent together as a JDBC batch,
+ * all other statements are executed one by one in the order they come.
+ * <br>The statements which load a table from a bulk data file are executed by the environment handler.
+ * <br>The time spent for each table is added to the provided restore times.
+ */
+class RestoreStatementExecutor {
+
+    private static final Logger              log        = LogManager.getLogger(RestoreStatementExecutor.class);
+
+    // the maximum number of INSERT statements sent together
+    static final int                         BATCH_SIZE = 500;
+
+    private final Connection                 connection;
+    private final AbstractEnvironmentHandler handler;
+    // the bulk data files are next to the backup file
+    private final File                       backupDirectory;
+
+    // the time in nanoseconds and the number of statements per table, the key is null for
+    // the statements which are not about a single table
+    private final Map<String, long[]>        restoreTimes;
+
+    private Statement                        batchStatement;
+    private final List<String>               batch;
+    private String                           batchTable;
+
+    /**
+     * @param connection the database connection
+     * @param restoreTimes where to add the time spent for each table
+     * @param handler the environment handler which loads the bulk data files
+     * @param backupFileName the name of the restored backup file
+     */
+    RestoreStatementExecutor( Connection connection, Map<String, long[]> restoreTimes,
+                              AbstractEnvironmentHandler handler, String backupFileName ) {
+
+        this.connection = connection;
+        this.restoreTimes = restoreTimes;
+        this.handler = handler;
+        this.backupDirectory = new File(backupFileName).getAbsoluteFile().getParentFile();
+        this.batch = new ArrayList<>();
+    }
+
+    /**
+     * Execute a statement or add it to the current batch
+     *
+     * @param sql the statement
+     * @param table the full name of the table this statement is for, null if not known
+     * @throws SQLException on error executing this or some batched statement
+     */
+    void execute( String sql, String table ) throws SQLException {
+
+        boolean isInsert = sql.trim().startsWith("INSERT INTO");
+        if (!batch.isEmpty() && (!isInsert || !isSameTable(table) || batch.size() == BATCH_SIZE)) {
+            flush();
+        }
+
+        int bulkDataMarkerIndex = sql.indexOf(AbstractEnvironmentHandler.BULK_DATA_MARKER);
+        if (bulkDataMarkerIndex >= 0) {
+            loadBulkData(sql.substring(0, bulkDataMarkerIndex),
+                         sql.substring(bulkDataMarkerIndex + AbstractEnvironmentHandler.BULK_DATA_MARKER.length())
+                            .trim(),
+                         table);
+            return;
+        }
+
+        if (isInsert) {
+            if (batchStatement == null) {
+                batchStatement = connection.createStatement();
+            }
+            batchStatement.addBatch(sql);
+            batch.add(sql);
+            batchTable = table;
+            return;
+        }
+
+        if (log.isTraceEnabled()) {
+            log.trace("Executing SQL query: " + sql);
+        }
+        long startTime = System.nanoTime();
+        PreparedStatement updateStatement = connection.prepareStatement(sql);
+        try {
+            updateStatement.execute();
+        } catch (SQLException sqle) {
+            throw new SQLException("Error invoking restore statement: " + sql, sqle);
+        } finally {
+            closeStatement(updateStatement);
+        }
+        addRestoreTime(table, 1, System.nanoTime() - startTime);
+    }
+
+    /**
+     * Execute the statements in the current batch
+     *
+     * @throws SQLException on error executing some of the statements
+     */
+    void flush() throws SQLException {
+
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        if (log.isTraceEnabled()) {
+            log.trace("Executing a batch of " + batch.size() + " SQL queries, the first one is: " + batch.get(0));
+        }
+        long startTime = System.nanoTime();
+        try {
+            batchStatement.executeBatch();
+        } catch (BatchUpdateException bue) {
+            throw new SQLException("Error invoking a batch of " + batch.size()
+                                   + " restore statements, probably on statement: "
+                                   + batch.get(getFailedStatement(bue)), bue);
+        }
+        addRestoreTime(batchTable, batch.size(), System.nanoTime() - startTime);
+
+        batch.clear();
+        batchTable = null;
+    }
+
+    private void loadBulkData( String sql, String dataFileName, String table ) throws SQLException {
+
+        File dataFile = new File(backupDirectory, dataFileName);
+        if (log.isTraceEnabled()) {
+            log.trace("Executing SQL query: " + sql + " with data from file '" + dataFile + "'");
+        }
+        long startTime = System.nanoTime();
+        try {
+            handler.loadBulkTableData(connection, sql, dataFile);
+        } catch (IOException ioe) {
+            throw new SQLException("Error reading bulk data file '" + dataFile + "' for restore statement: " + sql,
+                                   ioe);
+        } catch (SQLException sqle) {
+            throw new SQLException("Error invoking restore statement: " + sql + " with data from file '"
+                                   + dataFile + "'", sqle);
+        }
+        addRestoreTime(table, 1, System.nanoTime() - startTime);
+    }
+
+    /**
+     * Release the resources used for batching. The statements which are still in the batch are not executed.
+     */
+    void close() {
+
+        batch.clear();
+        if (batchStatement != null) {
+            closeStatement(batchStatement);
+            batchStatement = null;
+        }
+    }
+
+    private void closeStatement( Statement statement ) {
+
+        try {
+            statement.close();
+        } catch (SQLException sqle) {
+            log.error("Unable to close statement", sqle);
+        }
+    }
+
+    private int getFailedStatement( BatchUpdateException bue ) {
+
+        int[] updateCounts = bue.getUpdateCounts();
+        if (updateCounts == null) {
+            return 0;
+        }
+        // some drivers continue after a failed statement, others stop at the first one
+        for (int i = 0; i < updateCounts.length; i++) {
+            if (updateCounts[i] == Statement.EXECUTE_FAILED) {
+                return i;
+            }
+        }
+        return updateCounts.length < batch.size()
+                                                  ? updateCounts.length
+                                                  : 0;
+    }
+
+    private boolean isSameTable( String table ) {
+
+        return table == null
+                             ? batchTable == null
+                             : table.equals(batchTable);
+    }
+
+    private void addRestoreTime( String table, int statements, long time ) {
+
+        synchronized (restoreTimes) {
+            long[] restoreTime = restoreTimes.get(table);
+            if (restoreTime == null) {
+                restoreTime = new long[2];
+                restoreTimes.put(table, restoreTime);
+            }
+            restoreTime[0] += time;
+            restoreTime[1] += statements;
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2017 Axway Software
+ * Copyright 2017-2021 Axway Software
  * 
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -85,6 +85,15 @@ public void setLockTables(
      */
     public void setSkipTablesContent( boolean skipTablesContent );
 
+    /**
+     * Choose whether to back up the tables' content in the native bulk format of the database,
+     * instead of INSERT statements - default value is false. The content of each table is kept in
+     * a compressed file next to the backup file. Databases without such format always use INSERT statements.
+     * 
+     * @param useBulkFormat - true to use the bulk format, false otherwise
+     */
+    public void setUseBulkFormat( boolean useBulkFormat );
+
     /**
      * Create the database backup for the selected tables
      * 
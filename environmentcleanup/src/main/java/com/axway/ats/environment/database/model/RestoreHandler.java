@@ -1,5 +1,5 @@
 /*
- * Copyright 2017 Axway Software
+ * Copyright 2017-2021 Axway Software
  * 
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -33,6 +33,28 @@ public interface RestoreHandler {
     public void restore(
                          String backupFileName ) throws DatabaseEnvironmentCleanupException;
 
+    /**
+     * Restore only the tables which were changed since the backup was created.
+     * All tables are restored when it cannot be told which ones are changed.
+     * 
+     * @param backupFileName                        the name of the backup file
+     * @return                                      false if no table had to be restored
+     * @throws DatabaseEnvironmentCleanupException  if the backup file cannot be restored
+     */
+    public boolean restoreChangedTables(
+                                         String backupFileName ) throws DatabaseEnvironmentCleanupException;
+
+    /**
+     * Set the number of database connections used to restore the tables in parallel.
+     * The tables are restored in parallel only when the foreign key checks are disabled in the backup,
+     * no table is dropped and the database supports it. Each table is restored in its own transaction then,
+     * so a failed restore is not rolled back as a whole.
+     * 
+     * @param connections the number of connections, 1 means that all tables are restored in one transaction
+     */
+    public void setParallelRestoreConnections(
+                                               int connections );
+
     /**
      * Release the database connection
      */
@@ -0,0 +1,381 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.environment.database;
+
+import static org.easymock.EasyMock.anyString;
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.getCurrentArguments;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.easymock.IAnswer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.axway.ats.core.dbaccess.ColumnDescription;
+import com.axway.ats.core.dbaccess.ConnectionPool;
+import com.axway.ats.core.dbaccess.DbRecordValuesList;
+import com.axway.ats.core.dbaccess.mysql.DbConnMySQL;
+import com.axway.ats.environment.BaseTest;
+import com.axway.ats.environment.database.exceptions.DatabaseEnvironmentCleanupException;
+import com.axway.ats.environment.database.model.DbTable;
+
+/**
+ * Restores a backup of three tables over mocked connections. The calls to each connection
+ * are recorded in the order they are made.
+ */
+public class Test_AbstractEnvironmentHandler extends BaseTest {
+
+    private static final String  FOREIGN_KEY_CHECKS_OFF = "SET FOREIGN_KEY_CHECKS = 0";
+    private static final String  FOREIGN_KEY_CHECKS_ON  = "SET FOREIGN_KEY_CHECKS = 1";
+
+    private static int           numberOfDatabases;
+
+    private File                 backupFile;
+    private DbConnMySQL          dbConnection;
+
+    // the calls to each connection in the order the connections are taken from the pool,
+    // as 'execute <sql>' for a statement executed on its own and 'batch <sql>' for a batched one
+    private List<List<String>>   connectionsCalls;
+    // the batched statements of this table fail
+    private String               failingTable;
+
+    @Before
+    public void setUp() throws Exception {
+
+        backupFile = File.createTempFile("ats_backup", ".sql");
+        connectionsCalls = Collections.synchronizedList(new ArrayList<List<String>>());
+        failingTable = null;
+
+        final DataSource dataSource = createNiceMock(DataSource.class);
+        expect(dataSource.getConnection("user", "password")).andAnswer(new IAnswer<Connection>() {
+
+            @Override
+            public Connection answer() throws SQLException {
+
+                return newConnection();
+            }
+        }).anyTimes();
+        replay(dataSource);
+
+        // a new database each time, so the connection pool does not keep the data source of another test
+        dbConnection = new DbConnMySQL("localhost", "restore_db_" + (++numberOfDatabases), "user", "password") {
+
+            @Override
+            public DataSource getDataSource() {
+
+                return dataSource;
+            }
+        };
+    }
+
+    @After
+    public void tearDown() {
+
+        ConnectionPool.removeConnection(dbConnection);
+        BackupIndex.delete(backupFile.getPath());
+        backupFile.delete();
+    }
+
+    @Test
+    public void independentTablesAreRestoredInParallel() throws Exception {
+
+        writeBackup(true);
+        newEnvironmentHandler(2).restore(backupFile.getPath());
+
+        // the main connection and one for each restoring thread
+        assertEquals(3, connectionsCalls.size());
+        assertEquals(Arrays.asList("execute " + FOREIGN_KEY_CHECKS_OFF, "commit", "execute " + FOREIGN_KEY_CHECKS_ON,
+                                   "commit", "close"),
+                     connectionsCalls.get(0));
+
+        // each table is restored in its own transaction
+        Set<List<String>> transactions = new HashSet<>();
+        for (List<String> calls : connectionsCalls.subList(1, 3)) {
+            assertEquals("prepare", calls.get(0));
+            assertEquals(Arrays.asList("reset", "close"), calls.subList(calls.size() - 2, calls.size()));
+
+            List<String> transaction = new ArrayList<>();
+            for (String call : calls.subList(1, calls.size() - 2)) {
+                if (call.equals("commit")) {
+                    assertTrue(transactions.add(transaction));
+                    transaction = new ArrayList<>();
+                } else {
+                    transaction.add(call);
+                }
+            }
+            assertTrue(transaction.isEmpty());
+        }
+        assertEquals(new HashSet<>(Arrays.asList(getTableCalls("table1"), getTableCalls("table2"),
+                                                 getTableCalls("table3"))),
+                     transactions);
+    }
+
+    @Test
+    public void failedTableIsRolledBack() throws Exception {
+
+        writeBackup(true);
+        failingTable = "table2";
+        try {
+            newEnvironmentHandler(2).restore(backupFile.getPath());
+            fail("The restore must fail");
+        } catch (DatabaseEnvironmentCleanupException e) {
+            assertEquals("Could not restore table table2", e.getCause().getMessage());
+        }
+
+        // the second thread may not start at all, once the first one failed
+        int connections = connectionsCalls.size();
+        assertTrue(String.valueOf(connections), connections == 2 || connections == 3);
+        // the foreign key checks are enabled again
+        assertEquals(Arrays.asList("execute " + FOREIGN_KEY_CHECKS_OFF, "commit", "execute " + FOREIGN_KEY_CHECKS_ON,
+                                   "commit", "close"),
+                     connectionsCalls.get(0));
+
+        boolean isRolledBack = false;
+        for (List<String> calls : connectionsCalls.subList(1, connections)) {
+            int rollbackIndex = calls.indexOf("rollback");
+            if (rollbackIndex >= 0) {
+                isRolledBack = true;
+                // the INSERT statements are not sent
+                assertEquals("execute DELETE FROM table2", calls.get(rollbackIndex - 1));
+            }
+            // the connections go back to the pool without the restore settings
+            assertEquals(Arrays.asList("reset", "close"), calls.subList(calls.size() - 2, calls.size()));
+        }
+        assertTrue(isRolledBack);
+    }
+
+    @Test
+    public void dependentTablesAreRestoredInOneTransaction() throws Exception {
+
+        writeBackup(false);
+        newEnvironmentHandler(2).restore(backupFile.getPath());
+
+        assertEquals(1, connectionsCalls.size());
+        List<String> expectedCalls = new ArrayList<>();
+        expectedCalls.add("execute " + FOREIGN_KEY_CHECKS_OFF);
+        expectedCalls.addAll(getTableCalls("table1"));
+        expectedCalls.addAll(getTableCalls("table2"));
+        expectedCalls.addAll(getTableCalls("table3"));
+        expectedCalls.addAll(Arrays.asList("execute " + FOREIGN_KEY_CHECKS_ON, "commit", "close"));
+        assertEquals(expectedCalls, connectionsCalls.get(0));
+    }
+
+    private void writeBackup( boolean independentTables ) throws IOException {
+
+        BackupIndex backupIndex = new BackupIndex();
+        try (BackupFileWriter fileWriter = new BackupFileWriter(new FileWriter(backupFile), backupIndex)) {
+            writeStatement(fileWriter, FOREIGN_KEY_CHECKS_OFF);
+            for (int i = 1; i <= 3; i++) {
+                fileWriter.startTable("table" + i);
+                writeStatement(fileWriter, "DELETE FROM table" + i);
+                writeStatement(fileWriter, "INSERT INTO table" + i + " VALUES(1)");
+                writeStatement(fileWriter, "INSERT INTO table" + i + " VALUES(2)");
+                fileWriter.endTable();
+            }
+            writeStatement(fileWriter, FOREIGN_KEY_CHECKS_ON);
+        }
+        backupIndex.setIndependentTables(independentTables);
+        backupIndex.save(backupFile.getPath());
+    }
+
+    private void writeStatement( Writer fileWriter, String sql ) throws IOException {
+
+        fileWriter.write(sql + AbstractEnvironmentHandler.EOL_MARKER + "\n");
+    }
+
+    private List<String> getTableCalls( String table ) {
+
+        return Arrays.asList("execute DELETE FROM " + table, "batch INSERT INTO " + table + " VALUES(1)",
+                             "batch INSERT INTO " + table + " VALUES(2)");
+    }
+
+    private AbstractEnvironmentHandler newEnvironmentHandler( int parallelRestoreConnections ) {
+
+        AbstractEnvironmentHandler handler = new AbstractEnvironmentHandler(dbConnection, null) {
+
+            @Override
+            protected boolean supportsParallelRestore() {
+
+                return true;
+            }
+
+            @Override
+            protected void prepareParallelRestoreConnection( Connection connection ) throws SQLException {
+
+                getCalls(connection).add("prepare");
+            }
+
+            @Override
+            protected void resetParallelRestoreConnection( Connection connection ) throws SQLException {
+
+                getCalls(connection).add("reset");
+            }
+
+            @Override
+            protected void writeTableToFile( List<ColumnDescription> columnsToSelect, DbTable dbTable,
+                                             DbRecordValuesList[] records, Writer fileWriter ) {
+
+            }
+
+            @Override
+            protected List<ColumnDescription> getColumnsToSelect( DbTable dbTable, String userName ) {
+
+                return null;
+            }
+
+            @Override
+            protected String disableForeignKeyChecksStart() {
+
+                return null;
+            }
+
+            @Override
+            protected String disableForeignKeyChecksEnd() {
+
+                return null;
+            }
+
+            @Override
+            protected void writeDeleteStatements( Writer fileWriter ) {
+
+            }
+        };
+        handler.setParallelRestoreConnections(parallelRestoreConnections);
+        return handler;
+    }
+
+    private List<String> getCalls( Connection connection ) {
+
+        // each mocked connection returns its calls as its catalog
+        try {
+            return connectionsCalls.get(Integer.parseInt(connection.getCatalog()));
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private Connection newConnection() throws SQLException {
+
+        final List<String> calls = new ArrayList<>();
+        final List<String> batch = new ArrayList<>();
+        String catalog;
+        synchronized (connectionsCalls) {
+            catalog = String.valueOf(connectionsCalls.size());
+            connectionsCalls.add(calls);
+        }
+
+        Statement batchStatement = createNiceMock(Statement.class);
+        batchStatement.addBatch(anyString());
+        expectLastCall().andAnswer(new IAnswer<Void>() {
+
+            @Override
+            public Void answer() {
+
+                batch.add((String) getCurrentArguments()[0]);
+                return null;
+            }
+        }).anyTimes();
+        expect(batchStatement.executeBatch()).andAnswer(new IAnswer<int[]>() {
+
+            @Override
+            public int[] answer() throws SQLException {
+
+                for (String sql : batch) {
+                    if (failingTable != null && sql.startsWith("INSERT INTO " + failingTable + " ")) {
+                        throw new BatchUpdateException("Duplicate entry", new int[0]);
+                    }
+                }
+                int[] updateCounts = new int[batch.size()];
+                for (String sql : batch) {
+                    calls.add("batch " + sql);
+                }
+                batch.clear();
+                return updateCounts;
+            }
+        }).anyTimes();
+        replay(batchStatement);
+
+        Connection connection = createNiceMock(Connection.class);
+        expect(connection.getCatalog()).andReturn(catalog).anyTimes();
+        expect(connection.getAutoCommit()).andReturn(true).anyTimes();
+        expect(connection.createStatement()).andReturn(batchStatement).anyTimes();
+        expect(connection.prepareStatement(anyString())).andAnswer(new IAnswer<PreparedStatement>() {
+
+            @Override
+            public PreparedStatement answer() throws SQLException {
+
+                final String sql = (String) getCurrentArguments()[0];
+                PreparedStatement statement = createNiceMock(PreparedStatement.class);
+                expect(statement.execute()).andAnswer(new IAnswer<Boolean>() {
+
+                    @Override
+                    public Boolean answer() {
+
+                        calls.add("execute " + sql);
+                        return false;
+                    }
+                });
+                replay(statement);
+                return statement;
+            }
+        }).anyTimes();
+        connection.commit();
+        expectLastCall().andAnswer(newCallRecorder(calls, "commit")).anyTimes();
+        connection.rollback();
+        expectLastCall().andAnswer(newCallRecorder(calls, "rollback")).anyTimes();
+        connection.close();
+        expectLastCall().andAnswer(newCallRecorder(calls, "close")).anyTimes();
+        replay(connection);
+        return connection;
+    }
+
+    private IAnswer<Void> newCallRecorder( final List<String> calls, final String call ) {
+
+        return new IAnswer<Void>() {
+
+            @Override
+            public Void answer() {
+
+                calls.add(call);
+                return null;
+            }
+        };
+    }
+}
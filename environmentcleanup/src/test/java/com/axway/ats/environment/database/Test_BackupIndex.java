@@ -0,0 +1,185 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.environment.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.axway.ats.core.dbaccess.DbRecordValue;
+import com.axway.ats.core.dbaccess.DbRecordValuesList;
+import com.axway.ats.environment.BaseTest;
+
+public class Test_BackupIndex extends BaseTest {
+
+    private File backupFile;
+
+    @Before
+    public void setUp() throws IOException {
+
+        backupFile = File.createTempFile("ats_backup", ".sql");
+    }
+
+    @After
+    public void tearDown() {
+
+        BackupIndex.delete(backupFile.getPath());
+        backupFile.delete();
+    }
+
+    @Test
+    public void sectionsOfNestedTables() throws IOException {
+
+        BackupIndex backupIndex = new BackupIndex();
+        StringWriter backup = new StringWriter();
+        try (BackupFileWriter fileWriter = new BackupFileWriter(backup, backupIndex)) {
+            fileWriter.write("SET FOREIGN_KEY_CHECKS = 0;\n");
+
+            fileWriter.startTable("table1");
+            // the DELETE statements for all tables come with the first table
+            fileWriter.startTable("table2");
+            fileWriter.write("DELETE FROM table2;\r\n");
+            fileWriter.endTable();
+            fileWriter.write("DELETE FROM table1;\r\n");
+            fileWriter.write("INSERT INTO table1 VALUES('multi\nline');\n");
+            fileWriter.endTable();
+
+            fileWriter.startTable("table2");
+            fileWriter.write("INSERT INTO table2 VALUES(1);\n");
+            fileWriter.endTable();
+
+            fileWriter.write("SET FOREIGN_KEY_CHECKS = 1;\n");
+        }
+
+        assertEquals(new HashSet<>(Arrays.asList("table1", "table2")), new HashSet<>(backupIndex.getTables()));
+        assertSections(backupIndex.getSections(Arrays.asList("table1")), 2, 5);
+        assertSections(backupIndex.getSections(Arrays.asList("table2")), 1, 2, 5, 6);
+        assertNull(backupIndex.getTableAt(0));
+        assertEquals("table2", backupIndex.getTableAt(1));
+        assertEquals("table1", backupIndex.getTableAt(2));
+        assertEquals("table1", backupIndex.getTableAt(4));
+        assertEquals("table2", backupIndex.getTableAt(5));
+        assertNull(backupIndex.getTableAt(6));
+
+        // skip table 1
+        assertEquals(Arrays.asList("SET FOREIGN_KEY_CHECKS = 0;", "DELETE FROM table2;",
+                                   "INSERT INTO table2 VALUES(1);", "SET FOREIGN_KEY_CHECKS = 1;"),
+                     readLines(backup.toString(), backupIndex.getSections(Arrays.asList("table1"))));
+
+        // skip table 2
+        assertEquals(Arrays.asList("SET FOREIGN_KEY_CHECKS = 0;", "DELETE FROM table1;",
+                                   "INSERT INTO table1 VALUES('multi", "line');",
+                                   "SET FOREIGN_KEY_CHECKS = 1;"),
+                     readLines(backup.toString(), backupIndex.getSections(Arrays.asList("table2"))));
+    }
+
+    @Test
+    public void saveAndLoad() throws IOException {
+
+        assertNull(BackupIndex.load(backupFile.getPath()));
+
+        BackupIndex backupIndex = new BackupIndex();
+        backupIndex.addSection("table1", 0, 3);
+        backupIndex.addSection("table1", 7, 9);
+        backupIndex.setFingerprint("table1", "SELECT * FROM table1", "2:abc");
+        backupIndex.addSection("table2", 3, 7);
+        backupIndex.setIndependentTables(true);
+        backupIndex.save(backupFile.getPath());
+
+        backupIndex = BackupIndex.load(backupFile.getPath());
+        assertEquals(Arrays.asList("table1", "table2"), new ArrayList<>(backupIndex.getTables()));
+        assertSections(backupIndex.getSections(Arrays.asList("table1")), 0, 3, 7, 9);
+        assertSections(backupIndex.getSections(Arrays.asList("table2")), 3, 7);
+        assertEquals("SELECT * FROM table1", backupIndex.getQuery("table1"));
+        assertEquals("2:abc", backupIndex.getFingerprint("table1"));
+        // table 2 is always restored
+        assertNull(backupIndex.getQuery("table2"));
+        assertNull(backupIndex.getFingerprint("table2"));
+        assertTrue(backupIndex.areIndependentTables());
+
+        BackupIndex.delete(backupFile.getPath());
+        assertNull(BackupIndex.load(backupFile.getPath()));
+    }
+
+    @Test
+    public void fingerprint() {
+
+        DbRecordValuesList row1 = row("1", "first");
+        DbRecordValuesList row2 = row("2", "second");
+
+        String fingerprint = BackupIndex.getFingerprint(new DbRecordValuesList[]{ row1, row2 });
+        assertEquals(fingerprint, BackupIndex.getFingerprint(new DbRecordValuesList[]{ row2, row1 }));
+        assertEquals("0:0", BackupIndex.getFingerprint(new DbRecordValuesList[0]));
+
+        assertFalse(fingerprint.equals(BackupIndex.getFingerprint(new DbRecordValuesList[]{ row1,
+                                                                                             row("2",
+                                                                                                 "changed") })));
+        assertFalse(fingerprint.equals(BackupIndex.getFingerprint(new DbRecordValuesList[]{ row1 })));
+        // the values are not simply concatenated
+        assertFalse(BackupIndex.getFingerprint(new DbRecordValuesList[]{ row("12", "3") })
+                               .equals(BackupIndex.getFingerprint(new DbRecordValuesList[]{ row("1",
+                                                                                                "23") })));
+    }
+
+    private DbRecordValuesList row( String... values ) {
+
+        DbRecordValuesList row = new DbRecordValuesList();
+        for (int i = 0; i < values.length; i++) {
+            row.add(new DbRecordValue("table", "column" + i, values[i]));
+        }
+        return row;
+    }
+
+    private List<String> readLines( String backup, List<int[]> skippedSections ) throws IOException {
+
+        List<String> lines = new ArrayList<>();
+        try (BackupFileReader fileReader = new BackupFileReader(new StringReader(backup), skippedSections)) {
+            String line;
+            while ( (line = fileReader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    private void assertSections( List<int[]> sections, int... lines ) {
+
+        List<Integer> actualLines = new ArrayList<>();
+        for (int[] section : sections) {
+            actualLines.add(section[0]);
+            actualLines.add(section[1]);
+        }
+        List<Integer> expectedLines = new ArrayList<>();
+        for (int line : lines) {
+            expectedLines.add(line);
+        }
+        assertEquals(expectedLines, actualLines);
+    }
+}
@@ -90,6 +90,7 @@ public void createBackupMysql() throws EnvironmentCleanupException, IOException
 		mockBackupHandler.setLockTables(true);
 		mockBackupHandler.setDropTables(false);
 		mockBackupHandler.setSkipTablesContent(false);
+		mockBackupHandler.setUseBulkFormat(false);
 		mockBackupHandler.setForeignKeyCheck(true);
 		mockBackupHandler.setIncludeDeleteStatements(true);
 		mockBackupHandler.addTable(table1);
@@ -126,22 +127,59 @@ public void executeRestore() throws EnvironmentCleanupException, IOException {
 		expect(EnvironmentHandlerFactory.getInstance()).andReturn(mockFactory);
         
         expect(mockFactory.createDbRestoreHandler(mockDbConnection)).andReturn(mockRestoreHandler);
+        mockRestoreHandler.setParallelRestoreConnections(1);
+        expect(mockRestoreHandler.restoreChangedTables(tempFile.getCanonicalPath())).andReturn(false);
+        mockRestoreHandler.disconnect();
+
+        replay(EnvironmentHandlerFactory.class);
+        replay(mockFactory);
+        replay(mockRestoreHandler);
+
+        DatabaseEnvironmentUnit dbEnvironmentUnit = new DatabaseEnvironmentUnit(tempFile.getParentFile()
+                                                                                        .getCanonicalPath(),
+                                                                                tempFile.getName(),
+                                                                                mockDbConnection,
+                                                                                tables);
+        assertEquals(false, dbEnvironmentUnit.executeRestoreIfNecessary());
+
+        verify(mockFactory);
+        verify(mockRestoreHandler);
+    }
+
+    @Test
+    public void executeRestoreOfAllTables() throws EnvironmentCleanupException, IOException {
+
+        //temp file is created and it exists, so backup will not be triggered
+        DbTable table1 = new DbTable("table1");
+        DbTable table2 = new DbTable("table2");
+
+        List<DbTable> tables = new ArrayList<DbTable>();
+        tables.add(table1);
+        tables.add(table2);
+
+        mockFactory = createMock(EnvironmentHandlerFactory.class);
+		mockStatic(EnvironmentHandlerFactory.class);
+		expect(EnvironmentHandlerFactory.getInstance()).andReturn(mockFactory);
+        
+        expect(mockFactory.createDbRestoreHandler(mockDbConnection)).andReturn(mockRestoreHandler);
+        mockRestoreHandler.setParallelRestoreConnections(1);
         mockRestoreHandler.restore(tempFile.getCanonicalPath());
         mockRestoreHandler.disconnect();
 
         replay(EnvironmentHandlerFactory.class);
         replay(mockFactory);
-        replay(mockBackupHandler);
+        replay(mockRestoreHandler);
 
         DatabaseEnvironmentUnit dbEnvironmentUnit = new DatabaseEnvironmentUnit(tempFile.getParentFile()
                                                                                         .getCanonicalPath(),
                                                                                 tempFile.getName(),
                                                                                 mockDbConnection,
                                                                                 tables);
-        dbEnvironmentUnit.executeRestoreIfNecessary();
+        dbEnvironmentUnit.setRestoreOnlyChangedTables(false);
+        assertEquals(true, dbEnvironmentUnit.executeRestoreIfNecessary());
 
         verify(mockFactory);
-        verify(mockBackupHandler);
+        verify(mockRestoreHandler);
     }
 
     @Test
@@ -28,6 +28,7 @@
 import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.List;
@@ -434,11 +435,13 @@ public void restoreBackupPositive() throws DatabaseEnvironmentCleanupException,
         expect(mockStatement3.execute()).andReturn(true);
         mockStatement3.close();
 
-        PreparedStatement mockStatement4 = createMock(PreparedStatement.class);
-        expect(mockConnection.prepareStatement("INSERT INTO `Revision` (id,SchemaVersion,STVersion,InstallDate) "
-                                               + LINE_SEPARATOR
-                                               + "VALUES(1,2,'4.9  206','2008-11-27 12:35:49.0');")).andReturn(mockStatement4);
-        expect(mockStatement4.execute()).andReturn(true);
+        // the INSERT statements are sent in a batch
+        Statement mockStatement4 = createMock(Statement.class);
+        expect(mockConnection.createStatement()).andReturn(mockStatement4);
+        mockStatement4.addBatch("INSERT INTO `Revision` (id,SchemaVersion,STVersion,InstallDate) "
+                                + LINE_SEPARATOR
+                                + "VALUES(1,2,'4.9  206','2008-11-27 12:35:49.0');");
+        expect(mockStatement4.executeBatch()).andReturn(new int[]{ 1 });
         mockStatement4.close();
 
         PreparedStatement mockStatement5 = createMock(PreparedStatement.class);
@@ -496,11 +499,13 @@ public void restoreBackupNegativeExceptionThrownOnExecuteBatch()
         expect(mockStatement3.execute()).andReturn(true);
         mockStatement3.close();
 
-        PreparedStatement mockStatement4 = createMock(PreparedStatement.class);
-        expect(mockConnection.prepareStatement("INSERT INTO `Revision` (id,SchemaVersion,STVersion,InstallDate) "
-                                               + LINE_SEPARATOR
-                                               + "VALUES(1,2,'4.9  206','2008-11-27 12:35:49.0');")).andReturn(mockStatement4);
-        expect(mockStatement4.execute()).andReturn(true);
+        // the INSERT statements are sent in a batch
+        Statement mockStatement4 = createMock(Statement.class);
+        expect(mockConnection.createStatement()).andReturn(mockStatement4);
+        mockStatement4.addBatch("INSERT INTO `Revision` (id,SchemaVersion,STVersion,InstallDate) "
+                                + LINE_SEPARATOR
+                                + "VALUES(1,2,'4.9  206','2008-11-27 12:35:49.0');");
+        expect(mockStatement4.executeBatch()).andReturn(new int[]{ 1 });
         mockStatement4.close();
 
         PreparedStatement mockStatement5 = createMock(PreparedStatement.class);
@@ -22,12 +22,16 @@
 import static org.powermock.api.easymock.PowerMock.replayAll;
 import static org.powermock.api.easymock.PowerMock.verifyAll;
 
+import java.io.ByteArrayOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.List;
@@ -42,9 +46,11 @@
 
 import com.axway.ats.common.dbaccess.DbQuery;
 import com.axway.ats.common.systemproperties.AtsSystemProperties;
+import com.axway.ats.core.dbaccess.ColumnDescription;
 import com.axway.ats.core.dbaccess.DbRecordValue;
 import com.axway.ats.core.dbaccess.DbRecordValuesList;
 import com.axway.ats.core.dbaccess.DbReturnModes;
+import com.axway.ats.core.dbaccess.MysqlColumnDescription;
 import com.axway.ats.core.dbaccess.exceptions.DbException;
 import com.axway.ats.core.dbaccess.mysql.DbConnMySQL;
 import com.axway.ats.core.dbaccess.mysql.MysqlDbProvider;
@@ -434,11 +440,13 @@ public void restoreBackupPositive() throws DatabaseEnvironmentCleanupException,
         expect(mockStatement3.execute()).andReturn(true);
         mockStatement3.close();
 
-        PreparedStatement mockStatement4 = createMock(PreparedStatement.class);
-        expect(mockConnection.prepareStatement("INSERT INTO `Revision` (id,SchemaVersion,STVersion,InstallDate) "
-                                               + LINE_SEPARATOR
-                                               + "VALUES(1,2,'4.9  206','2008-11-27 12:35:49.0');")).andReturn(mockStatement4);
-        expect(mockStatement4.execute()).andReturn(true);
+        // the INSERT statements are sent in a batch
+        Statement mockStatement4 = createMock(Statement.class);
+        expect(mockConnection.createStatement()).andReturn(mockStatement4);
+        mockStatement4.addBatch("INSERT INTO `Revision` (id,SchemaVersion,STVersion,InstallDate) "
+                                + LINE_SEPARATOR
+                                + "VALUES(1,2,'4.9  206','2008-11-27 12:35:49.0');");
+        expect(mockStatement4.executeBatch()).andReturn(new int[]{ 1 });
         mockStatement4.close();
 
         PreparedStatement mockStatement5 = createMock(PreparedStatement.class);
@@ -496,11 +504,13 @@ public void restoreBackupNegativeExceptionThrownOnExecuteBatch()
         expect(mockStatement3.execute()).andReturn(true);
         mockStatement3.close();
 
-        PreparedStatement mockStatement4 = createMock(PreparedStatement.class);
-        expect(mockConnection.prepareStatement("INSERT INTO `Revision` (id,SchemaVersion,STVersion,InstallDate) "
-                                               + LINE_SEPARATOR
-                                               + "VALUES(1,2,'4.9  206','2008-11-27 12:35:49.0');")).andReturn(mockStatement4);
-        expect(mockStatement4.execute()).andReturn(true);
+        // the INSERT statements are sent in a batch
+        Statement mockStatement4 = createMock(Statement.class);
+        expect(mockConnection.createStatement()).andReturn(mockStatement4);
+        mockStatement4.addBatch("INSERT INTO `Revision` (id,SchemaVersion,STVersion,InstallDate) "
+                                + LINE_SEPARATOR
+                                + "VALUES(1,2,'4.9  206','2008-11-27 12:35:49.0');");
+        expect(mockStatement4.executeBatch()).andReturn(new int[]{ 1 });
         mockStatement4.close();
 
         PreparedStatement mockStatement5 = createMock(PreparedStatement.class);
@@ -542,4 +552,85 @@ public void escapeSQL() throws DatabaseEnvironmentCleanupException, DbException,
 
         verifyAll();
     }
+
+    @Test
+    public void bulkLoadStatement() throws DbException, SQLException {
+
+        expect(mockDbProvider.getConnection()).andReturn(mockConnection);
+        expect(mockConnection.getMetaData()).andReturn(metaData);
+        expect(metaData.getDriverMajorVersion()).andReturn(5);
+        expect(metaData.getDriverMinorVersion()).andReturn(1);
+
+        replayAll();
+
+        List<ColumnDescription> columns = new ArrayList<ColumnDescription>();
+        columns.add(new MysqlColumnDescription("name1", "varchar(32)"));
+        columns.add(new MysqlColumnDescription("name2", "bit(1)"));
+        columns.add(new MysqlColumnDescription("name3", "blob"));
+
+        MysqlEnvironmentHandler envHandler = new MysqlEnvironmentHandler(mockDbConnection, mockDbProvider);
+
+        // the binary values are loaded from hex
+        Assert.assertEquals("LOAD DATA LOCAL INFILE 'ats_bulk_data' INTO TABLE `table1` CHARACTER SET utf8mb4 "
+                            + "(name1,@hex1,@hex2) SET name2 = UNHEX(@hex1),name3 = UNHEX(@hex2)",
+                            envHandler.getBulkLoadStatement(columns, new DbTable("table1")));
+
+        verifyAll();
+    }
+
+    @Test
+    public void bulkData() throws DbException, SQLException, IOException {
+
+        expect(mockDbProvider.getConnection()).andReturn(mockConnection);
+        expect(mockConnection.getMetaData()).andReturn(metaData);
+        expect(metaData.getDriverMajorVersion()).andReturn(5);
+        expect(metaData.getDriverMinorVersion()).andReturn(1);
+
+        ResultSet mockResultSet = createMock(ResultSet.class);
+        expect(mockConnection.createStatement(ResultSet.TYPE_FORWARD_ONLY,
+                                              ResultSet.CONCUR_READ_ONLY)).andReturn(mockStatement);
+        mockStatement.setFetchSize(Integer.MIN_VALUE);
+        expect(mockStatement.executeQuery("SELECT name1,name2,name3,name4 FROM table1")).andReturn(mockResultSet);
+
+        // the separators and escape characters of LOAD DATA, NULL values, bit and binary values
+        expect(mockResultSet.next()).andReturn(true);
+        expect(mockResultSet.getString(1)).andReturn("tab\there\nnew line\\back slash\rreturn\0zero");
+        expect(mockResultSet.getString(2)).andReturn(null);
+        expect(mockResultSet.getBytes(3)).andReturn(new byte[]{ 1 });
+        expect(mockResultSet.getBytes(4)).andReturn(new byte[]{ 0, (byte) 0xFF, '\t', '\\' });
+        // a text which looks like the NULL marker, an empty binary value
+        expect(mockResultSet.next()).andReturn(true);
+        expect(mockResultSet.getString(1)).andReturn("\\N");
+        expect(mockResultSet.getString(2)).andReturn("plain text");
+        expect(mockResultSet.getBytes(3)).andReturn(null);
+        expect(mockResultSet.getBytes(4)).andReturn(new byte[0]);
+        expect(mockResultSet.next()).andReturn(false);
+
+        mockResultSet.close();
+        expect(mockStatement.isClosed()).andReturn(false);
+        mockStatement.close();
+
+        replayAll();
+
+        List<ColumnDescription> columns = new ArrayList<ColumnDescription>();
+        columns.add(new MysqlColumnDescription("name1", "varchar(32)"));
+        columns.add(new MysqlColumnDescription("name2", "text"));
+        columns.add(new MysqlColumnDescription("name3", "bit(1)"));
+        columns.add(new MysqlColumnDescription("name4", "varbinary(8)"));
+
+        MysqlEnvironmentHandler envHandler = new MysqlEnvironmentHandler(mockDbConnection, mockDbProvider);
+        ByteArrayOutputStream bulkData = new ByteArrayOutputStream();
+        envHandler.writeBulkData(mockConnection, columns, new DbTable("table1"), bulkData);
+
+        // the text values are escaped, the bit and binary values are written in hex
+        Assert.assertEquals("tab\\there\\nnew line\\\\back slash\\rreturn\\0zero\t\\N\t01\t00ff095c\n"
+                            + "\\\\N\tplain text\t\\N\t\n",
+                            new String(bulkData.toByteArray(), StandardCharsets.UTF_8));
+        // the hex values are converted back while loading
+        Assert.assertEquals("LOAD DATA LOCAL INFILE 'ats_bulk_data' INTO TABLE `table1` CHARACTER SET utf8mb4 "
+                            + "(name1,name2,@hex2,@hex3) SET name3 = UNHEX(@hex2),name4 = UNHEX(@hex3)",
+                            envHandler.getBulkLoadStatement(columns, new DbTable("table1")));
+
+        verifyAll();
+    }
 }
@@ -15,10 +15,32 @@
  */
 package com.axway.ats.environment.database;
 
-import com.axway.ats.environment.BaseTest;
-import com.axway.ats.environment.database.model.DbTable;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.eq;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.same;
+import static org.easymock.EasyMock.verify;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.Assert;
 import org.junit.Test;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+
+import com.axway.ats.core.dbaccess.ColumnDescription;
+import com.axway.ats.core.dbaccess.postgresql.DbConnPostgreSQL;
+import com.axway.ats.core.dbaccess.postgresql.PostgreSqlColumnDescription;
+import com.axway.ats.core.dbaccess.postgresql.PostgreSqlDbProvider;
+import com.axway.ats.environment.BaseTest;
+import com.axway.ats.environment.database.model.DbTable;
 
 
 public class Test_PostgreSqlEnvironmentHandler extends BaseTest {
@@ -88,4 +110,40 @@ public void testFullTableNameGeneration() {
 
     }
 
+    @Test
+    public void bulkData() throws SQLException, IOException {
+
+        Connection mockConnection = createMock(Connection.class);
+        PGConnection mockPgConnection = createMock(PGConnection.class);
+        CopyManager mockCopyManager = createMock(CopyManager.class);
+
+        List<ColumnDescription> columns = new ArrayList<ColumnDescription>();
+        columns.add(new PostgreSqlColumnDescription("name1", "character varying"));
+        columns.add(new PostgreSqlColumnDescription("name2", "bytea"));
+        DbTable table = new DbTable("table1", "schema1");
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ByteArrayInputStream input = new ByteArrayInputStream(new byte[]{ 1, 2, 3 });
+
+        // the data is copied in the binary format, so it is not converted to text in any way
+        expect(mockConnection.unwrap(PGConnection.class)).andReturn(mockPgConnection).times(2);
+        expect(mockPgConnection.getCopyAPI()).andReturn(mockCopyManager).times(2);
+        expect(mockCopyManager.copyOut(eq("COPY (SELECT name1,name2 FROM \"schema1\".\"table1\") "
+                                          + "TO STDOUT (FORMAT binary)"),
+                                       same(output))).andReturn(2L);
+        expect(mockCopyManager.copyIn(eq("COPY \"schema1\".\"table1\" (name1,name2) FROM STDIN (FORMAT binary)"),
+                                      same(input))).andReturn(2L);
+
+        replay(mockConnection, mockPgConnection, mockCopyManager);
+
+        PostgreSqlEnvironmentHandler envHandler = new PostgreSqlEnvironmentHandler(createMock(DbConnPostgreSQL.class),
+                                                                                   createMock(PostgreSqlDbProvider.class));
+        envHandler.writeBulkData(mockConnection, columns, table, output);
+
+        String loadStatement = envHandler.getBulkLoadStatement(columns, table);
+        Assert.assertEquals("COPY \"schema1\".\"table1\" (name1,name2) FROM STDIN (FORMAT binary)", loadStatement);
+        envHandler.loadBulkData(mockConnection, loadStatement, input);
+
+        verify(mockConnection, mockPgConnection, mockCopyManager);
+    }
 }
@@ -0,0 +1,250 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.environment.database;
+
+import static org.easymock.EasyMock.anyString;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.getCurrentArguments;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.easymock.IAnswer;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.axway.ats.environment.BaseTest;
+
+/**
+ * Executes restore statements over a mocked connection. The calls to the connection
+ * are recorded in the order they are made.
+ */
+public class Test_RestoreStatementExecutor extends BaseTest {
+
+    private Connection               connection;
+    private Statement                batchStatement;
+
+    // the calls to the connection, as 'add <sql>' for a batched statement, 'batch' for
+    // sending the batch and 'execute <sql>' for a statement executed on its own
+    private List<String>             calls;
+    private Map<String, long[]>      restoreTimes;
+
+    private RestoreStatementExecutor executor;
+
+    @Before
+    public void setUp() throws SQLException {
+
+        connection = createMock(Connection.class);
+        batchStatement = createMock(Statement.class);
+        calls = new ArrayList<>();
+        restoreTimes = new LinkedHashMap<>();
+
+        expect(connection.createStatement()).andReturn(batchStatement);
+        batchStatement.addBatch(anyString());
+        expectLastCall().andAnswer(new IAnswer<Void>() {
+
+            @Override
+            public Void answer() {
+
+                calls.add("add " + getCurrentArguments()[0]);
+                return null;
+            }
+        }).anyTimes();
+
+        executor = new RestoreStatementExecutor(connection, restoreTimes, null, "backup.sql");
+    }
+
+    @Test
+    public void batchIsSentWhenFull() throws SQLException {
+
+        expectBatches(2);
+        replay(connection, batchStatement);
+
+        for (int i = 0; i <= RestoreStatementExecutor.BATCH_SIZE; i++) {
+            executor.execute("INSERT INTO table1 VALUES(" + i + ")", "table1");
+        }
+        // the full batch is sent before the last statement is added
+        assertEquals(RestoreStatementExecutor.BATCH_SIZE + 2, calls.size());
+        assertEquals("batch", calls.get(RestoreStatementExecutor.BATCH_SIZE));
+
+        executor.flush();
+        // nothing left to send
+        executor.flush();
+
+        verify(connection, batchStatement);
+        assertEquals("batch", calls.get(RestoreStatementExecutor.BATCH_SIZE + 2));
+        assertEquals(RestoreStatementExecutor.BATCH_SIZE + 1, restoreTimes.get("table1")[1]);
+    }
+
+    @Test
+    public void batchIsSentWhenTableChanges() throws SQLException {
+
+        expectBatches(2);
+        replay(connection, batchStatement);
+
+        executor.execute("INSERT INTO table1 VALUES(1)", "table1");
+        executor.execute("INSERT INTO table1 VALUES(2)", "table1");
+        executor.execute("INSERT INTO table2 VALUES(1)", "table2");
+        executor.flush();
+
+        verify(connection, batchStatement);
+        assertEquals(Arrays.asList("add INSERT INTO table1 VALUES(1)", "add INSERT INTO table1 VALUES(2)", "batch",
+                                   "add INSERT INTO table2 VALUES(1)", "batch"),
+                     calls);
+        assertEquals(2, restoreTimes.get("table1")[1]);
+        assertEquals(1, restoreTimes.get("table2")[1]);
+    }
+
+    @Test
+    public void otherStatementsAreExecutedInOrderWithTheBatch() throws SQLException {
+
+        expectBatches(2);
+        expectExecuted("DELETE FROM table2");
+        expectExecuted("SET FOREIGN_KEY_CHECKS = 1");
+        replay(connection, batchStatement);
+
+        executor.execute("INSERT INTO table1 VALUES(1)", "table1");
+        executor.execute("DELETE FROM table2", "table2");
+        executor.execute("INSERT INTO table2 VALUES(1)", "table2");
+        executor.execute("SET FOREIGN_KEY_CHECKS = 1", null);
+
+        verify(connection, batchStatement);
+        assertEquals(Arrays.asList("add INSERT INTO table1 VALUES(1)", "batch", "execute DELETE FROM table2",
+                                   "add INSERT INTO table2 VALUES(1)", "batch",
+                                   "execute SET FOREIGN_KEY_CHECKS = 1"),
+                     calls);
+        assertEquals(1, restoreTimes.get("table1")[1]);
+        assertEquals(2, restoreTimes.get("table2")[1]);
+        assertEquals(1, restoreTimes.get(null)[1]);
+    }
+
+    @Test
+    public void failedBatchStatementIsReported() throws SQLException {
+
+        // a driver which continues after the failed statement
+        assertFailedBatchStatement(new int[]{ 1, Statement.EXECUTE_FAILED, 1 }, 2);
+        // a driver which stops at the failed statement
+        assertFailedBatchStatement(new int[]{ 1 }, 2);
+        // a driver which does not tell
+        assertFailedBatchStatement(new int[]{ 1, 1, 1 }, 1);
+        assertFailedBatchStatement(null, 1);
+    }
+
+    @Test
+    public void failedStatementIsReported() throws SQLException {
+
+        SQLException error = new SQLException("Table 'table1' doesn't exist");
+        PreparedStatement statement = createMock(PreparedStatement.class);
+        expect(connection.prepareStatement("DELETE FROM table1")).andReturn(statement);
+        expect(statement.execute()).andThrow(error);
+        statement.close();
+        replay(connection, batchStatement, statement);
+
+        try {
+            executor.execute("DELETE FROM table1", "table1");
+            fail("The statement must fail");
+        } catch (SQLException e) {
+            assertEquals("Error invoking restore statement: DELETE FROM table1", e.getMessage());
+            assertSame(error, e.getCause());
+        }
+
+        // no batch statement is needed
+        verify(batchStatement, statement);
+        assertEquals(null, restoreTimes.get("table1"));
+    }
+
+    @Test
+    public void batchedStatementsAreDroppedOnClose() throws SQLException {
+
+        batchStatement.close();
+        replay(connection, batchStatement);
+
+        executor.execute("INSERT INTO table1 VALUES(1)", "table1");
+        executor.close();
+        // the dropped statements are not sent
+        executor.flush();
+
+        verify(connection, batchStatement);
+        assertEquals(null, restoreTimes.get("table1"));
+    }
+
+    private void assertFailedBatchStatement( int[] updateCounts, int failedStatement ) throws SQLException {
+
+        setUp();
+        BatchUpdateException error = new BatchUpdateException("Duplicate entry", updateCounts);
+        expect(batchStatement.executeBatch()).andThrow(error);
+        replay(connection, batchStatement);
+
+        for (int i = 1; i <= 3; i++) {
+            executor.execute("INSERT INTO table1 VALUES(" + i + ")", "table1");
+        }
+        try {
+            executor.flush();
+            fail("The batch must fail");
+        } catch (SQLException e) {
+            assertEquals("Error invoking a batch of 3 restore statements, probably on statement: "
+                         + "INSERT INTO table1 VALUES(" + failedStatement + ")", e.getMessage());
+            assertSame(error, e.getCause());
+        }
+
+        verify(connection, batchStatement);
+    }
+
+    private void expectBatches( int batches ) throws SQLException {
+
+        expect(batchStatement.executeBatch()).andAnswer(new IAnswer<int[]>() {
+
+            @Override
+            public int[] answer() {
+
+                calls.add("batch");
+                return new int[0];
+            }
+        }).times(batches);
+    }
+
+    private void expectExecuted( final String sql ) throws SQLException {
+
+        PreparedStatement statement = createMock(PreparedStatement.class);
+        expect(connection.prepareStatement(sql)).andReturn(statement);
+        expect(statement.execute()).andAnswer(new IAnswer<Boolean>() {
+
+            @Override
+            public Boolean answer() {
+
+                calls.add("execute " + sql);
+                return false;
+            }
+        });
+        statement.close();
+        replay(statement);
+    }
+}
@@ -752,6 +752,39 @@ public void insertCheckpoint(
                                             result));
     }
 
+    /**
+     * Directly insert a checkpoint on behalf of another thread.
+     * <br>Used when the checkpoint ends in another thread than the one it started in, for example on completion
+     * of an asynchronous request. The checkpoint is assigned to the load queue of the provided thread.
+     *
+     * @param name the name of the checkpoint
+     * @param startTimestamp the start time in milliseconds
+     * @param responseTime the checkpoint duration in milliseconds
+     * @param transferSize the size of the transfer
+     * @param transferUnit the data transfer unit
+     * @param threadName the name of the thread which started the checkpoint
+     * @param result the result of the checkpoint execution
+     */
+    public void insertCheckpoint(
+                                  String name,
+                                  long startTimestamp,
+                                  long responseTime,
+                                  long transferSize,
+                                  String transferUnit,
+                                  String threadName,
+                                  CheckpointResult result ) {
+
+        sendEvent(new InsertCheckpointEvent(ATS_DB_LOGGER_CLASS_NAME,
+                                            logger,
+                                            name,
+                                            startTimestamp,
+                                            responseTime,
+                                            transferSize,
+                                            transferUnit,
+                                            threadName,
+                                            result));
+    }
+
     /**
      * Insert system statistics identified by their DB IDs
      *
@@ -18,6 +18,7 @@
 
 import java.io.Serializable;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
@@ -39,7 +40,11 @@
 import com.axway.ats.log.autodb.exceptions.InvalidAppenderConfigurationException;
 import com.axway.ats.log.autodb.logqueue.DbEventRequestProcessor;
 import com.axway.ats.log.autodb.logqueue.LogEventRequest;
+import com.axway.ats.log.autodb.logqueue.QueueLoggerStatistics;
 import com.axway.ats.log.autodb.logqueue.QueueLoggerThread;
+import com.axway.ats.log.autodb.logqueue.RingBufferLogEventQueue;
+import com.axway.ats.log.autodb.logqueue.RingBufferLogEventQueue.OverflowPolicy;
+import com.axway.ats.log.autodb.logqueue.RingBufferLogEventQueue.WaitStrategy;
 import com.axway.ats.log.autodb.model.EventRequestProcessorListener;
 
 //@Plugin( name = "AbstractDbAppender", category = Core.CATEGORY_NAME, elementType = Appender.ELEMENT_TYPE)
@@ -50,7 +55,7 @@ public abstract class AbstractDbAppender extends AbstractAppender {
     /**
      * The appender's data for the current thread
      */
-    protected ArrayBlockingQueue<LogEventRequest> queue;
+    protected BlockingQueue<LogEventRequest>      queue;
 
     /**
      * the logger thread
@@ -144,7 +149,13 @@ protected AbstractDbAppender( String name, Filter filter, Layout<? extends Seria
         }
 
         // the logging queue
-        queue = new ArrayBlockingQueue<LogEventRequest>(getMaxNumberLogEvents());
+        if (appenderConfig.isRingBufferQueue()) {
+            queue = new RingBufferLogEventQueue(getMaxNumberLogEvents(),
+                                                WaitStrategy.fromString(appenderConfig.getWaitStrategy()),
+                                                OverflowPolicy.fromString(appenderConfig.getOverflowPolicy()));
+        } else {
+            queue = new ArrayBlockingQueue<LogEventRequest>(getMaxNumberLogEvents());
+        }
 
     }
 
@@ -318,6 +329,19 @@ public int getNumberPendingLogEvents() {
         return queue.size();
     }
 
+    /**
+     * @return the runtime metrics (queue depth, drain size, flush time) of the logger thread
+     * or null if the logger thread is not running
+     */
+    public QueueLoggerStatistics getQueueLoggerStatistics() {
+
+        QueueLoggerThread currentQueueLogger = queueLogger;
+        if (currentQueueLogger == null) {
+            return null;
+        }
+        return currentQueueLogger.getStatistics();
+    }
+
     /**
      * @return if sending log messages in batch mode
      */
@@ -340,6 +364,48 @@ public void setMode(
         this.appenderConfig.setMode(mode);
     }
 
+    /**
+     * log4j2 system reads the "queueType" parameter from the log4j2.xml and calls this
+     * method
+     *
+     * Expected value is "ringBuffer", everything else means the default array blocking queue.
+     *
+     * @param queueType
+     */
+    public void setQueueType(
+                              String queueType ) {
+
+        this.appenderConfig.setQueueType(queueType);
+    }
+
+    /**
+     * log4j2 system reads the "waitStrategy" parameter from the log4j2.xml and calls this
+     * method
+     *
+     * Expected values are "block", "yield" and "busySpin". Used by the ring buffer queue only.
+     *
+     * @param waitStrategy
+     */
+    public void setWaitStrategy(
+                                 String waitStrategy ) {
+
+        this.appenderConfig.setWaitStrategy(waitStrategy);
+    }
+
+    /**
+     * log4j2 system reads the "overflowPolicy" parameter from the log4j2.xml and calls this
+     * method
+     *
+     * Expected values are "block", "dropOldestMessage" and "drop". Used by the ring buffer queue only.
+     *
+     * @param overflowPolicy
+     */
+    public void setOverflowPolicy(
+                                   String overflowPolicy ) {
+
+        this.appenderConfig.setOverflowPolicy(overflowPolicy);
+    }
+
     /**
      * Get the current run id
      *
@@ -397,6 +463,25 @@ public int getLastExecutedTestCaseId() {
         return eventProcessor.getLastExecutedTestCaseId();
     }
 
+    /**
+     * @param testcaseId the testcase ID
+     * @return whether this testcase is known to be deleted from the DB
+     */
+    public boolean isTestcaseDeleted( int testcaseId ) {
+
+        return eventProcessor.isTestcaseDeleted(testcaseId);
+    }
+
+    /**
+     * Remember a testcase which was found to be deleted from the DB, so no more data is sent for it
+     *
+     * @param testcaseId the testcase ID
+     */
+    public void markTestcaseAsDeleted( int testcaseId ) {
+
+        eventProcessor.markTestcaseAsDeleted(testcaseId);
+    }
+
     public boolean getEnableCheckpoints() {
 
         return appenderConfig.getEnableCheckpoints();
@@ -408,6 +493,25 @@ public void setEnableCheckpoints(
         appenderConfig.setEnableCheckpoints(enableCheckpoints);
     }
 
+    public boolean isBulkInsert() {
+
+        return appenderConfig.isBulkInsert();
+    }
+
+    /**
+     * log4j2 system reads the "bulkInsert" parameter from the log4j2.xml and calls this
+     * method
+     *
+     * Used in batch mode only.
+     *
+     * @param bulkInsert
+     */
+    public void setBulkInsert(
+                               boolean bulkInsert ) {
+
+        appenderConfig.setBulkInsert(bulkInsert);
+    }
+
     public DbAppenderConfiguration getAppenderConfig() {
 
         return appenderConfig;
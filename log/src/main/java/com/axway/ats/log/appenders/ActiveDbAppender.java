@@ -156,6 +156,22 @@ public static ActiveDbAppenderBuilder newBuilder() {
         @PluginBuilderAttribute( "enableCheckpoints")
         private boolean        enableCheckpoints = true;
 
+        // Note that this is supported only if mode = 'batch'
+        @PluginBuilderAttribute( "bulkInsert")
+        private boolean        bulkInsert;
+
+        // "array"(default) or "ringBuffer"
+        @PluginBuilderAttribute( "queueType")
+        private String         queueType;
+
+        // Note that this is supported only if queueType = 'ringBuffer'
+        @PluginBuilderAttribute( "waitStrategy")
+        private String         waitStrategy;
+
+        // Note that this is supported only if queueType = 'ringBuffer'
+        @PluginBuilderAttribute( "overflowPolicy")
+        private String         overflowPolicy;
+
         public String getName() {
 
             return name;
@@ -300,6 +316,54 @@ public ActiveDbAppenderBuilder setEvents( int events ) {
             return this;
         }
 
+        public boolean isBulkInsert() {
+
+            return bulkInsert;
+        }
+
+        public ActiveDbAppenderBuilder setBulkInsert( boolean bulkInsert ) {
+
+            this.bulkInsert = bulkInsert;
+
+            return this;
+        }
+
+        public String getQueueType() {
+
+            return queueType;
+        }
+
+        public ActiveDbAppenderBuilder setQueueType( String queueType ) {
+
+            this.queueType = queueType;
+
+            return this;
+        }
+
+        public String getWaitStrategy() {
+
+            return waitStrategy;
+        }
+
+        public ActiveDbAppenderBuilder setWaitStrategy( String waitStrategy ) {
+
+            this.waitStrategy = waitStrategy;
+
+            return this;
+        }
+
+        public String getOverflowPolicy() {
+
+            return overflowPolicy;
+        }
+
+        public ActiveDbAppenderBuilder setOverflowPolicy( String overflowPolicy ) {
+
+            this.overflowPolicy = overflowPolicy;
+
+            return this;
+        }
+
         public boolean getEnableCheckpoints() {
 
             return this.enableCheckpoints;
@@ -330,6 +394,10 @@ public ActiveDbAppender build() {
             appenderConfiguration.setChunkSize(this.chunkSize);
             appenderConfiguration.setEnableCheckpoints(enableCheckpoints);
             appenderConfiguration.setMaxNumberLogEvents(this.events + "");
+            appenderConfiguration.setBulkInsert(this.bulkInsert);
+            appenderConfiguration.setQueueType(this.queueType);
+            appenderConfiguration.setWaitStrategy(this.waitStrategy);
+            appenderConfiguration.setOverflowPolicy(this.overflowPolicy);
             // Note: logging threshold is set in the parent constructor
             return new ActiveDbAppender(name, filter, layout, appenderConfiguration);
         }
@@ -130,6 +130,22 @@ public static PassiveDbAppenderBuilder newBuilder() {
         @PluginBuilderAttribute( "enableCheckpoints")
         private boolean        enableCheckpoints = true;
 
+        // Note that this is supported only if mode = 'batch'
+        @PluginBuilderAttribute( "bulkInsert")
+        private boolean        bulkInsert;
+
+        // "array"(default) or "ringBuffer"
+        @PluginBuilderAttribute( "queueType")
+        private String         queueType;
+
+        // Note that this is supported only if queueType = 'ringBuffer'
+        @PluginBuilderAttribute( "waitStrategy")
+        private String         waitStrategy;
+
+        // Note that this is supported only if queueType = 'ringBuffer'
+        @PluginBuilderAttribute( "overflowPolicy")
+        private String         overflowPolicy;
+
         public String getName() {
 
             return name;
@@ -274,6 +290,54 @@ public PassiveDbAppenderBuilder setEvents( int events ) {
             return this;
         }
 
+        public boolean isBulkInsert() {
+
+            return bulkInsert;
+        }
+
+        public PassiveDbAppenderBuilder setBulkInsert( boolean bulkInsert ) {
+
+            this.bulkInsert = bulkInsert;
+
+            return this;
+        }
+
+        public String getQueueType() {
+
+            return queueType;
+        }
+
+        public PassiveDbAppenderBuilder setQueueType( String queueType ) {
+
+            this.queueType = queueType;
+
+            return this;
+        }
+
+        public String getWaitStrategy() {
+
+            return waitStrategy;
+        }
+
+        public PassiveDbAppenderBuilder setWaitStrategy( String waitStrategy ) {
+
+            this.waitStrategy = waitStrategy;
+
+            return this;
+        }
+
+        public String getOverflowPolicy() {
+
+            return overflowPolicy;
+        }
+
+        public PassiveDbAppenderBuilder setOverflowPolicy( String overflowPolicy ) {
+
+            this.overflowPolicy = overflowPolicy;
+
+            return this;
+        }
+
         public boolean getEnableCheckpoints() {
 
             return this.enableCheckpoints;
@@ -304,6 +368,10 @@ public PassiveDbAppender build() {
             appenderConfiguration.setChunkSize(this.chunkSize);
             appenderConfiguration.setEnableCheckpoints(enableCheckpoints);
             appenderConfiguration.setMaxNumberLogEvents(this.events + "");
+            appenderConfiguration.setBulkInsert(this.bulkInsert);
+            appenderConfiguration.setQueueType(this.queueType);
+            appenderConfiguration.setWaitStrategy(this.waitStrategy);
+            appenderConfiguration.setOverflowPolicy(this.overflowPolicy);
             // Note: logging threshold is set in the parent constructor
             return new PassiveDbAppender(ThreadsPerCaller.getCaller(), name, filter, layout, appenderConfiguration);
         }
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.log.autodb;
+
+import java.util.Arrays;
+
+/**
+ * Response times histogram with fixed relative precision, in the spirit of the HdrHistogram.
+ * <br>The values are split in buckets by their power of 2 and each bucket has 128 equal sub-buckets,
+ * so the value returned for a percentile is never off by more than 1% of the real one.
+ * <br>The memory used does not depend on the number of recorded values, but only on the biggest one.
+ * <br>Not thread safe.
+ */
+public class CheckpointHistogram {
+
+    private static final int SUB_BUCKET_HALF_COUNT_MAGNITUDE = 7;
+    private static final int SUB_BUCKET_HALF_COUNT           = 1 << SUB_BUCKET_HALF_COUNT_MAGNITUDE;
+    private static final int SUB_BUCKET_MASK                 = (SUB_BUCKET_HALF_COUNT << 1) - 1;
+
+    // the values below 256 are stored without loss of precision, bigger values grow the array when needed
+    private long[]           counts                          = new long[SUB_BUCKET_HALF_COUNT << 1];
+
+    private long             totalCount;
+    private long             minValue                        = Long.MAX_VALUE;
+    private long             maxValue;
+
+    /**
+     * Record a value. Negative values are recorded as 0
+     *
+     * @param value the value, for example a response time in milliseconds
+     */
+    public void recordValue( long value ) {
+
+        if (value < 0) {
+            value = 0;
+        }
+
+        int index = countsIndex(value);
+        if (index >= counts.length) {
+            counts = Arrays.copyOf(counts, index + SUB_BUCKET_HALF_COUNT - (index & (SUB_BUCKET_HALF_COUNT - 1)));
+        }
+        counts[index]++;
+
+        totalCount++;
+        minValue = Math.min(minValue, value);
+        maxValue = Math.max(maxValue, value);
+    }
+
+    /**
+     * Add all values recorded by another histogram
+     *
+     * @param other the other histogram
+     */
+    public void add( CheckpointHistogram other ) {
+
+        if (other.totalCount == 0) {
+            return;
+        }
+        if (other.counts.length > counts.length) {
+            counts = Arrays.copyOf(counts, other.counts.length);
+        }
+        for (int i = 0; i < other.counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+
+        totalCount += other.totalCount;
+        minValue = Math.min(minValue, other.minValue);
+        maxValue = Math.max(maxValue, other.maxValue);
+    }
+
+    /**
+     * @param percentile a value between 0 and 100
+     * @return the value at the given percentile, 0 if no values are recorded
+     */
+    public long getValueAtPercentile( double percentile ) {
+
+        if (totalCount == 0) {
+            return 0;
+        }
+
+        percentile = Math.min(Math.max(percentile, 0), 100);
+        long countAtPercentile = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+
+        long runningCount = 0;
+        for (int i = 0; i < counts.length; i++) {
+            runningCount += counts[i];
+            if (runningCount >= countAtPercentile) {
+                return Math.max(minValue, Math.min(maxValue, highestEquivalentValue(i)));
+            }
+        }
+        return maxValue;
+    }
+
+    public long getTotalCount() {
+
+        return totalCount;
+    }
+
+    /**
+     * @return the smallest recorded value, 0 if no values are recorded
+     */
+    public long getMinValue() {
+
+        return totalCount == 0
+                               ? 0
+                               : minValue;
+    }
+
+    public long getMaxValue() {
+
+        return maxValue;
+    }
+
+    public void reset() {
+
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+        minValue = Long.MAX_VALUE;
+        maxValue = 0;
+    }
+
+    private static int countsIndex( long value ) {
+
+        int bucketIndex = 63 - Long.numberOfLeadingZeros(value | SUB_BUCKET_MASK) - SUB_BUCKET_HALF_COUNT_MAGNITUDE;
+        int subBucketIndex = (int) (value >>> bucketIndex);
+
+        return ( (bucketIndex + 1) << SUB_BUCKET_HALF_COUNT_MAGNITUDE) + (subBucketIndex - SUB_BUCKET_HALF_COUNT);
+    }
+
+    private static long highestEquivalentValue( int index ) {
+
+        int bucketIndex = (index >> SUB_BUCKET_HALF_COUNT_MAGNITUDE) - 1;
+        long subBucketIndex = (index & (SUB_BUCKET_HALF_COUNT - 1)) + SUB_BUCKET_HALF_COUNT;
+        if (bucketIndex < 0) {
+            subBucketIndex -= SUB_BUCKET_HALF_COUNT;
+            bucketIndex = 0;
+        }
+
+        return ( (subBucketIndex + 1) << bucketIndex) - 1;
+    }
+}
@@ -20,10 +20,11 @@
  */
 public class CheckpointInfo {
 
-    private String name;                // checkpoint name
-    private int    checkpointSummaryId; // id from the checkpoint summary table
-    private long   checkpointId;        // id from the checkpoint details table
-    private long   startTimestamp;      // the checkpoint start time
+    private String  name;                // checkpoint name
+    private int     checkpointSummaryId; // id from the checkpoint summary table
+    private long    checkpointId;        // id from the checkpoint details table
+    private long    startTimestamp;      // the checkpoint start time
+    private boolean running;             // whether the checkpoint is started, but not ended yet
 
     public CheckpointInfo() {
 
@@ -35,6 +36,27 @@ public CheckpointInfo( String name, int checkpointSummaryId, long checkpointId,
         this.checkpointSummaryId = checkpointSummaryId;
         this.checkpointId = checkpointId;
         this.startTimestamp = startTimestamp;
+        this.running = startTimestamp > 0;
+    }
+
+    /**
+     * Reuse this instance for a new start of the same checkpoint
+     */
+    void start( int checkpointSummaryId, long checkpointId, long startTimestamp ) {
+
+        this.checkpointSummaryId = checkpointSummaryId;
+        this.checkpointId = checkpointId;
+        this.startTimestamp = startTimestamp;
+        this.running = true;
+    }
+
+    /**
+     * Mark the checkpoint as ended. The other values are kept, as they are needed
+     * when ending the checkpoint in the DB
+     */
+    void end() {
+
+        this.running = false;
     }
 
     public String getName() {
@@ -59,7 +81,7 @@ public long getStartTimestamp() {
 
     public boolean isRunning() {
 
-        return startTimestamp > 0;
+        return running;
     }
 
     /**
@@ -0,0 +1,390 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.log.autodb;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.axway.ats.log.model.CheckpointLogLevel;
+import com.axway.ats.log.model.CheckpointResult;
+
+/**
+ * Summarizes checkpoints in memory when the checkpoint log level is {@link CheckpointLogLevel#AGGREGATED}.
+ * <br>Instead of going to the DB for each checkpoint, the results are accumulated per load queue and checkpoint name
+ * and the caller sends one summary update per checkpoint name once the flush interval expires.
+ * <br>The response times are also recorded in {@link CheckpointHistogram}s, so the percentiles
+ * are available for each flush interval and for the whole life of the load queue.
+ * <br>Not thread safe, it is expected to be used by the DB logging thread only.
+ */
+public class CheckpointsAggregator {
+
+    /**
+     * the interval in milliseconds between two flushes
+     */
+    private final long                                      flushInterval;
+
+    private long                                            lastFlushTimestamp;
+
+    /*
+     * { loadQueueId -> { checkpointName -> aggregated checkpoint } }
+     */
+    private final Map<Integer, Map<String, AggregatedCheckpoint>> checkpoints = new HashMap<>();
+
+    public CheckpointsAggregator( long flushInterval ) {
+
+        this.flushInterval = flushInterval;
+        this.lastFlushTimestamp = System.currentTimeMillis();
+    }
+
+    /**
+     * Remember a checkpoint is started, so its transfer unit is known when the checkpoint ends.
+     * It does not affect the summary.
+     */
+    public void startCheckpoint( int loadQueueId, String name, String transferUnit ) {
+
+        getCheckpoint(loadQueueId, name, transferUnit);
+    }
+
+    /**
+     * Add the result of one checkpoint to its summary
+     *
+     * @param loadQueueId the load queue ID
+     * @param name the checkpoint name
+     * @param transferUnit the transfer unit, if null the one from the checkpoint start is used
+     * @param responseTime the response time in milliseconds
+     * @param transferSize the transfer size
+     * @param result one of the {@link CheckpointResult} values
+     */
+    public void addCheckpoint( int loadQueueId, String name, String transferUnit, long responseTime,
+                               long transferSize, int result ) {
+
+        getCheckpoint(loadQueueId, name, transferUnit).add(responseTime, transferSize, result);
+    }
+
+    /**
+     * @return whether the flush interval has expired since the last flush
+     */
+    public boolean isTimeToFlush() {
+
+        return System.currentTimeMillis() - lastFlushTimestamp >= flushInterval;
+    }
+
+    /**
+     * Get all checkpoints which have new results since the last flush.
+     * The caller is expected to send them to the DB and call {@link AggregatedCheckpoint#clearPendingResults()}
+     * for each of them.
+     */
+    public List<AggregatedCheckpoint> getPendingCheckpoints() {
+
+        lastFlushTimestamp = System.currentTimeMillis();
+
+        List<AggregatedCheckpoint> pendingCheckpoints = new ArrayList<>();
+        for (Map<String, AggregatedCheckpoint> loadQueueCheckpoints : checkpoints.values()) {
+            collectPendingCheckpoints(loadQueueCheckpoints.values(), pendingCheckpoints);
+        }
+        return pendingCheckpoints;
+    }
+
+    /**
+     * Get the checkpoints of one load queue which have new results since the last flush
+     */
+    public List<AggregatedCheckpoint> getPendingCheckpoints( int loadQueueId ) {
+
+        List<AggregatedCheckpoint> pendingCheckpoints = new ArrayList<>();
+        Map<String, AggregatedCheckpoint> loadQueueCheckpoints = checkpoints.get(loadQueueId);
+        if (loadQueueCheckpoints != null) {
+            collectPendingCheckpoints(loadQueueCheckpoints.values(), pendingCheckpoints);
+        }
+        return pendingCheckpoints;
+    }
+
+    /**
+     * @return all checkpoints of the load queue, an empty collection if there are none
+     */
+    public Collection<AggregatedCheckpoint> getCheckpoints( int loadQueueId ) {
+
+        Map<String, AggregatedCheckpoint> loadQueueCheckpoints = checkpoints.get(loadQueueId);
+        if (loadQueueCheckpoints == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableCollection(loadQueueCheckpoints.values());
+    }
+
+    /**
+     * Forget all checkpoints of the load queue
+     */
+    public void removeLoadQueue( int loadQueueId ) {
+
+        checkpoints.remove(loadQueueId);
+    }
+
+    private AggregatedCheckpoint getCheckpoint( int loadQueueId, String name, String transferUnit ) {
+
+        Map<String, AggregatedCheckpoint> loadQueueCheckpoints = checkpoints.get(loadQueueId);
+        if (loadQueueCheckpoints == null) {
+            loadQueueCheckpoints = new HashMap<>();
+            checkpoints.put(loadQueueId, loadQueueCheckpoints);
+        }
+
+        AggregatedCheckpoint checkpoint = loadQueueCheckpoints.get(name);
+        if (checkpoint == null) {
+            checkpoint = new AggregatedCheckpoint(loadQueueId, name, transferUnit);
+            loadQueueCheckpoints.put(name, checkpoint);
+        } else if (checkpoint.transferUnit == null) {
+            checkpoint.transferUnit = transferUnit;
+        }
+        return checkpoint;
+    }
+
+    private void collectPendingCheckpoints( Collection<AggregatedCheckpoint> loadQueueCheckpoints,
+                                            List<AggregatedCheckpoint> pendingCheckpoints ) {
+
+        for (AggregatedCheckpoint checkpoint : loadQueueCheckpoints) {
+            if (checkpoint.hasPendingResults()) {
+                pendingCheckpoints.add(checkpoint);
+            }
+        }
+    }
+
+    /**
+     * The summary of all checkpoints with same name in one load queue.
+     * <br>The counters, the min/max/average values and the interval response time histogram are about the results
+     * since the last flush, while the response time histogram is about all results since the load queue start.
+     */
+    public static class AggregatedCheckpoint {
+
+        private final int                 loadQueueId;
+        private final String              name;
+        private String                    transferUnit;
+        private int                       checkpointSummaryId   = -1;
+
+        private int                       numPassed;
+        private int                       numFailed;
+        private int                       numRunning;
+
+        private long                      minResponseTime;
+        private long                      maxResponseTime;
+        private long                      totalResponseTime;
+
+        private double                    minTransferRate;
+        private double                    maxTransferRate;
+        private double                    totalTransferRate;
+
+        private long                      intervalStartTimestamp;
+        private final CheckpointHistogram intervalResponseTimes = new CheckpointHistogram();
+        private final CheckpointHistogram responseTimes         = new CheckpointHistogram();
+
+        AggregatedCheckpoint( int loadQueueId, String name, String transferUnit ) {
+
+            this.loadQueueId = loadQueueId;
+            this.name = name;
+            this.transferUnit = transferUnit;
+            clearPendingResults();
+        }
+
+        void add( long responseTime, long transferSize, int result ) {
+
+            if (result == CheckpointResult.PASSED.toInt()) {
+                numPassed++;
+
+                if (responseTime < 0) {
+                    responseTime = 0;
+                }
+                double transferRate = 0;
+                if (responseTime > 0) {
+                    transferRate = transferSize * 1000.0 / responseTime;
+                }
+
+                minResponseTime = Math.min(minResponseTime, responseTime);
+                maxResponseTime = Math.max(maxResponseTime, responseTime);
+                totalResponseTime += responseTime;
+
+                minTransferRate = Math.min(minTransferRate, transferRate);
+                maxTransferRate = Math.max(maxTransferRate, transferRate);
+                totalTransferRate += transferRate;
+
+                intervalResponseTimes.recordValue(responseTime);
+                responseTimes.recordValue(responseTime);
+            } else if (result == CheckpointResult.FAILED.toInt()) {
+                numFailed++;
+            } else if (result == CheckpointResult.RUNNING.toInt()) {
+                numRunning++;
+            } else {
+                throw new IllegalArgumentException("Checkpoint result has invalid value '" + result + "'");
+            }
+        }
+
+        public boolean hasPendingResults() {
+
+            return numPassed + numFailed + numRunning > 0;
+        }
+
+        /**
+         * Reset the counters, the min/max/average values and the interval response times. Expected to be called
+         * after the results are sent to the DB. The response time histogram of the whole load queue is preserved.
+         */
+        public void clearPendingResults() {
+
+            intervalStartTimestamp = System.currentTimeMillis();
+            intervalResponseTimes.reset();
+
+            numPassed = 0;
+            numFailed = 0;
+            numRunning = 0;
+
+            minResponseTime = Long.MAX_VALUE;
+            maxResponseTime = 0;
+            totalResponseTime = 0;
+
+            minTransferRate = Double.MAX_VALUE;
+            maxTransferRate = 0;
+            totalTransferRate = 0;
+        }
+
+        public int getLoadQueueId() {
+
+            return loadQueueId;
+        }
+
+        public String getName() {
+
+            return name;
+        }
+
+        public String getTransferUnit() {
+
+            return transferUnit;
+        }
+
+        /**
+         * @return the checkpoint summary ID from the DB or -1 if not known yet
+         */
+        public int getCheckpointSummaryId() {
+
+            return checkpointSummaryId;
+        }
+
+        public void setCheckpointSummaryId( int checkpointSummaryId ) {
+
+            this.checkpointSummaryId = checkpointSummaryId;
+        }
+
+        public int getNumPassed() {
+
+            return numPassed;
+        }
+
+        public int getNumFailed() {
+
+            return numFailed;
+        }
+
+        public int getNumRunning() {
+
+            return numRunning;
+        }
+
+        public int getMinResponseTime() {
+
+            return numPassed == 0
+                                  ? 0
+                                  : (int) minResponseTime;
+        }
+
+        public int getMaxResponseTime() {
+
+            return (int) maxResponseTime;
+        }
+
+        public double getAvgResponseTime() {
+
+            return numPassed == 0
+                                  ? 0
+                                  : (double) totalResponseTime / numPassed;
+        }
+
+        public double getMinTransferRate() {
+
+            return numPassed == 0
+                                  ? 0
+                                  : minTransferRate;
+        }
+
+        public double getMaxTransferRate() {
+
+            return maxTransferRate;
+        }
+
+        public double getAvgTransferRate() {
+
+            return numPassed == 0
+                                  ? 0
+                                  : totalTransferRate / numPassed;
+        }
+
+        /**
+         * @return the time the current flush interval started, in milliseconds
+         */
+        public long getIntervalStartTimestamp() {
+
+            return intervalStartTimestamp;
+        }
+
+        /**
+         * @return the response times of the passed checkpoints since the last flush
+         */
+        public CheckpointHistogram getIntervalResponseTimes() {
+
+            return intervalResponseTimes;
+        }
+
+        /**
+         * @return the results since the last flush, including the response time percentiles,
+         * in a form suitable for storing in the DB
+         */
+        public String getIntervalSummary() {
+
+            return "passed " + numPassed + ", failed " + numFailed + ", running " + numRunning
+                   + "; response times in ms: min " + getMinResponseTime() + ", avg "
+                   + Math.round(getAvgResponseTime()) + ", max " + getMaxResponseTime() + ", 50% "
+                   + intervalResponseTimes.getValueAtPercentile(50) + ", 90% "
+                   + intervalResponseTimes.getValueAtPercentile(90) + ", 99% "
+                   + intervalResponseTimes.getValueAtPercentile(99);
+        }
+
+        /**
+         * @return the response times of all passed checkpoints since the load queue start
+         */
+        public CheckpointHistogram getResponseTimes() {
+
+            return responseTimes;
+        }
+
+        /**
+         * @param percentile a value between 0 and 100
+         * @return the response time at the given percentile, calculated for all passed checkpoints since
+         * the load queue start
+         */
+        public long getResponseTimePercentile( double percentile ) {
+
+            return responseTimes.getValueAtPercentile(percentile);
+        }
+    }
+}
@@ -27,6 +27,8 @@
 import com.axway.ats.core.log.AtsConsoleLogger;
 import com.axway.ats.log.autodb.exceptions.InvalidAppenderConfigurationException;
 import com.axway.ats.log.autodb.io.AbstractDbAccess;
+import com.axway.ats.log.autodb.logqueue.RingBufferLogEventQueue.OverflowPolicy;
+import com.axway.ats.log.autodb.logqueue.RingBufferLogEventQueue.WaitStrategy;
 import com.axway.ats.log.model.SystemLogLevel;
 
 /**
@@ -49,9 +51,20 @@ public class DbAppenderConfiguration implements Serializable {
     private static final int  DEFAULT_MAX_NUMBER_PENDING_LOG_EVENTS = 100000;
     private String            maxNumberLogEvents                    = String.valueOf(DEFAULT_MAX_NUMBER_PENDING_LOG_EVENTS);
 
+    // the type of our logging queue
+    public static final String QUEUE_TYPE_ARRAY                     = "array";
+    public static final String QUEUE_TYPE_RING_BUFFER               = "ringBuffer";
+    private String            queueType                             = QUEUE_TYPE_ARRAY;
+    // used by the ring buffer queue only
+    private String            waitStrategy                          = WaitStrategy.BLOCK.name();
+    private String            overflowPolicy                        = OverflowPolicy.BLOCK.name();
+
     //are checkpoints enabled
     private boolean           enableCheckpoints                     = true;
 
+    // send the cached events with the native bulk insert of the DB driver. Used in batch mode only
+    private boolean           bulkInsert                            = false;
+
     //the effective logging level. Serialized only by int value to prevent classloading issues of Priority/Level classes
     private Level             loggingThreshold;
 
@@ -165,6 +178,66 @@ public void setMode(
         }
     }
 
+    public String getQueueType() {
+
+        return queueType;
+    }
+
+    /**
+     * Set the type of the logging queue.<br>
+     * Expected value is "ringBuffer" for the lock-free queue, everything else means the default array blocking queue.
+     * 
+     * @param queueType the queue type
+     */
+    public void setQueueType( String queueType ) {
+
+        if (queueType != null) {
+            this.queueType = queueType;
+        }
+    }
+
+    public boolean isRingBufferQueue() {
+
+        // the value could be null when deserialized from older ATS version
+        return queueType != null && QUEUE_TYPE_RING_BUFFER.equalsIgnoreCase(queueType.trim());
+    }
+
+    public String getWaitStrategy() {
+
+        return waitStrategy;
+    }
+
+    /**
+     * Set how the threads wait on empty or full ring buffer queue.
+     * Expected values are "block", "yield" and "busySpin"
+     * 
+     * @param waitStrategy the wait strategy
+     */
+    public void setWaitStrategy( String waitStrategy ) {
+
+        if (waitStrategy != null) {
+            this.waitStrategy = waitStrategy;
+        }
+    }
+
+    public String getOverflowPolicy() {
+
+        return overflowPolicy;
+    }
+
+    /**
+     * Set what to do with new messages when the ring buffer queue is full.
+     * Expected values are "block", "dropOldestMessage" and "drop"
+     * 
+     * @param overflowPolicy the overflow policy
+     */
+    public void setOverflowPolicy( String overflowPolicy ) {
+
+        if (overflowPolicy != null) {
+            this.overflowPolicy = overflowPolicy;
+        }
+    }
+
     public boolean getEnableCheckpoints() {
 
         return enableCheckpoints;
@@ -176,6 +249,23 @@ public void setEnableCheckpoints(
         this.enableCheckpoints = enableCheckpoints;
     }
 
+    public boolean isBulkInsert() {
+
+        return bulkInsert;
+    }
+
+    /**
+     * Set whether the events cached in batch mode are sent with the bulk insert of the DB driver
+     * instead of batched stored procedure calls.<br>
+     * Supported with the Microsoft SQL Server JDBC driver and with PostgreSQL.
+     * 
+     * @param bulkInsert whether to use bulk insert
+     */
+    public void setBulkInsert( boolean bulkInsert ) {
+
+        this.bulkInsert = bulkInsert;
+    }
+
     public Level getLoggingThreshold() {
 
         return loggingThreshold;
@@ -261,6 +351,36 @@ public void validate() throws InvalidAppenderConfigurationException {
                 AtsConsoleLogger.setLevel(null);
             }
         }
+
+        if (this.queueType == null
+            || (!QUEUE_TYPE_ARRAY.equalsIgnoreCase(this.queueType.trim()) && !isRingBufferQueue())) {
+            warnForInvalidValue(this.queueType, "queueType", QUEUE_TYPE_ARRAY);
+            this.queueType = QUEUE_TYPE_ARRAY;
+        }
+
+        if (WaitStrategy.fromString(this.waitStrategy) == null) {
+            warnForInvalidValue(this.waitStrategy, "waitStrategy", WaitStrategy.BLOCK.name());
+            this.waitStrategy = WaitStrategy.BLOCK.name();
+        }
+
+        if (OverflowPolicy.fromString(this.overflowPolicy) == null) {
+            warnForInvalidValue(this.overflowPolicy, "overflowPolicy", OverflowPolicy.BLOCK.name());
+            this.overflowPolicy = OverflowPolicy.BLOCK.name();
+        }
+    }
+
+    private void warnForInvalidValue( String value, String parameter, String defaultValue ) {
+
+        boolean explicitEnableOfLogger = false;
+        if (AtsConsoleLogger.getLevel() == null) {
+            explicitEnableOfLogger = true;
+            AtsConsoleLogger.setLevel(Level.WARN);
+        }
+        new AtsConsoleLogger(getClass()).warn("Invalid value (" + value + ") for ATS DB Appender paramenter '"
+                                              + parameter + "'! Setting it to '" + defaultValue + "'");
+        if (explicitEnableOfLogger) {
+            AtsConsoleLogger.setLevel(null);
+        }
     }
 
     /* (non-Javadoc)
@@ -303,10 +423,26 @@ public boolean equals(
             return false;
         }
 
+        if (queueType != null && !queueType.equals(otherConfig.queueType)) {
+            return false;
+        }
+
+        if (waitStrategy != null && !waitStrategy.equals(otherConfig.waitStrategy)) {
+            return false;
+        }
+
+        if (overflowPolicy != null && !overflowPolicy.equals(otherConfig.overflowPolicy)) {
+            return false;
+        }
+
         if (enableCheckpoints != otherConfig.enableCheckpoints) {
             return false;
         }
 
+        if (bulkInsert != otherConfig.bulkInsert) {
+            return false;
+        }
+
         if (!loggingThreshold.equals(otherConfig.loggingThreshold)) {
             return false;
         }
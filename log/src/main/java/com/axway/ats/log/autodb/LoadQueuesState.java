@@ -17,13 +17,12 @@
 
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import com.axway.ats.log.autodb.exceptions.CheckpointAlreadyStartedException;
 import com.axway.ats.log.autodb.exceptions.CheckpointNotStartedException;
@@ -35,14 +34,20 @@
 /**
  * Keeps queue info as names and DB IDs, 
  * associating running threads and checkpoints running for each thread.
+ * <br>
+ * <br>Starting and ending load queues and registering threads is rare, so these operations are synchronized
+ * on this instance. The checkpoint operations are frequent, so they only lock the state of the
+ * thread the checkpoint comes from and reuse the same {@link CheckpointInfo} for each start of a checkpoint.
  */
 public class LoadQueuesState {
 
+    private static final int                  NO_LOAD_QUEUE = -1;
+
     /**
      * This map holds the IDs of all started queues:
      *     Map<queue name, queue DB ID>
      */
-    private Map<String, Integer>             queueNamesToDbIds;
+    private Map<String, Integer>              queueNamesToDbIds;
 
     /**
      * Each thread must first be registered with a queue if a checkpoint
@@ -51,14 +56,15 @@ public class LoadQueuesState {
      * This map keeps all threads per queue:
      *     Map<queue DB ID, List<thread name>>
      */
-    private Map<Integer, List<String>>       threadsPerQueue;
+    private Map<Integer, List<String>>        threadsPerQueue;
 
     /**
-     * This map keeps current checkpoints per thread. Several started at particular moment are supported.
+     * This map keeps the load queue and the checkpoints of each registered thread.
+     * Several checkpoints started at particular moment are supported.
      * This allows to keep track of nested or interweaving tasks/checkpoints.
-     *     Map<thread name, Checkpoint Info>
+     *     Map<thread name, thread state>
      */
-    private Map<String, Set<CheckpointInfo>> checkpointsPerThread;
+    private ConcurrentMap<String, ThreadState> threadStates;
 
     /**
      * Constructor
@@ -68,7 +74,7 @@ public LoadQueuesState() {
         //use tree maps for better performance when searching
         this.queueNamesToDbIds = new TreeMap<String, Integer>();
         this.threadsPerQueue = new TreeMap<Integer, List<String>>();
-        this.checkpointsPerThread = new HashMap<String, Set<CheckpointInfo>>();
+        this.threadStates = new ConcurrentHashMap<String, ThreadState>();
     }
 
     /**
@@ -102,7 +108,16 @@ public synchronized void removeLoadQueue( String name, int id ) throws NoSuchLoa
         }
 
         queueNamesToDbIds.remove(name);
-        threadsPerQueue.remove(id);
+        List<String> threadNames = threadsPerQueue.remove(id);
+        if (threadNames != null) {
+            for (String threadName : threadNames) {
+                ThreadState threadState = threadStates.get(threadName);
+                if (threadState != null && threadState.loadQueueId == id) {
+                    // the thread might be registered with another load queue as well
+                    threadState.loadQueueId = findLoadQueueIdForThread(threadName);
+                }
+            }
+        }
     }
 
     /**
@@ -139,7 +154,17 @@ public synchronized void registerThreadWithLoadQueue( String threadName,
         }
 
         threadNames.add(threadName);
-        clearThreadAllCheckpoints(threadName);
+
+        ThreadState threadState = threadStates.get(threadName);
+        if (threadState == null) {
+            threadState = new ThreadState();
+            threadStates.put(threadName, threadState);
+        } else {
+            synchronized (threadState) {
+                threadState.checkpoints.clear();
+            }
+        }
+        threadState.loadQueueId = loadQueueId;
     }
 
     /**
@@ -164,18 +189,14 @@ public synchronized int getLoadQueueId( String loadQueueName ) throws NoSuchLoad
      * @return
      * @throws ThreadNotRegisteredWithLoadQueue
      */
-    public synchronized int getLoadQueueIdForThread( String threadName ) throws ThreadNotRegisteredWithLoadQueue {
+    public int getLoadQueueIdForThread( String threadName ) throws ThreadNotRegisteredWithLoadQueue {
 
-        for (Entry<Integer, List<String>> loadQueueEntry : threadsPerQueue.entrySet()) {
-            List<String> threads = loadQueueEntry.getValue();
-            for (String thread : threads) {
-                if (thread.equals(threadName)) {
-                    return loadQueueEntry.getKey();
-                }
-            }
+        ThreadState threadState = threadStates.get(threadName);
+        if (threadState == null || threadState.loadQueueId == NO_LOAD_QUEUE) {
+            throw new ThreadNotRegisteredWithLoadQueue(threadName);
         }
 
-        throw new ThreadNotRegisteredWithLoadQueue(threadName);
+        return threadState.loadQueueId;
     }
 
     /**
@@ -183,32 +204,52 @@ public synchronized int getLoadQueueIdForThread( String threadName ) throws Thre
      *
      * @param startedCheckpointInfo info about this checkpoint. It is expected to already be persisted in the DB
      * @param threadName name of the thread which start the checkpoint
-     * @param startTime the time at which this checkpoint started
      * @throws ThreadNotRegisteredWithLoadQueue if the thread which tries to start the checkpoint
      * is not registered with the checkpoint
      * @throws CheckpointAlreadyStartedException if the checkpoint has been started in this thread already
      */
-    public synchronized void startCheckpoint( CheckpointInfo startedCheckpointInfo,
-                                              String threadName ) throws ThreadNotRegisteredWithLoadQueue,
-                                                                  CheckpointAlreadyStartedException {
+    public void startCheckpoint( CheckpointInfo startedCheckpointInfo,
+                                 String threadName ) throws ThreadNotRegisteredWithLoadQueue,
+                                                     CheckpointAlreadyStartedException {
+
+        startCheckpoint(startedCheckpointInfo.getName(), startedCheckpointInfo.getCheckpointSummaryId(),
+                        startedCheckpointInfo.getCheckpointId(), startedCheckpointInfo.getStartTimestamp(),
+                        threadName);
+    }
 
-        Set<CheckpointInfo> currentCheckpointInfoSet = checkpointsPerThread.get(threadName);
-        if (currentCheckpointInfoSet == null) {
+    /**
+     * Start a checkpoint. The checkpoint info of a previous start of this checkpoint in the same thread is reused.
+     *
+     * @param checkpointName the name of the checkpoint
+     * @param checkpointSummaryId id from the checkpoint summary table
+     * @param checkpointId id from the checkpoint details table
+     * @param startTimestamp the time at which this checkpoint started
+     * @param threadName name of the thread which start the checkpoint
+     * @throws ThreadNotRegisteredWithLoadQueue if the thread which tries to start the checkpoint
+     * is not registered with the checkpoint
+     * @throws CheckpointAlreadyStartedException if the checkpoint has been started in this thread already
+     */
+    public void startCheckpoint( String checkpointName, int checkpointSummaryId, long checkpointId,
+                                 long startTimestamp,
+                                 String threadName ) throws ThreadNotRegisteredWithLoadQueue,
+                                                     CheckpointAlreadyStartedException {
+
+        ThreadState threadState = threadStates.get(threadName);
+        if (threadState == null) {
             throw new ThreadNotRegisteredWithLoadQueue(threadName);
         }
-        CheckpointInfo checkpointInfoWithThisName = null;
-        for (CheckpointInfo checkpointInfo : currentCheckpointInfoSet) {
-            if (checkpointInfo.getName().equals(startedCheckpointInfo.getName())) {
-                checkpointInfoWithThisName = checkpointInfo;
-                break;
-            }
-        }
 
-        if (checkpointInfoWithThisName != null && checkpointInfoWithThisName.isRunning()) {
-            throw new CheckpointAlreadyStartedException(startedCheckpointInfo.getName(), threadName);
+        synchronized (threadState) {
+            CheckpointInfo checkpointInfo = threadState.checkpoints.get(checkpointName);
+            if (checkpointInfo == null) {
+                checkpointInfo = new CheckpointInfo(checkpointName, checkpointSummaryId, checkpointId,
+                                                    startTimestamp);
+                threadState.checkpoints.put(checkpointName, checkpointInfo);
+            } else if (checkpointInfo.isRunning()) {
+                throw new CheckpointAlreadyStartedException(checkpointName, threadName);
+            }
+            checkpointInfo.start(checkpointSummaryId, checkpointId, startTimestamp);
         }
-
-        registerCheckpointWithThread(threadName, startedCheckpointInfo);
     }
 
     /**
@@ -217,37 +258,33 @@ public synchronized void startCheckpoint( CheckpointInfo startedCheckpointInfo,
      * @param threadName name of the thread which ends the checkpoint
      * @param checkpointName the name of the checkpoint
      * @param endTime the time at which this checkpoint ended
+     * @return the info of the ended checkpoint. It is valid until the same checkpoint is started again
+     * in the same thread
      * @throws ThreadNotRegisteredWithLoadQueue if the thread which tries to end the checkpoint
      * is not registered with the checkpoint
      * @throws CheckpointNotStartedException if the checkpoint has not been started at all
      */
-    public synchronized CheckpointInfo endCheckpoint( String threadName, String checkpointName,
-                                                      long endTime ) throws ThreadNotRegisteredWithLoadQueue,
-                                                                     CheckpointNotStartedException {
+    public CheckpointInfo endCheckpoint( String threadName, String checkpointName,
+                                         long endTime ) throws ThreadNotRegisteredWithLoadQueue,
+                                                        CheckpointNotStartedException {
 
-        Set<CheckpointInfo> currentCheckpointInfoSet = checkpointsPerThread.get(threadName);
-        if (currentCheckpointInfoSet == null) {
+        ThreadState threadState = threadStates.get(threadName);
+        if (threadState == null) {
             throw new ThreadNotRegisteredWithLoadQueue(threadName);
         }
 
-        Iterator<CheckpointInfo> iterator = currentCheckpointInfoSet.iterator();
-        CheckpointInfo currentCheckpointInfo = null, tempCheckpoint = null;
-        while (iterator.hasNext() && currentCheckpointInfo == null) {
-            tempCheckpoint = (CheckpointInfo) iterator.next();
-            if (checkpointName.equals(tempCheckpoint.getName())) {
-                currentCheckpointInfo = tempCheckpoint;
+        synchronized (threadState) {
+            CheckpointInfo checkpointInfo = threadState.checkpoints.get(checkpointName);
+            if (checkpointInfo == null || !checkpointInfo.isRunning()) {
+                throw new CheckpointNotStartedException(checkpointName, threadName);
             }
-        }
 
-        if (currentCheckpointInfo == null || !currentCheckpointInfo.isRunning()) {
-            throw new CheckpointNotStartedException(checkpointName, threadName);
-        }
+            // the checkpoint is no more running in this thread,
+            // but return it as we need it when ending the checkpoint in the DB
+            checkpointInfo.end();
 
-        // clean current checkpoint from the set associated to this thread,
-        // but return this checkpoint as we need it when ending the checkpoint in the DB
-        clearThreadCheckpoint(threadName, currentCheckpointInfo);
-
-        return currentCheckpointInfo;
+            return checkpointInfo;
+        }
     }
 
     /**
@@ -257,38 +294,30 @@ public synchronized void clearAll() {
 
         queueNamesToDbIds.clear();
         threadsPerQueue.clear();
-        checkpointsPerThread.clear();
+        threadStates.clear();
     }
 
-    private void registerCheckpointWithThread( String threadName,
-                                               CheckpointInfo checkpointInfo ) throws CheckpointAlreadyStartedException {
+    private int findLoadQueueIdForThread( String threadName ) {
 
-        Set<CheckpointInfo> set = checkpointsPerThread.get(threadName);
-        if (set == null) {
-            set = new HashSet<CheckpointInfo>();
-            checkpointsPerThread.put(threadName, set);
-        }
-        boolean newlyAdded = set.add(checkpointInfo);
-        if (!newlyAdded) {
-            throw new CheckpointAlreadyStartedException(checkpointInfo.getName(), threadName);
+        for (Entry<Integer, List<String>> loadQueueEntry : threadsPerQueue.entrySet()) {
+            if (loadQueueEntry.getValue().contains(threadName)) {
+                return loadQueueEntry.getKey();
+            }
         }
+        return NO_LOAD_QUEUE;
     }
 
-    private void clearThreadCheckpoint( String threadName, CheckpointInfo checkpointInfoForRemove ) {
-
-        Set<CheckpointInfo> set = checkpointsPerThread.get(threadName);
-        set.remove(checkpointInfoForRemove);
-    }
+    /**
+     * The load queue and the checkpoints of one thread
+     */
+    private static class ThreadState {
 
-    private void clearThreadAllCheckpoints( String threadName ) {
+        private volatile int                      loadQueueId = NO_LOAD_QUEUE;
 
-        Set<CheckpointInfo> set = checkpointsPerThread.get(threadName);
-        if (set != null) {
-            set.clear();
-        } else { // initialize - put empty set
-            set = new HashSet<CheckpointInfo>();
-            checkpointsPerThread.put(threadName, set);
-        }
+        /*
+         * Map<checkpoint name, checkpoint info>
+         * Accessed while holding the lock of this thread state
+         */
+        private final Map<String, CheckpointInfo> checkpoints = new HashMap<String, CheckpointInfo>();
     }
-
 }
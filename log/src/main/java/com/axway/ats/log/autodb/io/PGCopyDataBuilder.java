@@ -0,0 +1,116 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.log.autodb.io;
+
+import java.sql.Timestamp;
+
+/**
+ * Builds rows in the text format of the PostgreSQL <code>COPY ... FROM STDIN</code> command.
+ * <br>The columns are separated by tabs, the rows by new lines and null values are written as <code>\N</code>
+ */
+class PGCopyDataBuilder {
+
+    private final StringBuilder data = new StringBuilder();
+    private int                 rows;
+    private boolean             isRowStarted;
+
+    PGCopyDataBuilder addValue( String value ) {
+
+        startColumn();
+        if (value == null) {
+            data.append("\\N");
+        } else {
+            for (int i = 0; i < value.length(); i++) {
+                char ch = value.charAt(i);
+                switch (ch) {
+                    case '\\':
+                        data.append("\\\\");
+                        break;
+                    case '\t':
+                        data.append("\\t");
+                        break;
+                    case '\n':
+                        data.append("\\n");
+                        break;
+                    case '\r':
+                        data.append("\\r");
+                        break;
+                    default:
+                        data.append(ch);
+                }
+            }
+        }
+        return this;
+    }
+
+    PGCopyDataBuilder addValue( long value ) {
+
+        startColumn();
+        data.append(value);
+        return this;
+    }
+
+    PGCopyDataBuilder addValue( boolean value ) {
+
+        startColumn();
+        data.append(value
+                          ? 't'
+                          : 'f');
+        return this;
+    }
+
+    PGCopyDataBuilder addValue( Timestamp value ) {
+
+        return addValue(value == null
+                                      ? null
+                                      : value.toString());
+    }
+
+    PGCopyDataBuilder endRow() {
+
+        data.append('\n');
+        isRowStarted = false;
+        rows++;
+        return this;
+    }
+
+    int getRows() {
+
+        return rows;
+    }
+
+    void clear() {
+
+        data.setLength(0);
+        rows = 0;
+        isRowStarted = false;
+    }
+
+    @Override
+    public String toString() {
+
+        return data.toString();
+    }
+
+    private void startColumn() {
+
+        if (isRowStarted) {
+            data.append('\t');
+        } else {
+            isRowStarted = true;
+        }
+    }
+}
@@ -15,6 +15,7 @@
  */
 package com.axway.ats.log.autodb.io;
 
+import java.io.StringReader;
 import java.sql.CallableStatement;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -24,7 +25,12 @@
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+
+import com.axway.ats.common.systemproperties.AtsSystemProperties;
 import com.axway.ats.core.dbaccess.DbConnection;
 import com.axway.ats.core.dbaccess.DbUtils;
 import com.axway.ats.core.utils.StringUtils;
@@ -38,12 +44,51 @@ public class PGDbWriteAccess extends SQLServerDbWriteAccess {
     // it shadows the DbWriteAccess's private variable with the same name
     protected PGInsertEventStatementsFactory insertFactory;
 
+    // sends the cached events with the COPY protocol, null when not in batch mode or when bulk insert is not used
+    protected PGCopyEventsCache              copyEventsCache;
+
     public PGDbWriteAccess( DbConnection dbConnection, boolean isBatchMode ) throws DatabaseAccessException {
 
         super(dbConnection, isBatchMode);
         this.insertFactory = new PGInsertEventStatementsFactory(isBatchMode);
     }
 
+    @Override
+    public void setMaxNumberOfCachedEvents( int maxNumberOfCachedEvents ) {
+
+        super.setMaxNumberOfCachedEvents(maxNumberOfCachedEvents);
+        if (copyEventsCache != null) {
+            copyEventsCache.setMaxNumberOfCachedEvents(maxNumberOfCachedEvents);
+        }
+    }
+
+    @Override
+    public void enableBulkInsert() {
+
+        if (isBatchMode && copyEventsCache == null) {
+            this.copyEventsCache = new PGCopyEventsCache();
+            this.copyEventsCache.setMaxNumberOfCachedEvents(this.chunkSize);
+        }
+    }
+
+    @Override
+    public void flushCache() throws DatabaseAccessException {
+
+        super.flushCache();
+        if (copyEventsCache != null) {
+            copyEventsCache.flush();
+        }
+    }
+
+    @Override
+    public void flushCacheIfNeeded() throws DatabaseAccessException {
+
+        super.flushCacheIfNeeded();
+        if (copyEventsCache != null) {
+            copyEventsCache.flushIfNeeded();
+        }
+    }
+
     /**
      * Update the static information about an existing run
      *
@@ -159,6 +204,11 @@ public boolean insertMessage( String message, int level, boolean escapeHtml, Str
 
         timestamp = inUTC(timestamp);
 
+        if (copyEventsCache != null) {
+            return copyEventsCache.addMessage(PGCopyEventsCache.TESTCASE_MESSAGE, testCaseId, level, message,
+                                              escapeHtml, machineName, threadName, timestamp);
+        }
+
         Connection currentConnection;
         if (!isBatchMode) {
             currentConnection = refreshInternalConnection();
@@ -227,6 +277,11 @@ public boolean insertRunMessage( String message, int level, boolean escapeHtml,
 
             timestamp = inUTC(timestamp);
 
+            if (copyEventsCache != null) {
+                return copyEventsCache.addMessage(PGCopyEventsCache.RUN_MESSAGE, runId, level, message, escapeHtml,
+                                                  machineName, threadName, timestamp);
+            }
+
             Connection currentConnection;
             if (!isBatchMode) {
                 currentConnection = refreshInternalConnection();
@@ -295,6 +350,11 @@ public boolean insertSuiteMessage( String message, int level, boolean escapeHtml
 
             timestamp = inUTC(timestamp);
 
+            if (copyEventsCache != null) {
+                return copyEventsCache.addMessage(PGCopyEventsCache.SUITE_MESSAGE, suiteId, level, message,
+                                                  escapeHtml, machineName, threadName, timestamp);
+            }
+
             Connection currentConnection;
             if (!isBatchMode) {
                 currentConnection = refreshInternalConnection();
@@ -401,6 +461,11 @@ public boolean insertCheckpoint( String name, long startTimestamp, long response
 
         startTimestamp = inUTC(startTimestamp);
 
+        if (copyEventsCache != null) {
+            return copyEventsCache.addCheckpoint(loadQueueId, name, responseTime, startTimestamp + responseTime,
+                                                 transferSize, transferUnit, result, checkpointLogLevel);
+        }
+
         Connection currentConnection;
         if (!isBatchMode) {
             currentConnection = refreshInternalConnection();
@@ -452,6 +517,36 @@ public boolean insertCheckpoint( String name, long startTimestamp, long response
 
     }
 
+    /**
+     * The PostgreSQL log DB has no procedure for merging already summarized checkpoint results,
+     * so the {@link CheckpointLogLevel#AGGREGATED} checkpoint log level is not supported
+     */
+    @Override
+    public void updateCheckpointSummary( int checkpointSummaryId, int numPassed, int numFailed, int numRunning,
+                                         int minResponseTime, int maxResponseTime, double avgResponseTime,
+                                         double minTransferRate, double maxTransferRate, double avgTransferRate,
+                                         boolean closeConnection ) throws DatabaseAccessException {
+
+        throw new DatabaseAccessException("Unable to update checkpoint summary " + checkpointSummaryId
+                                          + ". Checkpoint log level " + CheckpointLogLevel.AGGREGATED
+                                          + " is not supported with PostgreSQL log DB, use "
+                                          + CheckpointLogLevel.SHORT + " or " + CheckpointLogLevel.FULL
+                                          + " instead");
+    }
+
+    @Override
+    public void insertSystemStatistics( int testCaseId, String machine, String statisticIds, String statisticValues,
+                                        long timestamp, boolean closeConnection ) throws DatabaseAccessException {
+
+        if (copyEventsCache != null) {
+            copyEventsCache.addSystemStatistics(testCaseId, machine, statisticIds, statisticValues,
+                                                inUTC(timestamp));
+        } else {
+            super.insertSystemStatistics(testCaseId, machine, statisticIds, statisticValues, timestamp,
+                                         closeConnection);
+        }
+    }
+
     @Override
     public void insertUserActivityStatistics( int testCaseId, String machine, String statisticIds,
                                               String statisticValues, long timestamp,
@@ -551,6 +646,426 @@ public boolean isTestcasePresent( int testcaseId ) throws DatabaseAccessExceptio
         return false;
     }
 
+    /**
+     * Caches messages, checkpoints and system statistics and sends them to the DB with the COPY protocol.
+     * <br>The events are copied into temporary tables and then passed to the same stored procedures
+     * which are used for single events, but with one statement per event type instead of one call per event.
+     * This way the IDs and all other DB logic stay the same.
+     * <br>If the COPY fails, the events are sent to the DB the usual way and the COPY is not used anymore.
+     */
+    protected class PGCopyEventsCache {
+
+        static final int            TESTCASE_MESSAGE            = 0;
+        static final int            RUN_MESSAGE                 = 1;
+        static final int            SUITE_MESSAGE               = 2;
+
+        private static final String CREATE_MESSAGES_TABLE       = "CREATE TEMP TABLE IF NOT EXISTS ats_copy_messages "
+                                                                  + "(seq int, kind int, parentId int, level int, message varchar, "
+                                                                  + "escapeHtml boolean, machine varchar, thread varchar, eventTime timestamp) "
+                                                                  + "ON COMMIT DELETE ROWS";
+        private static final String CREATE_CHECKPOINTS_TABLE    = "CREATE TEMP TABLE IF NOT EXISTS ats_copy_checkpoints "
+                                                                  + "(seq int, loadQueueId int, name varchar, responseTime bigint, "
+                                                                  + "endTime timestamp, transferSize bigint, transferUnit varchar, "
+                                                                  + "result int, logLevel int) ON COMMIT DELETE ROWS";
+        private static final String CREATE_STATISTICS_TABLE     = "CREATE TEMP TABLE IF NOT EXISTS ats_copy_statistics "
+                                                                  + "(seq int, testcaseId int, machine varchar, statisticIds varchar, "
+                                                                  + "statisticValues varchar, eventTime timestamp) ON COMMIT DELETE ROWS";
+
+        private static final String COPY_MESSAGES               = "COPY ats_copy_messages FROM STDIN";
+        private static final String COPY_CHECKPOINTS            = "COPY ats_copy_checkpoints FROM STDIN";
+        private static final String COPY_STATISTICS             = "COPY ats_copy_statistics FROM STDIN";
+
+        // the ORDER BY keeps the IDs in the order the events came in
+        private static final String INSERT_MESSAGES             = "SELECT %s(parentId, level, message, escapeHtml, machine, thread, eventTime) "
+                                                                  + "FROM (SELECT * FROM ats_copy_messages WHERE kind = %d ORDER BY seq) AS m";
+        private static final String INSERT_CHECKPOINTS          = "SELECT sp_insert_checkpoint(loadQueueId, name, responseTime, endTime, "
+                                                                  + "transferSize, transferUnit, result, logLevel) "
+                                                                  + "FROM (SELECT * FROM ats_copy_checkpoints ORDER BY seq) AS c";
+        private static final String INSERT_STATISTICS           = "SELECT sp_insert_system_statistic_by_ids(testcaseId, machine, statisticIds, "
+                                                                  + "statisticValues, eventTime) "
+                                                                  + "FROM (SELECT * FROM ats_copy_statistics ORDER BY seq) AS s";
+
+        private static final String SP_INSERT_SYSTEM_STATISTICS = "{ call sp_insert_system_statistic_by_ids(?, ?, ?, ?, ?) }";
+
+        private long                maxCacheWaitTime            = TimeUnit.SECONDS.toMillis(AtsSystemProperties.getPropertyAsNumber(AtsSystemProperties.LOG__MAX_CACHE_EVENTS_FLUSH_TIMEOUT,
+                                                                                                                                    10));
+        private int                 maxNumberOfCachedEvents     = AbstractDbAccess.DEFAULT_CHUNK_SIZE;
+        private long                cacheBirthTime;
+
+        private List<CachedMessage>    cachedMessages           = new ArrayList<>();
+        private List<CachedCheckpoint> cachedCheckpoints        = new ArrayList<>();
+        private List<CachedStatistics> cachedStatistics         = new ArrayList<>();
+
+        // the temporary tables live as long as the DB session, so they are created once per connection
+        private Connection             connectionWithTables;
+
+        public void setMaxNumberOfCachedEvents( int maxNumberOfCachedEvents ) {
+
+            this.maxNumberOfCachedEvents = maxNumberOfCachedEvents;
+        }
+
+        boolean addMessage( int kind, int parentId, int level, String message, boolean escapeHtml,
+                            String machineName, String threadName, long timestamp ) throws DatabaseAccessException {
+
+            cachedMessages.add(new CachedMessage(kind, parentId, level, message, escapeHtml, machineName, threadName,
+                                           timestamp));
+            return eventAdded();
+        }
+
+        boolean addCheckpoint( int loadQueueId, String name, long responseTime, long endTimestamp,
+                               long transferSize, String transferUnit, int result,
+                               CheckpointLogLevel checkpointLogLevel ) throws DatabaseAccessException {
+
+            cachedCheckpoints.add(new CachedCheckpoint(loadQueueId, name, responseTime, endTimestamp, transferSize,
+                                                 transferUnit, result, checkpointLogLevel));
+            return eventAdded();
+        }
+
+        boolean addSystemStatistics( int testCaseId, String machine, String statisticIds, String statisticValues,
+                                     long timestamp ) throws DatabaseAccessException {
+
+            cachedStatistics.add(new CachedStatistics(testCaseId, machine, statisticIds, statisticValues, timestamp));
+            return eventAdded();
+        }
+
+        boolean flushIfNeeded() throws DatabaseAccessException {
+
+            int numberEvents = getNumberOfCachedEvents();
+            if (numberEvents > 0 && (numberEvents >= maxNumberOfCachedEvents
+                                     || System.currentTimeMillis() - cacheBirthTime >= maxCacheWaitTime)) {
+                flush();
+                return true;
+            }
+            return false;
+        }
+
+        void flush() throws DatabaseAccessException {
+
+            int numberEvents = getNumberOfCachedEvents();
+            if (numberEvents == 0) {
+                return;
+            }
+
+            long batchStartTime = System.currentTimeMillis();
+            List<CachedMessage> flushedMessages = cachedMessages;
+            List<CachedCheckpoint> flushedCheckpoints = cachedCheckpoints;
+            List<CachedStatistics> flushedStatistics = cachedStatistics;
+            cachedMessages = new ArrayList<>();
+            cachedCheckpoints = new ArrayList<>();
+            cachedStatistics = new ArrayList<>();
+            cacheBirthTime = 0;
+
+            Connection connection = dbEventsCache.getConnection();
+            try {
+                createTemporaryTables(connection);
+
+                copyMessages(connection, flushedMessages);
+                copyCheckpoints(connection, flushedCheckpoints);
+                copyStatistics(connection, flushedStatistics);
+
+                // data sent to the DB, commit the transaction
+                connection.commit();
+            } catch (Exception e) {
+                try {
+                    connection.rollback();
+                } catch (Exception rollbackException) {
+                    log.error("Rollback failed after COPY of " + numberEvents + " events failed",
+                              rollbackException);
+                }
+                log.error("Unable to send " + numberEvents + " events to the log DB with COPY. "
+                          + "They will be sent the usual way and COPY will not be used anymore", e);
+
+                // from now on all events go the usual way
+                copyEventsCache = null;
+                connectionWithTables = null;
+                sendWithoutCopy(flushedMessages, flushedCheckpoints, flushedStatistics);
+                return;
+            }
+
+            if (isMonitorEventsQueue) {
+                log.getLog4jLogger()
+                   .info("Flushed with COPY " + flushedCheckpoints.size() + " checkpoints, "
+                         + flushedMessages.size() + " messages and " + flushedStatistics.size()
+                         + " system statistics in " + (System.currentTimeMillis() - batchStartTime) + " ms");
+            }
+        }
+
+        private boolean eventAdded() throws DatabaseAccessException {
+
+            // if this is the first event, we have to remember the cache birth time
+            if (getNumberOfCachedEvents() == 1) {
+                cacheBirthTime = System.currentTimeMillis();
+            }
+            return flushIfNeeded();
+        }
+
+        private int getNumberOfCachedEvents() {
+
+            return cachedMessages.size() + cachedCheckpoints.size() + cachedStatistics.size();
+        }
+
+        private void createTemporaryTables( Connection connection ) throws SQLException {
+
+            if (connection != connectionWithTables) {
+                executeStatement(connection, CREATE_MESSAGES_TABLE);
+                executeStatement(connection, CREATE_CHECKPOINTS_TABLE);
+                executeStatement(connection, CREATE_STATISTICS_TABLE);
+                connectionWithTables = connection;
+            }
+        }
+
+        private void copyMessages( Connection connection, List<CachedMessage> messages ) throws Exception {
+
+            if (messages.isEmpty()) {
+                return;
+            }
+
+            PGCopyDataBuilder data = new PGCopyDataBuilder();
+            boolean[] hasKind = new boolean[3];
+            for (int i = 0; i < messages.size(); i++) {
+                CachedMessage message = messages.get(i);
+                hasKind[message.kind] = true;
+                data.addValue(i)
+                    .addValue(message.kind)
+                    .addValue(message.parentId)
+                    .addValue(message.level)
+                    .addValue(message.message)
+                    .addValue(message.escapeHtml)
+                    .addValue(message.machineName)
+                    .addValue(message.threadName)
+                    .addValue(new Timestamp(message.timestamp))
+                    .endRow();
+            }
+            copyIn(connection, COPY_MESSAGES, data.toString());
+
+            if (hasKind[RUN_MESSAGE]) {
+                executeStatement(connection, String.format(INSERT_MESSAGES, "sp_insert_run_message", RUN_MESSAGE));
+            }
+            if (hasKind[SUITE_MESSAGE]) {
+                executeStatement(connection,
+                                 String.format(INSERT_MESSAGES, "sp_insert_suite_message", SUITE_MESSAGE));
+            }
+            if (hasKind[TESTCASE_MESSAGE]) {
+                executeStatement(connection, String.format(INSERT_MESSAGES, "sp_insert_message", TESTCASE_MESSAGE));
+            }
+        }
+
+        private void copyCheckpoints( Connection connection, List<CachedCheckpoint> checkpoints ) throws Exception {
+
+            if (checkpoints.isEmpty()) {
+                return;
+            }
+
+            PGCopyDataBuilder data = new PGCopyDataBuilder();
+            for (int i = 0; i < checkpoints.size(); i++) {
+                CachedCheckpoint checkpoint = checkpoints.get(i);
+                data.addValue(i)
+                    .addValue(checkpoint.loadQueueId)
+                    .addValue(checkpoint.name)
+                    .addValue(checkpoint.responseTime)
+                    .addValue(new Timestamp(checkpoint.endTimestamp))
+                    .addValue(checkpoint.transferSize)
+                    .addValue(checkpoint.transferUnit)
+                    .addValue(checkpoint.result)
+                    .addValue(checkpoint.checkpointLogLevel.toInt())
+                    .endRow();
+            }
+            copyIn(connection, COPY_CHECKPOINTS, data.toString());
+
+            executeStatement(connection, INSERT_CHECKPOINTS);
+        }
+
+        private void copyStatistics( Connection connection, List<CachedStatistics> statistics ) throws Exception {
+
+            if (statistics.isEmpty()) {
+                return;
+            }
+
+            PGCopyDataBuilder data = new PGCopyDataBuilder();
+            for (int i = 0; i < statistics.size(); i++) {
+                CachedStatistics statistic = statistics.get(i);
+                data.addValue(i)
+                    .addValue(statistic.testCaseId)
+                    .addValue(statistic.machine)
+                    .addValue(statistic.statisticIds)
+                    .addValue(statistic.statisticValues)
+                    .addValue(new Timestamp(statistic.timestamp))
+                    .endRow();
+            }
+            copyIn(connection, COPY_STATISTICS, data.toString());
+
+            executeStatement(connection, INSERT_STATISTICS);
+        }
+
+        /**
+         * Send the rows to a temporary table with the COPY protocol
+         */
+        void copyIn( Connection connection, String copySql, String rows ) throws Exception {
+
+            CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            copyManager.copyIn(copySql, new StringReader(rows));
+        }
+
+        private void executeStatement( Connection connection, String sql ) throws SQLException {
+
+            PreparedStatement statement = null;
+            try {
+                statement = connection.prepareStatement(sql);
+                statement.execute();
+            } finally {
+                DbUtils.closeStatement(statement);
+            }
+        }
+
+        /**
+         * Send the events with the stored procedure statements, the way it is done when COPY is not used
+         */
+        private void sendWithoutCopy( List<CachedMessage> messages, List<CachedCheckpoint> checkpoints,
+                                      List<CachedStatistics> statistics ) throws DatabaseAccessException {
+
+            Connection connection = dbEventsCache.getConnection();
+            for (CachedMessage message : messages) {
+                if (message.kind == RUN_MESSAGE) {
+                    dbEventsCache.addInsertRunMessageEventToBatch(insertFactory.getInsertRunMessageStatement(connection,
+                                                                                                             message.message,
+                                                                                                             message.level,
+                                                                                                             message.escapeHtml,
+                                                                                                             message.machineName,
+                                                                                                             message.threadName,
+                                                                                                             message.timestamp,
+                                                                                                             message.parentId));
+                } else if (message.kind == SUITE_MESSAGE) {
+                    dbEventsCache.addInsertSuiteMessageEventToBatch(insertFactory.getInsertSuiteMessageStatement(connection,
+                                                                                                                 message.message,
+                                                                                                                 message.level,
+                                                                                                                 message.escapeHtml,
+                                                                                                                 message.machineName,
+                                                                                                                 message.threadName,
+                                                                                                                 message.timestamp,
+                                                                                                                 message.parentId));
+                } else {
+                    dbEventsCache.addInsertTestcaseMessageEventToBatch(insertFactory.getInsertTestcaseMessageStatement(connection,
+                                                                                                                       message.message,
+                                                                                                                       message.level,
+                                                                                                                       message.escapeHtml,
+                                                                                                                       message.machineName,
+                                                                                                                       message.threadName,
+                                                                                                                       message.timestamp,
+                                                                                                                       message.parentId));
+                }
+            }
+            for (CachedCheckpoint checkpoint : checkpoints) {
+                dbEventsCache.addInsertCheckpointEventToBatch(insertFactory.getInsertCheckpointStatement(connection,
+                                                                                                         checkpoint.name,
+                                                                                                         checkpoint.responseTime,
+                                                                                                         checkpoint.endTimestamp,
+                                                                                                         checkpoint.transferSize,
+                                                                                                         checkpoint.transferUnit,
+                                                                                                         checkpoint.result,
+                                                                                                         checkpoint.checkpointLogLevel,
+                                                                                                         checkpoint.loadQueueId));
+            }
+            dbEventsCache.flushCache();
+
+            if (!statistics.isEmpty()) {
+                CallableStatement callableStatement = null;
+                try {
+                    callableStatement = connection.prepareCall(SP_INSERT_SYSTEM_STATISTICS);
+                    for (CachedStatistics statistic : statistics) {
+                        callableStatement.setInt(1, statistic.testCaseId);
+                        callableStatement.setString(2, statistic.machine);
+                        callableStatement.setString(3, statistic.statisticIds);
+                        callableStatement.setString(4, statistic.statisticValues);
+                        callableStatement.setTimestamp(5, new Timestamp(statistic.timestamp));
+                        callableStatement.addBatch();
+                    }
+                    callableStatement.executeBatch();
+                    connection.commit();
+                } catch (Exception e) {
+                    try {
+                        connection.rollback();
+                    } catch (Exception rollbackException) {
+                        log.error("Unable to rollback the insert of " + statistics.size() + " system statistics",
+                                  rollbackException);
+                    }
+                    throw new DatabaseAccessException("Unable to insert " + statistics.size()
+                                                      + " system statistics", e);
+                } finally {
+                    DbUtils.closeStatement(callableStatement);
+                }
+            }
+        }
+    }
+
+    private static class CachedMessage {
+
+        private final int     kind;
+        private final int     parentId;
+        private final int     level;
+        private final String  message;
+        private final boolean escapeHtml;
+        private final String  machineName;
+        private final String  threadName;
+        private final long    timestamp;
+
+        CachedMessage( int kind, int parentId, int level, String message, boolean escapeHtml, String machineName,
+                       String threadName, long timestamp ) {
+
+            this.kind = kind;
+            this.parentId = parentId;
+            this.level = level;
+            this.message = message;
+            this.escapeHtml = escapeHtml;
+            this.machineName = machineName;
+            this.threadName = threadName;
+            this.timestamp = timestamp;
+        }
+    }
+
+    private static class CachedCheckpoint {
+
+        private final int                loadQueueId;
+        private final String             name;
+        private final long               responseTime;
+        private final long               endTimestamp;
+        private final long               transferSize;
+        private final String             transferUnit;
+        private final int                result;
+        private final CheckpointLogLevel checkpointLogLevel;
+
+        CachedCheckpoint( int loadQueueId, String name, long responseTime, long endTimestamp, long transferSize,
+                          String transferUnit, int result, CheckpointLogLevel checkpointLogLevel ) {
+
+            this.loadQueueId = loadQueueId;
+            this.name = name;
+            this.responseTime = responseTime;
+            this.endTimestamp = endTimestamp;
+            this.transferSize = transferSize;
+            this.transferUnit = transferUnit;
+            this.result = result;
+            this.checkpointLogLevel = checkpointLogLevel;
+        }
+    }
+
+    private static class CachedStatistics {
+
+        private final int    testCaseId;
+        private final String machine;
+        private final String statisticIds;
+        private final String statisticValues;
+        private final long   timestamp;
+
+        CachedStatistics( int testCaseId, String machine, String statisticIds, String statisticValues,
+                          long timestamp ) {
+
+            this.testCaseId = testCaseId;
+            this.machine = machine;
+            this.statisticIds = statisticIds;
+            this.statisticValues = statisticValues;
+            this.timestamp = timestamp;
+        }
+    }
+
     /**
      * Provides the event statements
      */
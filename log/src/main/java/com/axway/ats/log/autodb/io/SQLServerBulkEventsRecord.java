@@ -0,0 +1,215 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.log.autodb.io;
+
+import java.sql.Types;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.microsoft.sqlserver.jdbc.ISQLServerBulkRecord;
+
+/**
+ * In-memory rows passed to the SQL Server bulk copy.
+ * <br>Unlike the CSV file record, the values are passed as they are, so messages containing
+ * commas or new lines do not need any escaping.
+ */
+class SQLServerBulkEventsRecord implements ISQLServerBulkRecord {
+
+    private final List<String>            columnNames                    = new ArrayList<>();
+    private final List<Integer>           columnTypes                    = new ArrayList<>();
+    private final List<Integer>           columnPrecisions               = new ArrayList<>();
+    private final List<Integer>           columnScales                   = new ArrayList<>();
+    private final List<DateTimeFormatter> columnFormatters               = new ArrayList<>();
+
+    // used for the values with time zone which are passed as strings
+    private DateTimeFormatter             timestampWithTimezoneFormatter;
+    private DateTimeFormatter             timeWithTimezoneFormatter;
+
+    private final List<Object[]>          rows                           = new ArrayList<>();
+    private int                           currentRow                     = -1;
+
+    /**
+     * Add a column. The columns are expected in the order of the destination table.
+     *
+     * @param name the column name
+     * @param type one of the {@link Types} constants
+     */
+    SQLServerBulkEventsRecord addColumn( String name, int type ) {
+
+        addColumnMetadata(columnNames.size() + 1, name, type, getDefaultPrecision(type),
+                          type == Types.TIMESTAMP
+                                                  ? 3
+                                                  : 0,
+                          null);
+        return this;
+    }
+
+    /**
+     * Add a row. The values are expected in the order of the columns.
+     */
+    SQLServerBulkEventsRecord addRow( Object... values ) {
+
+        if (values.length != columnNames.size()) {
+            throw new IllegalArgumentException("Expected " + columnNames.size() + " values, but got "
+                                               + values.length);
+        }
+        rows.add(values);
+        return this;
+    }
+
+    int getRows() {
+
+        return rows.size();
+    }
+
+    @Override
+    public Set<Integer> getColumnOrdinals() {
+
+        Set<Integer> ordinals = new LinkedHashSet<>();
+        for (int i = 1; i <= columnNames.size(); i++) {
+            ordinals.add(i);
+        }
+        return ordinals;
+    }
+
+    @Override
+    public String getColumnName( int column ) {
+
+        return columnNames.get(column - 1);
+    }
+
+    @Override
+    public int getColumnType( int column ) {
+
+        return columnTypes.get(column - 1);
+    }
+
+    @Override
+    public int getPrecision( int column ) {
+
+        return columnPrecisions.get(column - 1);
+    }
+
+    @Override
+    public int getScale( int column ) {
+
+        return columnScales.get(column - 1);
+    }
+
+    @Override
+    public boolean isAutoIncrement( int column ) {
+
+        return false;
+    }
+
+    @Override
+    public Object[] getRowData() {
+
+        return rows.get(currentRow);
+    }
+
+    @Override
+    public boolean next() {
+
+        return ++currentRow < rows.size();
+    }
+
+    /**
+     * Add a column. The columns are expected in the order of the destination table.
+     */
+    @Override
+    public void addColumnMetadata( int positionInFile, String name, int jdbcType, int precision, int scale,
+                                   DateTimeFormatter dateTimeFormatter ) {
+
+        if (positionInFile != columnNames.size() + 1) {
+            throw new IllegalArgumentException("Expected column " + (columnNames.size() + 1) + ", but got column "
+                                               + positionInFile);
+        }
+        columnNames.add(name);
+        columnTypes.add(jdbcType);
+        columnPrecisions.add(precision);
+        columnScales.add(scale);
+        columnFormatters.add(dateTimeFormatter);
+    }
+
+    @Override
+    public void addColumnMetadata( int positionInFile, String name, int jdbcType, int precision, int scale ) {
+
+        addColumnMetadata(positionInFile, name, jdbcType, precision, scale, null);
+    }
+
+    @Override
+    public void setTimestampWithTimezoneFormat( String dateTimeFormat ) {
+
+        setTimestampWithTimezoneFormat(DateTimeFormatter.ofPattern(dateTimeFormat));
+    }
+
+    @Override
+    public void setTimestampWithTimezoneFormat( DateTimeFormatter dateTimeFormatter ) {
+
+        this.timestampWithTimezoneFormatter = dateTimeFormatter;
+    }
+
+    @Override
+    public void setTimeWithTimezoneFormat( String timeFormat ) {
+
+        setTimeWithTimezoneFormat(DateTimeFormatter.ofPattern(timeFormat));
+    }
+
+    @Override
+    public void setTimeWithTimezoneFormat( DateTimeFormatter dateTimeFormatter ) {
+
+        this.timeWithTimezoneFormatter = dateTimeFormatter;
+    }
+
+    @Override
+    public DateTimeFormatter getColumnDateTimeFormatter( int column ) {
+
+        DateTimeFormatter columnFormatter = columnFormatters.get(column - 1);
+        if (columnFormatter != null) {
+            return columnFormatter;
+        }
+        switch (getColumnType(column)) {
+            case Types.TIMESTAMP_WITH_TIMEZONE:
+                return timestampWithTimezoneFormatter;
+            case Types.TIME_WITH_TIMEZONE:
+                return timeWithTimezoneFormatter;
+            default:
+                // the values are not passed as strings, so they are not parsed
+                return null;
+        }
+    }
+
+    private static int getDefaultPrecision( int type ) {
+
+        switch (type) {
+            case Types.BIT:
+                return 1;
+            case Types.INTEGER:
+                return 10;
+            case Types.BIGINT:
+                return 19;
+            case Types.TIMESTAMP:
+                return 23;
+            default:
+                // the max length of the destination column is used
+                return 0;
+        }
+    }
+}
@@ -28,6 +28,7 @@
 import java.util.TimeZone;
 import java.util.concurrent.TimeUnit;
 
+import com.axway.ats.common.dbaccess.DbKeys;
 import com.axway.ats.common.systemproperties.AtsSystemProperties;
 import com.axway.ats.core.AtsVersion;
 import com.axway.ats.core.dbaccess.ConnectionPool;
@@ -100,6 +101,16 @@ public void setMaxNumberOfCachedEvents( int maxNumberOfCachedEvents ) {
 
     }
 
+    @Override
+    public void enableBulkInsert() {
+
+        if (isBatchMode) {
+            log.warn("Bulk insert of log events is not supported with the " + DbKeys.SQL_SERVER_DRIVER_JTDS
+                     + " driver. Use the " + DbKeys.SQL_SERVER_DRIVER_MICROSOFT
+                     + " driver for bulk insert. Batched stored procedure calls will be used instead");
+        }
+    }
+
     /**
      * Insert a new run in the database
      *
@@ -1186,7 +1197,9 @@ public static CheckpointLogLevel getCheckpointLogLevel() {
      * @param newCheckpointLogLevel Options are {@link CheckpointLogLevel#FULL} - logging every single action into the
      *                               DB. <em>Note</em> that this might rapidly grow your DB. <br />
      *                               For {@link CheckpointLogLevel#SHORT} only total summary (aggregated status) is
-     *                               updated.
+     *                               updated. <br />
+     *                               For {@link CheckpointLogLevel#AGGREGATED} the total summary is calculated in
+     *                               memory and is updated once per time interval.
      */
     public static void setCheckpointLogLevel(
                                               CheckpointLogLevel newCheckpointLogLevel ) {
@@ -1466,6 +1479,53 @@ public int populateCheckpointSummary( int loadQueueId, String name, String trans
         }
     }
 
+    /**
+     * Add already summarized checkpoint results to an existing checkpoint summary.
+     * The passed values are merged with the ones already in the DB.
+     */
+    public void updateCheckpointSummary(
+                                         int checkpointSummaryId,
+                                         int numPassed,
+                                         int numFailed,
+                                         int numRunning,
+                                         int minResponseTime,
+                                         int maxResponseTime,
+                                         double avgResponseTime,
+                                         double minTransferRate,
+                                         double maxTransferRate,
+                                         double avgTransferRate,
+                                         boolean closeConnection ) throws DatabaseAccessException {
+
+        final String errMsg = "Unable to update checkpoint summary " + checkpointSummaryId;
+
+        CallableStatement callableStatement = null;
+        try {
+            refreshInternalConnection();
+
+            callableStatement = connection.prepareCall("{ call sp_update_checkpoint_summary(?, ?, ?, ?, ?, ?, ?, ?, ?, ?) }");
+            callableStatement.setInt(1, checkpointSummaryId);
+            callableStatement.setInt(2, numPassed);
+            callableStatement.setInt(3, numFailed);
+            callableStatement.setInt(4, numRunning);
+            callableStatement.setInt(5, minResponseTime);
+            callableStatement.setInt(6, maxResponseTime);
+            callableStatement.setDouble(7, avgResponseTime);
+            callableStatement.setDouble(8, minTransferRate);
+            callableStatement.setDouble(9, maxTransferRate);
+            callableStatement.setDouble(10, avgTransferRate);
+
+            callableStatement.execute();
+        } catch (Exception e) {
+            throw new DatabaseAccessException(errMsg, e);
+        } finally {
+            if (closeConnection) {
+                DbUtils.close(connection, callableStatement);
+            } else {
+                DbUtils.closeStatement(callableStatement);
+            }
+        }
+    }
+
     public int populateSystemStatisticDefinition(
                                                   String name,
                                                   String parentName,
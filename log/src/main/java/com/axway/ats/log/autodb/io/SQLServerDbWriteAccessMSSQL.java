@@ -21,8 +21,12 @@
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
@@ -43,6 +47,12 @@ public class SQLServerDbWriteAccessMSSQL extends SQLServerDbWriteAccess {
 
     private DbCheckpointsCache dbCheckpointsCache;
 
+    // sends the cached messages, system statistics and checkpoints with bulk copy, null when bulk insert is not used
+    private DbBulkEventsCache  dbBulkEventsCache;
+
+    // checked once, as it is needed for each run and suite message
+    private Boolean            runAndSuiteMessagesSupported;
+
     public SQLServerDbWriteAccessMSSQL( DbConnection dbConnection,
                                         boolean isBatchMode ) throws DatabaseAccessException {
 
@@ -61,7 +71,19 @@ public void setMaxNumberOfCachedEvents( int maxNumberOfCachedEvents ) {
         if (this.dbCheckpointsCache != null) {
             this.dbCheckpointsCache.setCacheSize(maxNumberOfCachedEvents);
         }
+        if (this.dbBulkEventsCache != null) {
+            this.dbBulkEventsCache.setMaxNumberOfCachedEvents(maxNumberOfCachedEvents);
+        }
+
+    }
+
+    @Override
+    public void enableBulkInsert() {
 
+        if (isBatchMode && dbBulkEventsCache == null) {
+            this.dbBulkEventsCache = new DbBulkEventsCache();
+            this.dbBulkEventsCache.setMaxNumberOfCachedEvents(this.chunkSize);
+        }
     }
 
     /**
@@ -73,6 +95,81 @@ public void flushCache() throws DatabaseAccessException {
 
         super.flushCache();
         dbCheckpointsCache.flush();
+        if (dbBulkEventsCache != null) {
+            dbBulkEventsCache.flush();
+        }
+    }
+
+    @Override
+    public void flushCacheIfNeeded() throws DatabaseAccessException {
+
+        super.flushCacheIfNeeded();
+        if (dbBulkEventsCache != null) {
+            dbBulkEventsCache.flushIfNeeded();
+        }
+    }
+
+    @Override
+    public boolean insertMessage( String message, int level, boolean escapeHtml, String machineName, String threadName,
+                                  long timestamp, int testCaseId,
+                                  boolean closeConnection ) throws DatabaseAccessException {
+
+        if (dbBulkEventsCache != null) {
+            return dbBulkEventsCache.addMessage(DbBulkEventsCache.TESTCASE_MESSAGE, testCaseId, level, message,
+                                                escapeHtml, machineName, threadName, inUTC(timestamp));
+        }
+        return super.insertMessage(message, level, escapeHtml, machineName, threadName, timestamp, testCaseId,
+                                   closeConnection);
+    }
+
+    @Override
+    public boolean insertRunMessage( String message, int level, boolean escapeHtml, String machineName,
+                                     String threadName, long timestamp, int runId,
+                                     boolean closeConnection ) throws DatabaseAccessException {
+
+        if (dbBulkEventsCache != null && isRunAndSuiteMessagesSupported()) {
+            return dbBulkEventsCache.addMessage(DbBulkEventsCache.RUN_MESSAGE, runId, level, message, escapeHtml,
+                                                machineName, threadName, inUTC(timestamp));
+        }
+        return super.insertRunMessage(message, level, escapeHtml, machineName, threadName, timestamp, runId,
+                                      closeConnection);
+    }
+
+    @Override
+    public boolean insertSuiteMessage( String message, int level, boolean escapeHtml, String machineName,
+                                       String threadName, long timestamp, int suiteId,
+                                       boolean closeConnection ) throws DatabaseAccessException {
+
+        if (dbBulkEventsCache != null && isRunAndSuiteMessagesSupported()) {
+            return dbBulkEventsCache.addMessage(DbBulkEventsCache.SUITE_MESSAGE, suiteId, level, message,
+                                                escapeHtml, machineName, threadName, inUTC(timestamp));
+        }
+        return super.insertSuiteMessage(message, level, escapeHtml, machineName, threadName, timestamp, suiteId,
+                                        closeConnection);
+    }
+
+    @Override
+    public void insertSystemStatistics( int testCaseId, String machine, String statisticIds, String statisticValues,
+                                        long timestamp, boolean closeConnection ) throws DatabaseAccessException {
+
+        if (dbBulkEventsCache != null) {
+            dbBulkEventsCache.addSystemStatistics(testCaseId, machine, statisticIds, statisticValues,
+                                                  inUTC(timestamp));
+        } else {
+            super.insertSystemStatistics(testCaseId, machine, statisticIds, statisticValues, timestamp,
+                                         closeConnection);
+        }
+    }
+
+    /**
+     * Run and suite messages are not supported by log DB versions prior to 3.5.0
+     */
+    private boolean isRunAndSuiteMessagesSupported() throws DatabaseAccessException {
+
+        if (runAndSuiteMessagesSupported == null) {
+            runAndSuiteMessagesSupported = Integer.parseInt(getDatabaseVersion().replace(".", "")) >= 350;
+        }
+        return runAndSuiteMessagesSupported;
     }
 
     @Override
@@ -151,6 +248,10 @@ public void flush() throws DatabaseAccessException {
             boolean exceptionThrown = false;
             try {
                 exceptionThrown = true; // precondition to detect exception without catching it
+                if (dbBulkEventsCache != null) {
+                    // the checkpoints are cached together with the other bulk insert events
+                    dbBulkEventsCache.flush();
+                }
                 flushCheckpoints();
                 flushCheckpointSummaries();
 
@@ -293,7 +394,8 @@ private boolean isTimeToFlush() {
         }
 
         private void doAddCheckpoint( String name, long startTimestamp, long responseTime, long transferSize,
-                                      String transferUnit, int result, int loadQueueId ) {
+                                      String transferUnit, int result,
+                                      int loadQueueId ) throws DatabaseAccessException {
 
             if (SQLServerDbWriteAccess.checkpointLogLevel == CheckpointLogLevel.FULL) {
                 int checkpointSummaryId = checkpointSummaries.get(loadQueueId).get(name).checkpointSummaryId;
@@ -312,6 +414,13 @@ private void doAddCheckpoint( String name, long startTimestamp, long responseTim
                 }
                 long endTime = startTimestamp + responseTime;
 
+                if (dbBulkEventsCache != null) {
+                    dbBulkEventsCache.addCheckpoint(checkpointSummaryId, name, responseTime, transferRate,
+                                                    transferUnit, result, endTime);
+                    numberOfCachedCheckpoints++;
+                    return;
+                }
+
                 // since wa want the SQL Server to handle the checkpoint ID, here we pass -1 as the first argument
                 loadQueueCheckpointsInsertData.append("-1," + checkpointSummaryId + "," + name + "," + responseTime
                                                       + ","
@@ -510,4 +619,495 @@ private void flushCheckpoints() {
 
     }
 
+    /**
+     * Caches messages, system statistics and checkpoints and sends them to the DB with bulk copy.
+     * <br>Messages and system statistics are bulk copied into temporary tables and then moved into the log DB
+     * tables with one set based INSERT ... SELECT per event type. Checkpoints are bulk copied directly into their table.
+     * <br>Messages which are too long to fit in one DB row are split by the stored procedures,
+     * so they are still inserted with the stored procedure in the same transaction.
+     * <br>If the bulk insert fails, the events are sent to the DB the usual way and bulk insert is not used anymore.
+     */
+    protected class DbBulkEventsCache {
+
+        static final int            TESTCASE_MESSAGE              = 0;
+        static final int            RUN_MESSAGE                   = 1;
+        static final int            SUITE_MESSAGE                 = 2;
+
+        // longer messages are split in chunks by the stored procedures
+        static final int            MAX_SET_BASED_MESSAGE_LENGTH  = 3950;
+
+        private static final int    EVENTS_PER_REPORTED_FLUSH     = 10000;
+
+        static final String         MESSAGES_TABLE                = "#ats_bulk_messages";
+        static final String         STATISTICS_TABLE              = "#ats_bulk_statistics";
+        static final String         CHECKPOINTS_TABLE             = "tCheckpoints";
+
+        // the local temporary tables live as long as the DB session, so they are created once per connection
+        private static final String CREATE_MESSAGES_TABLE         = "IF OBJECT_ID('tempdb.." + MESSAGES_TABLE
+                                                                    + "') IS NULL CREATE TABLE " + MESSAGES_TABLE
+                                                                    + " (seq int, kind int, parentId int, level int, "
+                                                                    + "message nvarchar(max), escapeHtml bit, "
+                                                                    + "machine nvarchar(255), thread nvarchar(255), "
+                                                                    + "eventTime datetime)";
+        private static final String CREATE_STATISTICS_TABLE       = "IF OBJECT_ID('tempdb.." + STATISTICS_TABLE
+                                                                    + "') IS NULL CREATE TABLE " + STATISTICS_TABLE
+                                                                    + " (seq int, testcaseId int, machine nvarchar(255), "
+                                                                    + "statsTypeId int, value float, eventTime datetime)";
+
+        // format arguments: the temporary table
+        static final String         INSERT_MACHINES               = "INSERT INTO tMachines (machineName) "
+                                                                    + "SELECT DISTINCT b.machine FROM %s b "
+                                                                    + "WHERE NOT EXISTS (SELECT 1 FROM tMachines m "
+                                                                    + "WHERE m.machineName = b.machine)";
+        static final String         INSERT_UNIQUE_MESSAGES        = "INSERT INTO tUniqueMessages (hash, message) "
+                                                                    + "SELECT DISTINCT HASHBYTES('SHA1', b.message), b.message "
+                                                                    + "FROM " + MESSAGES_TABLE + " b "
+                                                                    + "WHERE NOT EXISTS (SELECT 1 FROM tUniqueMessages u "
+                                                                    + "WHERE u.hash = HASHBYTES('SHA1', b.message))";
+        // format arguments: messages table, its parent ID column, message kind
+        // the ORDER BY keeps the IDs in the order the events came in
+        static final String         INSERT_MESSAGES               = "INSERT INTO %s (%s, messageTypeId, timestamp, "
+                                                                    + "escapeHtml, uniqueMessageId, machineId, threadName) "
+                                                                    + "SELECT b.parentId, b.level, b.eventTime, b.escapeHtml, "
+                                                                    + "u.uniqueMessageId, m.machineId, b.thread "
+                                                                    + "FROM " + MESSAGES_TABLE + " b "
+                                                                    + "CROSS APPLY (SELECT TOP 1 uniqueMessageId FROM tUniqueMessages "
+                                                                    + "WHERE hash = HASHBYTES('SHA1', b.message)) u "
+                                                                    + "CROSS APPLY (SELECT TOP 1 machineId FROM tMachines "
+                                                                    + "WHERE machineName = b.machine) m "
+                                                                    + "WHERE b.kind = %d ORDER BY b.seq";
+        static final String         INSERT_STATISTICS             = "INSERT INTO tSystemStatistics (testcaseId, machineId, "
+                                                                    + "statsTypeId, timestamp, value) "
+                                                                    + "SELECT b.testcaseId, m.machineId, b.statsTypeId, "
+                                                                    + "b.eventTime, b.value "
+                                                                    + "FROM " + STATISTICS_TABLE + " b "
+                                                                    + "CROSS APPLY (SELECT TOP 1 machineId FROM tMachines "
+                                                                    + "WHERE machineName = b.machine) m "
+                                                                    + "ORDER BY b.seq";
+
+        private static final String SP_INSERT_SYSTEM_STATISTICS   = "{ call sp_insert_system_statistic_by_ids(?, ?, ?, ?, ?) }";
+        private static final String SP_INSERT_MESSAGE             = "{ call %s(?, ?, ?, ?, ?, ?, ?) }";
+
+        private long                maxCacheWaitTime              = TimeUnit.SECONDS.toMillis(AtsSystemProperties.getPropertyAsNumber(AtsSystemProperties.LOG__MAX_CACHE_EVENTS_FLUSH_TIMEOUT,
+                                                                                                                                      10));
+        private int                 maxNumberOfCachedEvents       = AbstractDbAccess.DEFAULT_CHUNK_SIZE;
+        private long                cacheBirthTime;
+
+        private List<Object[]>      cachedMessages                = new ArrayList<>();
+        private List<Object[]>      cachedStatistics              = new ArrayList<>();
+        private List<Object[]>      cachedCheckpoints             = new ArrayList<>();
+
+        private Connection          connectionWithTables;
+
+        public void setMaxNumberOfCachedEvents( int maxNumberOfCachedEvents ) {
+
+            this.maxNumberOfCachedEvents = maxNumberOfCachedEvents;
+        }
+
+        boolean addMessage( int kind, int parentId, int level, String message, boolean escapeHtml,
+                            String machineName, String threadName, long timestamp ) throws DatabaseAccessException {
+
+            cachedMessages.add(new Object[]{ cachedMessages.size(), kind, parentId, level, message, escapeHtml,
+                                             machineName, threadName, new Timestamp(timestamp) });
+            return eventAdded();
+        }
+
+        boolean addSystemStatistics( int testCaseId, String machine, String statisticIds, String statisticValues,
+                                     long timestamp ) throws DatabaseAccessException {
+
+            cachedStatistics.add(new Object[]{ cachedStatistics.size(), testCaseId, machine, statisticIds,
+                                               statisticValues, new Timestamp(timestamp) });
+            return eventAdded();
+        }
+
+        boolean addCheckpoint( int checkpointSummaryId, String name, long responseTime, double transferRate,
+                               String transferUnit, int result, long endTime ) throws DatabaseAccessException {
+
+            // the SQL Server assigns the checkpoint ID, so here we pass -1
+            cachedCheckpoints.add(new Object[]{ -1L, checkpointSummaryId, name, (int) responseTime, transferRate,
+                                                StringUtils.isNullOrEmpty(transferUnit)
+                                                                                        ? " "
+                                                                                        : transferUnit,
+                                                (short) result, new Timestamp(endTime) });
+            return eventAdded();
+        }
+
+        boolean flushIfNeeded() throws DatabaseAccessException {
+
+            int numberEvents = getNumberOfCachedEvents();
+            if (numberEvents > 0 && (numberEvents >= maxNumberOfCachedEvents
+                                     || System.currentTimeMillis() - cacheBirthTime >= maxCacheWaitTime)) {
+                flush();
+                return true;
+            }
+            return false;
+        }
+
+        void flush() throws DatabaseAccessException {
+
+            int numberEvents = getNumberOfCachedEvents();
+            if (numberEvents == 0) {
+                return;
+            }
+
+            long batchStartTime = System.currentTimeMillis();
+            List<Object[]> flushedMessages = cachedMessages;
+            List<Object[]> flushedStatistics = cachedStatistics;
+            List<Object[]> flushedCheckpoints = cachedCheckpoints;
+            cachedMessages = new ArrayList<>();
+            cachedStatistics = new ArrayList<>();
+            cachedCheckpoints = new ArrayList<>();
+            cacheBirthTime = 0;
+
+            Connection connection = getConnection();
+            try {
+                createTemporaryTables(connection);
+
+                bulkInsertMessages(connection, flushedMessages);
+                bulkInsertStatistics(connection, flushedStatistics);
+                bulkInsertCheckpoints(connection, flushedCheckpoints);
+
+                // data sent to the DB, commit the transaction
+                connection.commit();
+            } catch (Exception e) {
+                try {
+                    connection.rollback();
+                } catch (Exception rollbackException) {
+                    log.error("Rollback failed after bulk insert of " + numberEvents + " events failed",
+                              rollbackException);
+                }
+                log.error("Unable to send " + numberEvents + " events to the log DB with bulk insert. "
+                          + "They will be sent the usual way and bulk insert will not be used anymore", e);
+
+                // from now on all events go the usual way
+                dbBulkEventsCache = null;
+                connectionWithTables = null;
+                sendWithoutBulkInsert(connection, flushedMessages, flushedStatistics, flushedCheckpoints);
+                return;
+            }
+
+            long flushTime = System.currentTimeMillis() - batchStartTime;
+            String flushMessage = "Flushed with bulk insert " + flushedMessages.size() + " messages, "
+                                  + flushedStatistics.size() + " system statistics and " + flushedCheckpoints.size()
+                                  + " checkpoints in " + flushTime + " ms ("
+                                  + (flushTime * EVENTS_PER_REPORTED_FLUSH / numberEvents) + " ms per "
+                                  + EVENTS_PER_REPORTED_FLUSH + " events)";
+            log.debug(flushMessage);
+            if (isMonitorEventsQueue) {
+                log.getLog4jLogger().info(flushMessage);
+            }
+        }
+
+        /**
+         * @return the connection used for the bulk insert. It is shared with the batch mode cache.
+         */
+        Connection getConnection() {
+
+            return dbEventsCache.getConnection();
+        }
+
+        private boolean eventAdded() throws DatabaseAccessException {
+
+            // if this is the first event, we have to remember the cache birth time
+            if (getNumberOfCachedEvents() == 1) {
+                cacheBirthTime = System.currentTimeMillis();
+            }
+            return flushIfNeeded();
+        }
+
+        private int getNumberOfCachedEvents() {
+
+            return cachedMessages.size() + cachedStatistics.size() + cachedCheckpoints.size();
+        }
+
+        private void createTemporaryTables( Connection connection ) throws SQLException {
+
+            if (connection != connectionWithTables) {
+                // executed without parameters, so the tables are created in the session scope
+                executeStatement(connection, CREATE_MESSAGES_TABLE);
+                executeStatement(connection, CREATE_STATISTICS_TABLE);
+                connection.commit();
+                connectionWithTables = connection;
+            }
+        }
+
+        private void bulkInsertMessages( Connection connection, List<Object[]> messages ) throws SQLException {
+
+            if (messages.isEmpty()) {
+                return;
+            }
+
+            SQLServerBulkEventsRecord record = new SQLServerBulkEventsRecord().addColumn("seq", Types.INTEGER)
+                                                                              .addColumn("kind", Types.INTEGER)
+                                                                              .addColumn("parentId", Types.INTEGER)
+                                                                              .addColumn("level", Types.INTEGER)
+                                                                              .addColumn("message", Types.NVARCHAR)
+                                                                              .addColumn("escapeHtml", Types.BIT)
+                                                                              .addColumn("machine", Types.NVARCHAR)
+                                                                              .addColumn("thread", Types.NVARCHAR)
+                                                                              .addColumn("eventTime", Types.TIMESTAMP);
+            List<Object[]> longMessages = new ArrayList<>();
+            boolean[] hasKind = new boolean[3];
+            for (Object[] message : messages) {
+                String text = (String) message[4];
+                if (text != null && text.length() > MAX_SET_BASED_MESSAGE_LENGTH) {
+                    longMessages.add(message);
+                } else {
+                    hasKind[(Integer) message[1]] = true;
+                    record.addRow(message);
+                }
+            }
+
+            if (record.getRows() > 0) {
+                bulkCopy(connection, MESSAGES_TABLE, record);
+
+                executeStatement(connection, String.format(INSERT_MACHINES, MESSAGES_TABLE));
+                executeStatement(connection, INSERT_UNIQUE_MESSAGES);
+                if (hasKind[RUN_MESSAGE]) {
+                    executeStatement(connection, String.format(INSERT_MESSAGES, "tRunMessages", "runId",
+                                                               RUN_MESSAGE));
+                }
+                if (hasKind[SUITE_MESSAGE]) {
+                    executeStatement(connection, String.format(INSERT_MESSAGES, "tSuiteMessages", "suiteId",
+                                                               SUITE_MESSAGE));
+                }
+                if (hasKind[TESTCASE_MESSAGE]) {
+                    executeStatement(connection, String.format(INSERT_MESSAGES, "tMessages", "testcaseId",
+                                                               TESTCASE_MESSAGE));
+                }
+                executeStatement(connection, "TRUNCATE TABLE " + MESSAGES_TABLE);
+            }
+
+            if (!longMessages.isEmpty()) {
+                insertLongMessages(connection, longMessages);
+            }
+        }
+
+        private void insertLongMessages( Connection connection, List<Object[]> messages ) throws SQLException {
+
+            CallableStatement[] statements = new CallableStatement[3];
+            try {
+                statements[TESTCASE_MESSAGE] = connection.prepareCall(String.format(SP_INSERT_MESSAGE,
+                                                                                    "sp_insert_message"));
+                statements[RUN_MESSAGE] = connection.prepareCall(String.format(SP_INSERT_MESSAGE,
+                                                                               "sp_insert_run_message"));
+                statements[SUITE_MESSAGE] = connection.prepareCall(String.format(SP_INSERT_MESSAGE,
+                                                                                 "sp_insert_suite_message"));
+                boolean[] hasKind = new boolean[3];
+                for (Object[] message : messages) {
+                    int kind = (Integer) message[1];
+                    CallableStatement statement = statements[kind];
+                    statement.setInt(1, (Integer) message[2]);
+                    statement.setInt(2, (Integer) message[3]);
+                    statement.setString(3, (String) message[4]);
+                    statement.setBoolean(4, (Boolean) message[5]);
+                    statement.setString(5, (String) message[6]);
+                    statement.setString(6, (String) message[7]);
+                    statement.setTimestamp(7, (Timestamp) message[8]);
+                    statement.addBatch();
+                    hasKind[kind] = true;
+                }
+                for (int kind = 0; kind < statements.length; kind++) {
+                    if (hasKind[kind]) {
+                        statements[kind].executeBatch();
+                    }
+                }
+            } finally {
+                for (CallableStatement statement : statements) {
+                    DbUtils.closeStatement(statement);
+                }
+            }
+        }
+
+        private void bulkInsertStatistics( Connection connection, List<Object[]> statistics ) throws SQLException {
+
+            if (statistics.isEmpty()) {
+                return;
+            }
+
+            SQLServerBulkEventsRecord record = new SQLServerBulkEventsRecord().addColumn("seq", Types.INTEGER)
+                                                                              .addColumn("testcaseId", Types.INTEGER)
+                                                                              .addColumn("machine", Types.NVARCHAR)
+                                                                              .addColumn("statsTypeId", Types.INTEGER)
+                                                                              .addColumn("value", Types.FLOAT)
+                                                                              .addColumn("eventTime", Types.TIMESTAMP);
+            int seq = 0;
+            for (Object[] statistic : statistics) {
+                // one row per statistic, the IDs and values come as '_' delimited lists
+                String[] statisticIds = ((String) statistic[3]).split("_");
+                String[] statisticValues = ((String) statistic[4]).split("_");
+                if (statisticIds.length != statisticValues.length) {
+                    throw new SQLException("Got " + statisticIds.length + " system statistic IDs, but "
+                                           + statisticValues.length + " values");
+                }
+                for (int i = 0; i < statisticIds.length; i++) {
+                    record.addRow(new Object[]{ seq++, statistic[1], statistic[2],
+                                                Integer.parseInt(statisticIds[i].trim()),
+                                                Double.parseDouble(statisticValues[i].trim()), statistic[5] });
+                }
+            }
+            bulkCopy(connection, STATISTICS_TABLE, record);
+
+            executeStatement(connection, String.format(INSERT_MACHINES, STATISTICS_TABLE));
+            executeStatement(connection, INSERT_STATISTICS);
+            executeStatement(connection, "TRUNCATE TABLE " + STATISTICS_TABLE);
+        }
+
+        private void bulkInsertCheckpoints( Connection connection, List<Object[]> checkpoints ) throws SQLException {
+
+            if (checkpoints.isEmpty()) {
+                return;
+            }
+
+            bulkCopy(connection, CHECKPOINTS_TABLE, createCheckpointsRecord(checkpoints));
+        }
+
+        private SQLServerBulkEventsRecord createCheckpointsRecord( List<Object[]> checkpoints ) {
+
+            SQLServerBulkEventsRecord record = new SQLServerBulkEventsRecord().addColumn("checkpointId", Types.BIGINT)
+                                                                              .addColumn("checkpointSummaryId",
+                                                                                         Types.INTEGER)
+                                                                              .addColumn("name", Types.VARCHAR)
+                                                                              .addColumn("responseTime", Types.INTEGER)
+                                                                              .addColumn("transferRate", Types.FLOAT)
+                                                                              .addColumn("transferRateUnit",
+                                                                                         Types.VARCHAR)
+                                                                              .addColumn("result", Types.TINYINT)
+                                                                              .addColumn("endTime", Types.TIMESTAMP);
+            for (Object[] checkpoint : checkpoints) {
+                record.addRow(checkpoint);
+            }
+            return record;
+        }
+
+        void bulkCopy( Connection connection, String tableName,
+                       SQLServerBulkEventsRecord record ) throws SQLException {
+
+            SQLServerBulkCopy bulkCopy = null;
+            try {
+                SQLServerBulkCopyOptions copyOptions = new SQLServerBulkCopyOptions();
+                copyOptions.setBatchSize(record.getRows());
+
+                // the connection is shared, so the bulk copy runs in its transaction
+                bulkCopy = new SQLServerBulkCopy(connection);
+                bulkCopy.setBulkCopyOptions(copyOptions);
+                bulkCopy.setDestinationTableName(tableName);
+                bulkCopy.writeToServer(record);
+            } finally {
+                if (bulkCopy != null) {
+                    bulkCopy.close();
+                }
+            }
+        }
+
+        private void executeStatement( Connection connection, String sql ) throws SQLException {
+
+            Statement statement = null;
+            try {
+                statement = connection.createStatement();
+                // errors from the statements are reported while going through the results
+                boolean isResultSet = statement.execute(sql);
+                while (isResultSet || statement.getUpdateCount() != -1) {
+                    isResultSet = statement.getMoreResults();
+                }
+            } finally {
+                DbUtils.closeStatement(statement);
+            }
+        }
+
+        /**
+         * Send the events with the stored procedure statements, the way it is done when bulk insert is not used
+         */
+        private void sendWithoutBulkInsert( Connection connection, List<Object[]> messages,
+                                            List<Object[]> statistics,
+                                            List<Object[]> checkpoints ) throws DatabaseAccessException {
+
+            if (!messages.isEmpty()) {
+                for (Object[] message : messages) {
+                    int kind = (Integer) message[1];
+                    int parentId = (Integer) message[2];
+                    int level = (Integer) message[3];
+                    String text = (String) message[4];
+                    boolean escapeHtml = (Boolean) message[5];
+                    String machineName = (String) message[6];
+                    String threadName = (String) message[7];
+                    long timestamp = ((Timestamp) message[8]).getTime();
+                    if (kind == RUN_MESSAGE) {
+                        dbEventsCache.addInsertRunMessageEventToBatch(insertFactory.getInsertRunMessageStatement(connection,
+                                                                                                                 text,
+                                                                                                                 level,
+                                                                                                                 escapeHtml,
+                                                                                                                 machineName,
+                                                                                                                 threadName,
+                                                                                                                 timestamp,
+                                                                                                                 parentId));
+                    } else if (kind == SUITE_MESSAGE) {
+                        dbEventsCache.addInsertSuiteMessageEventToBatch(insertFactory.getInsertSuiteMessageStatement(connection,
+                                                                                                                     text,
+                                                                                                                     level,
+                                                                                                                     escapeHtml,
+                                                                                                                     machineName,
+                                                                                                                     threadName,
+                                                                                                                     timestamp,
+                                                                                                                     parentId));
+                    } else {
+                        dbEventsCache.addInsertTestcaseMessageEventToBatch(insertFactory.getInsertTestcaseMessageStatement(connection,
+                                                                                                                           text,
+                                                                                                                           level,
+                                                                                                                           escapeHtml,
+                                                                                                                           machineName,
+                                                                                                                           threadName,
+                                                                                                                           timestamp,
+                                                                                                                           parentId));
+                    }
+                }
+                dbEventsCache.flushCache();
+            }
+
+            if (!statistics.isEmpty()) {
+                CallableStatement callableStatement = null;
+                try {
+                    callableStatement = connection.prepareCall(SP_INSERT_SYSTEM_STATISTICS);
+                    for (Object[] statistic : statistics) {
+                        callableStatement.setInt(1, (Integer) statistic[1]);
+                        callableStatement.setString(2, (String) statistic[2]);
+                        callableStatement.setString(3, (String) statistic[3]);
+                        callableStatement.setString(4, (String) statistic[4]);
+                        callableStatement.setTimestamp(5, (Timestamp) statistic[5]);
+                        callableStatement.addBatch();
+                    }
+                    callableStatement.executeBatch();
+                    connection.commit();
+                } catch (Exception e) {
+                    try {
+                        connection.rollback();
+                    } catch (Exception rollbackException) {
+                        log.error("Unable to rollback the insert of " + statistics.size() + " system statistics",
+                                  rollbackException);
+                    }
+                    throw new DatabaseAccessException("Unable to insert " + statistics.size()
+                                                      + " system statistics", e);
+                } finally {
+                    DbUtils.closeStatement(callableStatement);
+                }
+            }
+
+            if (!checkpoints.isEmpty()) {
+                // without bulk insert the checkpoints are bulk copied with the rest of the batch mode checkpoints
+                try {
+                    bulkCopy(connection, CHECKPOINTS_TABLE, createCheckpointsRecord(checkpoints));
+                    connection.commit();
+                } catch (Exception e) {
+                    try {
+                        connection.rollback();
+                    } catch (Exception rollbackException) {
+                        log.error("Unable to rollback the insert of " + checkpoints.size() + " checkpoints",
+                                  rollbackException);
+                    }
+                    throw new DatabaseAccessException("Unable to insert " + checkpoints.size() + " checkpoints", e);
+                }
+            }
+        }
+    }
+
 }
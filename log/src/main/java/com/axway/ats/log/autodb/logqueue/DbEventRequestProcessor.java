@@ -24,10 +24,14 @@
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.Logger;
@@ -35,6 +39,7 @@
 import org.apache.logging.log4j.core.LogEvent;
 
 import com.axway.ats.common.dbaccess.DbKeys;
+import com.axway.ats.common.systemproperties.AtsSystemProperties;
 import com.axway.ats.core.dbaccess.ConnectionPool;
 import com.axway.ats.core.dbaccess.DbConnection;
 import com.axway.ats.core.dbaccess.DbUtils;
@@ -44,6 +49,8 @@
 import com.axway.ats.core.utils.StringUtils;
 import com.axway.ats.log.appenders.ActiveDbAppender;
 import com.axway.ats.log.autodb.CheckpointInfo;
+import com.axway.ats.log.autodb.CheckpointsAggregator;
+import com.axway.ats.log.autodb.CheckpointsAggregator.AggregatedCheckpoint;
 import com.axway.ats.log.autodb.DbAppenderConfiguration;
 import com.axway.ats.log.autodb.LoadQueuesState;
 import com.axway.ats.log.autodb.TestCaseState;
@@ -85,6 +92,7 @@
 import com.axway.ats.log.autodb.model.EventRequestProcessor;
 import com.axway.ats.log.autodb.model.EventRequestProcessorListener;
 import com.axway.ats.log.autodb.model.IDbWriteAccess;
+import com.axway.ats.log.model.CheckpointLogLevel;
 import com.axway.ats.log.model.SystemLogLevel;
 
 public class DbEventRequestProcessor implements EventRequestProcessor {
@@ -142,6 +150,12 @@ public class DbEventRequestProcessor implements EventRequestProcessor {
 
     private boolean                       isBatchMode;
 
+    /**
+     * Summarizes the checkpoints in memory when the checkpoint log level is AGGREGATED
+     */
+    private CheckpointsAggregator         checkpointsAggregator          = new CheckpointsAggregator(TimeUnit.SECONDS.toMillis(AtsSystemProperties.getPropertyAsNonNegativeNumber(AtsSystemProperties.LOG__CHECKPOINTS_AGGREGATION_INTERVAL,
+                                                                                                                                                                       10)));
+
     /*
      * When rerunning a testcase, we have to delete the faulty one.
      * The main thread passes here the id of the test to be deleted.
@@ -150,8 +164,9 @@ public class DbEventRequestProcessor implements EventRequestProcessor {
     /*
      * This is a list with all deleted tests.
      * We use it in order to skip going to the DB as we know the operation will fail.
+     * It is also checked by the system monitoring agent, which sends its readings from another thread.
      */
-    private List<Integer>                 deletedTestcases               = new ArrayList<Integer>();
+    private List<Integer>                 deletedTestcases               = Collections.synchronizedList(new ArrayList<Integer>());
 
     /*
      * If the current state of the DbEventProcessor could not process UpdateSuiteEvent,
@@ -277,6 +292,10 @@ public DbEventRequestProcessor( DbAppenderConfiguration appenderConfig, Layout l
 
         }
 
+        if (isBatchMode && appenderConfig.isBulkInsert()) {
+            this.dbAccess.enableBulkInsert();
+        }
+
         this.eventProcessorState = new EventProcessorState();
         this.layout = layout;
         this.listener = listener;
@@ -330,6 +349,28 @@ public int getLastExecutedTestCaseId() {
         return eventProcessorState.getLastExecutedTestCaseId();
     }
 
+    /**
+     * @param testcaseId the testcase ID
+     * @return whether this testcase is known to be deleted, so no more data must be sent for it
+     */
+    public boolean isTestcaseDeleted( int testcaseId ) {
+
+        return deletedTestcases.contains(testcaseId);
+    }
+
+    /**
+     * Remember a testcase which was found to be deleted from the DB by somebody else,
+     * so no more data is sent for it
+     *
+     * @param testcaseId the testcase ID
+     */
+    public void markTestcaseAsDeleted( int testcaseId ) {
+
+        if (!deletedTestcases.contains(testcaseId)) {
+            deletedTestcases.add(testcaseId);
+        }
+    }
+
     public void processEventRequest( LogEventRequest eventRequest ) throws LoggingException {
 
         if (testcaseToDelete > 0) {
@@ -932,6 +973,7 @@ private void leaveTestCase() {
         String loadQueueName = loadQueueStateEvent.getName();
         int loadQueueId = loadQueuesState.getLoadQueueId(loadQueueName);
         loadQueuesState.removeLoadQueue(loadQueueName, loadQueueId);
+        checkpointsAggregator.removeLoadQueue(loadQueueId);
     }
 
     private void endLoadQueue( EndLoadQueueEvent endLoadQueueEvent,
@@ -945,6 +987,9 @@ private void endLoadQueue( EndLoadQueueEvent endLoadQueueEvent,
 
         if (loadQueueId > 0) {
             try {
+                // send the summaries of the aggregated checkpoints before the load queue is closed
+                flushAggregatedCheckpoints(checkpointsAggregator.getPendingCheckpoints(loadQueueId));
+                logAggregatedCheckpointsPercentiles(loadQueueName, loadQueueId);
 
                 dbAccess.endLoadQueue(endLoadQueueEvent.getResult().toInt(), timestamp, loadQueueId, true);
             } finally {
@@ -952,6 +997,7 @@ private void endLoadQueue( EndLoadQueueEvent endLoadQueueEvent,
                 // we want to clear the internal state,
                 // so next sub-entities do not go into this one
                 loadQueuesState.removeLoadQueue(loadQueueName, loadQueueId);
+                checkpointsAggregator.removeLoadQueue(loadQueueId);
             }
         }
     }
@@ -979,6 +1025,16 @@ private void startCheckpoint( StartCheckpointEvent startCheckpointEvent ) throws
             int loadQueueId = loadQueuesState.getLoadQueueIdForThread(startCheckpointEvent.getThread());
 
             if (loadQueueId > 0) {
+                if (isAggregatedCheckpointLogLevel()) {
+                    // the checkpoint will go to the DB as part of its summary, keep its start time only
+                    checkpointsAggregator.startCheckpoint(loadQueueId, startCheckpointEvent.getName(),
+                                                          startCheckpointEvent.getTransferUnit());
+                    loadQueuesState.startCheckpoint(startCheckpointEvent.getName(), 0, 0,
+                                                    startCheckpointEvent.getStartTimestamp(),
+                                                    startCheckpointEvent.getThread());
+                    return;
+                }
+
                 final int testcaseId = eventProcessorState.getTestCaseId();
                 if (!deletedTestcases.contains(testcaseId)) {
                     try {
@@ -1008,6 +1064,14 @@ private void endCheckpoint( EndCheckpointEvent endCheckpointEvent ) throws Loggi
                                                                                  endCheckpointEvent.getName(),
                                                                                  endCheckpointEvent.getEndTimestamp());
 
+            if (isAggregatedCheckpointLogLevel()) {
+                int loadQueueId = loadQueuesState.getLoadQueueIdForThread(endCheckpointEvent.getThread());
+                long responseTime = endCheckpointEvent.getEndTimestamp() - runningCheckpointInfo.getStartTimestamp();
+                aggregateCheckpoint(loadQueueId, runningCheckpointInfo.getName(), null, responseTime,
+                                    endCheckpointEvent.getTransferSize(), endCheckpointEvent.getResult().toInt());
+                return;
+            }
+
             final int testcaseId = eventProcessorState.getTestCaseId();
             if (!deletedTestcases.contains(testcaseId)) {
                 try {
@@ -1029,6 +1093,14 @@ private void insertCheckpoint( InsertCheckpointEvent insertCheckpointEvent ) thr
             LoadQueuesState loadQueuesState = eventProcessorState.getLoadQueuesState();
             int loadQueueId = loadQueuesState.getLoadQueueIdForThread(insertCheckpointEvent.getThread());
 
+            if (isAggregatedCheckpointLogLevel()) {
+                aggregateCheckpoint(loadQueueId, insertCheckpointEvent.getName(),
+                                    insertCheckpointEvent.getTransferUnit(), insertCheckpointEvent.getResponseTime(),
+                                    insertCheckpointEvent.getTransferSize(),
+                                    insertCheckpointEvent.getResult().toInt());
+                return;
+            }
+
             final int testcaseId = eventProcessorState.getTestCaseId();
             if (!deletedTestcases.contains(testcaseId)) {
                 try {
@@ -1045,6 +1117,91 @@ private void insertCheckpoint( InsertCheckpointEvent insertCheckpointEvent ) thr
         }
     }
 
+    private boolean isAggregatedCheckpointLogLevel() throws DatabaseAccessException {
+
+        if (SQLServerDbWriteAccess.getCheckpointLogLevel() != CheckpointLogLevel.AGGREGATED) {
+            return false;
+        }
+        if (dbAccess instanceof PGDbWriteAccess) {
+            // fail on the first checkpoint, instead of when its summary is sent
+            throw new DatabaseAccessException("Checkpoint log level " + CheckpointLogLevel.AGGREGATED
+                                              + " is not supported with PostgreSQL log DB, use "
+                                              + CheckpointLogLevel.SHORT + " or " + CheckpointLogLevel.FULL
+                                              + " instead");
+        }
+        return true;
+    }
+
+    private void aggregateCheckpoint( int loadQueueId, String name, String transferUnit, long responseTime,
+                                      long transferSize, int result ) throws DatabaseAccessException {
+
+        if (deletedTestcases.contains(eventProcessorState.getTestCaseId())) {
+            // the testcase is deleted, so are its checkpoints
+            return;
+        }
+
+        checkpointsAggregator.addCheckpoint(loadQueueId, name, transferUnit, responseTime, transferSize, result);
+
+        if (checkpointsAggregator.isTimeToFlush()) {
+            flushAggregatedCheckpoints(checkpointsAggregator.getPendingCheckpoints());
+        }
+    }
+
+    /**
+     * Send one summary update per checkpoint name, instead of one DB call per checkpoint.
+     * The results of the interval, including the response time percentiles, are also kept as testcase meta info,
+     * as they are lost when merged into the summary.
+     */
+    private void
+            flushAggregatedCheckpoints( List<AggregatedCheckpoint> pendingCheckpoints ) throws DatabaseAccessException {
+
+        final int testcaseId = eventProcessorState.getTestCaseId();
+        SimpleDateFormat intervalFormat = new SimpleDateFormat("HH:mm:ss");
+        String intervalEnd = intervalFormat.format(new Date());
+        for (AggregatedCheckpoint checkpoint : pendingCheckpoints) {
+            try {
+                if (checkpoint.getCheckpointSummaryId() <= 0) {
+                    checkpoint.setCheckpointSummaryId(dbAccess.populateCheckpointSummary(checkpoint.getLoadQueueId(),
+                                                                                         checkpoint.getName(),
+                                                                                         checkpoint.getTransferUnit(),
+                                                                                         true));
+                }
+
+                dbAccess.updateCheckpointSummary(checkpoint.getCheckpointSummaryId(), checkpoint.getNumPassed(),
+                                                 checkpoint.getNumFailed(), checkpoint.getNumRunning(),
+                                                 checkpoint.getMinResponseTime(), checkpoint.getMaxResponseTime(),
+                                                 checkpoint.getAvgResponseTime(), checkpoint.getMinTransferRate(),
+                                                 checkpoint.getMaxTransferRate(), checkpoint.getAvgTransferRate(),
+                                                 true);
+
+                if (testcaseId > 0 && !deletedTestcases.contains(testcaseId)) {
+                    String intervalStart = intervalFormat.format(new Date(checkpoint.getIntervalStartTimestamp()));
+                    dbAccess.addTestcaseMetainfo(testcaseId, "Checkpoint '" + checkpoint.getName()
+                                                             + "' of load queue " + checkpoint.getLoadQueueId()
+                                                             + " from " + intervalStart + " to " + intervalEnd,
+                                                 checkpoint.getIntervalSummary(), true);
+                }
+            } finally {
+                // do not send the same results again if the DB update failed
+                checkpoint.clearPendingResults();
+            }
+        }
+    }
+
+    private void logAggregatedCheckpointsPercentiles( String loadQueueName, int loadQueueId ) {
+
+        for (AggregatedCheckpoint checkpoint : checkpointsAggregator.getCheckpoints(loadQueueId)) {
+            if (checkpoint.getResponseTimes().getTotalCount() > 0) {
+                log.info("Response times of checkpoint '" + checkpoint.getName() + "' from load queue '"
+                         + loadQueueName + "': 50% " + checkpoint.getResponseTimePercentile(50) + " ms, 90% "
+                         + checkpoint.getResponseTimePercentile(90) + " ms, 99% "
+                         + checkpoint.getResponseTimePercentile(99) + " ms, max "
+                         + checkpoint.getResponseTimes().getMaxValue() + " ms of "
+                         + checkpoint.getResponseTimes().getTotalCount() + " passed checkpoints");
+            }
+        }
+    }
+
     private void
             insertSystemStatistics( InsertSystemStatisticEvent insertSystemStatEvent ) throws LoggingException {
 
@@ -1378,10 +1535,23 @@ private Run getLatestRun() throws SQLException {
         return run;
     }
 
+    @Override
+    public void flushCache() throws LoggingException {
+
+        if (this.isBatchMode && this.dbAccess != null) {
+            this.dbAccess.flushCache();
+        }
+    }
+
     @Override
     public void releaseConnection() {
 
         if (this.dbAccess != null) {
+            try {
+                flushAggregatedCheckpoints(checkpointsAggregator.getPendingCheckpoints());
+            } catch (DatabaseAccessException e) {
+                log.error("Could not flush the aggregated checkpoints.", e);
+            }
             if (this.isBatchMode) {
                 log.info("Flushing ATS LOG DB cache ...");
                 try {
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.log.autodb.logqueue;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runtime metrics of a {@link QueueLoggerThread}.
+ * <br>The values are updated by the logger thread only, but can be read from any thread.
+ */
+public class QueueLoggerStatistics {
+
+    private final BlockingQueue<LogEventRequest> queue;
+
+    private final AtomicLong                     processedEvents = new AtomicLong();
+    private final AtomicLong                     drains          = new AtomicLong();
+    private final AtomicLong                     maxDrainSize    = new AtomicLong();
+    private final AtomicLong                     lastDrainSize   = new AtomicLong();
+
+    private final AtomicLong                     flushes         = new AtomicLong();
+    private final AtomicLong                     totalFlushTime  = new AtomicLong();
+    private final AtomicLong                     maxFlushTime    = new AtomicLong();
+    private final AtomicLong                     lastFlushTime   = new AtomicLong();
+
+    QueueLoggerStatistics( BlockingQueue<LogEventRequest> queue ) {
+
+        this.queue = queue;
+    }
+
+    void registerDrain( int drainSize ) {
+
+        drains.incrementAndGet();
+        processedEvents.addAndGet(drainSize);
+        lastDrainSize.set(drainSize);
+        if (drainSize > maxDrainSize.get()) {
+            maxDrainSize.set(drainSize);
+        }
+    }
+
+    void registerFlush( long flushTimeMs ) {
+
+        flushes.incrementAndGet();
+        totalFlushTime.addAndGet(flushTimeMs);
+        lastFlushTime.set(flushTimeMs);
+        if (flushTimeMs > maxFlushTime.get()) {
+            maxFlushTime.set(flushTimeMs);
+        }
+    }
+
+    /**
+     * @return the number of events currently waiting in the queue
+     */
+    public int getQueueDepth() {
+
+        return queue.size();
+    }
+
+    /**
+     * @return the remaining capacity of the queue
+     */
+    public int getRemainingQueueCapacity() {
+
+        return queue.remainingCapacity();
+    }
+
+    /**
+     * @return the number of messages dropped because the queue was full.
+     * Messages are dropped only by the {@link RingBufferLogEventQueue} with a dropping overflow policy
+     */
+    public long getDroppedEvents() {
+
+        if (queue instanceof RingBufferLogEventQueue) {
+            return ((RingBufferLogEventQueue) queue).getDroppedEvents();
+        }
+        return 0;
+    }
+
+    /**
+     * @return the number of events taken from the queue so far
+     */
+    public long getProcessedEvents() {
+
+        return processedEvents.get();
+    }
+
+    /**
+     * @return the number of times events were taken from the queue
+     */
+    public long getDrains() {
+
+        return drains.get();
+    }
+
+    /**
+     * @return the number of events taken from the queue on the last drain
+     */
+    public long getLastDrainSize() {
+
+        return lastDrainSize.get();
+    }
+
+    /**
+     * @return the biggest number of events taken from the queue at once
+     */
+    public long getMaxDrainSize() {
+
+        return maxDrainSize.get();
+    }
+
+    /**
+     * @return the average number of events taken from the queue at once
+     */
+    public double getAverageDrainSize() {
+
+        long drainsCount = drains.get();
+        if (drainsCount == 0) {
+            return 0;
+        }
+        return (double) processedEvents.get() / drainsCount;
+    }
+
+    /**
+     * @return the number of times the cached events were flushed to the DB at the end of a drain
+     */
+    public long getFlushes() {
+
+        return flushes.get();
+    }
+
+    /**
+     * @return the time in milliseconds the last flush took
+     */
+    public long getLastFlushTime() {
+
+        return lastFlushTime.get();
+    }
+
+    /**
+     * @return the longest flush time in milliseconds
+     */
+    public long getMaxFlushTime() {
+
+        return maxFlushTime.get();
+    }
+
+    /**
+     * @return the average flush time in milliseconds
+     */
+    public double getAverageFlushTime() {
+
+        long flushesCount = flushes.get();
+        if (flushesCount == 0) {
+            return 0;
+        }
+        return (double) totalFlushTime.get() / flushesCount;
+    }
+
+    @Override
+    public String toString() {
+
+        return "queue depth " + getQueueDepth() + ", remaining capacity " + getRemainingQueueCapacity()
+               + ", processed events " + getProcessedEvents() + ", drains " + getDrains()
+               + ", average/max drain size " + String.format("%.1f", getAverageDrainSize()) + "/"
+               + getMaxDrainSize() + ", flushes " + getFlushes() + ", average/max flush time "
+               + String.format("%.1f", getAverageFlushTime()) + "/" + getMaxFlushTime() + " ms, dropped events "
+               + getDroppedEvents();
+    }
+}
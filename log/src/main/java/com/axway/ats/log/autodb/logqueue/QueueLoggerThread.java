@@ -19,11 +19,14 @@
 
 package com.axway.ats.log.autodb.logqueue;
 
-import java.util.concurrent.ArrayBlockingQueue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.logging.log4j.core.LogEvent;
 
+import com.axway.ats.common.systemproperties.AtsSystemProperties;
 import com.axway.ats.core.log.AtsConsoleLogger;
 import com.axway.ats.core.utils.ExceptionUtils;
 import com.axway.ats.log.autodb.exceptions.LoggingException;
@@ -52,10 +55,23 @@ public class QueueLoggerThread extends Thread {
     /**
      * The queue of events waiting to be logged into DB
      */
-    private ArrayBlockingQueue<LogEventRequest> queue;
+    private BlockingQueue<LogEventRequest>      queue;
     private int                                 minorSqlExceptionsCounter              = 0;                                            // counter for minor SQL exceptions. Used to prevent flooding of the log
 
-    public QueueLoggerThread( ArrayBlockingQueue<LogEventRequest> queue, EventRequestProcessor eventProcessor,
+    private static final int                    DEFAULT_MAX_DRAIN_EVENTS               = 1000;
+    // max number of events taken from the queue at once
+    private int                                 maxDrainSize;
+    // reused holder of the events taken from the queue at once
+    private List<LogEventRequest>               drainedEvents;
+
+    private QueueLoggerStatistics               statistics;
+
+    // log the statistics every 10 seconds when monitoring the events queue
+    private static final long                   STATISTICS_LOG_INTERVAL                = 10000;
+    private boolean                             isMonitoringEventsQueue;
+    private long                                lastStatisticsTick;
+
+    public QueueLoggerThread( BlockingQueue<LogEventRequest> queue, EventRequestProcessor eventProcessor,
                               boolean isBatchMode, String caller ) {
 
         this.queue = queue;
@@ -63,6 +79,13 @@ public QueueLoggerThread( ArrayBlockingQueue<LogEventRequest> queue, EventReques
         this.isBatchMode = isBatchMode;
         this.caller = caller;
 
+        this.maxDrainSize = AtsSystemProperties.getPropertyAsNonNegativeNumber(AtsSystemProperties.LOG__MAX_DRAIN_EVENTS,
+                                                                              DEFAULT_MAX_DRAIN_EVENTS);
+        this.drainedEvents = new ArrayList<LogEventRequest>(Math.max(this.maxDrainSize, 1));
+        this.statistics = new QueueLoggerStatistics(queue);
+        this.isMonitoringEventsQueue = AtsSystemProperties.getPropertyAsBoolean(AtsSystemProperties.LOG__MONITOR_EVENTS_QUEUE,
+                                                                                false);
+
         // It is the user's responsibility to close appenders before
         // exiting.
         this.setDaemon(false);
@@ -84,10 +107,12 @@ public void run() {
                          + queue.remainingCapacity() + queue.size()
                          + " events. Batch mode is " + (isBatchMode
                                                                     ? "enabled"
-                                                                    : "disabled"));
+                                                                    : "disabled")
+                         + ". Queue type is " + queue.getClass().getSimpleName()
+                         + ". Up to " + Math.max(maxDrainSize, 1) + " events are taken from the queue at once");
         while (true) {
-            LogEventRequest logEventRequest = null;
             try {
+                LogEventRequest logEventRequest;
                 if (isBatchMode) {
                     // get the next event, wait no more than 10 seconds
                     logEventRequest = queue.poll(10, TimeUnit.SECONDS);
@@ -96,7 +121,20 @@ public void run() {
                     // block until receive an event in the queue
                     logEventRequest = queue.take();
                 }
-                eventProcessor.processEventRequest(logEventRequest);
+
+                if (logEventRequest == null || maxDrainSize < 2) {
+                    processEventRequest(logEventRequest);
+                    if (logEventRequest != null) {
+                        statistics.registerDrain(1);
+                    }
+                } else {
+                    // take all other available events, so we do not go through the queue lock for each of them
+                    drainedEvents.add(logEventRequest);
+                    queue.drainTo(drainedEvents, maxDrainSize - 1);
+                    processDrainedEvents();
+                }
+
+                logStatisticsIfNeeded();
             } catch (InterruptedException ie) {
                 // NOTE: In this method we talk to the user using console only as we cannot send it to the log DB
                 CONSOLE_LOG.error(
@@ -106,80 +144,141 @@ public void run() {
                                   + " is interrupted and will stop logging.");
                 eventProcessor.releaseConnection();
                 break;
+            }
+        }
+    }
+
+    /**
+     * Process the events taken from the queue in their original order.
+     * The cacheable events of one drain are sent to the DB in one transaction when in batch mode.
+     * A single event is left in the cache, it will be flushed together with the next ones.
+     */
+    private void processDrainedEvents() {
+
+        int drainSize = drainedEvents.size();
+        try {
+            for (int i = 0; i < drainSize; i++) {
+                processEventRequest(drainedEvents.get(i));
+            }
+        } finally {
+            // do not keep references to the processed events
+            drainedEvents.clear();
+        }
+        statistics.registerDrain(drainSize);
+
+        if (isBatchMode && drainSize > 1) {
+            long flushStartTime = System.currentTimeMillis();
+            try {
+                eventProcessor.flushCache();
             } catch (Exception e) {
-                if (e instanceof LoggingException && logEventRequest != null) {
-                    LoggingException le = (LoggingException) e;
-                    LogEvent event = logEventRequest.getEvent();
-                    if (event instanceof AbstractLoggingEvent) {
-                        AbstractLoggingEvent dbAppenderEvent = (AbstractLoggingEvent) event;
-                        LoggingEventType eventType = dbAppenderEvent.getEventType();
-                        // If START_* log entity event do not work, we can not end it
-                        // nor we can insert into that entity its sub-entities
-
-                        // We do not remember other type of failed events, as these are the only ones we check in the main thread.
-                        // The Join Testcase event is the one that connects to the DB on the side of ATS Agent
-                        if (eventType == LoggingEventType.START_RUN
-                            || eventType == LoggingEventType.START_SUITE
-                            || eventType == LoggingEventType.START_TEST_CASE
-                            || eventType == LoggingEventType.JOIN_TEST_CASE
-                            || eventType == LoggingEventType.START_CHECKPOINT) {
-
-                            CONSOLE_LOG.error(ExceptionUtils.getExceptionMsg(le,
-                                                                             "Error running "
-                                                                                 + eventType
-                                                                                 + " event"));
+                handleProcessingException(e, null);
+            }
+            statistics.registerFlush(System.currentTimeMillis() - flushStartTime);
+        }
+    }
 
-                            synchronized (this) {
-                                this.loggingException = le;
-                            }
-                        } else {
-                            // Other "not critical" exceptions. We limit logging of such failures as it would be too 
-                            // verbose
-                            /**
-                             * Explicitly skip error when a message can not be inserted in Log DB
-                             * or when Thread has already been registered with a load queue.
-                             * This is done, because those errors are expected in some cases when using ATS
-                             * */
-                            if (eventType != LoggingEventType.REGISTER_THREAD_WITH_LOADQUEUE
-                                && eventType != LoggingEventType.INSERT_MESSAGE) {
-                                if (minorSqlExceptionsCounter < MINOR_SQL_EXCEPTIONS_MAX_LOGGING_COUNT) {
-                                    CONSOLE_LOG.error(ExceptionUtils.getExceptionMsg(le, "Error running " + eventType
-                                                                                         + " event"));
-                                    minorSqlExceptionsCounter++;
-                                }
-                            }
-                        }
-                    } else if (le.getMessage().equalsIgnoreCase(AbstractDbAccess.UNABLE_TO_CONNECT_ERRROR)
-                               && !isUnableToConnect) {
-                        // We do not log the no connectivity problem on each failure, we do it just once.
-                        // This case is likely to happen on a remote Agent host without set DNS servers - in such
-                        // case providing FQDN in the log4j2.xml makes the DB logging impossible
-                        CONSOLE_LOG.error(ExceptionUtils.getExceptionMsg(e,
-                                                                         "Error processing log event"));
-
-                        isUnableToConnect = true;
+    private void processEventRequest( LogEventRequest logEventRequest ) {
+
+        try {
+            eventProcessor.processEventRequest(logEventRequest);
+        } catch (Exception e) {
+            handleProcessingException(e, logEventRequest);
+        }
+    }
+
+    private void handleProcessingException( Exception e, LogEventRequest logEventRequest ) {
+
+        if (e instanceof LoggingException && logEventRequest != null) {
+            LoggingException le = (LoggingException) e;
+            LogEvent event = logEventRequest.getEvent();
+            if (event instanceof AbstractLoggingEvent) {
+                AbstractLoggingEvent dbAppenderEvent = (AbstractLoggingEvent) event;
+                LoggingEventType eventType = dbAppenderEvent.getEventType();
+                // If START_* log entity event do not work, we can not end it
+                // nor we can insert into that entity its sub-entities
+
+                // We do not remember other type of failed events, as these are the only ones we check in the main thread.
+                // The Join Testcase event is the one that connects to the DB on the side of ATS Agent
+                if (eventType == LoggingEventType.START_RUN
+                    || eventType == LoggingEventType.START_SUITE
+                    || eventType == LoggingEventType.START_TEST_CASE
+                    || eventType == LoggingEventType.JOIN_TEST_CASE
+                    || eventType == LoggingEventType.START_CHECKPOINT) {
+
+                    CONSOLE_LOG.error(ExceptionUtils.getExceptionMsg(le,
+                                                                     "Error running "
+                                                                         + eventType
+                                                                         + " event"));
+
+                    synchronized (this) {
+                        this.loggingException = le;
                     }
                 } else {
-                    // we do not let this exception break this thread, but only log it into the console
-                    // we expect to get here when hit some very unusual errors
-
-                    if (logEventRequest != null) {
-                        CONSOLE_LOG.error(ExceptionUtils.getExceptionMsg(e,
-                                                                         "Error processing log event "
-                                                                            + logEventRequest.getEvent()
-                                                                                             .getMessage()));
-                    } else {
-                        // The 'log event request' object is null because timed out while waiting for it from the queue.
-                        // This happens when running in batch mode.
-                        // Then we tried to flush the current events, but this was not successful, so came here.
-                        CONSOLE_LOG.error(ExceptionUtils.getExceptionMsg(e,
-                                                                         "Error processing log events in batch mode"));
+                    // Other "not critical" exceptions. We limit logging of such failures as it would be too 
+                    // verbose
+                    /**
+                     * Explicitly skip error when a message can not be inserted in Log DB
+                     * or when Thread has already been registered with a load queue.
+                     * This is done, because those errors are expected in some cases when using ATS
+                     * */
+                    if (eventType != LoggingEventType.REGISTER_THREAD_WITH_LOADQUEUE
+                        && eventType != LoggingEventType.INSERT_MESSAGE) {
+                        if (minorSqlExceptionsCounter < MINOR_SQL_EXCEPTIONS_MAX_LOGGING_COUNT) {
+                            CONSOLE_LOG.error(ExceptionUtils.getExceptionMsg(le, "Error running " + eventType
+                                                                                 + " event"));
+                            minorSqlExceptionsCounter++;
+                        }
                     }
                 }
+            } else if (le.getMessage().equalsIgnoreCase(AbstractDbAccess.UNABLE_TO_CONNECT_ERRROR)
+                       && !isUnableToConnect) {
+                // We do not log the no connectivity problem on each failure, we do it just once.
+                // This case is likely to happen on a remote Agent host without set DNS servers - in such
+                // case providing FQDN in the log4j2.xml makes the DB logging impossible
+                CONSOLE_LOG.error(ExceptionUtils.getExceptionMsg(e,
+                                                                 "Error processing log event"));
+
+                isUnableToConnect = true;
+            }
+        } else {
+            // we do not let this exception break this thread, but only log it into the console
+            // we expect to get here when hit some very unusual errors
+
+            if (logEventRequest != null) {
+                CONSOLE_LOG.error(ExceptionUtils.getExceptionMsg(e,
+                                                                 "Error processing log event "
+                                                                    + logEventRequest.getEvent()
+                                                                                     .getMessage()));
+            } else {
+                // The 'log event request' object is null because timed out while waiting for it from the queue
+                // or because we are flushing the events of the last drain.
+                // This happens when running in batch mode.
+                // Then we tried to flush the current events, but this was not successful, so came here.
+                CONSOLE_LOG.error(ExceptionUtils.getExceptionMsg(e,
+                                                                 "Error processing log events in batch mode"));
             }
         }
     }
 
+    private void logStatisticsIfNeeded() {
+
+        if (isMonitoringEventsQueue) {
+            long newTick = System.currentTimeMillis();
+            if (newTick - lastStatisticsTick > STATISTICS_LOG_INTERVAL) {
+                CONSOLE_LOG.info("Logger thread '" + getName() + "' statistics: " + statistics);
+                lastStatisticsTick = newTick;
+            }
+        }
+    }
+
+    /**
+     * @return the runtime metrics of this thread
+     */
+    public QueueLoggerStatistics getStatistics() {
+
+        return statistics;
+    }
+
     public synchronized LoggingException readLoggingException() {
 
         try {
@@ -0,0 +1,521 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.log.autodb.logqueue;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.logging.log4j.core.LogEvent;
+
+import com.axway.ats.log.autodb.events.InsertMessageEvent;
+import com.axway.ats.log.autodb.model.AbstractLoggingEvent;
+
+/**
+ * A bounded lock-free queue of log events, used as an alternative of the {@link java.util.concurrent.ArrayBlockingQueue}
+ * which makes all logging threads contend on one lock.
+ * <br>
+ * <br>It is a ring buffer with a sequence number per slot. Any number of threads can add events,
+ * while the events are taken by the single DB logger thread.
+ * <br>
+ * <br>The capacity is rounded up to the next power of 2.
+ * <br>
+ * <br>When the queue is full, {@link #add(LogEventRequest)} applies the configured {@link OverflowPolicy}.
+ * Only messages could be dropped, all other events (like start/end of test case or checkpoint) always wait for free space
+ * as the log DB state depends on them.
+ */
+public class RingBufferLogEventQueue extends AbstractQueue<LogEventRequest> implements BlockingQueue<LogEventRequest> {
+
+    /**
+     * How the waiting threads spend their time while the queue is empty (for the consumer)
+     * or full (for the producers)
+     */
+    public enum WaitStrategy {
+
+        /**
+         * Park the thread. Lowest CPU usage, highest latency
+         */
+        BLOCK,
+        /**
+         * Yield the CPU to other threads
+         */
+        YIELD,
+        /**
+         * Keep the CPU busy. Lowest latency, but a CPU core is fully used while waiting
+         */
+        BUSY_SPIN;
+
+        /**
+         * @param value the strategy name, like 'block', 'yield', 'busySpin' or 'busy_spin'
+         * @return the strategy or null if not a known one
+         */
+        public static WaitStrategy fromString( String value ) {
+
+            return findConstant(WaitStrategy.values(), value);
+        }
+    }
+
+    /**
+     * What to do when an event is added while the queue is full
+     */
+    public enum OverflowPolicy {
+
+        /**
+         * Wait until there is a free space
+         */
+        BLOCK,
+        /**
+         * Drop the oldest queued message in order to free space for the new message
+         */
+        DROP_OLDEST_MESSAGE,
+        /**
+         * Drop the new message. The number of dropped messages is counted
+         */
+        DROP;
+
+        /**
+         * @param value the policy name, like 'block', 'dropOldestMessage', 'drop_oldest_message' or 'drop'
+         * @return the policy or null if not a known one
+         */
+        public static OverflowPolicy fromString( String value ) {
+
+            return findConstant(OverflowPolicy.values(), value);
+        }
+    }
+
+    // how long to park a producer waiting for free space
+    private static final long          PRODUCER_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    // max time to park the consumer, we do not rely on the producers' signal only
+    private static final long          CONSUMER_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final int                  capacity;
+    private final int                  mask;
+
+    private final AtomicReferenceArray<LogEventRequest> buffer;
+    // the sequence of each slot tells whether it is free for the producer or filled for the consumer
+    private final AtomicLongArray      sequences;
+
+    // position of the next slot to fill
+    private final AtomicLong           tail                = new AtomicLong();
+    // position of the next slot to take
+    private final AtomicLong           head                = new AtomicLong();
+
+    private final WaitStrategy         waitStrategy;
+    private final OverflowPolicy       overflowPolicy;
+
+    private final AtomicLong           droppedEvents       = new AtomicLong();
+
+    // the consumer thread parked while waiting for events
+    private volatile Thread             waitingConsumer;
+
+    public RingBufferLogEventQueue( int capacity, WaitStrategy waitStrategy, OverflowPolicy overflowPolicy ) {
+
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Queue capacity must be a positive number, but it is " + capacity);
+        }
+        if (capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Queue capacity " + capacity + " is too big");
+        }
+
+        int powerOf2Capacity = 1;
+        while (powerOf2Capacity < capacity) {
+            powerOf2Capacity <<= 1;
+        }
+        this.capacity = powerOf2Capacity;
+        this.mask = powerOf2Capacity - 1;
+
+        this.buffer = new AtomicReferenceArray<LogEventRequest>(this.capacity);
+        this.sequences = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            this.sequences.set(i, i);
+        }
+
+        this.waitStrategy = waitStrategy != null
+                                                 ? waitStrategy
+                                                 : WaitStrategy.BLOCK;
+        this.overflowPolicy = overflowPolicy != null
+                                                     ? overflowPolicy
+                                                     : OverflowPolicy.BLOCK;
+    }
+
+    /**
+     * Add an event without waiting.
+     *
+     * @return false if the queue is full
+     */
+    @Override
+    public boolean offer( LogEventRequest eventRequest ) {
+
+        if (eventRequest == null) {
+            throw new NullPointerException();
+        }
+
+        while (true) {
+            long position = tail.get();
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                // the slot is free, try to claim it
+                if (tail.compareAndSet(position, position + 1)) {
+                    buffer.set(index, eventRequest);
+                    // publish the event
+                    sequences.set(index, position + 1);
+                    signalConsumer();
+                    return true;
+                }
+            } else if (difference < 0) {
+                // the slot is still not taken by the consumer, the queue is full
+                return false;
+            }
+            // another producer claimed this slot, retry with the next one
+        }
+    }
+
+    /**
+     * Add an event applying the {@link OverflowPolicy} when the queue is full.
+     * <br>Unlike other queues, this method does not throw exception when the queue is full.
+     *
+     * @throws IllegalStateException if the thread is interrupted while waiting for free space
+     */
+    @Override
+    public boolean add( LogEventRequest eventRequest ) {
+
+        if (offer(eventRequest)) {
+            return true;
+        }
+
+        if (isMessage(eventRequest)) {
+            if (overflowPolicy == OverflowPolicy.DROP) {
+                droppedEvents.incrementAndGet();
+                return true;
+            } else if (overflowPolicy == OverflowPolicy.DROP_OLDEST_MESSAGE) {
+                while (!offer(eventRequest)) {
+                    if (!dropOldestMessage()) {
+                        // the oldest event is not a message, so drop the new one instead
+                        droppedEvents.incrementAndGet();
+                        return true;
+                    }
+                }
+                return true;
+            }
+        }
+
+        try {
+            put(eventRequest);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for free space in the log events queue", ie);
+        }
+        return true;
+    }
+
+    @Override
+    public void put( LogEventRequest eventRequest ) throws InterruptedException {
+
+        while (!offer(eventRequest)) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            idleProducer();
+        }
+    }
+
+    @Override
+    public boolean offer( LogEventRequest eventRequest, long timeout, TimeUnit unit ) throws InterruptedException {
+
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!offer(eventRequest)) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (deadline - System.nanoTime() <= 0) {
+                return false;
+            }
+            idleProducer();
+        }
+        return true;
+    }
+
+    @Override
+    public LogEventRequest poll() {
+
+        while (true) {
+            long position = head.get();
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    return takeFromSlot(index, position);
+                }
+            } else if (difference < 0) {
+                // the slot is not published yet, the queue is empty
+                return null;
+            }
+            // the slot was taken by a producer dropping the oldest message, retry
+        }
+    }
+
+    @Override
+    public LogEventRequest poll( long timeout, TimeUnit unit ) throws InterruptedException {
+
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (true) {
+            LogEventRequest eventRequest = poll();
+            if (eventRequest != null) {
+                return eventRequest;
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            long remainingNanos = deadline - System.nanoTime();
+            if (remainingNanos <= 0) {
+                return null;
+            }
+            idleConsumer(remainingNanos);
+        }
+    }
+
+    @Override
+    public LogEventRequest take() throws InterruptedException {
+
+        while (true) {
+            LogEventRequest eventRequest = poll();
+            if (eventRequest != null) {
+                return eventRequest;
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            idleConsumer(CONSUMER_PARK_NANOS);
+        }
+    }
+
+    @Override
+    public LogEventRequest peek() {
+
+        long position = head.get();
+        int index = (int) (position & mask);
+        if (sequences.get(index) == position + 1) {
+            return buffer.get(index);
+        }
+        return null;
+    }
+
+    @Override
+    public int drainTo( Collection<? super LogEventRequest> collection ) {
+
+        return drainTo(collection, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo( Collection<? super LogEventRequest> collection, int maxElements ) {
+
+        if (collection == this) {
+            throw new IllegalArgumentException();
+        }
+
+        int drained = 0;
+        while (drained < maxElements) {
+            LogEventRequest eventRequest = poll();
+            if (eventRequest == null) {
+                break;
+            }
+            collection.add(eventRequest);
+            drained++;
+        }
+        return drained;
+    }
+
+    @Override
+    public int size() {
+
+        // read the head first, so the result is never negative
+        long currentHead = head.get();
+        long currentTail = tail.get();
+        long size = currentTail - currentHead;
+        if (size < 0) {
+            return 0;
+        }
+        return (int) Math.min(size, capacity);
+    }
+
+    @Override
+    public int remainingCapacity() {
+
+        return capacity - size();
+    }
+
+    /**
+     * @return a weakly consistent snapshot of the currently queued events
+     */
+    @Override
+    public Iterator<LogEventRequest> iterator() {
+
+        List<LogEventRequest> snapshot = new ArrayList<LogEventRequest>();
+        long currentTail = tail.get();
+        for (long position = head.get(); position < currentTail; position++) {
+            int index = (int) (position & mask);
+            LogEventRequest eventRequest = buffer.get(index);
+            if (eventRequest != null && sequences.get(index) == position + 1) {
+                snapshot.add(eventRequest);
+            }
+        }
+        return Collections.unmodifiableList(snapshot).iterator();
+    }
+
+    /**
+     * @return the real capacity of the queue
+     */
+    public int getCapacity() {
+
+        return capacity;
+    }
+
+    /**
+     * @return the number of messages dropped because the queue was full
+     */
+    public long getDroppedEvents() {
+
+        return droppedEvents.get();
+    }
+
+    public WaitStrategy getWaitStrategy() {
+
+        return waitStrategy;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+
+        return overflowPolicy;
+    }
+
+    private LogEventRequest takeFromSlot( int index, long position ) {
+
+        LogEventRequest eventRequest = buffer.get(index);
+        buffer.set(index, null);
+        // free the slot for the producer which will come after a full round
+        sequences.set(index, position + capacity);
+        return eventRequest;
+    }
+
+    /**
+     * Remove the oldest event if it is a message
+     *
+     * @return false if the oldest event is not a message and so it is not removed
+     */
+    private boolean dropOldestMessage() {
+
+        while (true) {
+            long position = head.get();
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                LogEventRequest oldest = buffer.get(index);
+                if (!isMessage(oldest)) {
+                    return false;
+                }
+                if (head.compareAndSet(position, position + 1)) {
+                    takeFromSlot(index, position);
+                    droppedEvents.incrementAndGet();
+                    return true;
+                }
+            } else if (difference < 0) {
+                // the queue got empty, so there is space now
+                return true;
+            }
+        }
+    }
+
+    private void signalConsumer() {
+
+        if (waitStrategy == WaitStrategy.BLOCK) {
+            Thread consumer = waitingConsumer;
+            if (consumer != null) {
+                LockSupport.unpark(consumer);
+            }
+        }
+    }
+
+    private void idleConsumer( long maxWaitNanos ) {
+
+        switch (waitStrategy) {
+            case BLOCK:
+                waitingConsumer = Thread.currentThread();
+                try {
+                    // check again, an event might have come before we registered as a waiting consumer
+                    if (peek() == null) {
+                        LockSupport.parkNanos(this, Math.min(maxWaitNanos, CONSUMER_PARK_NANOS));
+                    }
+                } finally {
+                    waitingConsumer = null;
+                }
+                break;
+            case YIELD:
+                Thread.yield();
+                break;
+            default:
+                // busy spin
+                break;
+        }
+    }
+
+    private void idleProducer() {
+
+        switch (waitStrategy) {
+            case BLOCK:
+                LockSupport.parkNanos(this, PRODUCER_PARK_NANOS);
+                break;
+            case YIELD:
+                Thread.yield();
+                break;
+            default:
+                // busy spin
+                break;
+        }
+    }
+
+    private static boolean isMessage( LogEventRequest eventRequest ) {
+
+        if (eventRequest == null) {
+            return false;
+        }
+        LogEvent event = eventRequest.getEvent();
+        return ! (event instanceof AbstractLoggingEvent) || event instanceof InsertMessageEvent;
+    }
+
+    private static <T extends Enum<T>> T findConstant( T[] constants, String value ) {
+
+        if (value == null) {
+            return null;
+        }
+        String normalizedValue = value.trim().replace("_", "").replace("-", "");
+        for (T constant : constants) {
+            if (constant.name().replace("_", "").equalsIgnoreCase(normalizedValue)) {
+                return constant;
+            }
+        }
+        return null;
+    }
+}
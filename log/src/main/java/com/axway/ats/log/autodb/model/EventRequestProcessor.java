@@ -45,6 +45,14 @@ public void processEventRequest(
     public void setLayout(
                            Layout layout );
 
+    /**
+     * Send all cached events to the DB.
+     * Does nothing when the events are not processed in batch mode.
+     * 
+     * @throws LoggingException on error
+     */
+    public void flushCache() throws LoggingException;
+
     public void releaseConnection();
 
 }
@@ -29,6 +29,13 @@ public interface IDbWriteAccess {
      */
     public void setMaxNumberOfCachedEvents( int maxNumberOfCachedEvents );
 
+    /**
+     * Send the events cached in batch mode with the bulk insert of the DB driver
+     * instead of batched stored procedure calls.
+     * <p>Should be invoked before any insert event is invoked. Has no effect when not in batch mode.</p>
+     */
+    public void enableBulkInsert();
+
     /**
      * Insert a new run in the database
      *
@@ -178,6 +185,11 @@ public void insertCheckpointSummary( String name,
                                          String transferRateUnit, int loadQueueId,
                                          boolean closeConnection ) throws DatabaseAccessException;
 
+    public void updateCheckpointSummary( int checkpointSummaryId, int numPassed, int numFailed, int numRunning,
+                                         int minResponseTime, int maxResponseTime, double avgResponseTime,
+                                         double minTransferRate, double maxTransferRate, double avgTransferRate,
+                                         boolean closeConnection ) throws DatabaseAccessException;
+
     public void insertSystemStatistics( int testCaseId, String machine, String statisticIds,
                                         String statisticValues, long timestamp,
                                         boolean closeConnection ) throws DatabaseAccessException;
@@ -17,10 +17,17 @@
 
 /**
  * The valid checkpoint log levels
+ * <ul>
+ * <li>SHORT - each checkpoint updates its summary in the DB</li>
+ * <li>AGGREGATED - the checkpoints are summarized in memory and the summaries are sent to the DB
+ * once per {@link com.axway.ats.common.systemproperties.AtsSystemProperties#LOG__CHECKPOINTS_AGGREGATION_INTERVAL}.
+ * For the DB this is the same as SHORT, so it uses the same value</li>
+ * <li>FULL - each checkpoint is stored in the DB</li>
+ * </ul>
  */
 public enum CheckpointLogLevel {
 
-    SHORT(0), FULL(1);
+    SHORT(0), AGGREGATED(0), FULL(1);
 
     private int value;
 
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.log.autodb;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.axway.ats.log.autodb.exceptions.LoggingException;
+
+/**
+ * Measures the throughput of starting and ending checkpoints in the {@link LoadQueuesState}
+ * when many threads are doing it at the same time. Each benchmark thread is registered with the load queue
+ * as a separate thread, as it happens with the load queue threads.
+ * <br>
+ * <br>This is not a unit test. Run it from the IDE or with the test classpath:
+ * <pre>java -cp ... com.axway.ats.log.autodb.Benchmark_LoadQueuesState</pre>
+ */
+@BenchmarkMode( Mode.Throughput)
+@OutputTimeUnit( TimeUnit.MILLISECONDS)
+@Warmup( iterations = 3, time = 2)
+@Measurement( iterations = 5, time = 2)
+@Fork( 1)
+public class Benchmark_LoadQueuesState {
+
+    private static final int    LOAD_QUEUE_ID      = 1;
+    private static final String CHECKPOINT_NAME    = "benchmark checkpoint";
+
+    private static final int[]  CHECKPOINT_THREADS = { 1, 16, 256 };
+
+    @State( Scope.Benchmark)
+    public static class SharedState {
+
+        LoadQueuesState     loadQueuesState;
+        final AtomicInteger threadsCounter = new AtomicInteger();
+
+        @Setup( Level.Trial)
+        public void setUp() throws LoggingException {
+
+            loadQueuesState = new LoadQueuesState();
+            loadQueuesState.addLoadQueue("benchmark load queue", LOAD_QUEUE_ID);
+        }
+    }
+
+    @State( Scope.Thread)
+    public static class ThreadState {
+
+        String threadName;
+        long   timestamp;
+
+        @Setup( Level.Trial)
+        public void setUp( SharedState sharedState ) throws LoggingException {
+
+            threadName = "benchmark thread " + sharedState.threadsCounter.incrementAndGet();
+            sharedState.loadQueuesState.registerThreadWithLoadQueue(threadName, LOAD_QUEUE_ID);
+        }
+    }
+
+    @Benchmark
+    public CheckpointInfo startEndCheckpoint( SharedState sharedState,
+                                              ThreadState threadState ) throws LoggingException {
+
+        LoadQueuesState loadQueuesState = sharedState.loadQueuesState;
+
+        // the same calls the DB logging thread does for each checkpoint
+        loadQueuesState.getLoadQueueIdForThread(threadState.threadName);
+        loadQueuesState.startCheckpoint(CHECKPOINT_NAME, 0, 0, ++threadState.timestamp, threadState.threadName);
+        return loadQueuesState.endCheckpoint(threadState.threadName, CHECKPOINT_NAME, threadState.timestamp + 1);
+    }
+
+    public static void main( String[] args ) throws Exception {
+
+        for (int checkpointThreads : CHECKPOINT_THREADS) {
+            Options options = new OptionsBuilder().include(Benchmark_LoadQueuesState.class.getSimpleName())
+                                                  .threads(checkpointThreads)
+                                                  .build();
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.log.autodb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.axway.ats.log.autodb.CheckpointsAggregator.AggregatedCheckpoint;
+import com.axway.ats.log.model.CheckpointResult;
+
+public class Test_CheckpointsAggregator {
+
+    private static final int LOAD_QUEUE_1 = 1;
+    private static final int LOAD_QUEUE_2 = 2;
+
+    @Test
+    public void histogramSmallValuesAreExact() {
+
+        CheckpointHistogram histogram = new CheckpointHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.recordValue(i);
+        }
+
+        assertEquals(100, histogram.getTotalCount());
+        assertEquals(1, histogram.getMinValue());
+        assertEquals(100, histogram.getMaxValue());
+        assertEquals(50, histogram.getValueAtPercentile(50));
+        assertEquals(90, histogram.getValueAtPercentile(90));
+        assertEquals(99, histogram.getValueAtPercentile(99));
+        assertEquals(100, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void histogramBigValuesAreWithinOnePercent() {
+
+        CheckpointHistogram histogram = new CheckpointHistogram();
+        for (long value = 1000; value <= 1000000; value += 1000) {
+            histogram.recordValue(value);
+        }
+
+        assertPercentile(500000, histogram.getValueAtPercentile(50));
+        assertPercentile(900000, histogram.getValueAtPercentile(90));
+        assertPercentile(990000, histogram.getValueAtPercentile(99));
+        assertEquals(1000000, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void histogramAddAndReset() {
+
+        CheckpointHistogram histogram1 = new CheckpointHistogram();
+        histogram1.recordValue(10);
+        CheckpointHistogram histogram2 = new CheckpointHistogram();
+        histogram2.recordValue(100000);
+        histogram2.recordValue(-5);
+
+        histogram1.add(histogram2);
+        assertEquals(3, histogram1.getTotalCount());
+        assertEquals(0, histogram1.getMinValue());
+        assertEquals(100000, histogram1.getMaxValue());
+
+        histogram1.reset();
+        assertEquals(0, histogram1.getTotalCount());
+        assertEquals(0, histogram1.getMinValue());
+        assertEquals(0, histogram1.getValueAtPercentile(50));
+    }
+
+    @Test
+    public void summariesPerLoadQueueAndName() {
+
+        CheckpointsAggregator aggregator = new CheckpointsAggregator(0);
+        aggregator.addCheckpoint(LOAD_QUEUE_1, "upload", "KB", 100, 1000, CheckpointResult.PASSED.toInt());
+        aggregator.addCheckpoint(LOAD_QUEUE_1, "upload", "KB", 300, 1000, CheckpointResult.PASSED.toInt());
+        aggregator.addCheckpoint(LOAD_QUEUE_1, "upload", "KB", 200, 1000, CheckpointResult.FAILED.toInt());
+        aggregator.addCheckpoint(LOAD_QUEUE_1, "download", "KB", 50, 0, CheckpointResult.PASSED.toInt());
+        aggregator.addCheckpoint(LOAD_QUEUE_2, "upload", "KB", 10, 0, CheckpointResult.RUNNING.toInt());
+
+        assertTrue(aggregator.isTimeToFlush());
+        assertEquals(3, aggregator.getPendingCheckpoints().size());
+        assertEquals(2, aggregator.getPendingCheckpoints(LOAD_QUEUE_1).size());
+
+        AggregatedCheckpoint upload = getCheckpoint(aggregator.getPendingCheckpoints(LOAD_QUEUE_1), "upload");
+        assertEquals(2, upload.getNumPassed());
+        assertEquals(1, upload.getNumFailed());
+        assertEquals(0, upload.getNumRunning());
+        assertEquals(100, upload.getMinResponseTime());
+        assertEquals(300, upload.getMaxResponseTime());
+        assertEquals(200, upload.getAvgResponseTime(), 0.001);
+        assertEquals(1000.0 / 0.3, upload.getMinTransferRate(), 0.001);
+        assertEquals(10000, upload.getMaxTransferRate(), 0.001);
+        assertEquals( (10000 + 1000.0 / 0.3) / 2, upload.getAvgTransferRate(), 0.001);
+        assertEquals(300, upload.getResponseTimePercentile(100));
+
+        AggregatedCheckpoint running = aggregator.getPendingCheckpoints(LOAD_QUEUE_2).get(0);
+        assertEquals(1, running.getNumRunning());
+        assertEquals(0, running.getMinResponseTime());
+        assertEquals(0, running.getAvgResponseTime(), 0.001);
+    }
+
+    @Test
+    public void clearingPendingResultsKeepsTheHistogram() {
+
+        CheckpointsAggregator aggregator = new CheckpointsAggregator(0);
+        aggregator.startCheckpoint(LOAD_QUEUE_1, "upload", "KB");
+        aggregator.addCheckpoint(LOAD_QUEUE_1, "upload", null, 100, 1000, CheckpointResult.PASSED.toInt());
+
+        AggregatedCheckpoint upload = aggregator.getPendingCheckpoints().get(0);
+        assertEquals("KB", upload.getTransferUnit());
+        upload.clearPendingResults();
+
+        assertFalse(upload.hasPendingResults());
+        assertTrue(aggregator.getPendingCheckpoints().isEmpty());
+        assertEquals(1, upload.getResponseTimes().getTotalCount());
+
+        aggregator.addCheckpoint(LOAD_QUEUE_1, "upload", null, 500, 1000, CheckpointResult.PASSED.toInt());
+        assertEquals(1, upload.getNumPassed());
+        assertEquals(500, upload.getMinResponseTime());
+        assertEquals(2, upload.getResponseTimes().getTotalCount());
+
+        aggregator.removeLoadQueue(LOAD_QUEUE_1);
+        assertTrue(aggregator.getCheckpoints(LOAD_QUEUE_1).isEmpty());
+    }
+
+    @Test
+    public void intervalPercentilesAreKeptPerFlush() {
+
+        CheckpointsAggregator aggregator = new CheckpointsAggregator(0);
+        for (int i = 1; i <= 100; i++) {
+            aggregator.addCheckpoint(LOAD_QUEUE_1, "upload", "KB", i, 1000, CheckpointResult.PASSED.toInt());
+        }
+        aggregator.addCheckpoint(LOAD_QUEUE_1, "upload", "KB", 0, 0, CheckpointResult.FAILED.toInt());
+
+        AggregatedCheckpoint upload = aggregator.getPendingCheckpoints().get(0);
+        assertEquals(100, upload.getIntervalResponseTimes().getTotalCount());
+        assertEquals("passed 100, failed 1, running 0; response times in ms: min 1, avg 51, max 100, "
+                     + "50% 50, 90% 90, 99% 99", upload.getIntervalSummary());
+
+        long firstIntervalStart = upload.getIntervalStartTimestamp();
+        upload.clearPendingResults();
+        assertEquals(0, upload.getIntervalResponseTimes().getTotalCount());
+        assertTrue(upload.getIntervalStartTimestamp() >= firstIntervalStart);
+
+        aggregator.addCheckpoint(LOAD_QUEUE_1, "upload", "KB", 1000, 1000, CheckpointResult.PASSED.toInt());
+        assertEquals("passed 1, failed 0, running 0; response times in ms: min 1000, avg 1000, max 1000, "
+                     + "50% 1000, 90% 1000, 99% 1000", upload.getIntervalSummary());
+        // the load queue histogram has the results of both intervals
+        assertEquals(101, upload.getResponseTimes().getTotalCount());
+    }
+
+    @Test
+    public void flushInterval() {
+
+        CheckpointsAggregator aggregator = new CheckpointsAggregator(60000);
+        aggregator.addCheckpoint(LOAD_QUEUE_1, "upload", "KB", 100, 1000, CheckpointResult.PASSED.toInt());
+
+        assertFalse(aggregator.isTimeToFlush());
+    }
+
+    @Test( expected = IllegalArgumentException.class)
+    public void invalidResult() {
+
+        new CheckpointsAggregator(0).addCheckpoint(LOAD_QUEUE_1, "upload", "KB", 100, 1000, 5);
+    }
+
+    private void assertPercentile( long expected, long actual ) {
+
+        assertTrue("Expected " + expected + " but got " + actual, Math.abs(expected - actual) <= expected / 100);
+    }
+
+    private AggregatedCheckpoint getCheckpoint( List<AggregatedCheckpoint> checkpoints, String name ) {
+
+        for (AggregatedCheckpoint checkpoint : checkpoints) {
+            if (checkpoint.getName().equals(name)) {
+                return checkpoint;
+            }
+        }
+        throw new AssertionError("No checkpoint " + name);
+    }
+}
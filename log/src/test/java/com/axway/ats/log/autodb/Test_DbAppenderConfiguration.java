@@ -47,6 +47,10 @@ public void gettersAndSettersPositive() {
 
         appenderConfig.setEnableCheckpoints(true);
         assertEquals(true, appenderConfig.getEnableCheckpoints());
+
+        assertEquals(false, appenderConfig.isBulkInsert());
+        appenderConfig.setBulkInsert(true);
+        assertEquals(true, appenderConfig.isBulkInsert());
     }
 
     @Test
@@ -19,6 +19,10 @@
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -212,6 +216,81 @@ public void endAnotherCheckpointNegativeAlreadyStarted() throws LoggingException
         loadQueueState.endCheckpoint(NAME_THREAD_14000, "checkpointNotExisting", 0);
     }
 
+    @Test
+    public void startEndCheckpointReusesCheckpointInfo() throws LoggingException {
+
+        loadQueueState.addLoadQueue("load queue 1", 123);
+        loadQueueState.registerThreadWithLoadQueue(NAME_THREAD_14000, 123);
+
+        loadQueueState.startCheckpoint(CHECKPOINT1.getName(), 5, 6, START_TIME, NAME_THREAD_14000);
+        CheckpointInfo firstEnded = loadQueueState.endCheckpoint(NAME_THREAD_14000, CHECKPOINT1.getName(),
+                                                                 START_TIME + 150);
+        assertFalse(firstEnded.isRunning());
+        assertEquals(5, firstEnded.getCheckpointSummaryId());
+        assertEquals(6, firstEnded.getCheckpointId());
+        assertEquals(START_TIME, firstEnded.getStartTimestamp());
+
+        loadQueueState.startCheckpoint(CHECKPOINT1.getName(), 7, 8, START_TIME + 200, NAME_THREAD_14000);
+        CheckpointInfo secondEnded = loadQueueState.endCheckpoint(NAME_THREAD_14000, CHECKPOINT1.getName(),
+                                                                  START_TIME + 350);
+        assertTrue(firstEnded == secondEnded);
+        assertEquals(7, secondEnded.getCheckpointSummaryId());
+        assertEquals(START_TIME + 200, secondEnded.getStartTimestamp());
+    }
+
+    @Test( expected = ThreadNotRegisteredWithLoadQueue.class)
+    public void getLoadQueueIdForThreadNegativeLoadQueueRemoved() throws LoggingException {
+
+        loadQueueState.addLoadQueue("load queue 1", 123);
+        loadQueueState.registerThreadWithLoadQueue(NAME_THREAD_14000, 123);
+        loadQueueState.removeLoadQueue("load queue 1", 123);
+
+        loadQueueState.getLoadQueueIdForThread(NAME_THREAD_14000);
+    }
+
+    @Test
+    public void startEndCheckpointsFromManyThreads() throws Exception {
+
+        final int threadsCount = 16;
+        final int iterations = 10000;
+
+        loadQueueState.addLoadQueue("load queue 1", 123);
+        for (int i = 0; i < threadsCount; i++) {
+            loadQueueState.registerThreadWithLoadQueue("thread-" + i, 123);
+        }
+
+        final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+        Thread[] threads = new Thread[threadsCount];
+        for (int i = 0; i < threadsCount; i++) {
+            final String threadName = "thread-" + i;
+            threads[i] = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+
+                    try {
+                        for (int j = 0; j < iterations; j++) {
+                            assertEquals(123, loadQueueState.getLoadQueueIdForThread(threadName));
+                            loadQueueState.startCheckpoint(CHECKPOINT1.getName(), 0, 0, START_TIME + j, threadName);
+                            CheckpointInfo endedCheckpoint = loadQueueState.endCheckpoint(threadName,
+                                                                                          CHECKPOINT1.getName(),
+                                                                                          START_TIME + j + 1);
+                            assertEquals(START_TIME + j, endedCheckpoint.getStartTimestamp());
+                        }
+                    } catch (Throwable t) {
+                        errors.add(t);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(errors.toString(), errors.isEmpty());
+    }
+
     @Test
     public void clearAllPositive() throws LoggingException {
 
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.log.autodb.io;
+
+import static org.junit.Assert.assertEquals;
+
+import java.sql.Timestamp;
+
+import org.junit.Test;
+
+public class Test_PGCopyDataBuilder {
+
+    @Test
+    public void rowsAndColumns() {
+
+        PGCopyDataBuilder data = new PGCopyDataBuilder();
+        data.addValue(1).addValue("first").addValue(true).endRow();
+        data.addValue(2).addValue("second").addValue(false).endRow();
+
+        assertEquals("1\tfirst\tt\n2\tsecond\tf\n", data.toString());
+        assertEquals(2, data.getRows());
+    }
+
+    @Test
+    public void specialCharactersAreEscaped() {
+
+        PGCopyDataBuilder data = new PGCopyDataBuilder();
+        data.addValue("tab\there").addValue("new\r\nline").addValue("back\\slash").endRow();
+
+        assertEquals("tab\\there\tnew\\r\\nline\tback\\\\slash\n", data.toString());
+    }
+
+    @Test
+    public void nullValues() {
+
+        PGCopyDataBuilder data = new PGCopyDataBuilder();
+        data.addValue((String) null).addValue((Timestamp) null).addValue("").endRow();
+
+        assertEquals("\\N\t\\N\t\n", data.toString());
+    }
+
+    @Test
+    public void timestamps() {
+
+        PGCopyDataBuilder data = new PGCopyDataBuilder();
+        data.addValue(Timestamp.valueOf("2021-03-04 05:06:07.123")).endRow();
+
+        assertEquals("2021-03-04 05:06:07.123\n", data.toString());
+    }
+
+    @Test
+    public void clear() {
+
+        PGCopyDataBuilder data = new PGCopyDataBuilder();
+        data.addValue(1).addValue(2).endRow();
+        data.clear();
+        data.addValue(3).endRow();
+
+        assertEquals("3\n", data.toString());
+        assertEquals(1, data.getRows());
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.log.autodb.io;
+
+import static org.easymock.EasyMock.anyString;
+import static org.easymock.EasyMock.capture;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.newCapture;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.easymock.Capture;
+import org.easymock.CaptureType;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.axway.ats.core.dbaccess.postgresql.DbConnPostgreSQL;
+import com.axway.ats.log.autodb.exceptions.DatabaseAccessException;
+import com.axway.ats.log.autodb.io.PGDbWriteAccess.PGCopyEventsCache;
+import com.axway.ats.log.model.CheckpointLogLevel;
+
+public class Test_PGDbWriteAccess {
+
+    private static final long   TIMESTAMP        = Timestamp.valueOf("2021-03-04 05:06:07.123").getTime();
+    private static final String EVENT_TIME       = "2021-03-04 05:06:07.123";
+
+    private static final String COPY_MESSAGES    = "COPY ats_copy_messages FROM STDIN";
+    private static final String COPY_CHECKPOINTS = "COPY ats_copy_checkpoints FROM STDIN";
+    private static final String COPY_STATISTICS  = "COPY ats_copy_statistics FROM STDIN";
+
+    private Connection          dbConnection;
+    private Capture<String>     executedSql;
+
+    // the rows sent with COPY by COPY statement
+    private Map<String, String> copiedRows;
+    // whether the COPY fails
+    private boolean             failCopy;
+
+    private PGDbWriteAccess     dbAccess;
+
+    @Before
+    public void setUp() throws Exception {
+
+        dbConnection = createMock(Connection.class);
+        executedSql = newCapture(CaptureType.ALL);
+        copiedRows = new LinkedHashMap<>();
+        failCopy = false;
+
+        PreparedStatement statement = createNiceMock(PreparedStatement.class);
+        replay(statement);
+
+        // the events cache of the batch mode takes its connection when created
+        dbConnection.setAutoCommit(false);
+        expect(dbConnection.prepareStatement(capture(executedSql))).andReturn(statement).anyTimes();
+    }
+
+    @Test
+    public void copyIsUsedOnlyWhenBulkInsertIsEnabled() throws Exception {
+
+        replay(dbConnection);
+
+        dbAccess = createBatchDbAccess();
+        assertNull(dbAccess.copyEventsCache);
+
+        dbAccess.enableBulkInsert();
+        assertNotNull(dbAccess.copyEventsCache);
+
+        // nothing is cached when not in batch mode
+        PGDbWriteAccess notBatchDbAccess = new PGDbWriteAccess(new DbConnPostgreSQL("localhost", "logdb", "user",
+                                                                                    "password"),
+                                                               false);
+        notBatchDbAccess.enableBulkInsert();
+        assertNull(notBatchDbAccess.copyEventsCache);
+    }
+
+    @Test
+    public void eventsAreCopiedInOneTransaction() throws Exception {
+
+        dbConnection.commit();
+        replay(dbConnection);
+
+        createDbAccess();
+        PGCopyEventsCache cache = dbAccess.copyEventsCache;
+        cache.addMessage(PGCopyEventsCache.TESTCASE_MESSAGE, 10, 3, "testcase\tmessage", false, "host", "main",
+                         TIMESTAMP);
+        cache.addMessage(PGCopyEventsCache.RUN_MESSAGE, 1, 4, "run message", true, "host", "main", TIMESTAMP);
+        cache.addCheckpoint(5, "login", 200, TIMESTAMP, 1024, "KB", 1, CheckpointLogLevel.SHORT);
+        cache.addSystemStatistics(10, "host", "1_2", "0.5_10", TIMESTAMP);
+        dbAccess.flushCache();
+
+        verify(dbConnection);
+        assertNotNull(dbAccess.copyEventsCache);
+
+        assertEquals(3, copiedRows.size());
+        assertEquals("0\t0\t10\t3\ttestcase\\tmessage\tf\thost\tmain\t" + EVENT_TIME + "\n"
+                     + "1\t1\t1\t4\trun message\tt\thost\tmain\t" + EVENT_TIME + "\n",
+                     copiedRows.get(COPY_MESSAGES));
+        assertEquals("0\t5\tlogin\t200\t" + EVENT_TIME + "\t1024\tKB\t1\t" + CheckpointLogLevel.SHORT.toInt()
+                     + "\n", copiedRows.get(COPY_CHECKPOINTS));
+        assertEquals("0\t10\thost\t1_2\t0.5_10\t" + EVENT_TIME + "\n", copiedRows.get(COPY_STATISTICS));
+
+        // the events are moved from the temporary tables, the run messages first as they came in
+        List<String> sql = getEventsSql();
+        assertEquals(4, sql.size());
+        assertTrue(sql.get(0), sql.get(0).startsWith("SELECT sp_insert_run_message("));
+        assertTrue(sql.get(1), sql.get(1).startsWith("SELECT sp_insert_message("));
+        assertTrue(sql.get(2), sql.get(2).startsWith("SELECT sp_insert_checkpoint("));
+        assertTrue(sql.get(3), sql.get(3).startsWith("SELECT sp_insert_system_statistic_by_ids("));
+    }
+
+    @Test
+    public void temporaryTablesAreCreatedOncePerConnection() throws Exception {
+
+        dbConnection.commit();
+        expectLastCall().times(2);
+        replay(dbConnection);
+
+        createDbAccess();
+        dbAccess.copyEventsCache.addSystemStatistics(10, "host", "1", "0.5", TIMESTAMP);
+        dbAccess.flushCache();
+        dbAccess.copyEventsCache.addSystemStatistics(10, "host", "1", "0.7", TIMESTAMP);
+        dbAccess.flushCache();
+
+        verify(dbConnection);
+        assertEquals(3, executedSql.getValues().size() - getEventsSql().size());
+    }
+
+    @Test
+    public void flushWhenCacheIsFull() throws Exception {
+
+        dbConnection.commit();
+        replay(dbConnection);
+
+        createDbAccess();
+        dbAccess.setMaxNumberOfCachedEvents(2);
+        assertFalse(dbAccess.copyEventsCache.addSystemStatistics(10, "host", "1", "0.5", TIMESTAMP));
+        assertTrue(dbAccess.copyEventsCache.addSystemStatistics(10, "host", "1", "0.7", TIMESTAMP));
+        // nothing left to flush
+        dbAccess.flushCache();
+
+        verify(dbConnection);
+        assertEquals(2, copiedRows.get(COPY_STATISTICS).split("\n").length);
+    }
+
+    @Test
+    public void failedCopyIsRolledBackAndSentWithBatchedStatements() throws Exception {
+
+        Capture<String> preparedCalls = newCapture(CaptureType.ALL);
+        CallableStatement callableStatement = createNiceMock(CallableStatement.class);
+        expect(dbConnection.prepareCall(capture(preparedCalls))).andReturn(callableStatement).anyTimes();
+        callableStatement.setString(3, "testcase message");
+        callableStatement.setString(2, "login");
+        callableStatement.setString(3, "1_2");
+        callableStatement.addBatch();
+        expectLastCall().times(3);
+        expect(callableStatement.executeBatch()).andReturn(new int[]{ 1 }).times(3);
+        dbConnection.rollback();
+        // once for the messages, once for the checkpoints and once for the statistics
+        dbConnection.commit();
+        expectLastCall().times(3);
+        replay(dbConnection, callableStatement);
+
+        createDbAccess();
+        failCopy = true;
+        dbAccess.copyEventsCache.addMessage(PGCopyEventsCache.TESTCASE_MESSAGE, 10, 3, "testcase message", false,
+                                            "host", "main", TIMESTAMP);
+        dbAccess.copyEventsCache.addCheckpoint(5, "login", 200, TIMESTAMP, 1024, "KB", 1, CheckpointLogLevel.SHORT);
+        dbAccess.copyEventsCache.addSystemStatistics(10, "host", "1_2", "0.5_10", TIMESTAMP);
+        dbAccess.flushCache();
+
+        verify(dbConnection, callableStatement);
+        assertTrue(copiedRows.isEmpty());
+        assertEquals("{ call sp_insert_message(?, ?, ?, ?, ?, ?, ?) }", preparedCalls.getValues().get(0));
+        assertEquals("{ call sp_insert_checkpoint(?, ?, ?, ?, ?, ?, ?, ?) }", preparedCalls.getValues().get(1));
+        assertEquals("{ call sp_insert_system_statistic_by_ids(?, ?, ?, ?, ?) }",
+                     preparedCalls.getValues().get(2));
+
+        // COPY is not used anymore
+        assertNull(dbAccess.copyEventsCache);
+    }
+
+    @Test
+    public void aggregatedCheckpointSummaryIsRejected() throws Exception {
+
+        PGDbWriteAccess dbAccess = new PGDbWriteAccess(new DbConnPostgreSQL("localhost", "logdb", "user",
+                                                                            "password"),
+                                                       false);
+        try {
+            dbAccess.updateCheckpointSummary(1, 10, 0, 0, 5, 50, 20, 0, 0, 0, true);
+            fail("The checkpoint summary update must be rejected");
+        } catch (DatabaseAccessException e) {
+            assertTrue(e.getMessage().contains(CheckpointLogLevel.AGGREGATED.toString()));
+        }
+    }
+
+    /**
+     * Create DB access in batch mode with bulk insert, which works with the mocked connection
+     * and keeps the rows instead of sending them with COPY
+     */
+    private void createDbAccess() throws Exception {
+
+        dbAccess = createBatchDbAccess();
+        dbAccess.copyEventsCache = dbAccess.new PGCopyEventsCache() {
+
+            @Override
+            void copyIn( Connection connection, String copySql, String rows ) throws Exception {
+
+                if (failCopy) {
+                    throw new SQLException("COPY failed");
+                }
+                copiedRows.put(copySql, rows);
+            }
+        };
+    }
+
+    private PGDbWriteAccess createBatchDbAccess() throws Exception {
+
+        return new PGDbWriteAccess(new DbConnPostgreSQL("localhost", "logdb", "user", "password"), true) {
+
+            @Override
+            protected Connection getConnection() {
+
+                return dbConnection;
+            }
+        };
+    }
+
+    /**
+     * @return the executed SQL statements, without the creation of the temporary tables
+     */
+    private List<String> getEventsSql() {
+
+        List<String> sql = new ArrayList<>();
+        for (String statement : executedSql.getValues()) {
+            if (!statement.startsWith("CREATE TEMP TABLE")) {
+                sql.add(statement);
+            }
+        }
+        return sql;
+    }
+}
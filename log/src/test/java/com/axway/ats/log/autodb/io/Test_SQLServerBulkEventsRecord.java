@@ -0,0 +1,85 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.log.autodb.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Types;
+import java.time.format.DateTimeFormatter;
+
+import org.junit.Test;
+
+public class Test_SQLServerBulkEventsRecord {
+
+    @Test
+    public void columnsAndRows() {
+
+        SQLServerBulkEventsRecord record = new SQLServerBulkEventsRecord().addColumn("seq", Types.INTEGER)
+                                                                          .addColumn("message", Types.NVARCHAR)
+                                                                          .addColumn("eventTime", Types.TIMESTAMP);
+        record.addRow(0, "first, with comma", null);
+        record.addRow(1, "second\nwith new line", null);
+
+        assertEquals(2, record.getRows());
+        assertEquals(3, record.getColumnOrdinals().size());
+        assertEquals("message", record.getColumnName(2));
+        assertEquals(Types.TIMESTAMP, record.getColumnType(3));
+        assertEquals(3, record.getScale(3));
+        assertEquals(0, record.getPrecision(2));
+
+        assertTrue(record.next());
+        assertArrayEquals(new Object[]{ 0, "first, with comma", null }, record.getRowData());
+        assertTrue(record.next());
+        assertArrayEquals(new Object[]{ 1, "second\nwith new line", null }, record.getRowData());
+        assertFalse(record.next());
+    }
+
+    @Test
+    public void columnMetadata() {
+
+        DateTimeFormatter columnFormatter = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+        DateTimeFormatter timestampFormatter = DateTimeFormatter.ISO_OFFSET_DATE_TIME;
+
+        SQLServerBulkEventsRecord record = new SQLServerBulkEventsRecord();
+        record.addColumnMetadata(1, "name", Types.NVARCHAR, 255, 0);
+        record.addColumnMetadata(2, "eventTime", Types.TIMESTAMP, 27, 7, columnFormatter);
+        record.addColumnMetadata(3, "offsetTime", Types.TIMESTAMP_WITH_TIMEZONE, 34, 7);
+        record.setTimestampWithTimezoneFormat(timestampFormatter);
+
+        assertEquals(255, record.getPrecision(1));
+        assertEquals(7, record.getScale(2));
+        assertNull(record.getColumnDateTimeFormatter(1));
+        assertSame(columnFormatter, record.getColumnDateTimeFormatter(2));
+        assertSame(timestampFormatter, record.getColumnDateTimeFormatter(3));
+    }
+
+    @Test( expected = IllegalArgumentException.class)
+    public void columnsOutOfOrder() {
+
+        new SQLServerBulkEventsRecord().addColumnMetadata(2, "seq", Types.INTEGER, 10, 0);
+    }
+
+    @Test( expected = IllegalArgumentException.class)
+    public void wrongNumberOfValues() {
+
+        new SQLServerBulkEventsRecord().addColumn("seq", Types.INTEGER).addRow(1, 2);
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.log.autodb.io;
+
+import static org.easymock.EasyMock.anyString;
+import static org.easymock.EasyMock.capture;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.newCapture;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.easymock.Capture;
+import org.easymock.CaptureType;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.axway.ats.core.dbaccess.mssql.DbConnSQLServer;
+import com.axway.ats.log.autodb.io.SQLServerDbWriteAccessMSSQL.DbBulkEventsCache;
+
+public class Test_SQLServerDbWriteAccessMSSQL {
+
+    private static final long                      TIMESTAMP = Timestamp.valueOf("2021-03-04 05:06:07.123").getTime();
+
+    private Connection                             connection;
+    private Statement                              statement;
+    private Capture<String>                        executedSql;
+
+    // the bulk copied records by destination table
+    private Map<String, SQLServerBulkEventsRecord> bulkCopied;
+
+    private DbBulkEventsCache                      cache;
+
+    @Before
+    public void setUp() throws Exception {
+
+        connection = createMock(Connection.class);
+        statement = createMock(Statement.class);
+        executedSql = newCapture(CaptureType.ALL);
+        bulkCopied = new LinkedHashMap<>();
+
+        expect(connection.createStatement()).andReturn(statement).anyTimes();
+        expect(statement.execute(capture(executedSql))).andReturn(false).anyTimes();
+        expect(statement.getUpdateCount()).andReturn(-1).anyTimes();
+        expect(statement.isClosed()).andReturn(false).anyTimes();
+        statement.close();
+        expectLastCall().anyTimes();
+
+        SQLServerDbWriteAccessMSSQL dbAccess = new SQLServerDbWriteAccessMSSQL(new DbConnSQLServer("localhost",
+                                                                                                   "logdb",
+                                                                                                   "user",
+                                                                                                   "password"),
+                                                                               false);
+        // the real bulk copy needs a SQL Server connection, here we only keep what would be sent
+        cache = dbAccess.new DbBulkEventsCache() {
+
+            @Override
+            Connection getConnection() {
+
+                return connection;
+            }
+
+            @Override
+            void bulkCopy( Connection connection, String tableName, SQLServerBulkEventsRecord record ) {
+
+                bulkCopied.put(tableName, record);
+            }
+        };
+    }
+
+    @Test
+    public void messagesAreInsertedSetBased() throws Exception {
+
+        // once after creating the temporary tables and once for the events
+        connection.commit();
+        expectLastCall().times(2);
+        replay(connection, statement);
+
+        cache.addMessage(DbBulkEventsCache.TESTCASE_MESSAGE, 10, 3, "testcase message", false, "host", "main",
+                         TIMESTAMP);
+        cache.addMessage(DbBulkEventsCache.RUN_MESSAGE, 1, 4, "run message", true, "host", "main", TIMESTAMP);
+        cache.flush();
+
+        verify(connection, statement);
+
+        SQLServerBulkEventsRecord messages = bulkCopied.get(DbBulkEventsCache.MESSAGES_TABLE);
+        assertEquals(2, messages.getRows());
+        assertTrue(messages.next());
+        assertArrayEquals(new Object[]{ 0, DbBulkEventsCache.TESTCASE_MESSAGE, 10, 3, "testcase message", false,
+                                        "host", "main", new Timestamp(TIMESTAMP) },
+                          messages.getRowData());
+
+        List<String> sql = getEventsSql();
+        assertEquals(String.format(DbBulkEventsCache.INSERT_MACHINES, DbBulkEventsCache.MESSAGES_TABLE),
+                     sql.get(0));
+        assertEquals(DbBulkEventsCache.INSERT_UNIQUE_MESSAGES, sql.get(1));
+        assertEquals(String.format(DbBulkEventsCache.INSERT_MESSAGES, "tRunMessages", "runId",
+                                   DbBulkEventsCache.RUN_MESSAGE),
+                     sql.get(2));
+        assertEquals(String.format(DbBulkEventsCache.INSERT_MESSAGES, "tMessages", "testcaseId",
+                                   DbBulkEventsCache.TESTCASE_MESSAGE),
+                     sql.get(3));
+        assertEquals("TRUNCATE TABLE " + DbBulkEventsCache.MESSAGES_TABLE, sql.get(4));
+        assertEquals(5, sql.size());
+    }
+
+    @Test
+    public void longMessagesAreInsertedWithStoredProcedure() throws Exception {
+
+        StringBuilder longMessage = new StringBuilder();
+        while (longMessage.length() <= DbBulkEventsCache.MAX_SET_BASED_MESSAGE_LENGTH) {
+            longMessage.append("long message ");
+        }
+
+        CallableStatement callableStatement = createNiceMock(CallableStatement.class);
+        expect(connection.prepareCall(anyString())).andReturn(callableStatement).times(3);
+        callableStatement.setString(3, longMessage.toString());
+        callableStatement.addBatch();
+        expect(callableStatement.executeBatch()).andReturn(new int[]{ 1 }).once();
+        connection.commit();
+        expectLastCall().times(2);
+        replay(connection, statement, callableStatement);
+
+        cache.addMessage(DbBulkEventsCache.TESTCASE_MESSAGE, 10, 3, longMessage.toString(), false, "host", "main",
+                         TIMESTAMP);
+        cache.flush();
+
+        verify(connection, statement, callableStatement);
+
+        // nothing to insert set based
+        assertFalse(bulkCopied.containsKey(DbBulkEventsCache.MESSAGES_TABLE));
+        assertTrue(getEventsSql().isEmpty());
+    }
+
+    @Test
+    public void systemStatisticsAreInsertedOneRowPerStatistic() throws Exception {
+
+        connection.commit();
+        expectLastCall().times(2);
+        replay(connection, statement);
+
+        cache.addSystemStatistics(10, "host", "1_2_3", "0.5_10_-1", TIMESTAMP);
+        cache.flush();
+
+        verify(connection, statement);
+
+        SQLServerBulkEventsRecord statistics = bulkCopied.get(DbBulkEventsCache.STATISTICS_TABLE);
+        assertEquals(3, statistics.getRows());
+        Timestamp timestamp = new Timestamp(TIMESTAMP);
+        assertTrue(statistics.next());
+        assertArrayEquals(new Object[]{ 0, 10, "host", 1, 0.5, timestamp }, statistics.getRowData());
+        assertTrue(statistics.next());
+        assertArrayEquals(new Object[]{ 1, 10, "host", 2, 10.0, timestamp }, statistics.getRowData());
+        assertTrue(statistics.next());
+        assertArrayEquals(new Object[]{ 2, 10, "host", 3, -1.0, timestamp }, statistics.getRowData());
+        assertFalse(statistics.next());
+
+        List<String> sql = getEventsSql();
+        assertEquals(String.format(DbBulkEventsCache.INSERT_MACHINES, DbBulkEventsCache.STATISTICS_TABLE),
+                     sql.get(0));
+        assertEquals(DbBulkEventsCache.INSERT_STATISTICS, sql.get(1));
+        assertEquals("TRUNCATE TABLE " + DbBulkEventsCache.STATISTICS_TABLE, sql.get(2));
+        assertEquals(3, sql.size());
+    }
+
+    @Test
+    public void checkpointsAreBulkCopiedInTheSameTransaction() throws Exception {
+
+        connection.commit();
+        expectLastCall().times(2);
+        replay(connection, statement);
+
+        cache.addMessage(DbBulkEventsCache.TESTCASE_MESSAGE, 10, 3, "testcase message", false, "host", "main",
+                         TIMESTAMP);
+        cache.addCheckpoint(5, "login", 200, 1.5, null, 1, TIMESTAMP);
+        cache.flush();
+
+        verify(connection, statement);
+
+        assertEquals(2, bulkCopied.size());
+        SQLServerBulkEventsRecord checkpoints = bulkCopied.get(DbBulkEventsCache.CHECKPOINTS_TABLE);
+        assertEquals(1, checkpoints.getRows());
+        assertTrue(checkpoints.next());
+        assertArrayEquals(new Object[]{ -1L, 5, "login", 200, 1.5, " ", (short) 1, new Timestamp(TIMESTAMP) },
+                          checkpoints.getRowData());
+    }
+
+    @Test
+    public void flushWhenCacheIsFull() throws Exception {
+
+        connection.commit();
+        expectLastCall().times(2);
+        replay(connection, statement);
+
+        cache.setMaxNumberOfCachedEvents(2);
+        assertFalse(cache.addSystemStatistics(10, "host", "1", "0.5", TIMESTAMP));
+        assertTrue(cache.addSystemStatistics(10, "host", "1", "0.7", TIMESTAMP));
+        // nothing left to flush
+        cache.flush();
+
+        verify(connection, statement);
+        assertEquals(2, bulkCopied.get(DbBulkEventsCache.STATISTICS_TABLE).getRows());
+    }
+
+    @Test
+    public void temporaryTablesAreCreatedOncePerConnection() throws Exception {
+
+        connection.commit();
+        expectLastCall().times(3);
+        replay(connection, statement);
+
+        cache.addSystemStatistics(10, "host", "1", "0.5", TIMESTAMP);
+        cache.flush();
+        cache.addSystemStatistics(10, "host", "1", "0.7", TIMESTAMP);
+        cache.flush();
+
+        verify(connection, statement);
+        int createdTables = 0;
+        for (String sql : executedSql.getValues()) {
+            if (sql.contains("CREATE TABLE")) {
+                createdTables++;
+            }
+        }
+        assertEquals(2, createdTables);
+    }
+
+    @Test
+    public void failedBulkInsertIsRolledBackAndSentTheUsualWay() throws Exception {
+
+        CallableStatement callableStatement = createNiceMock(CallableStatement.class);
+        connection.rollback();
+        expect(connection.prepareCall("{ call sp_insert_system_statistic_by_ids(?, ?, ?, ?, ?) }"))
+                                                                                             .andReturn(callableStatement);
+        callableStatement.setString(3, "1_2");
+        callableStatement.setString(4, "0.5");
+        callableStatement.addBatch();
+        expect(callableStatement.executeBatch()).andReturn(new int[]{ 1 }).once();
+        // after creating the temporary tables and after sending the statistics the usual way
+        connection.commit();
+        expectLastCall().times(2);
+        replay(connection, statement, callableStatement);
+
+        // the IDs and values do not match, so the bulk insert fails
+        cache.addSystemStatistics(10, "host", "1_2", "0.5", TIMESTAMP);
+        cache.flush();
+
+        verify(connection, statement, callableStatement);
+        assertTrue(bulkCopied.isEmpty());
+    }
+
+    /**
+     * @return the executed SQL statements, without the creation of the temporary tables
+     */
+    private List<String> getEventsSql() {
+
+        List<String> sql = new ArrayList<>();
+        for (String statement : executedSql.getValues()) {
+            if (!statement.contains("CREATE TABLE")) {
+                sql.add(statement);
+            }
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.log.autodb.logqueue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.axway.ats.log.autodb.logqueue.RingBufferLogEventQueue.OverflowPolicy;
+import com.axway.ats.log.autodb.logqueue.RingBufferLogEventQueue.WaitStrategy;
+
+/**
+ * Compares the throughput of the log events queues when many threads are logging at the same time.
+ * A single consumer thread drains the queue, the same way the {@link QueueLoggerThread} does.
+ * <br>
+ * <br>This is not a unit test. Run it from the IDE or with the test classpath:
+ * <pre>java -cp ... com.axway.ats.log.autodb.logqueue.Benchmark_LogEventQueue</pre>
+ */
+@State( Scope.Benchmark)
+@BenchmarkMode( Mode.Throughput)
+@OutputTimeUnit( TimeUnit.MILLISECONDS)
+@Warmup( iterations = 3, time = 2)
+@Measurement( iterations = 5, time = 2)
+@Fork( 1)
+public class Benchmark_LogEventQueue {
+
+    private static final int               QUEUE_CAPACITY   = 100000;
+
+    private static final int[]             PRODUCER_THREADS = { 1, 16, 256 };
+
+    @Param( { "array", "ringBuffer-block", "ringBuffer-yield", "ringBuffer-busySpin" })
+    public String                          queueType;
+
+    private BlockingQueue<LogEventRequest> queue;
+    private Thread                         consumer;
+    private LogEventRequest                eventRequest     = new LogEventRequest("benchmark", null, 0);
+
+    @Setup( Level.Trial)
+    public void setUp() {
+
+        if ("array".equals(queueType)) {
+            queue = new ArrayBlockingQueue<LogEventRequest>(QUEUE_CAPACITY);
+        } else {
+            String waitStrategy = queueType.substring(queueType.indexOf('-') + 1);
+            queue = new RingBufferLogEventQueue(QUEUE_CAPACITY, WaitStrategy.fromString(waitStrategy),
+                                                OverflowPolicy.BLOCK);
+        }
+
+        consumer = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+
+                List<LogEventRequest> drainedEvents = new ArrayList<LogEventRequest>(1000);
+                try {
+                    while (true) {
+                        drainedEvents.add(queue.take());
+                        queue.drainTo(drainedEvents, 999);
+                        drainedEvents.clear();
+                    }
+                } catch (InterruptedException e) {
+                    // the benchmark is over
+                }
+            }
+        }, "Benchmark consumer");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    @TearDown( Level.Trial)
+    public void tearDown() throws InterruptedException {
+
+        consumer.interrupt();
+        consumer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    @Benchmark
+    public void addEvent() throws InterruptedException {
+
+        // wait for free space, so the array queue does not fail when full
+        queue.put(eventRequest);
+    }
+
+    public static void main( String[] args ) throws Exception {
+
+        for (int producerThreads : PRODUCER_THREADS) {
+            Options options = new OptionsBuilder().include(Benchmark_LogEventQueue.class.getSimpleName())
+                                                  .threads(producerThreads)
+                                                  .build();
+            new Runner(options).run();
+        }
+    }
+}
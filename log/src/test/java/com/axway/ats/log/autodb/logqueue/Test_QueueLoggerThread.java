@@ -0,0 +1,129 @@
+/*
+ * Copyright 2021 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.log.autodb.logqueue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+
+import org.apache.logging.log4j.core.Layout;
+import org.junit.Test;
+
+import com.axway.ats.core.log.AtsLog4jLogger;
+import com.axway.ats.log.autodb.exceptions.LoggingException;
+import com.axway.ats.log.autodb.model.EventRequestProcessor;
+
+public class Test_QueueLoggerThread {
+
+    static {
+        AtsLog4jLogger.setLog4JConsoleLoggingOnly();
+    }
+
+    @Test
+    public void drainAllQueuedEventsInOrder() throws Exception {
+
+        ArrayBlockingQueue<LogEventRequest> queue = new ArrayBlockingQueue<LogEventRequest>(100);
+        List<LogEventRequest> sentEvents = new ArrayList<LogEventRequest>();
+        for (int i = 0; i < 5; i++) {
+            LogEventRequest eventRequest = new LogEventRequest("thread-" + i, null, i);
+            sentEvents.add(eventRequest);
+            queue.add(eventRequest);
+        }
+
+        RecordingEventProcessor eventProcessor = new RecordingEventProcessor();
+        QueueLoggerThread queueLogger = new QueueLoggerThread(queue, eventProcessor, true, null);
+        queueLogger.start();
+        try {
+            eventProcessor.waitForEvents(sentEvents.size());
+        } finally {
+            queueLogger.interrupt();
+            queueLogger.join(5000);
+        }
+
+        assertEquals(sentEvents, eventProcessor.getProcessedEvents());
+        // all events are taken with one drain and flushed in one go
+        assertEquals(1, eventProcessor.getFlushes());
+        assertTrue(eventProcessor.isConnectionReleased());
+
+        QueueLoggerStatistics statistics = queueLogger.getStatistics();
+        assertEquals(1, statistics.getDrains());
+        assertEquals(5, statistics.getProcessedEvents());
+        assertEquals(5, statistics.getMaxDrainSize());
+        assertEquals(1, statistics.getFlushes());
+        assertEquals(0, statistics.getQueueDepth());
+    }
+
+    private static class RecordingEventProcessor implements EventRequestProcessor {
+
+        private List<LogEventRequest> processedEvents = new ArrayList<LogEventRequest>();
+        private int                   flushes;
+        private boolean               isConnectionReleased;
+
+        @Override
+        public synchronized void processEventRequest( LogEventRequest eventRequest ) throws LoggingException {
+
+            if (eventRequest != null) {
+                processedEvents.add(eventRequest);
+                notifyAll();
+            }
+        }
+
+        @Override
+        public void setLayout( Layout layout ) {
+
+        }
+
+        @Override
+        public synchronized void flushCache() throws LoggingException {
+
+            flushes++;
+            notifyAll();
+        }
+
+        @Override
+        public synchronized void releaseConnection() {
+
+            isConnectionReleased = true;
+        }
+
+        synchronized void waitForEvents( int eventsCount ) throws InterruptedException {
+
+            long endTime = System.currentTimeMillis() + 5000;
+            while ( (processedEvents.size() < eventsCount || flushes == 0)
+                    && System.currentTimeMillis() < endTime) {
+                wait(100);
+            }
+        }
+
+        synchronized List<LogEventRequest> getProcessedEvents() {
+
+            return new ArrayList<LogEventRequest>(processedEvents);
+        }
+
+        synchronized int getFlushes() {
+
+            return flushes;
+        }
+
+        synchronized boolean isConnectionReleased() {
+
+            return isConnectionReleased;
+        }
+    }
+}
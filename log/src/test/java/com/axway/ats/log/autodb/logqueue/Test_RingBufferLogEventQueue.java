@@ -0,0 +1,195 @@
+/*
+ * Copyright 2021 Axway Software
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.log.autodb.logqueue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.junit.Test;
+
+import com.axway.ats.core.log.AtsLog4jLogger;
+import com.axway.ats.log.autodb.events.EndRunEvent;
+import com.axway.ats.log.autodb.logqueue.RingBufferLogEventQueue.OverflowPolicy;
+import com.axway.ats.log.autodb.logqueue.RingBufferLogEventQueue.WaitStrategy;
+
+public class Test_RingBufferLogEventQueue {
+
+    static {
+        AtsLog4jLogger.setLog4JConsoleLoggingOnly();
+    }
+
+    @Test
+    public void capacityIsRoundedToPowerOf2() {
+
+        assertEquals(1, new RingBufferLogEventQueue(1, WaitStrategy.BLOCK, OverflowPolicy.BLOCK).getCapacity());
+        assertEquals(8, new RingBufferLogEventQueue(5, WaitStrategy.BLOCK, OverflowPolicy.BLOCK).getCapacity());
+        assertEquals(131072,
+                     new RingBufferLogEventQueue(100000, WaitStrategy.BLOCK, OverflowPolicy.BLOCK).getCapacity());
+    }
+
+    @Test
+    public void eventsAreTakenInOrder() throws Exception {
+
+        RingBufferLogEventQueue queue = new RingBufferLogEventQueue(4, WaitStrategy.YIELD, OverflowPolicy.BLOCK);
+        LogEventRequest first = message(1);
+        LogEventRequest second = message(2);
+
+        assertTrue(queue.offer(first));
+        assertTrue(queue.offer(second));
+        assertEquals(2, queue.size());
+        assertEquals(2, queue.remainingCapacity());
+
+        assertSame(first, queue.peek());
+        assertSame(first, queue.poll());
+        assertSame(second, queue.take());
+        assertNull(queue.poll());
+        assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void offerFailsWhenFull() {
+
+        RingBufferLogEventQueue queue = new RingBufferLogEventQueue(2, WaitStrategy.BUSY_SPIN, OverflowPolicy.BLOCK);
+        assertTrue(queue.offer(message(1)));
+        assertTrue(queue.offer(message(2)));
+        assertFalse(queue.offer(message(3)));
+        assertEquals(0, queue.remainingCapacity());
+    }
+
+    @Test
+    public void dropNewMessagesWhenFull() {
+
+        RingBufferLogEventQueue queue = new RingBufferLogEventQueue(2, WaitStrategy.BLOCK, OverflowPolicy.DROP);
+        LogEventRequest first = message(1);
+        queue.add(first);
+        queue.add(message(2));
+        queue.add(message(3));
+        queue.add(message(4));
+
+        assertEquals(2, queue.getDroppedEvents());
+        assertEquals(2, queue.size());
+        assertSame(first, queue.poll());
+    }
+
+    @Test
+    public void dropOldestMessagesWhenFull() {
+
+        RingBufferLogEventQueue queue = new RingBufferLogEventQueue(2, WaitStrategy.BLOCK,
+                                                                    OverflowPolicy.DROP_OLDEST_MESSAGE);
+        queue.add(message(1));
+        queue.add(message(2));
+        LogEventRequest third = message(3);
+        queue.add(third);
+
+        assertEquals(1, queue.getDroppedEvents());
+        assertSame(third, drainAll(queue).get(1));
+    }
+
+    @Test
+    public void lifecycleEventsAreNotDropped() {
+
+        RingBufferLogEventQueue queue = new RingBufferLogEventQueue(2, WaitStrategy.BLOCK,
+                                                                    OverflowPolicy.DROP_OLDEST_MESSAGE);
+        LogEventRequest endRun = new LogEventRequest("main",
+                                                     new EndRunEvent("fqcn",
+                                                                     LogManager.getLogger(Test_RingBufferLogEventQueue.class)),
+                                                     0);
+        queue.add(endRun);
+        LogEventRequest second = message(2);
+        queue.add(second);
+        // the oldest event is not a message, so the new message is dropped
+        queue.add(message(3));
+
+        assertEquals(1, queue.getDroppedEvents());
+        List<LogEventRequest> events = drainAll(queue);
+        assertSame(endRun, events.get(0));
+        assertSame(second, events.get(1));
+    }
+
+    @Test
+    public void multipleProducers() throws Exception {
+
+        final int producersCount = 8;
+        final int eventsPerProducer = 20000;
+        final RingBufferLogEventQueue queue = new RingBufferLogEventQueue(1024, WaitStrategy.BLOCK,
+                                                                          OverflowPolicy.BLOCK);
+
+        List<Thread> producers = new ArrayList<Thread>();
+        for (int i = 0; i < producersCount; i++) {
+            final int producerIndex = i;
+            Thread producer = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+
+                    for (int j = 0; j < eventsPerProducer; j++) {
+                        queue.add(new LogEventRequest("producer-" + producerIndex, null, j));
+                    }
+                }
+            });
+            producers.add(producer);
+            producer.start();
+        }
+
+        // each producer's events must come in the order they were added
+        long[] lastTimestamps = new long[producersCount];
+        for (int i = 0; i < producersCount; i++) {
+            lastTimestamps[i] = -1;
+        }
+        List<LogEventRequest> drained = new ArrayList<LogEventRequest>();
+        int takenEvents = 0;
+        while (takenEvents < producersCount * eventsPerProducer) {
+            LogEventRequest first = queue.poll(5, TimeUnit.SECONDS);
+            assertTrue("Timed out waiting for events", first != null);
+            drained.add(first);
+            queue.drainTo(drained, 100);
+            for (LogEventRequest eventRequest : drained) {
+                int producerIndex = Integer.parseInt(eventRequest.getThreadName().substring("producer-".length()));
+                assertEquals(lastTimestamps[producerIndex] + 1, eventRequest.getTimestamp());
+                lastTimestamps[producerIndex] = eventRequest.getTimestamp();
+            }
+            takenEvents += drained.size();
+            drained.clear();
+        }
+
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.getDroppedEvents());
+    }
+
+    private static List<LogEventRequest> drainAll( RingBufferLogEventQueue queue ) {
+
+        List<LogEventRequest> events = new ArrayList<LogEventRequest>();
+        queue.drainTo(events);
+        return events;
+    }
+
+    private static LogEventRequest message( int index ) {
+
+        return new LogEventRequest("thread-" + index, null, index);
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2017 Axway Software
+ * Copyright 2017-2021 Axway Software
  * 
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,8 +17,10 @@
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -29,31 +31,41 @@
 import com.axway.ats.rbv.model.RbvException;
 import com.axway.ats.rbv.rules.Rule;
 import com.axway.ats.rbv.storage.Matchable;
+import com.axway.ats.rbv.storage.MatchableChangeListener;
+import com.axway.ats.rbv.storage.ObservableMatchable;
 
+/**
+ * Polls a {@link Matchable} until its meta data matches the rules or the polling attempts are over.
+ * <br>The polling attempts of all monitors run in threads shared by all monitors.
+ * If the matchable is an {@link ObservableMatchable}, it is also polled right after it reports a change.
+ */
 public class Monitor {
 
-    private static final Logger log              = LogManager.getLogger(Monitor.class);
+    private static final Logger      log                 = LogManager.getLogger(Monitor.class);
 
-    private String              name;
-    private Matchable           matchable;
-    private final Executor      executor;
-    private PollingParameters   pollingParameters;
-    private int                 pollAttemptsLeft;
-    private int                 pollAttemptsDone = 0;
-    private MonitorListener     monitorListener;
-    private boolean             expectedResult;
-    private boolean             actualResult;
+    private String                   name;
+    private Matchable                matchable;
+    private final Executor           executor;
+    private PollingParameters        pollingParameters;
+    private int                      pollAttemptsLeft;
+    private int                      pollAttemptsDone    = 0;
+    private MonitorListener          monitorListener;
+    private boolean                  expectedResult;
+    private boolean                  actualResult;
 
-    private final boolean       endOnFirstMatch;
-    private final boolean       endOnFirstFailure;
+    private final boolean            endOnFirstMatch;
+    private final boolean            endOnFirstFailure;
 
-    private Timer               timer;
-    private boolean             isActive;
+    private ScheduledExecutorService scheduler;
+    private ScheduledFuture<?>       nextPoll;
+    private long                     currentPollInterval;
+    private final AtomicBoolean      isChangePollPending = new AtomicBoolean();
+    private boolean                  isActive;
 
-    private String              lastRuleName;
-    private String              lastError;
+    private String                   lastRuleName;
+    private String                   lastError;
 
-    private List<MetaData>      matchedMetaData;
+    private List<MetaData>           matchedMetaData;
 
     public Monitor( String name,
                     Matchable matchable,
@@ -109,12 +121,14 @@ public synchronized void start(
 
         this.monitorListener = monitorListener;
 
+        if (matchable instanceof ObservableMatchable) {
+            ((ObservableMatchable) matchable).setChangeListener(new MonitorChangeListener());
+        }
         matchable.open();
 
-        timer = new Timer();
-        timer.schedule(new MonitorTimerTask(),
-                       pollingParameters.getInitialDelay(),
-                       pollingParameters.getPollInterval());
+        scheduler = MonitorScheduler.getExecutor();
+        currentPollInterval = pollingParameters.getPollInterval();
+        scheduleNextPoll(pollingParameters.getInitialDelay());
 
         isActive = true;
     }
@@ -130,7 +144,7 @@ private synchronized void end(
 
         if (isActive) {
             try {
-                timer.cancel();
+                stopPolling();
                 matchable.close();
 
                 //if we have at least one match then we succeeded
@@ -156,7 +170,7 @@ public synchronized void cancelExecution() throws RbvException {
 
         if (isActive) {
 
-            timer.cancel();
+            stopPolling();
             matchable.close();
 
             log.debug(name + " execution has been cancelled");
@@ -165,6 +179,25 @@ public synchronized void cancelExecution() throws RbvException {
         }
     }
 
+    private void stopPolling() {
+
+        nextPoll.cancel(false);
+        if (matchable instanceof ObservableMatchable) {
+            ((ObservableMatchable) matchable).setChangeListener(null);
+        }
+    }
+
+    /**
+     * Schedule the next polling attempt
+     * 
+     * @param delay the delay in milliseconds
+     */
+    private void scheduleNextPoll(
+                                   long delay ) {
+
+        nextPoll = scheduler.schedule(new PollingTask(), delay, TimeUnit.MILLISECONDS);
+    }
+
     public MetaData getFirstMatchedMetaData() {
 
         if (matchedMetaData.size() > 0) {
@@ -222,90 +255,169 @@ private void logExpectedBehaviour() {
         log.info(msg);
     }
 
-    private class MonitorTimerTask extends TimerTask {
+    /**
+     * Poll the matchable and evaluate the received meta data.
+     * It must be called while holding the monitor lock.
+     * 
+     * @param isPollingAttempt whether this is one of the polling attempts or an additional poll
+     * because the matchable reported a change
+     */
+    private void poll(
+                       boolean isPollingAttempt ) {
+
+        try {
+            if (isPollingAttempt) {
+                ++pollAttemptsDone;
+                log.info(name + " polling for " + matchable.getDescription() + ", attempts left: "
+                         + pollAttemptsLeft);
+            } else {
+                log.info(name + " polling for " + matchable.getDescription()
+                         + " after a change was reported, attempts left: " + pollAttemptsLeft);
+            }
+
+            List<MetaData> metaDataReceived;
+            if (endOnFirstMatch && endOnFirstFailure) {
+                metaDataReceived = matchable.getNewMetaData();
+            } else {
+                metaDataReceived = matchable.getAllMetaData();
+            }
+            log.info(name + " " + matchable.getMetaDataCounts());
+
+            String status = null;
+            if (expectedResult == true) {
+                // expecting to match data
+
+                // evaluate using the proper matchable executor
+                List<MetaData> meta = executor.evaluate(metaDataReceived);
+                if (meta != null && !meta.isEmpty()) {
+                    matchedMetaData = meta;
+                    if (endOnFirstMatch) {
+                        end(false, "");
+                        return;
+                    }
+                } else if (endOnFirstFailure) {
+                    status = "Expected to find " + matchable.getDescription()
+                             + " on all attempts, but did not find it on attempt number " + pollAttemptsDone;
+                    end(true, status);
+                } else {
+                    status = "Expected to find " + matchable.getDescription()
+                             + ", but did not find it";
+                }
+            } else {
+                // expecting to not match data
+
+                matchedMetaData = executor.evaluate(metaDataReceived);
+                if (matchedMetaData == null || matchedMetaData.isEmpty()) {
+                    //nothing was matched
+                    matchedMetaData = new ArrayList<MetaData>();
+
+                    //if the expected monitor result is false
+                    //this means that we don't expect any meta data to match
+                    //so if endOnFirstMatch is true, we should end immediately
+                    if (endOnFirstMatch) {
+                        end(false, "");
+                        return;
+                    }
+                } else if (endOnFirstFailure) {
+                    status = "Expected to not find " + matchable.getDescription()
+                             + " on all attempts, but found it on attempt number " + pollAttemptsDone;
+                    end(true, status);
+                } else {
+                    status = "Expected to not find " + matchable.getDescription()
+                             + ", but found it";
+                }
+            }
+
+            //the polls after a change do not use the polling attempts
+            if (!isPollingAttempt) {
+                return;
+            }
+
+            //decrement the counter
+            pollAttemptsLeft--;
+
+            //check if we should end
+            if (pollAttemptsLeft == 0) {
+                log.info(name + " no more attempts left - done");
+                end(false, status);
+            }
+        } catch (Exception e) {
+            log.error("Exception during monitor execution", e);
+            end(true, "Exception during monitor execution: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Makes one polling attempt and schedules the next one
+     */
+    private class PollingTask implements Runnable {
 
         @Override
         public void run() {
 
             synchronized (Monitor.this) {
-                try {
-                    //first check if the monitor is active - it might have already been canceled
-                    //in this case we don't want to execute anything else or we'll get exceptions
-                    //because the matchable has already been closed
-                    if (!isActive) {
-                        return;
-                    }
+                //first check if the monitor is active - it might have already been canceled
+                //in this case we don't want to execute anything else or we'll get exceptions
+                //because the matchable has already been closed
+                if (!isActive) {
+                    return;
+                }
 
-                    ++pollAttemptsDone;
-                    log.info(name + " polling for " + matchable.getDescription() + ", attempts left: "
-                             + pollAttemptsLeft);
+                poll(true);
 
-                    List<MetaData> metaDataReceived;
-                    if (endOnFirstMatch && endOnFirstFailure) {
-                        metaDataReceived = matchable.getNewMetaData();
-                    } else {
-                        metaDataReceived = matchable.getAllMetaData();
-                    }
-                    log.info(name + " " + matchable.getMetaDataCounts());
-
-                    String status = null;
-                    if (expectedResult == true) {
-                        // expecting to match data
-
-                        // evaluate using the proper matchable executor
-                        List<MetaData> meta = executor.evaluate(metaDataReceived);
-                        if (meta != null && !meta.isEmpty()) {
-                            matchedMetaData = meta;
-                            if (endOnFirstMatch) {
-                                end(false, "");
-                                return;
-                            }
-                        } else if (endOnFirstFailure) {
-                            status = "Expected to find " + matchable.getDescription()
-                                     + " on all attempts, but did not find it on attempt number " + pollAttemptsDone;
-                            end(true, status);
-                        } else {
-                            status = "Expected to find " + matchable.getDescription()
-                                     + ", but did not find it";
-                        }
-                    } else {
-                        // expecting to not match data
-
-                        matchedMetaData = executor.evaluate(metaDataReceived);
-                        if (matchedMetaData == null || matchedMetaData.isEmpty()) {
-                            //nothing was matched
-                            matchedMetaData = new ArrayList<MetaData>();
-
-                            //if the expected monitor result is false
-                            //this means that we don't expect any meta data to match
-                            //so if endOnFirstMatch is true, we should end immediately
-                            if (endOnFirstMatch) {
-                                end(false, "");
-                                return;
-                            }
-                        } else if (endOnFirstFailure) {
-                            status = "Expected to not find " + matchable.getDescription()
-                                     + " on all attempts, but found it on attempt number " + pollAttemptsDone;
-                            end(true, status);
-                        } else {
-                            status = "Expected to not find " + matchable.getDescription()
-                                     + ", but found it";
-                        }
-                    }
+                if (isActive) {
+                    scheduleNextPoll(currentPollInterval);
+                    currentPollInterval = pollingParameters.getNextPollInterval(currentPollInterval);
+                }
+            }
+        }
+    }
+
+    /**
+     * Polls once more after the matchable reported a change
+     */
+    private class ChangePollingTask implements Runnable {
+
+        @Override
+        public void run() {
 
-                    //decrement the counter
-                    pollAttemptsLeft--;
+            synchronized (Monitor.this) {
+                // the changes reported from now on need another poll
+                isChangePollPending.set(false);
 
-                    //check if we should end
-                    if (pollAttemptsLeft == 0) {
-                        log.info(name + " no more attempts left - done");
-                        end(false, status);
+                if (!isActive) {
+                    return;
+                }
+
+                poll(false);
+
+                if (isActive) {
+                    // the data is changing, so do not wait longer than the initial poll interval
+                    long pollInterval = pollingParameters.getPollInterval();
+                    if (currentPollInterval > pollInterval) {
+                        currentPollInterval = pollInterval;
+                        if (nextPoll.getDelay(TimeUnit.MILLISECONDS) > pollInterval && nextPoll.cancel(false)) {
+                            scheduleNextPoll(pollInterval);
+                            currentPollInterval = pollingParameters.getNextPollInterval(pollInterval);
+                        }
                     }
-                } catch (Exception e) {
-                    log.error("Exception during monitor execution", e);
-                    end(true, "Exception during monitor execution: " + e.getMessage());
                 }
             }
         }
     }
+
+    /**
+     * Receives the changes reported by the matchable.
+     * All changes reported while waiting to poll are handled by a single poll.
+     */
+    private class MonitorChangeListener implements MatchableChangeListener {
+
+        @Override
+        public void matchableChanged() {
+
+            if (isChangePollPending.compareAndSet(false, true)) {
+                scheduler.execute(new ChangePollingTask());
+            }
+        }
+    }
 }
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.rbv;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Provides the threads which run the polling attempts of all monitors.
+ * <br>The number of threads does not depend on the number of running monitors,
+ * it is set by {@link RbvConfigurator#setMonitorThreads(int)}
+ */
+class MonitorScheduler {
+
+    private static ScheduledThreadPoolExecutor executor;
+
+    private MonitorScheduler() {
+
+    }
+
+    static synchronized ScheduledExecutorService getExecutor() {
+
+        int threads = RbvConfigurator.getInstance().getMonitorThreads();
+        if (executor == null) {
+            executor = new ScheduledThreadPoolExecutor(threads, new MonitorThreadFactory());
+            // the monitors cancel their next attempt when done, do not keep it in the queue until it is due
+            executor.setRemoveOnCancelPolicy(true);
+        } else if (executor.getCorePoolSize() != threads) {
+            executor.setCorePoolSize(threads);
+        }
+        return executor;
+    }
+
+    private static class MonitorThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadsCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread( Runnable runnable ) {
+
+            Thread thread = new Thread(runnable, "RBV_monitor_" + threadsCount.incrementAndGet());
+            // the threads are shared, they must not keep the JVM alive when no monitor is running
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -17,9 +17,13 @@
 
 public class PollingParameters {
 
-    private long initialDelay;
-    private long pollInterval;
-    private int  pollAttempts;
+    private long   initialDelay;
+    private long   pollInterval;
+    private int    pollAttempts;
+
+    // by default the interval between the attempts does not change
+    private double backoffFactor   = 1;
+    private long   maxPollInterval = -1;
 
     public PollingParameters( long initialDelay,
                               long pollInterval,
@@ -62,4 +66,65 @@ public void setPollInterval(
 
         this.pollInterval = pollInterval;
     }
+
+    /**
+     * @return the factor by which the poll interval grows after each attempt
+     */
+    public double getBackoffFactor() {
+
+        return backoffFactor;
+    }
+
+    /**
+     * Set the factor by which the poll interval grows after each attempt.
+     * <br>When it is 1, all attempts are made at the same interval.
+     * When it is bigger, the attempts become more rare the longer nothing matches.
+     * The interval starts again from the initial poll interval when the polled data reports a change.
+     * 
+     * @param backoffFactor the factor, it must not be less than 1
+     */
+    public void setBackoffFactor(
+                                  double backoffFactor ) {
+
+        if (backoffFactor < 1) {
+            throw new IllegalArgumentException("The backoff factor cannot be less than 1, but it is "
+                                               + backoffFactor);
+        }
+        this.backoffFactor = backoffFactor;
+    }
+
+    /**
+     * @return the maximum interval between two attempts or a negative value if not limited
+     */
+    public long getMaxPollInterval() {
+
+        return maxPollInterval;
+    }
+
+    /**
+     * Set the maximum interval the poll interval can grow to when the backoff factor is bigger than 1
+     * 
+     * @param maxPollInterval the maximum interval in milliseconds or a negative value for no limit
+     */
+    public void setMaxPollInterval(
+                                    long maxPollInterval ) {
+
+        this.maxPollInterval = maxPollInterval;
+    }
+
+    /**
+     * Get the interval to wait after the given one
+     * 
+     * @param currentPollInterval the interval before the last attempt
+     * @return the interval before the next attempt
+     */
+    long getNextPollInterval(
+                              long currentPollInterval ) {
+
+        long nextPollInterval = (long) Math.ceil(currentPollInterval * backoffFactor);
+        if (maxPollInterval >= 0 && nextPollInterval > maxPollInterval) {
+            nextPollInterval = Math.max(maxPollInterval, pollInterval);
+        }
+        return nextPollInterval;
+    }
 }
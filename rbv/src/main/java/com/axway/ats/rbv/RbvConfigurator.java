@@ -17,6 +17,7 @@
 
 import com.axway.ats.common.PublicAtsApi;
 import com.axway.ats.config.AbstractConfigurator;
+import com.axway.ats.config.exceptions.ConfigurationException;
 
 /**
  * Class used to configure the behavior of the RBV engine.
@@ -29,13 +30,15 @@
 @PublicAtsApi
 public class RbvConfigurator extends AbstractConfigurator {
 
-    private static final String    RBV_CONFIG_FILE           = "/ats.rbv.properties";
+    private static final String    RBV_CONFIG_FILE                    = "/ats.rbv.properties";
 
     //the keys of the configuration values in the file
-    private static final String    POLLING_INITIAL_DELAY_KEY = "rbv.polling.initialdelay";
-    private static final String    POLLING_ATTEMPTS_KEY      = "rbv.polling.attempts";
-    private static final String    POLLING_INTERVAL_KEY      = "rbv.polling.interval";
-    private static final String    POLLING_TIMEOUT_KEY       = "rbv.polling.timeout";
+    private static final String    POLLING_INITIAL_DELAY_KEY          = "rbv.polling.initialdelay";
+    private static final String    POLLING_ATTEMPTS_KEY               = "rbv.polling.attempts";
+    private static final String    POLLING_INTERVAL_KEY               = "rbv.polling.interval";
+    private static final String    POLLING_TIMEOUT_KEY                = "rbv.polling.timeout";
+    private static final String    FILESYSTEM_INCREMENTAL_POLLING_KEY = "rbv.filesystem.polling.incremental";
+    private static final String    MONITOR_THREADS_KEY                = "rbv.monitor.threads";
 
     /**
      * The singleton instance for this configurator
@@ -170,6 +173,72 @@ public long setPollingTimeout(
         return currentPollingTimeout;
     }
 
+    /**
+     * Whether the local file system folders are polled incrementally.
+     * 
+     * @return the incremental polling state
+     */
+    @PublicAtsApi
+    public boolean getIncrementalFileSystemPolling() {
+
+        return getBooleanProperty(FILESYSTEM_INCREMENTAL_POLLING_KEY);
+    }
+
+    /**
+     * Set whether the local file system folders are polled incrementally.
+     * <br>When enabled, the file attributes are kept between the polling attempts and only the new or changed
+     * files are checked again. The changes are reported by the operating system when possible, otherwise
+     * the folders are scanned for changes.
+     * <br>This does not apply to folders on a remote ATS agent.
+     * 
+     * @param incrementalPolling whether to poll incrementally
+     * @return the previous value
+     */
+    @PublicAtsApi
+    public boolean setIncrementalFileSystemPolling(
+                                                    boolean incrementalPolling ) {
+
+        boolean currentIncrementalPolling = getIncrementalFileSystemPolling();
+
+        setTempProperty(FILESYSTEM_INCREMENTAL_POLLING_KEY, Boolean.toString(incrementalPolling));
+        return currentIncrementalPolling;
+    }
+
+    /**
+     * Get the number of threads which run the polling attempts of all monitors
+     * 
+     * @return the number of threads
+     */
+    @PublicAtsApi
+    public int getMonitorThreads() {
+
+        return getIntegerProperty(MONITOR_THREADS_KEY);
+    }
+
+    /**
+     * Set the number of threads which run the polling attempts of all monitors.
+     * <br>The threads are shared by the monitors, so a lot of monitors can run at the same time
+     * without creating a thread for each of them. Increase this number if the monitors run
+     * their polling attempts late because the polling of the other monitors takes long time.
+     * 
+     * @param monitorThreads the number of threads
+     * @return the previous value
+     */
+    @PublicAtsApi
+    public int setMonitorThreads(
+                                  int monitorThreads ) {
+
+        if (monitorThreads <= 0) {
+            throw new ConfigurationException("The number of monitor threads must be a positive number, but it is "
+                                             + monitorThreads);
+        }
+
+        int currentMonitorThreads = getMonitorThreads();
+
+        setTempProperty(MONITOR_THREADS_KEY, Integer.toString(monitorThreads));
+        return currentMonitorThreads;
+    }
+
     @Override
     protected void reloadData() {
 
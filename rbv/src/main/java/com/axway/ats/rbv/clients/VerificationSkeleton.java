@@ -1,5 +1,5 @@
 /*
- * Copyright 2017 Axway Software
+ * Copyright 2017-2021 Axway Software
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -38,10 +38,12 @@ public abstract class VerificationSkeleton {
     protected Executor         executor;
     protected Matchable        folder;
 
-    protected long             pollingInitialDelay = -1;
-    protected long             pollingInterval     = -1;
-    protected int              pollingAttempts     = -1;
-    protected long             pollingTimeout      = -1;
+    protected long             pollingInitialDelay  = -1;
+    protected long             pollingInterval      = -1;
+    protected int              pollingAttempts      = -1;
+    protected long             pollingTimeout       = -1;
+    protected double           pollingBackoffFactor = 1;
+    protected long             maxPollingInterval   = -1;
 
     protected VerificationSkeleton() {
 
@@ -124,9 +126,12 @@ protected List<MetaData> verify(
 
             applyConfigurationSettings();
 
-            Monitor monitor = new Monitor(getMonitorName(), this.folder, this.executor,
-                                          new PollingParameters(pollingInitialDelay, pollingInterval,
-                                                                pollingAttempts),
+            PollingParameters pollingParameters = new PollingParameters(pollingInitialDelay, pollingInterval,
+                                                                        pollingAttempts);
+            pollingParameters.setBackoffFactor(pollingBackoffFactor);
+            pollingParameters.setMaxPollInterval(maxPollingInterval);
+
+            Monitor monitor = new Monitor(getMonitorName(), this.folder, this.executor, pollingParameters,
                                           expectedResult, endOnFirstMatch, endOnFirstFailure);
 
             ArrayList<Monitor> monitors = new ArrayList<Monitor>();
@@ -212,6 +217,25 @@ public void setPollingTimeout( long pollingTimeout ) {
         this.pollingTimeout = pollingTimeout;
     }
 
+    /**
+     * Make the interval between the polling attempts grow while nothing matches, for the current instance only.
+     * <br>After each attempt the interval is multiplied by the backoff factor, until it reaches the maximum interval.
+     * Keep in mind the verification fails when the polling timeout is exceeded.
+     *
+     * @param pollingBackoffFactor the factor, 1 means all attempts are made at the same interval
+     * @param maxPollingInterval the maximum interval in milliseconds, negative value means no limit
+     */
+    @PublicAtsApi
+    public void setPollingBackoff( double pollingBackoffFactor, long maxPollingInterval ) {
+
+        if (pollingBackoffFactor < 1) {
+            throw new IllegalArgumentException("The polling backoff factor cannot be less than 1, but it is "
+                                               + pollingBackoffFactor);
+        }
+        this.pollingBackoffFactor = pollingBackoffFactor;
+        this.maxPollingInterval = maxPollingInterval;
+    }
+
     /**
      * Get the name of the monitor
      *
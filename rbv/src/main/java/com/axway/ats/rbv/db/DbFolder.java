@@ -1,5 +1,5 @@
 /*
- * Copyright 2017 Axway Software
+ * Copyright 2017-2021 Axway Software
  * 
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -27,7 +27,9 @@
 import com.axway.ats.common.dbaccess.DbQuery;
 import com.axway.ats.core.dbaccess.DbProvider;
 import com.axway.ats.core.dbaccess.DbRecordValue;
+import com.axway.ats.core.dbaccess.DbRecordValuesIterator;
 import com.axway.ats.core.dbaccess.DbRecordValuesList;
+import com.axway.ats.core.dbaccess.DbReturnModes;
 import com.axway.ats.core.dbaccess.exceptions.DbException;
 import com.axway.ats.rbv.MetaData;
 import com.axway.ats.rbv.model.MatchableAlreadyOpenException;
@@ -41,8 +43,12 @@ public class DbFolder implements Matchable {
     private static Logger             log = LogManager.getLogger(DbFolder.class);
 
     private DbQuery                   searchQuery;
+    private DbIncrementalSearchTerm   incrementalSearchTerm;
     private DbProvider                dbProvider;
 
+    // the greatest key value read so far when searching incrementally
+    private Object                    lastKeyValue;
+
     private boolean                   isOpen;
     private boolean                   didPollingOccured;
     private HashMap<String, MetaData> allMetaDataMap;
@@ -54,6 +60,9 @@ public class DbFolder implements Matchable {
         this.isOpen = false;
 
         this.searchQuery = searchTerm.getDbQuery();
+        if (searchTerm instanceof DbIncrementalSearchTerm) {
+            this.incrementalSearchTerm = (DbIncrementalSearchTerm) searchTerm;
+        }
         this.dbProvider = dbProvider;
 
         this.allMetaDataMap = new HashMap<String, MetaData>();
@@ -71,6 +80,9 @@ public void open() throws RbvStorageException {
         newMetaDataMap = new HashMap<String, MetaData>();
         isOpen = true;
         didPollingOccured = false;
+        if (incrementalSearchTerm != null) {
+            lastKeyValue = incrementalSearchTerm.getStartKeyValue();
+        }
 
         log.debug("Opened " + getDescription());
     }
@@ -93,7 +105,10 @@ public List<MetaData> getAllMetaData() throws RbvException {
             throw new MatchableNotOpenException("DB folder is not open");
         }
 
-        allMetaDataMap.clear();
+        //when searching incrementally, the rows read by the previous polls are still needed
+        if (incrementalSearchTerm == null) {
+            allMetaDataMap.clear();
+        }
 
         List<MetaData> metaDataValues = new ArrayList<MetaData>();
         refresh();
@@ -118,6 +133,11 @@ public List<MetaData> getNewMetaData() throws RbvException {
 
     private void refresh() throws RbvException {
 
+        if (incrementalSearchTerm != null) {
+            refreshIncrementally();
+            return;
+        }
+
         newMetaDataMap = new HashMap<String, MetaData>();
 
         //store the current meta data map and clear the map holding all meta data
@@ -128,49 +148,103 @@ private void refresh() throws RbvException {
 
         log.debug("Run DB query '" + this.searchQuery.getQuery() + "'");
 
-        DbRecordValuesList[] queryResults;
-        try {
-            queryResults = dbProvider.select(this.searchQuery);
+        // iterate the rows instead of loading all of them, only the meta data is kept in memory
+        try (DbRecordValuesIterator queryResults = dbProvider.selectIterator(this.searchQuery,
+                                                                             DbReturnModes.OBJECT)) {
+            while (queryResults.hasNext()) {
+                DbMetaData currentData = new DbMetaData();
+                String metaDataSum = readMetaData(queryResults.next(), currentData);
+
+                if (!oldMetaDataMap.containsKey(metaDataSum)) {
+                    newMetaDataMap.put(metaDataSum, currentData);
+                }
+
+                //always put the record in the map holding all meta data
+                allMetaDataMap.put(metaDataSum, currentData);
+            }
         } catch (DbException dbe) {
             throw new RbvException(dbe);
         }
 
-        if (queryResults != null) {
-            for (DbRecordValuesList queryResult : queryResults) {
-                DbMetaData currentData = new DbMetaData();
-                StringBuffer metaDataHash = new StringBuffer();
+        didPollingOccured = true;
+    }
+
+    /**
+     * Read only the records after the last read key value, they are all new
+     */
+    private void refreshIncrementally() throws RbvException {
+
+        newMetaDataMap = new HashMap<String, MetaData>();
 
-                for (DbRecordValue recordValue : queryResult) {
-                    DbMetaDataKey key = new DbMetaDataKey(recordValue.getDbColumn());
-                    Object value = recordValue.getValue();
+        DbQuery query = incrementalSearchTerm.getDbQuery(lastKeyValue);
+        log.debug("Run DB query '" + query.getQuery() + "' with last key value '" + lastKeyValue + "'");
 
-                    currentData.putProperty(key.toString(), value);
+        try (DbRecordValuesIterator queryResults = dbProvider.selectIterator(query, DbReturnModes.OBJECT)) {
+            while (queryResults.hasNext()) {
+                DbRecordValuesList queryResult = queryResults.next();
 
-                    //calculate the hash
-                    metaDataHash.append(key.toString());
-                    metaDataHash.append(recordValue.getValueAsString());
+                DbMetaData currentData = new DbMetaData();
+                String metaDataSum = readMetaData(queryResult, currentData);
+                newMetaDataMap.put(metaDataSum, currentData);
+                allMetaDataMap.put(metaDataSum, currentData);
+
+                //the records come ordered by the key
+                Object keyValue = getKeyValue(queryResult);
+                if (keyValue != null) {
+                    lastKeyValue = keyValue;
                 }
+            }
+        } catch (DbException dbe) {
+            throw new RbvException(dbe);
+        }
 
-                try {
-                    //compute MD5 so we don't keep the whole StringBuffer in memory
-                    MessageDigest metaDataHashDigest = MessageDigest.getInstance("MD5");
-                    String metaDataSum = new String(metaDataHashDigest.digest(metaDataHash.toString()
-                                                                                          .getBytes()));
+        didPollingOccured = true;
+    }
 
-                    if (!oldMetaDataMap.containsKey(metaDataSum)) {
-                        newMetaDataMap.put(metaDataSum, currentData);
-                    }
+    /**
+     * Put the record values into the meta data
+     * 
+     * @param record the DB record
+     * @param metaData the meta data to fill
+     * @return hash of the record values
+     */
+    private String readMetaData(
+                                 DbRecordValuesList record,
+                                 DbMetaData metaData ) {
 
-                    //always put the record in the map holding all meta data
-                    allMetaDataMap.put(metaDataSum, currentData);
+        StringBuffer metaDataHash = new StringBuffer();
 
-                } catch (NoSuchAlgorithmException e) {
-                    throw new RuntimeException(e);
-                }
-            }
+        for (DbRecordValue recordValue : record) {
+            DbMetaDataKey key = new DbMetaDataKey(recordValue.getDbColumn());
+            Object value = recordValue.getValue();
+
+            metaData.putProperty(key.toString(), value);
 
-            didPollingOccured = true;
+            //calculate the hash
+            metaDataHash.append(key.toString());
+            metaDataHash.append(recordValue.getValueAsString());
+        }
+
+        try {
+            //compute MD5 so we don't keep the whole StringBuffer in memory
+            MessageDigest metaDataHashDigest = MessageDigest.getInstance("MD5");
+            return new String(metaDataHashDigest.digest(metaDataHash.toString().getBytes()));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private Object getKeyValue(
+                                DbRecordValuesList record ) throws RbvException {
+
+        String keyColumn = incrementalSearchTerm.getKeyColumn();
+        for (DbRecordValue recordValue : record) {
+            if (keyColumn.equalsIgnoreCase(recordValue.getDbColumn().getColumnName())) {
+                return recordValue.getValue();
+            }
         }
+        throw new RbvException("Key column '" + keyColumn + "' is not found in the result of "
+                               + getDescription());
     }
 
     public String getMetaDataCounts() throws RbvStorageException {
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.rbv.db;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.axway.ats.common.PublicAtsApi;
+import com.axway.ats.common.dbaccess.DbQuery;
+
+/**
+ * Search term for tables which only get new rows, like audit or event tables.
+ * <br>The rows are read in the order of a key column whose values only grow, for example
+ * an auto-incremented ID or an insertion timestamp. Each poll reads only the rows after the
+ * greatest key value read by the previous poll, instead of reading the whole table again.
+ * <br><b>Note:</b> Changes in the already read rows are not noticed. Rows with the same key value
+ * as the last read one are missed if they are committed later, so prefer an ID to a timestamp column.
+ */
+@PublicAtsApi
+public class DbIncrementalSearchTerm extends DbSearchTerm {
+
+    private String       table;
+    private String       whereCondition;
+    private List<Object> whereArguments;
+    private String       keyColumn;
+    private Object       startKeyValue;
+
+    /**
+     * Search all rows of a table
+     *
+     * @param table the table to search in
+     * @param keyColumn the column whose values only grow
+     */
+    @PublicAtsApi
+    public DbIncrementalSearchTerm( String table,
+                                    String keyColumn ) {
+
+        this(table, null, null, keyColumn, null);
+    }
+
+    /**
+     * Search the rows of a table which match a condition
+     *
+     * @param table the table to search in
+     * @param whereCondition the condition the rows must match, null to match all rows
+     * @param whereArguments the values of the '?' parameters in the condition, may be null
+     * @param keyColumn the column whose values only grow
+     * @param startKeyValue only the rows with bigger key value are read, null to read all rows.
+     * For example the greatest key value before the tested operation started.
+     */
+    @PublicAtsApi
+    public DbIncrementalSearchTerm( String table,
+                                    String whereCondition,
+                                    List<Object> whereArguments,
+                                    String keyColumn,
+                                    Object startKeyValue ) {
+
+        super(new DbQuery(buildQuery(table, whereCondition, keyColumn, startKeyValue != null),
+                          buildArguments(whereArguments, startKeyValue)));
+
+        this.table = table;
+        this.whereCondition = whereCondition;
+        this.whereArguments = whereArguments;
+        this.keyColumn = keyColumn;
+        this.startKeyValue = startKeyValue;
+    }
+
+    public String getKeyColumn() {
+
+        return keyColumn;
+    }
+
+    public Object getStartKeyValue() {
+
+        return startKeyValue;
+    }
+
+    /**
+     * Get the query which reads the rows after the given key value
+     *
+     * @param lastKeyValue the greatest read key value, null to read all rows
+     * @return the query
+     */
+    public DbQuery getDbQuery(
+                               Object lastKeyValue ) {
+
+        return new DbQuery(buildQuery(table, whereCondition, keyColumn, lastKeyValue != null),
+                           buildArguments(whereArguments, lastKeyValue));
+    }
+
+    private static String buildQuery(
+                                      String table,
+                                      String whereCondition,
+                                      String keyColumn,
+                                      boolean hasLastKeyValue ) {
+
+        StringBuilder query = new StringBuilder("SELECT * FROM ").append(table);
+        if (whereCondition != null) {
+            query.append(" WHERE (").append(whereCondition).append(")");
+        }
+        if (hasLastKeyValue) {
+            query.append(whereCondition != null
+                                                ? " AND "
+                                                : " WHERE ");
+            query.append(keyColumn).append(" > ?");
+        }
+        return query.append(" ORDER BY ").append(keyColumn).toString();
+    }
+
+    private static List<Object> buildArguments(
+                                                List<Object> whereArguments,
+                                                Object lastKeyValue ) {
+
+        List<Object> arguments = new ArrayList<Object>();
+        if (whereArguments != null) {
+            arguments.addAll(whereArguments);
+        }
+        if (lastKeyValue != null) {
+            arguments.add(lastKeyValue);
+        }
+        return arguments;
+    }
+}
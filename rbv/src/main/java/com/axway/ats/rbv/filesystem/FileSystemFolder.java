@@ -1,5 +1,5 @@
 /*
- * Copyright 2017 Axway Software
+ * Copyright 2017-2021 Axway Software
  * 
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,9 +16,12 @@
 package com.axway.ats.rbv.filesystem;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -31,6 +34,7 @@
 import com.axway.ats.core.utils.IoUtils;
 import com.axway.ats.core.utils.StringUtils;
 import com.axway.ats.rbv.MetaData;
+import com.axway.ats.rbv.RbvConfigurator;
 import com.axway.ats.rbv.model.MatchableAlreadyOpenException;
 import com.axway.ats.rbv.model.MatchableNotOpenException;
 import com.axway.ats.rbv.model.RbvException;
@@ -55,6 +59,10 @@ public class FileSystemFolder implements Matchable {
     private HashMap<String, MetaData> allMetaData;
     private List<MetaData>            newMetaData;
 
+    // used when polling a local folder incrementally
+    private LocalFolderScanner        localFolderScanner;
+    private HashMap<String, String>   hashKeysByPath;
+
     FileSystemFolder( String atsAgent, String path, String fileName, boolean isRegExp,
                       boolean includeSubDirs ) {
 
@@ -68,6 +76,7 @@ public class FileSystemFolder implements Matchable {
         this.systemOperations = new SystemOperations(this.atsAgent);
         this.allMetaData = new HashMap<String, MetaData>();
         this.newMetaData = new ArrayList<MetaData>();
+        this.hashKeysByPath = new HashMap<String, String>();
     }
 
     public void open() throws RbvStorageException {
@@ -87,6 +96,16 @@ public void open() throws RbvStorageException {
             throw new RbvStorageException("Could not open " + getDescription(), e);
         }
 
+        if (atsAgent.equals(FileSystemStorage.LOCAL_AGENT)
+            && RbvConfigurator.getInstance().getIncrementalFileSystemPolling()) {
+            if (fileName == null) {
+                localFolderScanner = new LocalFolderScanner(path, ".*", true, includeSubDirs, true);
+            } else {
+                localFolderScanner = new LocalFolderScanner(path, fileName, isRegExp, includeSubDirs, true);
+            }
+            hashKeysByPath.clear();
+        }
+
         isOpen = true;
     }
 
@@ -97,6 +116,11 @@ public void close() throws RbvStorageException {
             throw new MatchableNotOpenException("File system folder is not open");
         }
 
+        if (localFolderScanner != null) {
+            localFolderScanner.close();
+            localFolderScanner = null;
+        }
+
         isOpen = false;
     }
 
@@ -119,6 +143,10 @@ public List<MetaData> getAllMetaData() throws RbvException {
 
         newMetaData.clear();
 
+        if (localFolderScanner != null) {
+            return getAllMetaDataIncrementally();
+        }
+
         if (fileName == null) {
             fileName = ".*";
             isRegExp = true;
@@ -146,35 +174,84 @@ public List<MetaData> getAllMetaData() throws RbvException {
         if (fileList != null) {
 
             for (String fileName : fileList) {
+                addMetaData(fileName.trim(), tempMetaData);
+            }
+        }
+
+        allMetaData.clear();
+        allMetaData.putAll(tempMetaData);
+
+        return new ArrayList<MetaData>(allMetaData.values());
+    }
+
+    /**
+     * Get all meta data, but build it only for the files which are new or changed since the previous poll
+     */
+    private List<MetaData> getAllMetaDataIncrementally() throws RbvException {
 
-                try {
-                    FilePackage file = new FilePackage(atsAgent, fileName.trim(), osType);
-                    MetaData metaData = new FileSystemMetaData(file);
-
-                    // The way files are compared is by combining their name+path,
-                    // modification time, user and group ID in a hash string
-                    String hashKey = file.getUniqueIdentifier();
-
-                    if (!allMetaData.containsKey(hashKey)) {
-                        newMetaData.add(metaData);
-                    }
-
-                    tempMetaData.put(hashKey, metaData);
-                } catch (PackageException e) {
-                    // the creation of the package somehow failed - a simple explanation would be that
-                    // the filed was removed during the execution of this method or something similar;
-                    log.warn("Unable to build up metadata for " + fileName, e);
-                    // either way we need not throw an exception but only continue iterating
-                }
+        Set<String> changedFiles;
+        try {
+            changedFiles = localFolderScanner.scan();
+        } catch (IOException e) {
+            throw new RbvException("Unable to list the contents of " + path, e);
+        }
+
+        HashMap<String, MetaData> tempMetaData = new HashMap<String, MetaData>();
+        HashMap<String, String> tempHashKeys = new HashMap<String, String>();
+
+        for (String filePath : localFolderScanner.getFiles()) {
+            String hashKey = hashKeysByPath.get(filePath);
+            if (hashKey != null && allMetaData.containsKey(hashKey) && !changedFiles.contains(filePath)) {
+                // the file is not changed, so its meta data is the same
+                tempMetaData.put(hashKey, allMetaData.get(hashKey));
+            } else {
+                hashKey = addMetaData(filePath, tempMetaData);
+            }
+
+            if (hashKey != null) {
+                tempHashKeys.put(filePath, hashKey);
             }
         }
 
         allMetaData.clear();
         allMetaData.putAll(tempMetaData);
+        hashKeysByPath = tempHashKeys;
 
         return new ArrayList<MetaData>(allMetaData.values());
     }
 
+    /**
+     * Build the meta data for some file and add it to the provided meta data
+     *
+     * @param filePath the file
+     * @param metaDataMap the meta data to add to
+     * @return the file hash key or null if the meta data could not be built
+     */
+    private String addMetaData( String filePath, Map<String, MetaData> metaDataMap ) throws RbvException {
+
+        try {
+            FilePackage file = new FilePackage(atsAgent, filePath, osType);
+            MetaData metaData = new FileSystemMetaData(file);
+
+            // The way files are compared is by combining their name+path,
+            // modification time, user and group ID in a hash string
+            String hashKey = file.getUniqueIdentifier();
+
+            if (!allMetaData.containsKey(hashKey)) {
+                newMetaData.add(metaData);
+            }
+
+            metaDataMap.put(hashKey, metaData);
+            return hashKey;
+        } catch (PackageException e) {
+            // the creation of the package somehow failed - a simple explanation would be that
+            // the filed was removed during the execution of this method or something similar;
+            log.warn("Unable to build up metadata for " + filePath, e);
+            // either way we need not throw an exception but only continue iterating
+            return null;
+        }
+    }
+
     public List<MetaData> getNewMetaData() throws RbvException {
 
         //first check if the folder is already open
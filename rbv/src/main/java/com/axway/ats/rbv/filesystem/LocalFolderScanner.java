@@ -0,0 +1,413 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.rbv.filesystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.axway.ats.core.utils.IoUtils;
+
+/**
+ * Finds the files in a local folder which are new or changed since the previous scan.
+ * <br>The file attributes are kept between the scans, so only the entries which might have changed are checked:
+ * <ul>
+ * <li>when the platform provides native file system events, only the entries reported by the
+ * {@link WatchService} are checked</li>
+ * <li>otherwise the folders whose modification time did not change are not listed again, just the
+ * attributes of their entries are read and compared to the previous ones</li>
+ * </ul>
+ * The matching files are the same as the ones found by
+ * {@link com.axway.ats.action.filesystem.FileSystemOperations#findFiles(String, String, boolean, boolean, boolean)}
+ * when accepting directories.
+ */
+class LocalFolderScanner {
+
+    private static final Logger             log                   = LogManager.getLogger(LocalFolderScanner.class);
+
+    // this implementation just lists the folders every few seconds, so it is slower than a scan
+    private static final String             POLLING_WATCH_SERVICE = "sun.nio.fs.PollingWatchService";
+
+    // a folder modified so recently might get more entries with the same modification time
+    private static final long               MTIME_PRECISION       = 2000;
+
+    private final File                      rootDir;
+    private final Pattern                   fileNamePattern;
+    private final String                    fileName;
+    private final boolean                   includeSubDirs;
+    private final boolean                   readUnixAttributes;
+
+    private WatchService                    watchService;
+    private final Map<WatchKey, File>       watchedDirs           = new HashMap<>();
+
+    private final Map<File, DirectoryState> directories           = new HashMap<>();
+    private final Map<String, Integer>      files                 = new LinkedHashMap<>();
+    private boolean                         isInitialized;
+
+    /**
+     * @param path the folder to scan
+     * @param fileName the name of the searched files
+     * @param isRegExp whether the file name is a regular expression
+     * @param includeSubDirs whether to scan the sub folders
+     * @param useWatchService whether to use the file system events when available
+     */
+    LocalFolderScanner( String path, String fileName, boolean isRegExp, boolean includeSubDirs,
+                        boolean useWatchService ) {
+
+        this.rootDir = new File(path);
+        this.fileNamePattern = isRegExp
+                                        ? Pattern.compile(fileName)
+                                        : null;
+        this.fileName = fileName;
+        this.includeSubDirs = includeSubDirs;
+        this.readUnixAttributes = FileSystems.getDefault().supportedFileAttributeViews().contains("unix");
+
+        if (useWatchService) {
+            try {
+                WatchService newWatchService = FileSystems.getDefault().newWatchService();
+                if (POLLING_WATCH_SERVICE.equals(newWatchService.getClass().getName())) {
+                    newWatchService.close();
+                    log.debug("No native file system events on this platform, will scan " + path);
+                } else {
+                    this.watchService = newWatchService;
+                }
+            } catch (IOException | UnsupportedOperationException e) {
+                log.debug("Unable to watch for file system events, will scan " + path, e);
+            }
+        }
+    }
+
+    /**
+     * Find the changes since the previous scan
+     *
+     * @return the paths of the files which are new or changed since the previous scan
+     * @throws IOException
+     */
+    Set<String> scan() throws IOException {
+
+        Set<String> changedFiles = new HashSet<>();
+
+        if (!isInitialized) {
+            if (!rootDir.isDirectory()) {
+                log.debug("Folder '" + rootDir + "' does not exist");
+                return changedFiles;
+            }
+            scanDirectory(rootDir, null, true, changedFiles);
+            isInitialized = true;
+        } else if (watchService != null) {
+            Map<File, Set<String>> changedEntries = pollEvents();
+            if (changedEntries == null) {
+                // some events are lost, so check everything
+                scanDirectory(rootDir, null, true, changedFiles);
+            } else {
+                for (Map.Entry<File, Set<String>> dirEntries : changedEntries.entrySet()) {
+                    if (directories.containsKey(dirEntries.getKey())) {
+                        scanDirectory(dirEntries.getKey(), dirEntries.getValue(), false, changedFiles);
+                    }
+                }
+            }
+        } else {
+            scanDirectory(rootDir, null, true, changedFiles);
+        }
+
+        if (!directories.containsKey(rootDir)) {
+            // the folder was removed, it will be scanned from scratch when available again
+            isInitialized = false;
+        }
+        return changedFiles;
+    }
+
+    /**
+     * @return the paths of all matching files found by the last scan
+     */
+    Set<String> getFiles() {
+
+        return Collections.unmodifiableSet(files.keySet());
+    }
+
+    /**
+     * Stop watching for file system events
+     */
+    void close() {
+
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                log.warn("Unable to stop watching folder '" + rootDir + "'", e);
+            }
+            watchService = null;
+        }
+    }
+
+    /**
+     * Get the entries reported by the file system events
+     *
+     * @return the changed entry names per folder. The entry names are null when the whole folder
+     * must be checked. The returned value is null if some events are lost.
+     */
+    private Map<File, Set<String>> pollEvents() {
+
+        Map<File, Set<String>> changedEntries = new LinkedHashMap<>();
+        boolean eventsLost = false;
+
+        WatchKey watchKey;
+        while ( (watchKey = watchService.poll()) != null) {
+            File dir = watchedDirs.get(watchKey);
+            Set<String> entryNames = changedEntries.containsKey(dir)
+                                                                     ? changedEntries.get(dir)
+                                                                     : new HashSet<String>();
+            for (WatchEvent<?> event : watchKey.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    eventsLost = true;
+                } else if (entryNames != null) {
+                    entryNames.add( ((Path) event.context()).toString());
+                }
+            }
+
+            if (!watchKey.reset()) {
+                // the folder is no longer accessible
+                watchedDirs.remove(watchKey);
+                entryNames = null;
+            }
+            if (dir != null) {
+                changedEntries.put(dir, entryNames);
+            }
+        }
+
+        if (eventsLost) {
+            return null;
+        }
+
+        // the modification time of a changed folder is changed too, but the event for that
+        // is not sent to the parent folder
+        for (File dir : new ArrayList<>(changedEntries.keySet())) {
+            File parentDir = dir.getParentFile();
+            if (!dir.equals(rootDir) && directories.containsKey(parentDir)) {
+                if (!changedEntries.containsKey(parentDir)) {
+                    changedEntries.put(parentDir, new HashSet<String>());
+                }
+                Set<String> entryNames = changedEntries.get(parentDir);
+                if (entryNames != null) {
+                    entryNames.add(dir.getName());
+                }
+            }
+        }
+        return changedEntries;
+    }
+
+    /**
+     * Check the entries of a folder
+     *
+     * @param dir the folder
+     * @param entryNames the entries to check or null to check all entries
+     * @param scanSubDirs whether to check the known sub folders too. New sub folders are always scanned.
+     * @param changedFiles collects the new or changed files
+     */
+    private void scanDirectory( File dir, Set<String> entryNames, boolean scanSubDirs,
+                                Set<String> changedFiles ) throws IOException {
+
+        DirectoryState dirState = directories.get(dir);
+        long lastModified = dir.lastModified();
+        if (!dir.isDirectory()) {
+            if (dirState != null) {
+                removeDirectory(dir);
+            }
+            return;
+        }
+
+        if (dirState == null) {
+            dirState = new DirectoryState();
+            directories.put(dir, dirState);
+            if (watchService != null) {
+                // start watching before listing the folder, so no change is missed
+                WatchKey watchKey = dir.toPath().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                                                          StandardWatchEventKinds.ENTRY_DELETE,
+                                                          StandardWatchEventKinds.ENTRY_MODIFY);
+                watchedDirs.put(watchKey, dir);
+            }
+        }
+
+        Iterable<String> namesToCheck;
+        if (entryNames != null) {
+            namesToCheck = entryNames;
+        } else if (dirState.lastModified == lastModified && dirState.lastModified != 0
+                   && System.currentTimeMillis() - lastModified > MTIME_PRECISION) {
+            // no entries are added or removed, but their attributes might be changed
+            namesToCheck = new ArrayList<>(dirState.entries.keySet());
+        } else {
+            String[] names = dir.list();
+            List<String> currentNames = names == null
+                                                      ? new ArrayList<String>()
+                                                      : Arrays.asList(names);
+            for (String removedName : new ArrayList<>(dirState.entries.keySet())) {
+                if (!currentNames.contains(removedName)) {
+                    removeEntry(dir, dirState, removedName);
+                }
+            }
+            namesToCheck = currentNames;
+        }
+        dirState.lastModified = lastModified;
+
+        for (String name : namesToCheck) {
+            File entryFile = new File(dir, name);
+            String signature = getSignature(entryFile);
+            if (signature == null) {
+                // the entry was removed
+                removeEntry(dir, dirState, name);
+                continue;
+            }
+
+            EntryState entry = dirState.entries.get(name);
+            if (entry == null) {
+                entry = new EntryState();
+                entry.isDirectory = entryFile.isDirectory();
+                if (isMatching(name)) {
+                    String entryPath = entryFile.getCanonicalPath();
+                    entry.path = entry.isDirectory
+                                                   ? IoUtils.normalizeDirPath(entryPath)
+                                                   : entryPath;
+                    addFile(entry.path);
+                    changedFiles.add(entry.path);
+                }
+                dirState.entries.put(name, entry);
+            } else if (entry.path != null && !signature.equals(entry.signature)) {
+                changedFiles.add(entry.path);
+            }
+            entry.signature = signature;
+
+            if (includeSubDirs && entry.isDirectory
+                && (scanSubDirs || !directories.containsKey(entryFile))) {
+                scanDirectory(entryFile, null, scanSubDirs, changedFiles);
+            }
+        }
+    }
+
+    private void removeEntry( File dir, DirectoryState dirState, String name ) {
+
+        EntryState entry = dirState.entries.remove(name);
+        if (entry != null) {
+            if (entry.path != null) {
+                removeFile(entry.path);
+            }
+            if (entry.isDirectory) {
+                removeDirectory(new File(dir, name));
+            }
+        }
+    }
+
+    private void removeDirectory( File dir ) {
+
+        DirectoryState dirState = directories.remove(dir);
+        if (dirState != null) {
+            for (String name : new ArrayList<>(dirState.entries.keySet())) {
+                removeEntry(dir, dirState, name);
+            }
+            for (Map.Entry<WatchKey, File> watchedDir : new ArrayList<>(watchedDirs.entrySet())) {
+                if (watchedDir.getValue().equals(dir)) {
+                    watchedDir.getKey().cancel();
+                    watchedDirs.remove(watchedDir.getKey());
+                }
+            }
+        }
+    }
+
+    // different entries might point to the same file through symbolic links
+    private void addFile( String path ) {
+
+        Integer count = files.get(path);
+        files.put(path, count == null
+                                      ? 1
+                                      : count + 1);
+    }
+
+    private void removeFile( String path ) {
+
+        Integer count = files.get(path);
+        if (count != null) {
+            if (count > 1) {
+                files.put(path, count - 1);
+            } else {
+                files.remove(path);
+            }
+        }
+    }
+
+    private boolean isMatching( String name ) {
+
+        return fileNamePattern != null
+                                       ? fileNamePattern.matcher(name).matches()
+                                       : fileName.equals(name);
+    }
+
+    /**
+     * Read the file attributes which make a file look changed
+     *
+     * @return the attributes as a String or null if the file does not exist
+     */
+    private String getSignature( File file ) {
+
+        try {
+            if (readUnixAttributes) {
+                // the numeric user and group IDs, without resolving their names
+                Map<String, Object> attributes = Files.readAttributes(file.toPath(),
+                                                                      "unix:size,lastModifiedTime,uid,gid");
+                return attributes.get("size") + "_" + attributes.get("lastModifiedTime") + "_"
+                       + attributes.get("uid") + "_" + attributes.get("gid");
+            } else {
+                BasicFileAttributes attributes = Files.readAttributes(file.toPath(),
+                                                                      BasicFileAttributes.class);
+                return attributes.size() + "_" + attributes.lastModifiedTime();
+            }
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static class DirectoryState {
+
+        private long                    lastModified;
+        private Map<String, EntryState> entries = new HashMap<>();
+    }
+
+    private static class EntryState {
+
+        // the path returned to the user, null if the entry does not match the searched file name
+        private String  path;
+        private boolean isDirectory;
+        private String  signature;
+    }
+}
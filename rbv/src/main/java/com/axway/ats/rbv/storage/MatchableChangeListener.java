@@ -0,0 +1,30 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.rbv.storage;
+
+/**
+ * Receives the notifications of an {@link ObservableMatchable}
+ * about changes in its data
+ */
+public interface MatchableChangeListener {
+
+    /**
+     * Called when the data of the matchable might have changed, so
+     * it is worth polling it before the next polling attempt is due.
+     * <br>This may be called from any thread and should return quickly.
+     */
+    public void matchableChanged();
+}
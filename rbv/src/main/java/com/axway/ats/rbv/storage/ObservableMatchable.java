@@ -0,0 +1,36 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.rbv.storage;
+
+/**
+ * A {@link Matchable} which is able to tell when its data changes,
+ * for example by a database notification, a file system watch event
+ * or an IMAP IDLE response.
+ * <br>The RBV monitors poll such matchables as soon as they report a change,
+ * instead of waiting for the next polling attempt.
+ */
+public interface ObservableMatchable extends Matchable {
+
+    /**
+     * Set the listener to be notified about changes in the data.
+     * It is set before the matchable is opened and
+     * it is removed (set to null) after the matchable is closed.
+     *
+     * @param changeListener the listener or null to remove the current one
+     */
+    public void setChangeListener(
+                                   MatchableChangeListener changeListener );
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.rbv;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.axway.ats.rbv.executors.Executor;
+import com.axway.ats.rbv.model.RbvException;
+import com.axway.ats.rbv.rules.Rule;
+import com.axway.ats.rbv.storage.MatchableChangeListener;
+import com.axway.ats.rbv.storage.ObservableMatchable;
+
+public class Test_Monitor extends BaseTest {
+
+    private static final long LONG_POLL_INTERVAL = 60000;
+
+    @Test
+    public void pollOnChange() throws Exception {
+
+        MockObservableMatchable matchable = new MockObservableMatchable();
+        PollingParameters pollingParams = new PollingParameters(0, LONG_POLL_INTERVAL, 2);
+        Monitor monitor = new Monitor("monitor1", matchable, new NotEmptyExecutor(), pollingParams, true, true,
+                                      false);
+
+        ResultListener listener = new ResultListener(1);
+        monitor.start(listener);
+        try {
+            // wait for the first attempt, it does not find anything
+            long startTime = System.currentTimeMillis();
+            while (matchable.polls.get() == 0 && System.currentTimeMillis() - startTime < 5000) {
+                Thread.sleep(10);
+            }
+            assertEquals(1, matchable.polls.get());
+
+            // the change is found long before the next attempt
+            matchable.addMetaData();
+            assertTrue(listener.await(5000));
+            assertEquals(Boolean.TRUE, listener.results.get("monitor1"));
+            assertEquals(2, matchable.polls.get());
+            assertEquals(1, monitor.getAllMatchedMetaData().size());
+
+            // the listener is removed when the monitor ends
+            assertNull(matchable.changeListener);
+        } finally {
+            monitor.cancelExecution();
+        }
+    }
+
+    @Test
+    public void changesAfterEndAreIgnored() throws Exception {
+
+        MockObservableMatchable matchable = new MockObservableMatchable();
+        matchable.addMetaData();
+        PollingParameters pollingParams = new PollingParameters(0, LONG_POLL_INTERVAL, 2);
+        Monitor monitor = new Monitor("monitor1", matchable, new NotEmptyExecutor(), pollingParams, true, true,
+                                      false);
+
+        ResultListener listener = new ResultListener(1);
+        MatchableChangeListener changeListener;
+        synchronized (monitor) {
+            monitor.start(listener);
+            changeListener = matchable.changeListener;
+        }
+        assertTrue(listener.await(5000));
+
+        changeListener.matchableChanged();
+        Thread.sleep(100);
+        assertEquals(1, matchable.polls.get());
+    }
+
+    @Test
+    public void manyMonitorsShareTheThreads() throws Exception {
+
+        final int monitorsCount = 200;
+
+        List<MockObservableMatchable> matchables = new ArrayList<>();
+        List<Monitor> monitors = new ArrayList<>();
+        ResultListener listener = new ResultListener(monitorsCount);
+        for (int i = 0; i < monitorsCount; i++) {
+            MockObservableMatchable matchable = new MockObservableMatchable();
+            matchables.add(matchable);
+            Monitor monitor = new Monitor("monitor" + i, matchable, new NotEmptyExecutor(),
+                                          new PollingParameters(0, 10, 1000), true, true, false);
+            monitors.add(monitor);
+            monitor.start(listener);
+        }
+
+        try {
+            Thread.sleep(100);
+            for (MockObservableMatchable matchable : matchables) {
+                matchable.addMetaData();
+            }
+            assertTrue(listener.await(10000));
+            for (int i = 0; i < monitorsCount; i++) {
+                assertEquals(Boolean.TRUE, listener.results.get("monitor" + i));
+            }
+
+            int monitorThreads = 0;
+            for (Thread thread : Thread.getAllStackTraces().keySet()) {
+                if (thread.getName().startsWith("RBV_monitor_")) {
+                    monitorThreads++;
+                }
+            }
+            assertTrue(monitorThreads <= RbvConfigurator.getInstance().getMonitorThreads());
+        } finally {
+            for (Monitor monitor : monitors) {
+                monitor.cancelExecution();
+            }
+        }
+    }
+
+    /**
+     * Matchable which has data only after it is added by the test
+     */
+    private static class MockObservableMatchable implements ObservableMatchable {
+
+        private final List<MetaData>             metaData = new ArrayList<>();
+        private final AtomicInteger              polls    = new AtomicInteger();
+        private volatile MatchableChangeListener changeListener;
+
+        synchronized void addMetaData() {
+
+            metaData.add(new MetaData());
+            if (changeListener != null) {
+                changeListener.matchableChanged();
+            }
+        }
+
+        @Override
+        public void setChangeListener(
+                                       MatchableChangeListener changeListener ) {
+
+            this.changeListener = changeListener;
+        }
+
+        @Override
+        public void open() {
+
+        }
+
+        @Override
+        public void close() {
+
+        }
+
+        @Override
+        public synchronized List<MetaData> getAllMetaData() {
+
+            polls.incrementAndGet();
+            return new ArrayList<>(metaData);
+        }
+
+        @Override
+        public List<MetaData> getNewMetaData() {
+
+            return getAllMetaData();
+        }
+
+        @Override
+        public String getDescription() {
+
+            return "mock data";
+        }
+
+        @Override
+        public String getMetaDataCounts() {
+
+            return "";
+        }
+    }
+
+    /**
+     * Matches all received meta data
+     */
+    private static class NotEmptyExecutor implements Executor {
+
+        @Override
+        public List<MetaData> evaluate(
+                                        List<MetaData> metaData ) throws RbvException {
+
+            return metaData;
+        }
+
+        @Override
+        public void setRootRule(
+                                 Rule rootRule ) {
+
+        }
+    }
+
+    private static class ResultListener implements MonitorListener {
+
+        private final CountDownLatch                     finishedMonitors;
+        private final ConcurrentHashMap<String, Boolean> results = new ConcurrentHashMap<>();
+
+        ResultListener( int monitorsCount ) {
+
+            finishedMonitors = new CountDownLatch(monitorsCount);
+        }
+
+        @Override
+        public void setFinished(
+                                 String monitorName,
+                                 boolean result ) {
+
+            results.put(monitorName, result);
+            finishedMonitors.countDown();
+        }
+
+        boolean await(
+                       long timeout ) throws InterruptedException {
+
+            return finishedMonitors.await(timeout, TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -45,4 +45,26 @@ public void testSetters() {
         assertTrue(params.getPollInterval() == 200);
         assertTrue(params.getPollAttempts() == 5);
     }
+
+    @Test
+    public void testBackoff() {
+
+        PollingParameters params = new PollingParameters(0, 100, 10);
+        // no backoff by default
+        assertTrue(params.getNextPollInterval(100) == 100);
+
+        params.setBackoffFactor(2);
+        assertTrue(params.getNextPollInterval(100) == 200);
+        assertTrue(params.getNextPollInterval(200) == 400);
+
+        params.setMaxPollInterval(300);
+        assertTrue(params.getNextPollInterval(200) == 300);
+        assertTrue(params.getNextPollInterval(300) == 300);
+    }
+
+    @Test( expected = IllegalArgumentException.class)
+    public void testBackoffFactorLessThanOne() {
+
+        new PollingParameters(0, 100, 10).setBackoffFactor(0.5);
+    }
 }
@@ -30,6 +30,7 @@
 import com.axway.ats.core.dbaccess.DbConnection;
 import com.axway.ats.core.dbaccess.DbProvider;
 import com.axway.ats.core.dbaccess.DbRecordValue;
+import com.axway.ats.core.dbaccess.DbRecordValuesIterator;
 import com.axway.ats.core.dbaccess.DbRecordValuesList;
 import com.axway.ats.core.dbaccess.DbReturnModes;
 import com.axway.ats.core.dbaccess.exceptions.DbException;
@@ -110,6 +111,13 @@ public DbRecordValuesList[] select(
         return null;
     }
 
+    public DbRecordValuesIterator selectIterator(
+                                                  DbQuery dbQuery,
+                                                  DbReturnModes dbReturnMode ) throws DbException {
+
+        return DbRecordValuesIterator.fromArray(select(dbQuery));
+    }
+
     public PreparedStatement createPreparedStatement(
                                                       String query ) throws DbException {
 
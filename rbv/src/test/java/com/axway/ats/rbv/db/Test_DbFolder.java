@@ -17,10 +17,16 @@
 
 import static org.junit.Assert.assertEquals;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.junit.Test;
 
+import com.axway.ats.common.dbaccess.DbQuery;
+import com.axway.ats.core.dbaccess.DbRecordValue;
+import com.axway.ats.core.dbaccess.DbRecordValuesIterator;
+import com.axway.ats.core.dbaccess.DbRecordValuesList;
+import com.axway.ats.core.dbaccess.DbReturnModes;
 import com.axway.ats.rbv.BaseTest;
 import com.axway.ats.rbv.MetaData;
 import com.axway.ats.rbv.db.DbSearchTerm;
@@ -188,4 +194,100 @@ public void openNegativeFolderAlreadyOpen() throws RbvStorageException {
         folder.open();
         folder.open();
     }
+
+    @Test
+    public void getNewMetaDataIncrementally() throws Exception {
+
+        IncrementalMockDbProvider dbProvider = new IncrementalMockDbProvider();
+        dbProvider.addRecord();
+        dbProvider.addRecord();
+
+        DbStorage storage = new DbStorage(dbProvider);
+        Matchable folder = storage.getFolder(new DbIncrementalSearchTerm("audit", "id"));
+
+        folder.open();
+
+        assertEquals(2, folder.getNewMetaData().size());
+        assertEquals(0, dbProvider.lastQuery.getArguments().size());
+
+        // only the records after the last read key are read
+        assertEquals(0, folder.getNewMetaData().size());
+        assertEquals(2L, dbProvider.lastQuery.getArguments().get(0));
+
+        dbProvider.addRecord();
+        List<MetaData> metaData = folder.getNewMetaData();
+        assertEquals(1, metaData.size());
+        assertEquals(3L, metaData.get(0).getProperty("audit.id"));
+        assertEquals("Total DB records: 3, new DB records: 1", folder.getMetaDataCounts());
+
+        folder.close();
+    }
+
+    @Test
+    public void getAllMetaDataIncrementally() throws Exception {
+
+        IncrementalMockDbProvider dbProvider = new IncrementalMockDbProvider();
+        dbProvider.addRecord();
+        dbProvider.addRecord();
+        dbProvider.addRecord();
+
+        DbStorage storage = new DbStorage(dbProvider);
+        Matchable folder = storage.getFolder(new DbIncrementalSearchTerm("audit", null, null, "id", 1L));
+
+        folder.open();
+
+        assertEquals(2, folder.getAllMetaData().size());
+        assertEquals(1L, dbProvider.lastQuery.getArguments().get(0));
+
+        // the records read by the previous polls are still returned
+        dbProvider.addRecord();
+        assertEquals(3, folder.getAllMetaData().size());
+        assertEquals(3L, dbProvider.lastQuery.getArguments().get(0));
+
+        folder.close();
+
+        // reopening starts from the start key value again
+        folder.open();
+        assertEquals(3, folder.getAllMetaData().size());
+        assertEquals(1L, dbProvider.lastQuery.getArguments().get(0));
+        folder.close();
+    }
+
+    /**
+     * Returns the records with key bigger than the last query argument
+     */
+    private static class IncrementalMockDbProvider extends MockDbProvider {
+
+        private final List<DbRecordValuesList> records = new ArrayList<DbRecordValuesList>();
+        private DbQuery                        lastQuery;
+
+        void addRecord() {
+
+            DbRecordValuesList record = new DbRecordValuesList();
+            record.add(new DbRecordValue("audit", "id", Long.valueOf(records.size() + 1)));
+            record.add(new DbRecordValue("audit", "event", "event" + (records.size() + 1)));
+            records.add(record);
+        }
+
+        @Override
+        public DbRecordValuesIterator selectIterator(
+                                                      DbQuery dbQuery,
+                                                      DbReturnModes dbReturnMode ) {
+
+            lastQuery = dbQuery;
+
+            long lastKeyValue = 0;
+            if (!dbQuery.getArguments().isEmpty()) {
+                lastKeyValue = (Long) dbQuery.getArguments().get(0);
+            }
+
+            List<DbRecordValuesList> result = new ArrayList<DbRecordValuesList>();
+            for (DbRecordValuesList record : records) {
+                if ((Long) record.get(0).getValue() > lastKeyValue) {
+                    result.add(record);
+                }
+            }
+            return DbRecordValuesIterator.fromArray(result.toArray(new DbRecordValuesList[result.size()]));
+        }
+    }
 }
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.rbv.db;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.axway.ats.common.dbaccess.DbQuery;
+import com.axway.ats.rbv.BaseTest;
+
+public class Test_DbIncrementalSearchTerm extends BaseTest {
+
+    @Test
+    public void allRows() {
+
+        DbIncrementalSearchTerm searchTerm = new DbIncrementalSearchTerm("audit", "id");
+
+        assertEquals("SELECT * FROM audit ORDER BY id", searchTerm.getDbQuery().getQuery());
+        assertEquals(0, searchTerm.getDbQuery().getArguments().size());
+
+        DbQuery query = searchTerm.getDbQuery(10L);
+        assertEquals("SELECT * FROM audit WHERE id > ? ORDER BY id", query.getQuery());
+        assertEquals(Arrays.asList((Object) 10L), query.getArguments());
+    }
+
+    @Test
+    public void rowsMatchingCondition() {
+
+        DbIncrementalSearchTerm searchTerm = new DbIncrementalSearchTerm("audit",
+                                                                         "type = ? OR type = ?",
+                                                                         Arrays.asList((Object) "a", "b"),
+                                                                         "id",
+                                                                         5L);
+
+        assertEquals("SELECT * FROM audit WHERE (type = ? OR type = ?) AND id > ? ORDER BY id",
+                     searchTerm.getDbQuery().getQuery());
+        assertEquals(Arrays.asList((Object) "a", "b", 5L), searchTerm.getDbQuery().getArguments());
+
+        DbQuery query = searchTerm.getDbQuery(null);
+        assertEquals("SELECT * FROM audit WHERE (type = ? OR type = ?) ORDER BY id", query.getQuery());
+        assertEquals(Arrays.asList((Object) "a", "b"), query.getArguments());
+    }
+}
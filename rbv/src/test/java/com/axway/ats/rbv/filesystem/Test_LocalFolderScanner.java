@@ -0,0 +1,191 @@
+/*
+ * Copyright 2021 Axway Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.axway.ats.rbv.filesystem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.axway.ats.core.utils.IoUtils;
+import com.axway.ats.rbv.BaseTest;
+
+public class Test_LocalFolderScanner extends BaseTest {
+
+    // the file system events come asynchronously
+    private static final long WAIT_FOR_CHANGES_TIMEOUT = 10000;
+
+    private File              rootDir;
+    private String            rootPath;
+
+    @Before
+    public void setUp() throws IOException {
+
+        rootDir = Files.createTempDirectory("ats_rbv_scanner").toFile().getCanonicalFile();
+        rootPath = rootDir.getPath();
+    }
+
+    @After
+    public void tearDown() {
+
+        delete(rootDir);
+    }
+
+    @Test
+    public void scanForChanges() throws Exception {
+
+        checkChanges(false);
+    }
+
+    @Test
+    public void watchForChanges() throws Exception {
+
+        checkChanges(true);
+    }
+
+    @Test
+    public void subFolders() throws Exception {
+
+        File subDir = new File(rootDir, "sub");
+        subDir.mkdir();
+        createFile(new File(rootDir, "file1.txt"));
+        createFile(new File(subDir, "file2.txt"));
+
+        LocalFolderScanner scanner = new LocalFolderScanner(rootPath, ".*\\.txt", true, false, false);
+        scanner.scan();
+        assertEquals(paths("file1.txt"), scanner.getFiles());
+
+        scanner = new LocalFolderScanner(rootPath, ".*", true, true, false);
+        scanner.scan();
+        assertEquals(paths("file1.txt", "sub" + File.separator, "sub" + File.separator + "file2.txt"),
+                     scanner.getFiles());
+
+        // a removed folder takes its files away
+        delete(subDir);
+        scanner.scan();
+        assertEquals(paths("file1.txt"), scanner.getFiles());
+    }
+
+    @Test
+    public void missingFolder() throws Exception {
+
+        delete(rootDir);
+
+        LocalFolderScanner scanner = new LocalFolderScanner(rootPath, "file1.txt", false, false, false);
+        assertTrue(scanner.scan().isEmpty());
+        assertTrue(scanner.getFiles().isEmpty());
+
+        rootDir.mkdir();
+        createFile(new File(rootDir, "file1.txt"));
+        createFile(new File(rootDir, "file2.txt"));
+        assertEquals(paths("file1.txt"), scanner.scan());
+    }
+
+    private void checkChanges( boolean useWatchService ) throws Exception {
+
+        File file1 = new File(rootDir, "file1.txt");
+        File file2 = new File(rootDir, "file2.txt");
+        createFile(file1);
+        createFile(file2);
+        createFile(new File(rootDir, "file3.dat"));
+
+        LocalFolderScanner scanner = new LocalFolderScanner(rootPath, ".*\\.txt", true, true,
+                                                            useWatchService);
+        try {
+            assertEquals(paths("file1.txt", "file2.txt"), scanner.scan());
+            assertEquals(paths("file1.txt", "file2.txt"), scanner.getFiles());
+
+            // nothing changed
+            assertTrue(scanner.scan().isEmpty());
+
+            // a new file
+            createFile(new File(rootDir, "file4.txt"));
+            assertEquals(paths("file4.txt"), waitForChanges(scanner));
+            assertEquals(paths("file1.txt", "file2.txt", "file4.txt"), scanner.getFiles());
+
+            // a changed file
+            try (FileOutputStream output = new FileOutputStream(file1, true)) {
+                output.write("more content".getBytes());
+            }
+            file1.setLastModified(file1.lastModified() - 60000);
+            assertEquals(paths("file1.txt"), waitForChanges(scanner));
+
+            // a removed file
+            file2.delete();
+            long startTime = System.currentTimeMillis();
+            while (scanner.getFiles().contains(file2.getPath())
+                   && System.currentTimeMillis() - startTime < WAIT_FOR_CHANGES_TIMEOUT) {
+                Thread.sleep(50);
+                scanner.scan();
+            }
+            assertEquals(paths("file1.txt", "file4.txt"), scanner.getFiles());
+        } finally {
+            scanner.close();
+        }
+    }
+
+    private Set<String> waitForChanges( LocalFolderScanner scanner ) throws Exception {
+
+        long startTime = System.currentTimeMillis();
+        Set<String> changedFiles = scanner.scan();
+        while (changedFiles.isEmpty() && System.currentTimeMillis() - startTime < WAIT_FOR_CHANGES_TIMEOUT) {
+            Thread.sleep(50);
+            changedFiles = scanner.scan();
+        }
+        return changedFiles;
+    }
+
+    private Set<String> paths( String... names ) {
+
+        Set<String> paths = new HashSet<>();
+        for (String name : Arrays.asList(names)) {
+            String path = new File(rootDir, name).getPath();
+            if (name.endsWith(File.separator)) {
+                path = IoUtils.normalizeDirPath(path);
+            }
+            paths.add(path);
+        }
+        return paths;
+    }
+
+    private void createFile( File file ) throws IOException {
+
+        try (FileOutputStream output = new FileOutputStream(file)) {
+            output.write(file.getName().getBytes());
+        }
+    }
+
+    private void delete( File file ) {
+
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}